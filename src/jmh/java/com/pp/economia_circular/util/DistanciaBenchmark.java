@@ -0,0 +1,94 @@
+package com.pp.economia_circular.util;
+
+import com.pp.economia_circular.entity.RecyclingCenter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Distancia de un punto a un lote de centros: haversine escalar sobre los getters
+ * {@code Double} de las entidades dentro de un stream (como se filtraban antes los cercanos)
+ * contra {@link LoteCoordenadas}. Se corre con {@code mvn test -Pbenchmark}
+ * (ver {@link DistanciaBenchmarkTest}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanciaBenchmark {
+
+    private static final double LATITUD = -34.6037;
+    private static final double LONGITUD = -58.3816;
+
+    @Param({"1000", "100000"})
+    private int puntos;
+
+    @Param({"10", "500"})
+    private double radioKm;
+
+    private List<RecyclingCenter> centros;
+    private LoteCoordenadas lote;
+    private int[] posiciones;
+    private double[] distancias;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        centros = new ArrayList<>(puntos);
+        lote = new LoteCoordenadas(puntos);
+        for (int i = 0; i < puntos; i++) {
+            RecyclingCenter center = new RecyclingCenter();
+            center.setId((long) i);
+            center.setLatitude(-55 + random.nextDouble() * 33);
+            center.setLongitude(-73 + random.nextDouble() * 20);
+            centros.add(center);
+            lote.agregar(i, center.getLatitude(), center.getLongitude());
+        }
+        posiciones = new int[puntos];
+        distancias = new double[puntos];
+    }
+
+    @Benchmark
+    public List<RecyclingCenter> escalarSobreEntidades() {
+        return centros.stream()
+                .filter(center -> haversineEscalar(LATITUD, LONGITUD, center.getLatitude(), center.getLongitude()) <= radioKm)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int loteDentroDeRadio() {
+        return lote.dentroDeRadio(LATITUD, LONGITUD, radioKm, posiciones, distancias);
+    }
+
+    @Benchmark
+    public double[] loteTodasLasDistancias() {
+        lote.distanciasKm(LATITUD, LONGITUD, distancias);
+        return distancias;
+    }
+
+    // La implementación escalar anterior: grados a radianes y cosenos en cada llamada
+    private static double haversineEscalar(double latitud1, double longitud1, double latitud2, double longitud2) {
+        double deltaLatitud = Math.toRadians(latitud2 - latitud1);
+        double deltaLongitud = Math.toRadians(longitud2 - longitud1);
+        double a = Math.sin(deltaLatitud / 2) * Math.sin(deltaLatitud / 2)
+                + Math.cos(Math.toRadians(latitud1)) * Math.cos(Math.toRadians(latitud2))
+                * Math.sin(deltaLongitud / 2) * Math.sin(deltaLongitud / 2);
+        return 2 * IndiceGeografico.RADIO_TIERRA_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,47 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Corre {@link DistanciaBenchmark} con JMH desde el perfil de benchmarks:
+ * {@code mvn test -Pbenchmark -Dtest=DistanciaBenchmarkTest}.
+ */
+@Tag("benchmark")
+class DistanciaBenchmarkTest {
+
+    @Test
+    void loteCoordenadas_MasRapidoQueElRecorridoEscalar() throws Exception {
+        // Act
+        Collection<RunResult> resultados = new Runner(new OptionsBuilder()
+                .include(DistanciaBenchmark.class.getName())
+                .build()).run();
+
+        // Assert - con cada combinación de parámetros el lote le gana al stream de entidades
+        Map<String, Double> escalar = new HashMap<>();
+        Map<String, Double> lote = new HashMap<>();
+        for (RunResult resultado : resultados) {
+            String benchmark = resultado.getParams().getBenchmark();
+            String parametros = resultado.getParams().getParam("puntos") + "/" + resultado.getParams().getParam("radioKm");
+            double tiempo = resultado.getPrimaryResult().getScore();
+            if (benchmark.endsWith("escalarSobreEntidades")) {
+                escalar.put(parametros, tiempo);
+            } else if (benchmark.endsWith("loteDentroDeRadio")) {
+                lote.put(parametros, tiempo);
+            }
+        }
+        assertFalse(escalar.isEmpty());
+        for (Map.Entry<String, Double> entrada : escalar.entrySet()) {
+            assertTrue(lote.get(entrada.getKey()) < entrada.getValue(), entrada.getKey());
+        }
+    }
+}
@@ -23,6 +23,10 @@ public class ArticleCreateDto {
     @NotNull(message = "La condición es obligatoria")
     private Articulo.CondicionArticulo condition;
     
+    // Opcionales: sin ellas el artículo toma la ubicación del usuario
+    private Double latitude;
+    private Double longitude;
+    
     // Constructors
     public ArticleCreateDto() {}
     
@@ -46,4 +50,10 @@ public class ArticleCreateDto {
     
     public Articulo.CondicionArticulo getCondition() { return condition; }
     public void setCondition(Articulo.CondicionArticulo condition) { this.condition = condition; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
 }
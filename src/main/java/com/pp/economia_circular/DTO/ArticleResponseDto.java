@@ -27,5 +27,9 @@ public class ArticleResponseDto {
     private String username;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Double latitude;
+    private Double longitude;
+    // Sólo en búsquedas por ubicación
+    private Double distanceKm;
 
 }
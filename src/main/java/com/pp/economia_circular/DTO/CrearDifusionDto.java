@@ -0,0 +1,23 @@
+package com.pp.economia_circular.DTO;
+
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+public class CrearDifusionDto {
+    
+    @NotBlank(message = "El contenido del mensaje es obligatorio")
+    @Size(max = 1000, message = "El mensaje no puede exceder 1000 caracteres")
+    private String contenido;
+    
+    // Constructores
+    public CrearDifusionDto() {}
+    
+    public CrearDifusionDto(String contenido) {
+        this.contenido = contenido;
+    }
+    
+    // Getters y Setters
+    public String getContenido() { return contenido; }
+    public void setContenido(String contenido) { this.contenido = contenido; }
+}
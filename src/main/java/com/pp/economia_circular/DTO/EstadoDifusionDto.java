@@ -0,0 +1,40 @@
+package com.pp.economia_circular.DTO;
+
+
+import java.time.LocalDateTime;
+
+public class EstadoDifusionDto {
+    
+    private String id;
+    private String estado;
+    private long total;
+    private long enviados;
+    private LocalDateTime iniciadoEn;
+    private LocalDateTime finalizadoEn;
+    private String error;
+    
+    // Constructores
+    public EstadoDifusionDto() {}
+    
+    // Getters y Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    
+    public long getEnviados() { return enviados; }
+    public void setEnviados(long enviados) { this.enviados = enviados; }
+    
+    public LocalDateTime getIniciadoEn() { return iniciadoEn; }
+    public void setIniciadoEn(LocalDateTime iniciadoEn) { this.iniciadoEn = iniciadoEn; }
+    
+    public LocalDateTime getFinalizadoEn() { return finalizadoEn; }
+    public void setFinalizadoEn(LocalDateTime finalizadoEn) { this.finalizadoEn = finalizadoEn; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
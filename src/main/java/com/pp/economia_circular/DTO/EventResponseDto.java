@@ -21,6 +21,9 @@ public class EventResponseDto {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
+    // Sólo en búsquedas por cercanía
+    private Double distanceKm;
+    
     // Constructors
     public EventResponseDto() {}
     
@@ -63,4 +66,7 @@ public class EventResponseDto {
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public Double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(Double distanceKm) { this.distanceKm = distanceKm; }
 }
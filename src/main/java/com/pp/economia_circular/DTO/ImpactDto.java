@@ -0,0 +1,41 @@
+package com.pp.economia_circular.DTO;
+
+
+import java.time.LocalDateTime;
+
+public class ImpactDto {
+    
+    // GLOBAL, USER o CATEGORY
+    private String scope;
+    private String key;
+    private long exchangedArticles;
+    private double co2SavedKg;
+    private double wasteReducedKg;
+    private double resourcesSaved;
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public ImpactDto() {}
+    
+    // Getters and Setters
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+    
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+    
+    public long getExchangedArticles() { return exchangedArticles; }
+    public void setExchangedArticles(long exchangedArticles) { this.exchangedArticles = exchangedArticles; }
+    
+    public double getCo2SavedKg() { return co2SavedKg; }
+    public void setCo2SavedKg(double co2SavedKg) { this.co2SavedKg = co2SavedKg; }
+    
+    public double getWasteReducedKg() { return wasteReducedKg; }
+    public void setWasteReducedKg(double wasteReducedKg) { this.wasteReducedKg = wasteReducedKg; }
+    
+    public double getResourcesSaved() { return resourcesSaved; }
+    public void setResourcesSaved(double resourcesSaved) { this.resourcesSaved = resourcesSaved; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
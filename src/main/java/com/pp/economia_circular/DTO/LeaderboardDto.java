@@ -0,0 +1,36 @@
+package com.pp.economia_circular.DTO;
+
+
+import java.util.List;
+
+public class LeaderboardDto {
+    
+    private String metric;
+    private String period;
+    private int totalUsers;
+    private int page;
+    private int size;
+    private List<LeaderboardEntryDto> entries;
+    
+    // Constructors
+    public LeaderboardDto() {}
+    
+    // Getters and Setters
+    public String getMetric() { return metric; }
+    public void setMetric(String metric) { this.metric = metric; }
+    
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+    
+    public int getTotalUsers() { return totalUsers; }
+    public void setTotalUsers(int totalUsers) { this.totalUsers = totalUsers; }
+    
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    
+    public List<LeaderboardEntryDto> getEntries() { return entries; }
+    public void setEntries(List<LeaderboardEntryDto> entries) { this.entries = entries; }
+}
@@ -0,0 +1,32 @@
+package com.pp.economia_circular.DTO;
+
+
+public class LeaderboardEntryDto {
+    
+    private int rank;
+    private Long userId;
+    private String displayName;
+    private Number score;
+    
+    // Constructors
+    public LeaderboardEntryDto() {}
+    
+    public LeaderboardEntryDto(int rank, Long userId, Number score) {
+        this.rank = rank;
+        this.userId = userId;
+        this.score = score;
+    }
+    
+    // Getters and Setters
+    public int getRank() { return rank; }
+    public void setRank(int rank) { this.rank = rank; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public String getDisplayName() { return displayName; }
+    public void setDisplayName(String displayName) { this.displayName = displayName; }
+    
+    public Number getScore() { return score; }
+    public void setScore(Number score) { this.score = score; }
+}
@@ -0,0 +1,40 @@
+package com.pp.economia_circular.DTO;
+
+
+public class MapClusterDto {
+    
+    private double latitude;
+    private double longitude;
+    private int count;
+    private int centerCount;
+    private int eventCount;
+    
+    // Sólo si el grupo tiene un único punto: CENTER o EVENT y su id
+    private String type;
+    private Long id;
+    
+    // Constructors
+    public MapClusterDto() {}
+    
+    // Getters and Setters
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+    
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+    
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+    
+    public int getCenterCount() { return centerCount; }
+    public void setCenterCount(int centerCount) { this.centerCount = centerCount; }
+    
+    public int getEventCount() { return eventCount; }
+    public void setEventCount(int eventCount) { this.eventCount = eventCount; }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+}
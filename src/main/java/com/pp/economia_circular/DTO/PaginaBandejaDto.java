@@ -0,0 +1,31 @@
+package com.pp.economia_circular.DTO;
+
+
+import java.util.List;
+
+public class PaginaBandejaDto {
+    
+    // Conversaciones de la página, la de mensaje más reciente primero
+    private List<ResumenConversacionDto> conversaciones;
+    private boolean hayMas;
+    
+    // Cursor para pedir la página siguiente (antesDeMensajeId / antesDeId)
+    private Long siguienteAntesDeMensajeId;
+    private Long siguienteAntesDeId;
+    
+    // Constructores
+    public PaginaBandejaDto() {}
+    
+    // Getters y Setters
+    public List<ResumenConversacionDto> getConversaciones() { return conversaciones; }
+    public void setConversaciones(List<ResumenConversacionDto> conversaciones) { this.conversaciones = conversaciones; }
+    
+    public boolean isHayMas() { return hayMas; }
+    public void setHayMas(boolean hayMas) { this.hayMas = hayMas; }
+    
+    public Long getSiguienteAntesDeMensajeId() { return siguienteAntesDeMensajeId; }
+    public void setSiguienteAntesDeMensajeId(Long siguienteAntesDeMensajeId) { this.siguienteAntesDeMensajeId = siguienteAntesDeMensajeId; }
+    
+    public Long getSiguienteAntesDeId() { return siguienteAntesDeId; }
+    public void setSiguienteAntesDeId(Long siguienteAntesDeId) { this.siguienteAntesDeId = siguienteAntesDeId; }
+}
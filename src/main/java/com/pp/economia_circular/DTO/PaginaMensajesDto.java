@@ -0,0 +1,32 @@
+package com.pp.economia_circular.DTO;
+
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class PaginaMensajesDto {
+    
+    // Mensajes de la página en orden cronológico (el más antiguo primero)
+    private List<RespuestaMensajeDto> mensajes;
+    private boolean hayMas;
+    
+    // Cursor para pedir la página anterior (antesDe / antesDeId)
+    private LocalDateTime siguienteAntesDe;
+    private Long siguienteAntesDeId;
+    
+    // Constructores
+    public PaginaMensajesDto() {}
+    
+    // Getters y Setters
+    public List<RespuestaMensajeDto> getMensajes() { return mensajes; }
+    public void setMensajes(List<RespuestaMensajeDto> mensajes) { this.mensajes = mensajes; }
+    
+    public boolean isHayMas() { return hayMas; }
+    public void setHayMas(boolean hayMas) { this.hayMas = hayMas; }
+    
+    public LocalDateTime getSiguienteAntesDe() { return siguienteAntesDe; }
+    public void setSiguienteAntesDe(LocalDateTime siguienteAntesDe) { this.siguienteAntesDe = siguienteAntesDe; }
+    
+    public Long getSiguienteAntesDeId() { return siguienteAntesDeId; }
+    public void setSiguienteAntesDeId(Long siguienteAntesDeId) { this.siguienteAntesDeId = siguienteAntesDeId; }
+}
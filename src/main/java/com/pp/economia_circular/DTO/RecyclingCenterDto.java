@@ -43,6 +43,9 @@ public class RecyclingCenterDto {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
+    // Sólo en búsquedas por cercanía
+    private Double distanceKm;
+    
     // Constructors
     public RecyclingCenterDto() {}
     
@@ -98,4 +101,7 @@ public class RecyclingCenterDto {
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public Double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(Double distanceKm) { this.distanceKm = distanceKm; }
 }
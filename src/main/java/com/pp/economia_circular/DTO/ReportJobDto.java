@@ -0,0 +1,48 @@
+package com.pp.economia_circular.DTO;
+
+
+import java.time.LocalDateTime;
+
+public class ReportJobDto {
+    
+    private String id;
+    private String type;
+    private String format;
+    private String status;
+    private long rows;
+    private long sizeBytes;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    
+    // Constructors
+    public ReportJobDto() {}
+    
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public long getRows() { return rows; }
+    public void setRows(long rows) { this.rows = rows; }
+    
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,45 @@
+package com.pp.economia_circular.DTO;
+
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+public class ReportJobRequestDto {
+    
+    // ARTICLES, USERS, TOP_USERS o TRENDS
+    @NotNull(message = "El tipo de reporte es obligatorio")
+    private String type;
+    
+    // CSV (por defecto) o NDJSON
+    private String format;
+    
+    // Sólo TOP_USERS
+    private String metric;
+    private Integer limit;
+    
+    // Sólo TRENDS
+    private LocalDate from;
+    private LocalDate to;
+    
+    // Constructors
+    public ReportJobRequestDto() {}
+    
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+    
+    public String getMetric() { return metric; }
+    public void setMetric(String metric) { this.metric = metric; }
+    
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+    
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+    
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+}
@@ -0,0 +1,44 @@
+package com.pp.economia_circular.DTO;
+
+
+import java.time.LocalDateTime;
+
+public class ResumenConversacionDto {
+    
+    private Long otroUsuarioId;
+    private String nombreOtroUsuario;
+    private Long articuloId;
+    private Long ultimoMensajeId;
+    private Long ultimoRemitenteId;
+    private String vistaPrevia;
+    private LocalDateTime ultimoMensajeEn;
+    private Integer noLeidos;
+    
+    // Constructores
+    public ResumenConversacionDto() {}
+    
+    // Getters y Setters
+    public Long getOtroUsuarioId() { return otroUsuarioId; }
+    public void setOtroUsuarioId(Long otroUsuarioId) { this.otroUsuarioId = otroUsuarioId; }
+    
+    public String getNombreOtroUsuario() { return nombreOtroUsuario; }
+    public void setNombreOtroUsuario(String nombreOtroUsuario) { this.nombreOtroUsuario = nombreOtroUsuario; }
+    
+    public Long getArticuloId() { return articuloId; }
+    public void setArticuloId(Long articuloId) { this.articuloId = articuloId; }
+    
+    public Long getUltimoMensajeId() { return ultimoMensajeId; }
+    public void setUltimoMensajeId(Long ultimoMensajeId) { this.ultimoMensajeId = ultimoMensajeId; }
+    
+    public Long getUltimoRemitenteId() { return ultimoRemitenteId; }
+    public void setUltimoRemitenteId(Long ultimoRemitenteId) { this.ultimoRemitenteId = ultimoRemitenteId; }
+    
+    public String getVistaPrevia() { return vistaPrevia; }
+    public void setVistaPrevia(String vistaPrevia) { this.vistaPrevia = vistaPrevia; }
+    
+    public LocalDateTime getUltimoMensajeEn() { return ultimoMensajeEn; }
+    public void setUltimoMensajeEn(LocalDateTime ultimoMensajeEn) { this.ultimoMensajeEn = ultimoMensajeEn; }
+    
+    public Integer getNoLeidos() { return noLeidos; }
+    public void setNoLeidos(Integer noLeidos) { this.noLeidos = noLeidos; }
+}
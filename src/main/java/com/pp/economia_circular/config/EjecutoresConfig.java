@@ -0,0 +1,62 @@
+package com.pp.economia_circular.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+
+/**
+ * Ejecutores acotados para trabajos largos que no deben ocupar hilos de petición.
+ */
+@Configuration
+public class EjecutoresConfig {
+
+    // Una difusión a la vez satura la base de sobra; el resto espera en cola
+    @Bean(name = "ejecutorDifusion")
+    public ThreadPoolTaskExecutor ejecutorDifusion() {
+        ThreadPoolTaskExecutor ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(1);
+        ejecutor.setMaxPoolSize(1);
+        ejecutor.setQueueCapacity(10);
+        ejecutor.setThreadNamePrefix("difusion-");
+        ejecutor.setWaitForTasksToCompleteOnShutdown(true);
+        ejecutor.setAwaitTerminationSeconds(60);
+        ejecutor.initialize();
+        return ejecutor;
+    }
+
+    // Reportes exportados a archivo: pocos a la vez, el resto espera; si la cola se llena se rechaza
+    @Bean(name = "ejecutorReportes")
+    public ThreadPoolTaskExecutor ejecutorReportes() {
+        ThreadPoolTaskExecutor ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(2);
+        ejecutor.setMaxPoolSize(2);
+        ejecutor.setQueueCapacity(20);
+        ejecutor.setThreadNamePrefix("reportes-");
+        ejecutor.setWaitForTasksToCompleteOnShutdown(true);
+        ejecutor.setAwaitTerminationSeconds(60);
+        ejecutor.initialize();
+        return ejecutor;
+    }
+
+    // Secciones de reportes compuestos: cada hilo ocupa una conexión, así que nunca más de
+    // la mitad del pool; el resto queda para las peticiones normales
+    @Bean(name = "ejecutorSeccionesReporte")
+    public ThreadPoolTaskExecutor ejecutorSeccionesReporte(DataSource dataSource,
+                                                           @Value("${reports.sections.max-threads:4}") int maxHilos) {
+        int hilos = maxHilos;
+        if (dataSource instanceof HikariDataSource) {
+            hilos = Math.min(hilos, Math.max(1, ((HikariDataSource) dataSource).getMaximumPoolSize() / 2));
+        }
+        ThreadPoolTaskExecutor ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(hilos);
+        ejecutor.setMaxPoolSize(hilos);
+        ejecutor.setQueueCapacity(100);
+        ejecutor.setThreadNamePrefix("reporte-seccion-");
+        ejecutor.initialize();
+        return ejecutor;
+    }
+}
@@ -0,0 +1,70 @@
+package com.pp.economia_circular.config;
+
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import com.pp.economia_circular.service.JWTService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autentica el handshake WebSocket con el mismo JWT que usa la API REST.
+ * Los navegadores no permiten cabeceras propias en el handshake, por eso
+ * también se acepta el token como parámetro {@code ?token=}.
+ */
+@Component
+public class JWTHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String ATRIBUTO_USUARIO_ID = "usuarioId";
+
+    @Autowired
+    private JWTService jwtService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = extraerToken(request);
+
+        if (token != null && jwtService.validarToken(token)) {
+            String email = jwtService.extraerEmail(token);
+            Usuario usuario = usuarioRepository.findByEmail(email).orElse(null);
+
+            if (usuario != null && usuario.isActivo()) {
+                attributes.put(ATRIBUTO_USUARIO_ID, usuario.getId());
+                return true;
+            }
+        }
+
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        return false;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private String extraerToken(ServerHttpRequest request) {
+        List<String> authHeaders = request.getHeaders().get("Authorization");
+        if (authHeaders != null) {
+            for (String authHeader : authHeaders) {
+                if (authHeader.startsWith("Bearer ")) {
+                    return authHeader.substring(7);
+                }
+            }
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst("token");
+    }
+}
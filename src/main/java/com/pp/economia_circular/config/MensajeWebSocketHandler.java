@@ -0,0 +1,44 @@
+package com.pp.economia_circular.config;
+
+import com.pp.economia_circular.service.NotificadorMensajes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Canal de sólo envío: el servidor publica mensajes nuevos y cambios del contador
+ * de no leídos. Los mensajes entrantes del cliente (p. ej. pings) se ignoran.
+ */
+@Component
+public class MensajeWebSocketHandler extends TextWebSocketHandler {
+
+    @Autowired
+    private NotificadorMensajes notificadorMensajes;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        notificadorMensajes.registrar(usuarioId(session), session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        // Sin mensajes entrantes: el envío sigue pasando por POST /api/mensajes
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        notificadorMensajes.desregistrar(usuarioId(session), session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        notificadorMensajes.desregistrar(usuarioId(session), session);
+    }
+
+    private Long usuarioId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(JWTHandshakeInterceptor.ATRIBUTO_USUARIO_ID);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pp.economia_circular.config;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Migración Liquibase que completa {@code mensajes.conversacion_id} por rangos de id,
+ * confirmando cada lote para no mantener bloqueada la tabla entera en bases grandes.
+ * Es reanudable: sólo toca filas que todavía no tienen la clave.
+ */
+public class RellenoConversacionMensajes implements CustomTaskChange {
+
+    private static final String ACTUALIZAR_LOTE =
+            "UPDATE mensajes SET conversacion_id = " +
+            "CONCAT(LEAST(remitente_id, destinatario_id), ':', GREATEST(remitente_id, destinatario_id)) " +
+            "WHERE id >= ? AND id < ? AND conversacion_id IS NULL";
+
+    private int tamanioLote = 5000;
+    private long filasActualizadas;
+
+    public void setTamanioLote(String tamanioLote) {
+        this.tamanioLote = Integer.parseInt(tamanioLote);
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection conexion = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try {
+            long minimo;
+            long maximo;
+            try (Statement consulta = conexion.createStatement();
+                 ResultSet rango = consulta.executeQuery(
+                         "SELECT MIN(id), MAX(id) FROM mensajes WHERE conversacion_id IS NULL")) {
+                rango.next();
+                minimo = rango.getLong(1);
+                if (rango.wasNull()) {
+                    return;
+                }
+                maximo = rango.getLong(2);
+            }
+
+            try (PreparedStatement actualizar = conexion.prepareStatement(ACTUALIZAR_LOTE)) {
+                for (long desde = minimo; desde <= maximo; desde += tamanioLote) {
+                    actualizar.setLong(1, desde);
+                    actualizar.setLong(2, desde + tamanioLote);
+                    filasActualizadas += actualizar.executeUpdate();
+                    if (!conexion.getAutoCommit()) {
+                        conexion.commit();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new CustomChangeException("Error completando conversacion_id en mensajes", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "conversacion_id completado en " + filasActualizadas + " mensajes";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errores = new ValidationErrors();
+        if (tamanioLote <= 0) {
+            errores.addError("tamanioLote debe ser mayor que cero");
+        }
+        return errores;
+    }
+}
@@ -91,6 +91,23 @@ public class ArticleController {
         }
     }
     
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getArticlesNearLocation(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "10") Double radiusKm,
+            @RequestParam(required = false) Articulo.CategoriaArticulo category,
+            @RequestParam(required = false) Articulo.EstadoArticulo status,
+            @RequestParam(defaultValue = "20") Integer limit) {
+        try {
+            List<ArticleResponseDto> articles = articleService.getArticlesNearLocation(
+                    latitude, longitude, radiusKm, category, status, limit);
+            return ResponseEntity.ok(articles);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/my-articles")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> getMyArticles() {
@@ -133,6 +150,17 @@ public class ArticleController {
         }
     }
     
+    @PutMapping("/{id}/exchanged")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<?> markAsExchanged(@PathVariable Long id) {
+        try {
+            ArticleResponseDto article = articleService.markAsExchanged(id);
+            return ResponseEntity.ok(article);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> deleteArticle(@PathVariable Long id) {
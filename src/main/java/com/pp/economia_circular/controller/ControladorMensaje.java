@@ -1,15 +1,24 @@
 package com.pp.economia_circular.controller;
 
 
+import com.pp.economia_circular.DTO.CrearDifusionDto;
 import com.pp.economia_circular.DTO.CrearMensajeDto;
+import com.pp.economia_circular.DTO.EstadoDifusionDto;
+import com.pp.economia_circular.DTO.PaginaBandejaDto;
+import com.pp.economia_circular.DTO.PaginaMensajesDto;
 import com.pp.economia_circular.DTO.RespuestaMensajeDto;
+import com.pp.economia_circular.service.ServicioDifusion;
 import com.pp.economia_circular.service.ServicioMensaje;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -21,6 +30,9 @@ public class ControladorMensaje {
     @Autowired
     private ServicioMensaje servicioMensaje;
     
+    @Autowired
+    private ServicioDifusion servicioDifusion;
+    
     @PostMapping
     public ResponseEntity<?> enviarMensaje(@Valid @RequestBody CrearMensajeDto crearDto, @RequestParam Long remitenteId) {
         try {
@@ -31,6 +43,28 @@ public class ControladorMensaje {
         }
     }
     
+    @PostMapping("/difusion")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> iniciarDifusion(@Valid @RequestBody CrearDifusionDto crearDto) {
+        try {
+            EstadoDifusionDto estado = servicioDifusion.iniciar(crearDto);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(estado);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/difusion/{difusionId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> obtenerEstadoDifusion(@PathVariable String difusionId) {
+        try {
+            EstadoDifusionDto estado = servicioDifusion.obtenerEstado(difusionId);
+            return ResponseEntity.ok(estado);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/usuario/{usuarioId}")
     public ResponseEntity<?> obtenerMisMensajes(@PathVariable Long usuarioId) {
         try {
@@ -41,6 +75,36 @@ public class ControladorMensaje {
         }
     }
     
+    @GetMapping("/bandeja/{usuarioId}")
+    public ResponseEntity<?> obtenerBandejaEntrada(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) Long antesDeMensajeId,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            PaginaBandejaDto bandeja = servicioMensaje.obtenerBandejaEntrada(usuarioId, antesDeMensajeId, antesDeId, limite);
+            return ResponseEntity.ok(bandeja);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/conversacion")
+    public ResponseEntity<?> obtenerConversacionPaginada(
+            @RequestParam Long usuarioId,
+            @RequestParam Long otroUsuarioId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(defaultValue = "50") int limite) {
+        try {
+            PaginaMensajesDto pagina = servicioMensaje.obtenerConversacionPaginada(
+                    usuarioId, otroUsuarioId, antesDe, antesDeId, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/conversacion/{usuarioId}/{otroUsuarioId}")
     public ResponseEntity<?> obtenerConversacionConUsuario(@PathVariable Long usuarioId, @PathVariable Long otroUsuarioId) {
         try {
@@ -91,6 +155,46 @@ public class ControladorMensaje {
         }
     }
     
+    @PutMapping("/conversacion/leer")
+    public ResponseEntity<?> marcarConversacionComoLeida(@RequestParam Long usuarioId, @RequestParam Long otroUsuarioId) {
+        try {
+            int actualizados = servicioMensaje.marcarConversacionComoLeida(usuarioId, otroUsuarioId);
+            return ResponseEntity.ok(Collections.singletonMap("actualizados", actualizados));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @PutMapping("/leer")
+    public ResponseEntity<?> marcarComoLeidos(@RequestBody List<Long> mensajeIds, @RequestParam Long usuarioId) {
+        try {
+            int actualizados = servicioMensaje.marcarComoLeidos(mensajeIds, usuarioId);
+            return ResponseEntity.ok(Collections.singletonMap("actualizados", actualizados));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @DeleteMapping("/conversacion")
+    public ResponseEntity<?> eliminarConversacion(@RequestParam Long usuarioId, @RequestParam Long otroUsuarioId) {
+        try {
+            int eliminados = servicioMensaje.eliminarConversacion(usuarioId, otroUsuarioId);
+            return ResponseEntity.ok(Collections.singletonMap("actualizados", eliminados));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @PostMapping("/eliminar")
+    public ResponseEntity<?> eliminarMensajes(@RequestBody List<Long> mensajeIds, @RequestParam Long usuarioId) {
+        try {
+            int eliminados = servicioMensaje.eliminarMensajes(mensajeIds, usuarioId);
+            return ResponseEntity.ok(Collections.singletonMap("actualizados", eliminados));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @DeleteMapping("/{mensajeId}")
     public ResponseEntity<?> eliminarMensaje(@PathVariable Long mensajeId, @RequestParam Long usuarioId) {
         try {
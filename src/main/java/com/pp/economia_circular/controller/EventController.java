@@ -54,6 +54,22 @@ public class EventController {
         }
     }
     
+    @GetMapping("/upcoming/nearby")
+    public ResponseEntity<?> getUpcomingEventsNearLocation(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "10") Double radiusKm,
+            @RequestParam(defaultValue = "14") Integer days,
+            @RequestParam(required = false) Event.EventType eventType) {
+        try {
+            List<EventResponseDto> events = eventService.getUpcomingEventsNearLocation(
+                    latitude, longitude, radiusKm, days, eventType);
+            return ResponseEntity.ok(events);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/type/{eventType}")
     public ResponseEntity<?> getEventsByType(@PathVariable Event.EventType eventType) {
         try {
@@ -0,0 +1,76 @@
+package com.pp.economia_circular.controller;
+
+
+import com.pp.economia_circular.DTO.ImpactDto;
+import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.service.ImpactService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/impact")
+@CrossOrigin(origins = "*")
+public class ImpactController {
+    
+    @Autowired
+    private ImpactService impactService;
+    
+    @GetMapping("/me")
+    public ResponseEntity<?> getMyImpact() {
+        try {
+            ImpactDto impact = impactService.getMyImpact();
+            return ResponseEntity.ok(impact);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/global")
+    public ResponseEntity<?> getGlobalImpact() {
+        try {
+            ImpactDto impact = impactService.getGlobalImpact();
+            return ResponseEntity.ok(impact);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/categories")
+    public ResponseEntity<?> getImpactByCategory() {
+        try {
+            List<ImpactDto> impact = impactService.getImpactByCategory();
+            return ResponseEntity.ok(impact);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/categories/{category}")
+    public ResponseEntity<?> getCategoryImpact(@PathVariable Articulo.CategoriaArticulo category) {
+        try {
+            ImpactDto impact = impactService.getCategoryImpact(category);
+            return ResponseEntity.ok(impact);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/users/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getUserImpact(@PathVariable Long userId) {
+        try {
+            ImpactDto impact = impactService.getUserImpact(userId);
+            return ResponseEntity.ok(impact);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.pp.economia_circular.controller;
+
+
+import com.pp.economia_circular.DTO.LeaderboardDto;
+import com.pp.economia_circular.DTO.LeaderboardEntryDto;
+import com.pp.economia_circular.service.LeaderboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+
+@RestController
+@RequestMapping("/api/leaderboards")
+@CrossOrigin(origins = "*")
+public class LeaderboardController {
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @GetMapping("/{metric}")
+    public ResponseEntity<?> getLeaderboard(
+            @PathVariable String metric,
+            @RequestParam(required = false) String month,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            LeaderboardDto leaderboard = leaderboardService.getLeaderboard(metric, month, page, size);
+            return ResponseEntity.ok(leaderboard);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/{metric}/me")
+    public ResponseEntity<?> getMyPosition(
+            @PathVariable String metric,
+            @RequestParam(required = false) String month) {
+        try {
+            LeaderboardEntryDto position = leaderboardService.getMyPosition(metric, month);
+            return ResponseEntity.ok(position);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuild() {
+        try {
+            int tableros = leaderboardService.reconstruir();
+            return ResponseEntity.ok(Collections.singletonMap("boards", tableros));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pp.economia_circular.controller;
+
+
+import com.pp.economia_circular.DTO.MapClusterDto;
+import com.pp.economia_circular.service.MapClusterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/map")
+@CrossOrigin(origins = "*")
+public class MapController {
+    
+    @Autowired
+    private MapClusterService mapClusterService;
+    
+    @GetMapping("/clusters")
+    public ResponseEntity<?> getClusters(
+            @RequestParam String bbox,
+            @RequestParam Integer zoom,
+            @RequestParam(required = false) String layers) {
+        try {
+            List<MapClusterDto> clusters = mapClusterService.getClusters(bbox, zoom, layers);
+            return ResponseEntity.ok(clusters);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
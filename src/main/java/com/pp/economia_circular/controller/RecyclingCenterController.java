@@ -5,12 +5,14 @@ import com.pp.economia_circular.DTO.RecyclingCenterDto;
 import com.pp.economia_circular.entity.RecyclingCenter;
 import com.pp.economia_circular.service.RecyclingCenterService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 
@@ -57,9 +59,31 @@ public class RecyclingCenterController {
     public ResponseEntity<?> getCentersNearLocation(
             @RequestParam Double latitude,
             @RequestParam Double longitude,
-            @RequestParam(defaultValue = "5") Double radiusKm) {
+            @RequestParam(defaultValue = "5") Double radiusKm,
+            @RequestParam(required = false) RecyclingCenter.CenterType centerType,
+            @RequestParam(defaultValue = "false") boolean openNow,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime openAt) {
         try {
-            List<RecyclingCenterDto> centers = recyclingCenterService.getCentersNearLocation(latitude, longitude, radiusKm);
+            List<RecyclingCenterDto> centers = recyclingCenterService.getCentersNearLocation(latitude, longitude, radiusKm,
+                    centerType, openNow ? LocalDateTime.now() : openAt);
+            return ResponseEntity.ok(centers);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/nearest")
+    public ResponseEntity<?> getNearestCenters(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "5") Integer k,
+            @RequestParam(required = false) RecyclingCenter.CenterType centerType,
+            @RequestParam(required = false) RecyclingCenter.CenterStatus status,
+            @RequestParam(defaultValue = "false") boolean openNow,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime openAt) {
+        try {
+            List<RecyclingCenterDto> centers = recyclingCenterService.getNearestCenters(latitude, longitude, k,
+                    centerType, status, openNow ? LocalDateTime.now() : openAt);
             return ResponseEntity.ok(centers);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -3,6 +3,7 @@ package com.pp.economia_circular.controller;
 import com.pp.economia_circular.DTO.UsuarioRequest;
 import com.pp.economia_circular.entity.Usuario;
 import com.pp.economia_circular.repositories.UsuarioRepository;
+import com.pp.economia_circular.service.ReportChangeTracker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -21,6 +22,9 @@ public class RegistroController {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private ReportChangeTracker reportChangeTracker;
+
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     @PostMapping("/registrar")
@@ -57,6 +61,7 @@ public class RegistroController {
                 .actualizadoEn(LocalDateTime.now())
                 .build();
         usuarioRepository.save(usuario);
+        reportChangeTracker.markChanged(Usuario.class);
         return ResponseEntity.ok().build();
     }
 
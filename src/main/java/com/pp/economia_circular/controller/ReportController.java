@@ -2,28 +2,64 @@ package com.pp.economia_circular.controller;
 
 
 import com.pp.economia_circular.DTO.ReportDto;
+import com.pp.economia_circular.DTO.ReportJobDto;
+import com.pp.economia_circular.DTO.ReportJobRequestDto;
+import com.pp.economia_circular.service.ReportJobService;
 import com.pp.economia_circular.service.ReportService;
+import com.pp.economia_circular.service.ReportSnapshotService;
+import com.pp.economia_circular.service.ReportType;
+import com.pp.economia_circular.service.ServicioMetricasDiarias;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Collections;
+
 @RestController
 @RequestMapping("/api/reports")
 @CrossOrigin(origins = "*")
 public class ReportController {
     
+    // Atributos de Tomcat para delegar el envío del archivo al conector (sendfile, sin copiar al heap)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    // Los reportes se sirven desde snapshots precalculados (ver ReportSnapshotService)
+    @Autowired
+    private ReportSnapshotService reportSnapshotService;
+    
     @Autowired
-    private ReportService reportService;
+    private ServicioMetricasDiarias servicioMetricasDiarias;
+    
+    @Autowired
+    private ReportJobService reportJobService;
     
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> generateUserReport() {
         try {
-            ReportDto report = reportService.generateUserReport();
+            ReportDto report = reportSnapshotService.getReport(ReportType.USERS);
             return ResponseEntity.ok(report);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -34,7 +70,18 @@ public class ReportController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> generateArticleReport() {
         try {
-            ReportDto report = reportService.generateArticleReport();
+            ReportDto report = reportSnapshotService.getReport(ReportType.ARTICLES);
+            return ResponseEntity.ok(report);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/overview")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> generateOverviewReport() {
+        try {
+            ReportDto report = reportSnapshotService.getReport(ReportType.OVERVIEW);
             return ResponseEntity.ok(report);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -43,9 +90,11 @@ public class ReportController {
     
     @GetMapping("/top-users")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> generateTopUsersReport() {
+    public ResponseEntity<?> generateTopUsersReport(
+            @RequestParam(defaultValue = "AVAILABLE_ARTICLES") ReportService.TopUsersMetric metric,
+            @RequestParam(defaultValue = "10") int limit) {
         try {
-            ReportDto report = reportService.generateTopUsersReport();
+            ReportDto report = reportSnapshotService.getTopUsers(metric, limit);
             return ResponseEntity.ok(report);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -56,7 +105,7 @@ public class ReportController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> generateTopArticlesReport() {
         try {
-            ReportDto report = reportService.generateTopArticlesReport();
+            ReportDto report = reportSnapshotService.getReport(ReportType.TOP_ARTICLES);
             return ResponseEntity.ok(report);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -67,17 +116,93 @@ public class ReportController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> generateCommunicationReport() {
         try {
-            ReportDto report = reportService.generateCommunicationReport();
+            ReportDto report = reportSnapshotService.getReport(ReportType.COMMUNICATION);
+            return ResponseEntity.ok(report);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/trends")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> generateTrendsReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            ReportDto report = servicioMetricasDiarias.obtenerTendencias(from, to);
             return ResponseEntity.ok(report);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
+    @PostMapping("/trends/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildTrends(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            int dias = servicioMetricasDiarias.reconstruir(from, to);
+            return ResponseEntity.ok(Collections.singletonMap("days", dias));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @PostMapping("/jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> submitReportJob(@Valid @RequestBody ReportJobRequestDto solicitud) {
+        try {
+            ReportJobDto job = reportJobService.submit(solicitud);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getReportJob(@PathVariable String jobId) {
+        try {
+            ReportJobDto job = reportJobService.getStatus(jobId);
+            return ResponseEntity.ok(job);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/jobs/{jobId}/download")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> downloadReportJob(@PathVariable String jobId, HttpServletRequest request) {
+        try {
+            ReportJobService.ReportJobResult resultado = reportJobService.getResult(jobId);
+            long tamanio = Files.size(resultado.getPath());
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(resultado.getContentType()));
+            headers.setContentLength(tamanio);
+            headers.setContentDisposition(ContentDisposition.builder("attachment")
+                    .filename(resultado.getFileName()).build());
+            
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // Sin cuerpo: Tomcat copia el archivo al socket cuando el controlador retorna
+                request.setAttribute(SENDFILE_FILENAME, resultado.getPath().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, tamanio);
+                return ResponseEntity.ok().headers(headers).build();
+            }
+            // Otros contenedores: se transmite por bloques desde el archivo
+            return ResponseEntity.ok().headers(headers).body(new FileSystemResource(resultado.getPath()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("El reporte ya no está disponible");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/environmental-impact")
     public ResponseEntity<?> generateEnvironmentalImpactReport() {
         try {
-            ReportDto report = reportService.generateEnvironmentalImpactReport();
+            ReportDto report = reportSnapshotService.getReport(ReportType.ENVIRONMENTAL_IMPACT);
             return ResponseEntity.ok(report);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
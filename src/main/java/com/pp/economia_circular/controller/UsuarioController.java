@@ -3,6 +3,8 @@ package com.pp.economia_circular.controller;
 import com.pp.economia_circular.entity.Taller;
 import com.pp.economia_circular.entity.Usuario;
 import com.pp.economia_circular.repositories.UsuarioRepository;
+import com.pp.economia_circular.service.ReportChangeTracker;
+import com.pp.economia_circular.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +19,12 @@ public class UsuarioController {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ReportChangeTracker reportChangeTracker;
+
     // GET: listar todos los usuarios
     @GetMapping
     public List<Usuario> listarUsuarios() {
@@ -35,25 +43,19 @@ public class UsuarioController {
     @PostMapping
     public void crearUsuario(@RequestBody Usuario usuario) {
          usuarioRepository.save(usuario);
+         reportChangeTracker.markChanged(Usuario.class);
     }
 
     // PUT: modificar usuario
     @PutMapping("/{id}")
-    public ResponseEntity<Usuario> actualizarUsuario(@PathVariable Long id, @RequestBody Usuario datosActualizados) {
-        return usuarioRepository.findById(id)
-                .map(usuario -> {
-                    usuario.setNombre(datosActualizados.getNombre());
-                    usuario.setApellido(datosActualizados.getApellido());
-                    usuario.setEmail(datosActualizados.getEmail());
-                    usuario.setContrasena(datosActualizados.getContrasena());
-                    usuario.setRol(datosActualizados.getRol());
-                    usuario.setDomicilio(datosActualizados.getDomicilio());
-                    usuario.setFoto(datosActualizados.getFoto());
-                    usuario.setActivo(datosActualizados.isActivo());
-                    usuario.setActualizadoEn(java.time.LocalDateTime.now());
-                    return ResponseEntity.ok(usuarioRepository.save(usuario));
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> actualizarUsuario(@PathVariable Long id, @RequestBody Usuario datosActualizados) {
+        try {
+            return usuarioService.actualizarUsuario(id, datosActualizados)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     // DELETE: eliminar usuario
@@ -63,6 +65,7 @@ public class UsuarioController {
         return usuarioRepository.findById(id)
                 .map(usuario -> {
                     usuarioRepository.delete(usuario);
+                    reportChangeTracker.markChanged(Usuario.class);
                     return ResponseEntity.ok().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
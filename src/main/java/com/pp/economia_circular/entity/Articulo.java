@@ -14,7 +14,10 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "articulos")
+@Table(name = "articulos", indexes = {
+    @Index(name = "idx_articulos_estado_categoria_lat_lon", columnList = "estado, categoria, latitud, longitud"),
+    @Index(name = "idx_articulos_estado_lat_lon", columnList = "estado, latitud, longitud")
+})
 public class Articulo {
 
     // Getters y Setters
@@ -39,6 +42,14 @@ public class Articulo {
     @Enumerated(EnumType.STRING)
     private EstadoArticulo estado = EstadoArticulo.DISPONIBLE;
     
+    private Double latitud;
+    
+    private Double longitud;
+    
+    // false: la ubicación es la del usuario y se actualiza con ella
+    @Column(name = "ubicacion_propia")
+    private boolean ubicacionPropia = false;
+    
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
@@ -0,0 +1,50 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+
+/**
+ * Impacto estimado que evita reutilizar un artículo de una categoría
+ * (en lugar de comprar uno nuevo). Editable en la base sin redeploy.
+ */
+@Entity
+@Table(name = "coeficientes_impacto")
+public class CoeficienteImpacto {
+    
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 50)
+    private Articulo.CategoriaArticulo categoria;
+    
+    @Column(name = "co2_kg", nullable = false)
+    private Double co2Kg;
+    
+    @Column(name = "residuos_kg", nullable = false)
+    private Double residuosKg;
+    
+    @Column(nullable = false)
+    private Double recursos;
+    
+    // Constructores
+    public CoeficienteImpacto() {}
+    
+    public CoeficienteImpacto(Articulo.CategoriaArticulo categoria, Double co2Kg, Double residuosKg, Double recursos) {
+        this.categoria = categoria;
+        this.co2Kg = co2Kg;
+        this.residuosKg = residuosKg;
+        this.recursos = recursos;
+    }
+    
+    // Getters y Setters
+    public Articulo.CategoriaArticulo getCategoria() { return categoria; }
+    public void setCategoria(Articulo.CategoriaArticulo categoria) { this.categoria = categoria; }
+    
+    public Double getCo2Kg() { return co2Kg; }
+    public void setCo2Kg(Double co2Kg) { this.co2Kg = co2Kg; }
+    
+    public Double getResiduosKg() { return residuosKg; }
+    public void setResiduosKg(Double residuosKg) { this.residuosKg = residuosKg; }
+    
+    public Double getRecursos() { return recursos; }
+    public void setRecursos(Double recursos) { this.recursos = recursos; }
+}
@@ -0,0 +1,52 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "contadores_no_leidos")
+public class ContadorNoLeidos {
+    
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+    
+    @Column(nullable = false)
+    private Long cantidad = 0L;
+    
+    @Column(name = "actualizado_en")
+    private LocalDateTime actualizadoEn;
+    
+    @Column(name = "reconciliado_en")
+    private LocalDateTime reconciliadoEn;
+    
+    // Constructores
+    public ContadorNoLeidos() {
+        this.actualizadoEn = LocalDateTime.now();
+    }
+    
+    public ContadorNoLeidos(Long usuarioId, Long cantidad) {
+        this();
+        this.usuarioId = usuarioId;
+        this.cantidad = cantidad;
+    }
+    
+    public ContadorNoLeidos(Long usuarioId, Long cantidad, LocalDateTime reconciliadoEn) {
+        this(usuarioId, cantidad);
+        this.reconciliadoEn = reconciliadoEn;
+    }
+    
+    // Getters y Setters
+    public Long getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+    
+    public Long getCantidad() { return cantidad; }
+    public void setCantidad(Long cantidad) { this.cantidad = cantidad; }
+    
+    public LocalDateTime getActualizadoEn() { return actualizadoEn; }
+    public void setActualizadoEn(LocalDateTime actualizadoEn) { this.actualizadoEn = actualizadoEn; }
+    
+    public LocalDateTime getReconciliadoEn() { return reconciliadoEn; }
+    public void setReconciliadoEn(LocalDateTime reconciliadoEn) { this.reconciliadoEn = reconciliadoEn; }
+}
@@ -7,7 +7,9 @@ import javax.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+    @Index(name = "idx_events_status_lat_lon", columnList = "status, latitude, longitude")
+})
 public class Event {
     
     @Id
@@ -0,0 +1,72 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Totales corrientes de impacto por ámbito. La clave es {@code GLOBAL},
+ * {@code USUARIO:<id>} o {@code CATEGORIA:<categoria>}; cada lectura es un acceso por PK.
+ */
+@Entity
+@Table(name = "impacto_acumulado")
+public class ImpactoAcumulado {
+    
+    public static final String GLOBAL = "GLOBAL";
+    
+    @Id
+    @Column(length = 60)
+    private String clave;
+    
+    @Column(nullable = false)
+    private Long articulos = 0L;
+    
+    @Column(name = "co2_kg", nullable = false)
+    private Double co2Kg = 0.0;
+    
+    @Column(name = "residuos_kg", nullable = false)
+    private Double residuosKg = 0.0;
+    
+    @Column(nullable = false)
+    private Double recursos = 0.0;
+    
+    @Column(name = "actualizado_en")
+    private LocalDateTime actualizadoEn;
+    
+    // Constructores
+    public ImpactoAcumulado() {
+        this.actualizadoEn = LocalDateTime.now();
+    }
+    
+    public ImpactoAcumulado(String clave) {
+        this();
+        this.clave = clave;
+    }
+    
+    public static String deUsuario(Long usuarioId) {
+        return "USUARIO:" + usuarioId;
+    }
+    
+    public static String deCategoria(Articulo.CategoriaArticulo categoria) {
+        return "CATEGORIA:" + categoria.name();
+    }
+    
+    // Getters y Setters
+    public String getClave() { return clave; }
+    public void setClave(String clave) { this.clave = clave; }
+    
+    public Long getArticulos() { return articulos; }
+    public void setArticulos(Long articulos) { this.articulos = articulos; }
+    
+    public Double getCo2Kg() { return co2Kg; }
+    public void setCo2Kg(Double co2Kg) { this.co2Kg = co2Kg; }
+    
+    public Double getResiduosKg() { return residuosKg; }
+    public void setResiduosKg(Double residuosKg) { this.residuosKg = residuosKg; }
+    
+    public Double getRecursos() { return recursos; }
+    public void setRecursos(Double recursos) { this.recursos = recursos; }
+    
+    public LocalDateTime getActualizadoEn() { return actualizadoEn; }
+    public void setActualizadoEn(LocalDateTime actualizadoEn) { this.actualizadoEn = actualizadoEn; }
+}
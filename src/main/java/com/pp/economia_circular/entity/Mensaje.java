@@ -41,6 +41,14 @@ public class Mensaje {
     @Column(name = "leido_en")
     private LocalDateTime leidoEn;
     
+    // Par de usuarios normalizado ("menor:mayor") para leer una conversación por índice
+    @Column(name = "conversacion_id", length = 41)
+    private String conversacionId;
+    
+    // Sólo en mensajes de una difusión de administración (ServicioDifusion)
+    @Column(name = "difusion_id", length = 36)
+    private String difusionId;
+    
     // Constructores
     public Mensaje() {
         this.creadoEn = LocalDateTime.now();
@@ -54,6 +62,17 @@ public class Mensaje {
         this.articulo = articulo;
     }
     
+    public static String claveConversacion(Long usuarioId1, Long usuarioId2) {
+        return Math.min(usuarioId1, usuarioId2) + ":" + Math.max(usuarioId1, usuarioId2);
+    }
+    
+    @PrePersist
+    public void asignarConversacion() {
+        if (conversacionId == null && remitente != null && destinatario != null) {
+            conversacionId = claveConversacion(remitente.getId(), destinatario.getId());
+        }
+    }
+    
     // Getters y Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -79,6 +98,12 @@ public class Mensaje {
     public LocalDateTime getLeidoEn() { return leidoEn; }
     public void setLeidoEn(LocalDateTime leidoEn) { this.leidoEn = leidoEn; }
     
+    public String getConversacionId() { return conversacionId; }
+    public void setConversacionId(String conversacionId) { this.conversacionId = conversacionId; }
+    
+    public String getDifusionId() { return difusionId; }
+    public void setDifusionId(String difusionId) { this.difusionId = difusionId; }
+    
     public enum EstadoMensaje {
         NO_LEIDO, LEIDO, ELIMINADO
     }
@@ -0,0 +1,82 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Copia de un mensaje que salió de la tabla caliente {@code mensajes}.
+ * Las referencias se guardan como ids simples: el archivo no depende de que
+ * usuarios o artículos sigan existiendo.
+ */
+@Entity
+@Table(name = "mensajes_archivados", indexes = {
+    @Index(name = "idx_archivados_conversacion_fecha", columnList = "conversacion_id, creado_en, id")
+})
+public class MensajeArchivado {
+    
+    // Mismo id que tenía en mensajes
+    @Id
+    private Long id;
+    
+    @Column(columnDefinition = "TEXT")
+    private String contenido;
+    
+    @Column(name = "remitente_id")
+    private Long remitenteId;
+    
+    @Column(name = "destinatario_id")
+    private Long destinatarioId;
+    
+    @Column(name = "articulo_id")
+    private Long articuloId;
+    
+    @Enumerated(EnumType.STRING)
+    private Mensaje.EstadoMensaje estado;
+    
+    @Column(name = "creado_en")
+    private LocalDateTime creadoEn;
+    
+    @Column(name = "leido_en")
+    private LocalDateTime leidoEn;
+    
+    @Column(name = "conversacion_id", length = 41)
+    private String conversacionId;
+    
+    @Column(name = "archivado_en")
+    private LocalDateTime archivadoEn;
+    
+    // Constructores
+    public MensajeArchivado() {}
+    
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getContenido() { return contenido; }
+    public void setContenido(String contenido) { this.contenido = contenido; }
+    
+    public Long getRemitenteId() { return remitenteId; }
+    public void setRemitenteId(Long remitenteId) { this.remitenteId = remitenteId; }
+    
+    public Long getDestinatarioId() { return destinatarioId; }
+    public void setDestinatarioId(Long destinatarioId) { this.destinatarioId = destinatarioId; }
+    
+    public Long getArticuloId() { return articuloId; }
+    public void setArticuloId(Long articuloId) { this.articuloId = articuloId; }
+    
+    public Mensaje.EstadoMensaje getEstado() { return estado; }
+    public void setEstado(Mensaje.EstadoMensaje estado) { this.estado = estado; }
+    
+    public LocalDateTime getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(LocalDateTime creadoEn) { this.creadoEn = creadoEn; }
+    
+    public LocalDateTime getLeidoEn() { return leidoEn; }
+    public void setLeidoEn(LocalDateTime leidoEn) { this.leidoEn = leidoEn; }
+    
+    public String getConversacionId() { return conversacionId; }
+    public void setConversacionId(String conversacionId) { this.conversacionId = conversacionId; }
+    
+    public LocalDateTime getArchivadoEn() { return archivadoEn; }
+    public void setArchivadoEn(LocalDateTime archivadoEn) { this.archivadoEn = archivadoEn; }
+}
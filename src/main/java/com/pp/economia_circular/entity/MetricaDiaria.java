@@ -0,0 +1,71 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Totales de actividad de un día (rollup). La mantiene ServicioMetricasDiarias;
+ * los reportes de tendencias leen sólo esta tabla.
+ */
+@Entity
+@Table(name = "metricas_diarias")
+public class MetricaDiaria {
+    
+    @Id
+    private LocalDate dia;
+    
+    @Column(name = "articulos_nuevos", nullable = false)
+    private Long articulosNuevos = 0L;
+    
+    @Column(nullable = false)
+    private Long intercambios = 0L;
+    
+    @Column(nullable = false)
+    private Long mensajes = 0L;
+    
+    @Column(nullable = false)
+    private Long vistas = 0L;
+    
+    @Column(name = "solicitudes_nuevas", nullable = false)
+    private Long solicitudesNuevas = 0L;
+    
+    @Column(name = "usuarios_activos", nullable = false)
+    private Long usuariosActivos = 0L;
+    
+    @Column(name = "calculado_en")
+    private LocalDateTime calculadoEn;
+    
+    // Constructores
+    public MetricaDiaria() {}
+    
+    public MetricaDiaria(LocalDate dia) {
+        this.dia = dia;
+    }
+    
+    // Getters y Setters
+    public LocalDate getDia() { return dia; }
+    public void setDia(LocalDate dia) { this.dia = dia; }
+    
+    public Long getArticulosNuevos() { return articulosNuevos; }
+    public void setArticulosNuevos(Long articulosNuevos) { this.articulosNuevos = articulosNuevos; }
+    
+    public Long getIntercambios() { return intercambios; }
+    public void setIntercambios(Long intercambios) { this.intercambios = intercambios; }
+    
+    public Long getMensajes() { return mensajes; }
+    public void setMensajes(Long mensajes) { this.mensajes = mensajes; }
+    
+    public Long getVistas() { return vistas; }
+    public void setVistas(Long vistas) { this.vistas = vistas; }
+    
+    public Long getSolicitudesNuevas() { return solicitudesNuevas; }
+    public void setSolicitudesNuevas(Long solicitudesNuevas) { this.solicitudesNuevas = solicitudesNuevas; }
+    
+    public Long getUsuariosActivos() { return usuariosActivos; }
+    public void setUsuariosActivos(Long usuariosActivos) { this.usuariosActivos = usuariosActivos; }
+    
+    public LocalDateTime getCalculadoEn() { return calculadoEn; }
+    public void setCalculadoEn(LocalDateTime calculadoEn) { this.calculadoEn = calculadoEn; }
+}
@@ -0,0 +1,69 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Asiento del libro de impacto: uno por artículo intercambiado, con los coeficientes
+ * vigentes en ese momento. Los totales de {@link ImpactoAcumulado} se derivan de aquí.
+ */
+@Entity
+@Table(name = "impacto_movimientos")
+public class MovimientoImpacto {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "articulo_id", nullable = false, unique = true)
+    private Long articuloId;
+    
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+    
+    @Column(length = 50)
+    private String categoria;
+    
+    @Column(name = "co2_kg", nullable = false)
+    private Double co2Kg;
+    
+    @Column(name = "residuos_kg", nullable = false)
+    private Double residuosKg;
+    
+    @Column(nullable = false)
+    private Double recursos;
+    
+    @Column(name = "creado_en")
+    private LocalDateTime creadoEn;
+    
+    // Constructores
+    public MovimientoImpacto() {
+        this.creadoEn = LocalDateTime.now();
+    }
+    
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getArticuloId() { return articuloId; }
+    public void setArticuloId(Long articuloId) { this.articuloId = articuloId; }
+    
+    public Long getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+    
+    public String getCategoria() { return categoria; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+    
+    public Double getCo2Kg() { return co2Kg; }
+    public void setCo2Kg(Double co2Kg) { this.co2Kg = co2Kg; }
+    
+    public Double getResiduosKg() { return residuosKg; }
+    public void setResiduosKg(Double residuosKg) { this.residuosKg = residuosKg; }
+    
+    public Double getRecursos() { return recursos; }
+    public void setRecursos(Double recursos) { this.recursos = recursos; }
+    
+    public LocalDateTime getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(LocalDateTime creadoEn) { this.creadoEn = creadoEn; }
+}
@@ -0,0 +1,52 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+
+/**
+ * Un tramo del horario semanal de un centro, en minutos desde el lunes 00:00 ([start, end)).
+ * Se genera desde {@link RecyclingCenter#getOpeningHours()} al guardar el centro.
+ */
+@Entity
+@Table(name = "recycling_center_opening_intervals", indexes = {
+    @Index(name = "idx_opening_intervals_center", columnList = "center_id")
+})
+public class OpeningInterval {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "center_id", nullable = false)
+    private RecyclingCenter center;
+    
+    @Column(name = "start_minute", nullable = false)
+    private int startMinute;
+    
+    @Column(name = "end_minute", nullable = false)
+    private int endMinute;
+    
+    // Constructors
+    public OpeningInterval() {
+    }
+    
+    public OpeningInterval(RecyclingCenter center, int startMinute, int endMinute) {
+        this.center = center;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public RecyclingCenter getCenter() { return center; }
+    public void setCenter(RecyclingCenter center) { this.center = center; }
+    
+    public int getStartMinute() { return startMinute; }
+    public void setStartMinute(int startMinute) { this.startMinute = startMinute; }
+    
+    public int getEndMinute() { return endMinute; }
+    public void setEndMinute(int endMinute) { this.endMinute = endMinute; }
+}
@@ -45,6 +45,10 @@ public class RecyclingCenter {
     @Column(name = "opening_hours")
     private String openingHours;
     
+    // true: el horario ya se interpretó (con o sin intervalos resultantes)
+    @Column(name = "opening_hours_processed")
+    private boolean openingHoursProcessed = false;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -105,6 +109,9 @@ public class RecyclingCenter {
     public String getOpeningHours() { return openingHours; }
     public void setOpeningHours(String openingHours) { this.openingHours = openingHours; }
     
+    public boolean isOpeningHoursProcessed() { return openingHoursProcessed; }
+    public void setOpeningHoursProcessed(boolean openingHoursProcessed) { this.openingHoursProcessed = openingHoursProcessed; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
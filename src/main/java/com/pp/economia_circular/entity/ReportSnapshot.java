@@ -0,0 +1,47 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "report_snapshots")
+public class ReportSnapshot {
+    
+    @Id
+    @Column(name = "report_key", length = 100)
+    private String reportKey;
+    
+    @Column(length = 200)
+    private String title;
+    
+    @Column(name = "generated_at")
+    private LocalDateTime generatedAt;
+    
+    // Contenido del reporte (ReportDto.data) serializado como JSON
+    @Column(name = "data_json", columnDefinition = "LONGTEXT")
+    private String dataJson;
+    
+    // Constructors
+    public ReportSnapshot() {}
+    
+    public ReportSnapshot(String reportKey, String title, LocalDateTime generatedAt, String dataJson) {
+        this.reportKey = reportKey;
+        this.title = title;
+        this.generatedAt = generatedAt;
+        this.dataJson = dataJson;
+    }
+    
+    // Getters and Setters
+    public String getReportKey() { return reportKey; }
+    public void setReportKey(String reportKey) { this.reportKey = reportKey; }
+    
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+    
+    public String getDataJson() { return dataJson; }
+    public void setDataJson(String dataJson) { this.dataJson = dataJson; }
+}
@@ -0,0 +1,112 @@
+package com.pp.economia_circular.entity;
+
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Fila de la bandeja de entrada: una por participante y conversación
+ * (par de usuarios y, opcionalmente, artículo). Se mantiene al enviar,
+ * leer y eliminar mensajes para no reagrupar el historial en cada consulta.
+ */
+@Entity
+@Table(name = "resumen_conversaciones",
+       indexes = @Index(name = "idx_resumen_usuario_ultimo_mensaje", columnList = "usuario_id, ultimo_mensaje_id, id"))
+public class ResumenConversacion {
+    
+    public static final int LARGO_VISTA_PREVIA = 200;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, unique = true, length = 100)
+    private String clave;
+    
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+    
+    @Column(name = "otro_usuario_id", nullable = false)
+    private Long otroUsuarioId;
+    
+    @Column(name = "articulo_id")
+    private Long articuloId;
+    
+    @Column(name = "ultimo_mensaje_id")
+    private Long ultimoMensajeId;
+    
+    @Column(name = "ultimo_remitente_id")
+    private Long ultimoRemitenteId;
+    
+    @Column(name = "vista_previa", length = LARGO_VISTA_PREVIA)
+    private String vistaPrevia;
+    
+    @Column(name = "ultimo_mensaje_en")
+    private LocalDateTime ultimoMensajeEn;
+    
+    @Column(name = "no_leidos", nullable = false)
+    private Integer noLeidos = 0;
+    
+    // Constructores
+    public ResumenConversacion() {}
+    
+    public ResumenConversacion(Long usuarioId, Long otroUsuarioId, Long articuloId) {
+        this.clave = clave(usuarioId, otroUsuarioId, articuloId);
+        this.usuarioId = usuarioId;
+        this.otroUsuarioId = otroUsuarioId;
+        this.articuloId = articuloId;
+    }
+    
+    public static String clave(Long usuarioId, Long otroUsuarioId, Long articuloId) {
+        return usuarioId + ":" + otroUsuarioId + ":" + (articuloId != null ? articuloId : 0L);
+    }
+    
+    public void registrarUltimoMensaje(Mensaje mensaje) {
+        registrarUltimoMensaje(mensaje.getId(), mensaje.getRemitente().getId(), mensaje.getCreadoEn(), mensaje.getContenido());
+    }
+    
+    // Cuando todo lo que queda de la conversación ya pasó al archivo
+    public void registrarUltimoMensaje(MensajeArchivado mensaje) {
+        registrarUltimoMensaje(mensaje.getId(), mensaje.getRemitenteId(), mensaje.getCreadoEn(), mensaje.getContenido());
+    }
+    
+    private void registrarUltimoMensaje(Long mensajeId, Long remitenteId, LocalDateTime creadoEn, String contenido) {
+        this.ultimoMensajeId = mensajeId;
+        this.ultimoRemitenteId = remitenteId;
+        this.ultimoMensajeEn = creadoEn;
+        this.vistaPrevia = contenido != null && contenido.length() > LARGO_VISTA_PREVIA
+                ? contenido.substring(0, LARGO_VISTA_PREVIA)
+                : contenido;
+    }
+    
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getClave() { return clave; }
+    public void setClave(String clave) { this.clave = clave; }
+    
+    public Long getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+    
+    public Long getOtroUsuarioId() { return otroUsuarioId; }
+    public void setOtroUsuarioId(Long otroUsuarioId) { this.otroUsuarioId = otroUsuarioId; }
+    
+    public Long getArticuloId() { return articuloId; }
+    public void setArticuloId(Long articuloId) { this.articuloId = articuloId; }
+    
+    public Long getUltimoMensajeId() { return ultimoMensajeId; }
+    public void setUltimoMensajeId(Long ultimoMensajeId) { this.ultimoMensajeId = ultimoMensajeId; }
+    
+    public Long getUltimoRemitenteId() { return ultimoRemitenteId; }
+    public void setUltimoRemitenteId(Long ultimoRemitenteId) { this.ultimoRemitenteId = ultimoRemitenteId; }
+    
+    public String getVistaPrevia() { return vistaPrevia; }
+    public void setVistaPrevia(String vistaPrevia) { this.vistaPrevia = vistaPrevia; }
+    
+    public LocalDateTime getUltimoMensajeEn() { return ultimoMensajeEn; }
+    public void setUltimoMensajeEn(LocalDateTime ultimoMensajeEn) { this.ultimoMensajeEn = ultimoMensajeEn; }
+    
+    public Integer getNoLeidos() { return noLeidos; }
+    public void setNoLeidos(Integer noLeidos) { this.noLeidos = noLeidos; }
+}
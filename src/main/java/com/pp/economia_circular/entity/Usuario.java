@@ -23,6 +23,9 @@ public class Usuario {
     private String rol;
 
     private String domicilio;
+    // Ubicación aproximada; la heredan los artículos sin ubicación propia
+    private Double latitud;
+    private Double longitud;
 
     @Lob
     @Column(columnDefinition = "LONGBLOB")
@@ -4,11 +4,19 @@ import com.pp.economia_circular.entity.Articulo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ArticleRepository extends JpaRepository<Articulo, Long> {
@@ -43,6 +51,80 @@ public interface ArticleRepository extends JpaRepository<Articulo, Long> {
     @Query("SELECT COUNT(a) FROM Articulo a WHERE a.usuario.id = :userId AND a.estado = 'DISPONIBLE'")
     Long countAvailableArticlesByUser(@Param("userId") Long userId);
     
+    // Proyecciones de agregación para reportes: devuelven conteos, no entidades
+    long countByEstado(Articulo.EstadoArticulo estado);
+    
+    @Query("SELECT a.estado, COUNT(a) FROM Articulo a GROUP BY a.estado")
+    List<Object[]> countGroupedByEstado();
+    
+    @Query("SELECT a.categoria, a.condicion, COUNT(a) FROM Articulo a WHERE a.estado = 'DISPONIBLE' " +
+           "GROUP BY a.categoria, a.condicion")
+    List<Object[]> countAvailableGroupedByCategoriaAndCondicion();
+    
+    // (usuarioId, cantidad) recorrido en streaming: el ranking se arma sin retener todas las filas.
+    // Con MySQL, fetch size Integer.MIN_VALUE hace que el driver entregue las filas de a una.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT a.usuario.id, COUNT(a) FROM Articulo a WHERE a.estado = :estado GROUP BY a.usuario.id")
+    Stream<Object[]> streamCountGroupedByUser(@Param("estado") Articulo.EstadoArticulo estado);
+    
+    // Exportación completa para trabajos de reportes: proyección plana y en streaming
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT a.id, a.titulo, a.categoria, a.condicion, a.estado, u.email, a.creadoEn " +
+           "FROM Articulo a JOIN a.usuario u ORDER BY a.id")
+    Stream<Object[]> streamArticleExport();
+    
+    @Query("SELECT a.titulo, a.categoria, u.email, a.creadoEn FROM Articulo a JOIN a.usuario u " +
+           "WHERE a.estado = 'DISPONIBLE' ORDER BY a.creadoEn DESC")
+    List<Object[]> findAvailableArticleSummaries(Pageable pageable);
+    
+    /**
+     * (id, latitud, longitud) de los artículos del estado, y de la categoría si no es null,
+     * dentro del rectángulo. Recorre idx_articulos_estado_categoria_lat_lon (o
+     * idx_articulos_estado_lat_lon sin categoría) sin cargar entidades.
+     */
+    @Query("SELECT a.id, a.latitud, a.longitud FROM Articulo a WHERE a.estado = :estado " +
+           "AND (:categoria IS NULL OR a.categoria = :categoria) " +
+           "AND a.latitud BETWEEN :minLatitud AND :maxLatitud " +
+           "AND a.longitud BETWEEN :minLongitud AND :maxLongitud")
+    List<Object[]> findUbicacionesEnCaja(@Param("estado") Articulo.EstadoArticulo estado,
+                                         @Param("categoria") Articulo.CategoriaArticulo categoria,
+                                         @Param("minLatitud") Double minLatitud,
+                                         @Param("maxLatitud") Double maxLatitud,
+                                         @Param("minLongitud") Double minLongitud,
+                                         @Param("maxLongitud") Double maxLongitud);
+    
+    /**
+     * Ids y distancia en metros de los {@code limite} artículos más cercanos a
+     * {@code radioMetros} o menos, por el SPATIAL INDEX de geo_point. Sólo MySQL 8.
+     */
+    @Query(value = "SELECT a.id, ST_Distance_Sphere(a.geo_point, ST_SRID(POINT(:longitud, :latitud), 4326)) AS distancia " +
+                   "FROM articulos a " +
+                   "WHERE a.estado = :estado AND (:categoria IS NULL OR a.categoria = :categoria) " +
+                   "AND a.latitud IS NOT NULL " +
+                   "AND MBRContains(ST_GeomFromText(:caja, 4326), a.geo_point) " +
+                   "HAVING distancia <= :radioMetros " +
+                   "ORDER BY distancia, a.id LIMIT :limite",
+           nativeQuery = true)
+    List<Object[]> findIdsCercanos(@Param("estado") String estado,
+                                   @Param("categoria") String categoria,
+                                   @Param("caja") String caja,
+                                   @Param("latitud") Double latitud,
+                                   @Param("longitud") Double longitud,
+                                   @Param("radioMetros") Double radioMetros,
+                                   @Param("limite") int limite);
+    
+    @Query("SELECT a FROM Articulo a JOIN FETCH a.usuario WHERE a.id IN :ids")
+    List<Articulo> findWithUsuarioByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Los artículos sin ubicación propia siguen la del usuario
+    @Modifying
+    @Transactional
+    @Query("UPDATE Articulo a SET a.latitud = :latitud, a.longitud = :longitud " +
+           "WHERE a.usuario.id = :usuarioId AND a.ubicacionPropia = false")
+    int actualizarUbicacionHeredada(@Param("usuarioId") Long usuarioId,
+                                    @Param("latitud") Double latitud,
+                                    @Param("longitud") Double longitud);
+    
     @Query(value = "SELECT a.* FROM articulos a " +
            "LEFT JOIN vistas_articulos v ON v.articulo_id = a.id " +
            "WHERE a.estado = 'DISPONIBLE' " +
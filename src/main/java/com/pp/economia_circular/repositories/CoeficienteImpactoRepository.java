@@ -0,0 +1,10 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.entity.CoeficienteImpacto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CoeficienteImpactoRepository extends JpaRepository<CoeficienteImpacto, Articulo.CategoriaArticulo> {
+}
@@ -0,0 +1,37 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.ContadorNoLeidos;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ContadorNoLeidosRepository extends JpaRepository<ContadorNoLeidos, Long> {
+    
+    /**
+     * Suma el delta salvo que el contador se haya recalculado después de {@code desde}
+     * (el primer cambio del delta): en ese caso el recálculo ya lo incluye.
+     */
+    @Modifying
+    @Query("UPDATE ContadorNoLeidos c SET c.cantidad = c.cantidad + :delta, c.actualizadoEn = :ahora " +
+           "WHERE c.usuarioId = :usuarioId AND (c.reconciliadoEn IS NULL OR c.reconciliadoEn <= :desde)")
+    int incrementar(@Param("usuarioId") Long usuarioId,
+                    @Param("delta") Long delta,
+                    @Param("desde") LocalDateTime desde,
+                    @Param("ahora") LocalDateTime ahora);
+    
+    @Modifying
+    @Query("UPDATE ContadorNoLeidos c SET c.cantidad = :cantidad, c.actualizadoEn = :ahora, c.reconciliadoEn = :ahora " +
+           "WHERE c.usuarioId = :usuarioId")
+    int fijar(@Param("usuarioId") Long usuarioId,
+              @Param("cantidad") Long cantidad,
+              @Param("ahora") LocalDateTime ahora);
+    
+    @Modifying
+    @Query("UPDATE ContadorNoLeidos c SET c.cantidad = 0, c.actualizadoEn = :ahora, c.reconciliadoEn = :ahora")
+    int reiniciarTodos(@Param("ahora") LocalDateTime ahora);
+}
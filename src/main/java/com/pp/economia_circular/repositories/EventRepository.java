@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,13 +23,36 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     
     List<Event> findByEventDateBeforeAndStatus(LocalDateTime eventDate, Event.EventStatus status);
     
-    @Query("SELECT e FROM Event e WHERE " +
-           "(:latitude IS NULL OR :longitude IS NULL OR " +
-           "6371 * acos(cos(radians(:latitude)) * cos(radians(e.latitude)) * " +
-           "cos(radians(e.longitude) - radians(:longitude)) + " +
-           "sin(radians(:latitude)) * sin(radians(e.latitude))) <= :radius) AND " +
-           "e.status = 'ACTIVE'")
-    List<Event> findNearbyEvents(@Param("latitude") Double latitude, 
-                                 @Param("longitude") Double longitude, 
-                                 @Param("radius") Double radius);
+    /**
+     * Prefiltro por rectángulo sobre el índice (status, latitude, longitude); la distancia
+     * exacta se calcula después sobre los candidatos.
+     */
+    @Query("SELECT e FROM Event e JOIN FETCH e.organizer WHERE e.status = :status " +
+           "AND e.latitude BETWEEN :minLatitude AND :maxLatitude " +
+           "AND e.longitude BETWEEN :minLongitude AND :maxLongitude")
+    List<Event> findByStatusInBoundingBox(@Param("status") Event.EventStatus status,
+                                          @Param("minLatitude") Double minLatitude,
+                                          @Param("maxLatitude") Double maxLatitude,
+                                          @Param("minLongitude") Double minLongitude,
+                                          @Param("maxLongitude") Double maxLongitude);
+    
+    /**
+     * Ids y distancia en metros de los eventos a {@code radiusMeters} o menos. MBRContains
+     * recorre el SPATIAL INDEX de geo_point; ST_Distance_Sphere descarta las esquinas.
+     * Sólo MySQL 8 (ver geo.spatial-sql.enabled).
+     */
+    @Query(value = "SELECT e.id, ST_Distance_Sphere(e.geo_point, ST_SRID(POINT(:longitude, :latitude), 4326)) AS distance " +
+                   "FROM events e " +
+                   "WHERE e.status = :status AND e.latitude IS NOT NULL " +
+                   "AND MBRContains(ST_GeomFromText(:boundingBox, 4326), e.geo_point) " +
+                   "HAVING distance <= :radiusMeters",
+           nativeQuery = true)
+    List<Object[]> findIdsWithinRadius(@Param("status") String status,
+                                       @Param("boundingBox") String boundingBox,
+                                       @Param("latitude") Double latitude,
+                                       @Param("longitude") Double longitude,
+                                       @Param("radiusMeters") Double radiusMeters);
+    
+    @Query("SELECT e FROM Event e JOIN FETCH e.organizer WHERE e.id IN :ids")
+    List<Event> findWithOrganizerByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,32 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.ImpactoAcumulado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ImpactoAcumuladoRepository extends JpaRepository<ImpactoAcumulado, String> {
+    
+    // Suma en la base (no lee-modifica-escribe) y crea la fila si falta en la misma sentencia:
+    // dos instancias que suman a una clave nueva a la vez no chocan por la clave primaria
+    @Modifying
+    @Query(value = "INSERT INTO impacto_acumulado (clave, articulos, co2_kg, residuos_kg, recursos, actualizado_en) " +
+                   "VALUES (:clave, :articulos, :co2Kg, :residuosKg, :recursos, :ahora) " +
+                   "ON DUPLICATE KEY UPDATE articulos = articulos + VALUES(articulos), co2_kg = co2_kg + VALUES(co2_kg), " +
+                   "residuos_kg = residuos_kg + VALUES(residuos_kg), recursos = recursos + VALUES(recursos), " +
+                   "actualizado_en = VALUES(actualizado_en)", nativeQuery = true)
+    int sumar(@Param("clave") String clave,
+              @Param("articulos") Long articulos,
+              @Param("co2Kg") Double co2Kg,
+              @Param("residuosKg") Double residuosKg,
+              @Param("recursos") Double recursos,
+              @Param("ahora") LocalDateTime ahora);
+    
+    List<ImpactoAcumulado> findByClaveStartingWith(String prefijo);
+}
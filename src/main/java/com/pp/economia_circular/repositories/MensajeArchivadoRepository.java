@@ -0,0 +1,61 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.MensajeArchivado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MensajeArchivadoRepository extends JpaRepository<MensajeArchivado, Long> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO mensajes_archivados " +
+                   "(id, contenido, remitente_id, destinatario_id, articulo_id, estado, creado_en, leido_en, conversacion_id, archivado_en) " +
+                   "SELECT id, contenido, remitente_id, destinatario_id, articulo_id, estado, creado_en, leido_en, conversacion_id, :ahora " +
+                   "FROM mensajes WHERE id IN (:ids)",
+           nativeQuery = true)
+    int copiarDesdeMensajes(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
+    
+    @Query("SELECT m.estado, COUNT(m) FROM MensajeArchivado m GROUP BY m.estado")
+    List<Object[]> countGroupedByEstado();
+    
+    @Query("SELECT m FROM MensajeArchivado m WHERE m.conversacionId = :conversacionId AND " +
+           "m.estado != 'ELIMINADO' " +
+           "ORDER BY m.creadoEn DESC, m.id DESC")
+    List<MensajeArchivado> findUltimosDeConversacion(@Param("conversacionId") String conversacionId, Pageable pageable);
+    
+    @Query("SELECT m FROM MensajeArchivado m WHERE m.conversacionId = :conversacionId AND " +
+           "((:articuloId IS NULL AND m.articuloId IS NULL) OR m.articuloId = :articuloId) AND " +
+           "m.estado != 'ELIMINADO' " +
+           "ORDER BY m.creadoEn DESC, m.id DESC")
+    List<MensajeArchivado> findUltimosMensajesDeConversacion(@Param("conversacionId") String conversacionId,
+                                                             @Param("articuloId") Long articuloId,
+                                                             Pageable pageable);
+    
+    @Query("SELECT m FROM MensajeArchivado m WHERE m.conversacionId = :conversacionId AND " +
+           "m.estado != 'ELIMINADO' AND " +
+           "(m.creadoEn < :antesDe OR (m.creadoEn = :antesDe AND m.id < :antesDeId)) " +
+           "ORDER BY m.creadoEn DESC, m.id DESC")
+    List<MensajeArchivado> findDeConversacionAntesDe(@Param("conversacionId") String conversacionId,
+                                                     @Param("antesDe") LocalDateTime antesDe,
+                                                     @Param("antesDeId") Long antesDeId,
+                                                     Pageable pageable);
+    
+    @Query("SELECT m FROM MensajeArchivado m WHERE m.conversacionId = :conversacionId AND " +
+           "m.estado != 'ELIMINADO' " +
+           "ORDER BY m.creadoEn ASC, m.id ASC")
+    List<MensajeArchivado> findByConversacion(@Param("conversacionId") String conversacionId);
+    
+    @Query("SELECT m FROM MensajeArchivado m WHERE " +
+           "(m.remitenteId = :usuarioId OR m.destinatarioId = :usuarioId) AND " +
+           "m.estado != 'ELIMINADO' " +
+           "ORDER BY m.creadoEn DESC, m.id DESC")
+    List<MensajeArchivado> findDeUsuario(@Param("usuarioId") Long usuarioId);
+}
@@ -1,12 +1,23 @@
 package com.pp.economia_circular.repositories;
 
 import com.pp.economia_circular.entity.Mensaje;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface MensajeRepository extends JpaRepository<Mensaje, Long> {
@@ -27,16 +38,133 @@ public interface MensajeRepository extends JpaRepository<Mensaje, Long> {
            "ORDER BY m.creadoEn DESC")
     List<Mensaje> findConversationsByUser(@Param("usuarioId") Long usuarioId);
     
-    @Query("SELECT m FROM Mensaje m WHERE " +
-           "((m.remitente.id = :usuarioId1 AND m.destinatario.id = :usuarioId2) OR " +
-           "(m.remitente.id = :usuarioId2 AND m.destinatario.id = :usuarioId1)) AND " +
+    @Query("SELECT m FROM Mensaje m WHERE m.conversacionId = :conversacionId AND " +
+           "m.estado != 'ELIMINADO' " +
+           "ORDER BY m.creadoEn ASC, m.id ASC")
+    List<Mensaje> findByConversacion(@Param("conversacionId") String conversacionId);
+    
+    default List<Mensaje> findConversationBetweenUsers(Long usuarioId1, Long usuarioId2) {
+        return findByConversacion(Mensaje.claveConversacion(usuarioId1, usuarioId2));
+    }
+    
+    // Paginación por cursor (keyset) sobre idx_mensajes_conversacion_fecha: lee sólo la página pedida
+    @Query("SELECT m FROM Mensaje m WHERE m.conversacionId = :conversacionId AND " +
            "m.estado != 'ELIMINADO' " +
-           "ORDER BY m.creadoEn ASC")
-    List<Mensaje> findConversationBetweenUsers(@Param("usuarioId1") Long usuarioId1, @Param("usuarioId2") Long usuarioId2);
+           "ORDER BY m.creadoEn DESC, m.id DESC")
+    List<Mensaje> findUltimosDeConversacion(@Param("conversacionId") String conversacionId, Pageable pageable);
+    
+    @Query("SELECT m FROM Mensaje m WHERE m.conversacionId = :conversacionId AND " +
+           "m.estado != 'ELIMINADO' AND " +
+           "(m.creadoEn < :antesDe OR (m.creadoEn = :antesDe AND m.id < :antesDeId)) " +
+           "ORDER BY m.creadoEn DESC, m.id DESC")
+    List<Mensaje> findDeConversacionAntesDe(@Param("conversacionId") String conversacionId,
+                                            @Param("antesDe") LocalDateTime antesDe,
+                                            @Param("antesDeId") Long antesDeId,
+                                            Pageable pageable);
+    
+    @Query("SELECT m FROM Mensaje m LEFT JOIN m.articulo a WHERE m.conversacionId = :conversacionId AND " +
+           "((:articuloId IS NULL AND a.id IS NULL) OR a.id = :articuloId) AND " +
+           "m.estado != 'ELIMINADO' " +
+           "ORDER BY m.creadoEn DESC, m.id DESC")
+    List<Mensaje> findUltimosMensajesDeConversacion(@Param("conversacionId") String conversacionId,
+                                                    @Param("articuloId") Long articuloId,
+                                                    Pageable pageable);
     
     @Query("SELECT COUNT(m) FROM Mensaje m WHERE m.destinatario.id = :usuarioId AND m.estado = 'NO_LEIDO'")
     Long countUnreadMessagesByUser(@Param("usuarioId") Long usuarioId);
     
     @Query("SELECT m FROM Mensaje m WHERE m.destinatario.id = :usuarioId AND m.estado = 'NO_LEIDO'")
     List<Mensaje> findUnreadMessagesByUser(@Param("usuarioId") Long usuarioId);
+    
+    @Query("SELECT m.destinatario.id, COUNT(m) FROM Mensaje m WHERE m.estado = 'NO_LEIDO' GROUP BY m.destinatario.id")
+    List<Object[]> countUnreadMessagesGroupedByUser();
+    
+    @Query("SELECT m.estado, COUNT(m) FROM Mensaje m GROUP BY m.estado")
+    List<Object[]> countGroupedByEstado();
+    
+    // (remitenteId, mensajes enviados) en streaming para el ranking de usuarios.
+    // Suma el archivo: archivar no debe bajar a nadie del ranking.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(value = "SELECT t.remitente_id, SUM(t.cantidad) FROM (" +
+                   "SELECT remitente_id, COUNT(*) AS cantidad FROM mensajes GROUP BY remitente_id " +
+                   "UNION ALL " +
+                   "SELECT remitente_id, COUNT(*) AS cantidad FROM mensajes_archivados GROUP BY remitente_id" +
+                   ") t GROUP BY t.remitente_id",
+           nativeQuery = true)
+    Stream<Object[]> streamCountSentGroupedByUser();
+    
+    // Operaciones masivas: el control de propiedad va en el WHERE, una sola sentencia por petición.
+    // Los "resumir..." devuelven qué conversaciones se ven afectadas para mantener bandeja y contadores,
+    // y bloquean esas filas hasta el commit: el UPDATE que sigue ve exactamente lo que se resumió.
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m.remitente.id, a.id, COUNT(m) FROM Mensaje m LEFT JOIN m.articulo a " +
+           "WHERE m.conversacionId = :conversacionId AND m.destinatario.id = :usuarioId AND m.estado = 'NO_LEIDO' " +
+           "GROUP BY m.remitente.id, a.id")
+    List<Object[]> resumirNoLeidosDeConversacion(@Param("conversacionId") String conversacionId,
+                                                 @Param("usuarioId") Long usuarioId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m.remitente.id, a.id, COUNT(m) FROM Mensaje m LEFT JOIN m.articulo a " +
+           "WHERE m.id IN :ids AND m.destinatario.id = :usuarioId AND m.estado = 'NO_LEIDO' " +
+           "GROUP BY m.remitente.id, a.id")
+    List<Object[]> resumirNoLeidosPorIds(@Param("ids") Collection<Long> ids, @Param("usuarioId") Long usuarioId);
+    
+    @Modifying
+    @Query("UPDATE Mensaje m SET m.estado = 'LEIDO', m.leidoEn = :ahora " +
+           "WHERE m.conversacionId = :conversacionId AND m.destinatario.id = :usuarioId AND m.estado = 'NO_LEIDO'")
+    int marcarConversacionComoLeida(@Param("conversacionId") String conversacionId,
+                                    @Param("usuarioId") Long usuarioId,
+                                    @Param("ahora") LocalDateTime ahora);
+    
+    @Modifying
+    @Query("UPDATE Mensaje m SET m.estado = 'LEIDO', m.leidoEn = :ahora " +
+           "WHERE m.id IN :ids AND m.destinatario.id = :usuarioId AND m.estado = 'NO_LEIDO'")
+    int marcarComoLeidos(@Param("ids") Collection<Long> ids,
+                         @Param("usuarioId") Long usuarioId,
+                         @Param("ahora") LocalDateTime ahora);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m.remitente.id, m.destinatario.id, a.id, " +
+           "SUM(CASE WHEN m.estado = 'NO_LEIDO' THEN 1 ELSE 0 END) " +
+           "FROM Mensaje m LEFT JOIN m.articulo a " +
+           "WHERE m.conversacionId = :conversacionId AND " +
+           "(m.remitente.id = :usuarioId OR m.destinatario.id = :usuarioId) AND m.estado != 'ELIMINADO' " +
+           "GROUP BY m.remitente.id, m.destinatario.id, a.id")
+    List<Object[]> resumirConversacionParaEliminar(@Param("conversacionId") String conversacionId,
+                                                   @Param("usuarioId") Long usuarioId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m.remitente.id, m.destinatario.id, a.id, " +
+           "SUM(CASE WHEN m.estado = 'NO_LEIDO' THEN 1 ELSE 0 END) " +
+           "FROM Mensaje m LEFT JOIN m.articulo a " +
+           "WHERE m.id IN :ids AND " +
+           "(m.remitente.id = :usuarioId OR m.destinatario.id = :usuarioId) AND m.estado != 'ELIMINADO' " +
+           "GROUP BY m.remitente.id, m.destinatario.id, a.id")
+    List<Object[]> resumirPorIdsParaEliminar(@Param("ids") Collection<Long> ids, @Param("usuarioId") Long usuarioId);
+    
+    @Modifying
+    @Query("UPDATE Mensaje m SET m.estado = 'ELIMINADO' " +
+           "WHERE m.conversacionId = :conversacionId AND " +
+           "(m.remitente.id = :usuarioId OR m.destinatario.id = :usuarioId) AND m.estado != 'ELIMINADO'")
+    int eliminarConversacion(@Param("conversacionId") String conversacionId, @Param("usuarioId") Long usuarioId);
+    
+    @Modifying
+    @Query("UPDATE Mensaje m SET m.estado = 'ELIMINADO' " +
+           "WHERE m.id IN :ids AND " +
+           "(m.remitente.id = :usuarioId OR m.destinatario.id = :usuarioId) AND m.estado != 'ELIMINADO'")
+    int eliminarPorIds(@Param("ids") Collection<Long> ids, @Param("usuarioId") Long usuarioId);
+    
+    // Archivo: recorrido por clave primaria (keyset) de lo que ya no necesita estar en la tabla caliente.
+    // Los NO_LEIDO se quedan siempre para no alterar contadores ni bandeja.
+    @Query("SELECT m.id FROM Mensaje m WHERE m.id > :desdeId AND " +
+           "(m.estado = 'ELIMINADO' OR (m.estado = 'LEIDO' AND m.creadoEn < :limite)) " +
+           "ORDER BY m.id ASC")
+    List<Long> findIdsArchivables(@Param("desdeId") Long desdeId,
+                                  @Param("limite") LocalDateTime limite,
+                                  Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM Mensaje m WHERE m.id IN :ids")
+    int borrarPorIds(@Param("ids") Collection<Long> ids);
 }
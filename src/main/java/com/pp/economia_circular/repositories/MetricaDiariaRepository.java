@@ -0,0 +1,18 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.MetricaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MetricaDiariaRepository extends JpaRepository<MetricaDiaria, LocalDate> {
+    
+    List<MetricaDiaria> findByDiaBetweenOrderByDiaAsc(LocalDate desde, LocalDate hasta);
+    
+    @Query("SELECT MAX(m.dia) FROM MetricaDiaria m")
+    LocalDate findUltimoDia();
+}
@@ -0,0 +1,11 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.MovimientoImpacto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MovimientoImpactoRepository extends JpaRepository<MovimientoImpacto, Long> {
+    
+    boolean existsByArticuloId(Long articuloId);
+}
@@ -0,0 +1,22 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.OpeningInterval;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OpeningIntervalRepository extends JpaRepository<OpeningInterval, Long> {
+    
+    // (centerId, startMinute, endMinute) de todos los centros, para armar el índice de horarios
+    @Query("SELECT i.center.id, i.startMinute, i.endMinute FROM OpeningInterval i")
+    List<Object[]> findAllMinutes();
+    
+    @Modifying
+    @Query("DELETE FROM OpeningInterval i WHERE i.center.id = :centerId")
+    int deleteByCenterId(@Param("centerId") Long centerId);
+}
@@ -2,6 +2,7 @@ package com.pp.economia_circular.repositories;
 
 import com.pp.economia_circular.entity.RecyclingCenter;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,12 +19,12 @@ public interface RecyclingCenterRepository extends JpaRepository<RecyclingCenter
     List<RecyclingCenter> findByCenterTypeAndStatus(RecyclingCenter.CenterType centerType, 
                                                     RecyclingCenter.CenterStatus status);
     
-    @Query("SELECT rc FROM RecyclingCenter rc WHERE " +
-           "(:latitude IS NULL OR :longitude IS NULL OR " +
-           "6371 * acos(cos(radians(:latitude)) * cos(radians(rc.latitude)) * " +
-           "cos(radians(rc.longitude) - radians(:longitude)) + " +
-           "sin(radians(:latitude)) * sin(radians(rc.latitude))) <= :radius)")
-    List<RecyclingCenter> findNearbyCenters(@Param("latitude") Double latitude, 
-                                           @Param("longitude") Double longitude, 
-                                           @Param("radius") Double radius);
+    // Centros con horario en texto que todavía no se intentó interpretar
+    @Query("SELECT c FROM RecyclingCenter c WHERE c.openingHours IS NOT NULL AND c.openingHoursProcessed = false")
+    List<RecyclingCenter> findWithUnprocessedOpeningHours();
+    
+    // Sin pasar por save: no es un cambio del centro y no debe tocar updated_at
+    @Modifying
+    @Query("UPDATE RecyclingCenter c SET c.openingHoursProcessed = true WHERE c.id IN :ids")
+    int marcarHorariosProcesados(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,9 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.ReportSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReportSnapshotRepository extends JpaRepository<ReportSnapshot, String> {
+}
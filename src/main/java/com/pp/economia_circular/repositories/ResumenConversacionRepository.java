@@ -0,0 +1,48 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.entity.ResumenConversacion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ResumenConversacionRepository extends JpaRepository<ResumenConversacion, Long> {
+    
+    Optional<ResumenConversacion> findByClave(String clave);
+    
+    // Lectura con bloqueo de fila: dos cambios concurrentes de la misma conversación se serializan
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ResumenConversacion r WHERE r.clave = :clave")
+    Optional<ResumenConversacion> findByClaveParaActualizar(@Param("clave") String clave);
+    
+    // MySQL: dos primeros mensajes simultáneos no chocan con uk_resumen_clave; el segundo no hace nada
+    @Modifying
+    @Query(value = "INSERT INTO resumen_conversaciones (clave, usuario_id, otro_usuario_id, articulo_id, no_leidos) " +
+                   "VALUES (:clave, :usuarioId, :otroUsuarioId, :articuloId, 0) " +
+                   "ON DUPLICATE KEY UPDATE clave = clave", nativeQuery = true)
+    int crearSiNoExiste(@Param("clave") String clave,
+                        @Param("usuarioId") Long usuarioId,
+                        @Param("otroUsuarioId") Long otroUsuarioId,
+                        @Param("articuloId") Long articuloId);
+    
+    // Paginación por cursor (keyset) sobre idx_resumen_usuario_ultimo_mensaje: lee sólo la página pedida
+    @Query("SELECT r FROM ResumenConversacion r WHERE r.usuarioId = :usuarioId AND r.ultimoMensajeId IS NOT NULL " +
+           "ORDER BY r.ultimoMensajeId DESC, r.id DESC")
+    List<ResumenConversacion> findUltimasDeUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
+    
+    @Query("SELECT r FROM ResumenConversacion r WHERE r.usuarioId = :usuarioId AND " +
+           "(r.ultimoMensajeId < :antesDeMensajeId OR (r.ultimoMensajeId = :antesDeMensajeId AND r.id < :antesDeId)) " +
+           "ORDER BY r.ultimoMensajeId DESC, r.id DESC")
+    List<ResumenConversacion> findDeUsuarioAntesDe(@Param("usuarioId") Long usuarioId,
+                                                   @Param("antesDeMensajeId") Long antesDeMensajeId,
+                                                   @Param("antesDeId") Long antesDeId,
+                                                   Pageable pageable);
+}
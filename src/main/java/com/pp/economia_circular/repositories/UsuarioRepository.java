@@ -1,12 +1,46 @@
 package com.pp.economia_circular.repositories;
 
 import com.pp.economia_circular.entity.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail(String email);
+
+    // Proyección (id, email) sin cargar la entidad completa (incluye la foto)
+    @Query("SELECT u.id, u.email FROM Usuario u WHERE u.id IN :ids")
+    List<Object[]> findEmailsByIds(@Param("ids") Collection<Long> ids);
+
+    // Proyección (id, nombre, apellido) para listados públicos, sin exponer el email
+    @Query("SELECT u.id, u.nombre, u.apellido FROM Usuario u WHERE u.id IN :ids")
+    List<Object[]> findNombresByIds(@Param("ids") Collection<Long> ids);
+
+    // Recorrido por id (keyset) de destinatarios activos, sin cargar entidades
+    @Query("SELECT u.id FROM Usuario u WHERE u.id > :desdeId AND u.activo = true AND u.id <> :excluirId ORDER BY u.id ASC")
+    List<Long> findIdsActivosDesde(@Param("desdeId") Long desdeId, @Param("excluirId") Long excluirId, Pageable pageable);
+
+    // (activo, cantidad) para reportes, sin materializar usuarios
+    @Query("SELECT u.activo, COUNT(u) FROM Usuario u GROUP BY u.activo")
+    List<Object[]> countGroupedByActivo();
+
+    @Query("SELECT COUNT(u) FROM Usuario u WHERE u.activo = true AND u.id <> :excluirId")
+    long countActivosExcepto(@Param("excluirId") Long excluirId);
+
+    // Exportación completa para trabajos de reportes (sin contraseña ni foto)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.id, u.nombre, u.apellido, u.email, u.rol, u.activo, u.creadoEn FROM Usuario u ORDER BY u.id")
+    Stream<Object[]> streamUserExport();
 }
@@ -5,27 +5,54 @@ import com.pp.economia_circular.DTO.ArticleCreateDto;
 import com.pp.economia_circular.DTO.ArticleResponseDto;
 import com.pp.economia_circular.DTO.ArticleSearchDto;
 import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.entity.MovimientoImpacto;
 import com.pp.economia_circular.entity.Usuario;
 import com.pp.economia_circular.repositories.ArticleRepository;
+import com.pp.economia_circular.util.CajaGeografica;
+import com.pp.economia_circular.util.LoteCoordenadas;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ArticleService {
     
+    private static final double MAX_RADIUS_KM = 500;
+    private static final int MAX_NEARBY_LIMIT = 100;
+    // Primer radio de la búsqueda de cercanos; se multiplica hasta juntar el límite
+    private static final double INITIAL_SEARCH_RADIUS_KM = 2;
+    private static final double RADIUS_GROWTH = 4;
+    
     @Autowired
     private ArticleRepository articleRepository;
     
     @Autowired
     private JWTService authService;
     
+    @Autowired
+    private ImpactService impactService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private ReportChangeTracker reportChangeTracker;
+    
+    @Value("${geo.spatial-sql.enabled:true}")
+    private boolean spatialSqlEnabled = true;
+    
     public ArticleResponseDto createArticle(ArticleCreateDto createDto) {
         Usuario currentUser = authService.getCurrentUser();
         if (currentUser == null) {
@@ -38,8 +65,11 @@ public class ArticleService {
         article.setCategoria(createDto.getCategory());
         article.setCondicion(createDto.getCondition());
         article.setUsuario(currentUser);
+        asignarUbicacion(article, createDto, currentUser);
         
         Articulo savedArticle = articleRepository.save(article);
+        leaderboardService.registrarPublicacion(currentUser.getId(), savedArticle.getCreadoEn());
+        reportChangeTracker.markChanged(Articulo.class);
         return convertToResponseDto(savedArticle);
     }
     
@@ -89,6 +119,49 @@ public class ArticleService {
         ).map(this::convertToResponseDto);
     }
     
+    /**
+     * Los {@code limit} artículos más cercanos a {@code radiusKm} o menos, del más cercano al
+     * más lejano, por defecto los disponibles. Busca primero en un radio chico y lo agranda
+     * sólo si no alcanza: en una zona densa no se leen los miles de artículos del radio
+     * completo para devolver unos pocos.
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleResponseDto> getArticlesNearLocation(Double latitude, Double longitude, Double radiusKm,
+                                                            Articulo.CategoriaArticulo category,
+                                                            Articulo.EstadoArticulo status, Integer limit) {
+        if (!coordenadasValidas(latitude, longitude)) {
+            throw new RuntimeException("Coordenadas inválidas");
+        }
+        if (radiusKm == null || radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            throw new RuntimeException("El radio debe ser mayor que 0 y no superar " + (int) MAX_RADIUS_KM + " km");
+        }
+        if (limit == null || limit < 1 || limit > MAX_NEARBY_LIMIT) {
+            throw new RuntimeException("El límite debe estar entre 1 y " + MAX_NEARBY_LIMIT);
+        }
+        Articulo.EstadoArticulo estado = status != null ? status : Articulo.EstadoArticulo.DISPONIBLE;
+        
+        // Si el radio chico ya tiene el límite, los de afuera están más lejos que todos ellos
+        double radio = Math.min(radiusKm, INITIAL_SEARCH_RADIUS_KM);
+        Map<Long, Double> distanciasPorId = masCercanos(latitude, longitude, radio, category, estado, limit);
+        while (distanciasPorId.size() < limit && radio < radiusKm) {
+            radio = Math.min(radiusKm, radio * RADIUS_GROWTH);
+            distanciasPorId = masCercanos(latitude, longitude, radio, category, estado, limit);
+        }
+        
+        List<ArticleResponseDto> cercanos = new ArrayList<>();
+        if (distanciasPorId.isEmpty()) {
+            return cercanos;
+        }
+        // Una sola consulta por id con los usuarios, para no cargar uno por artículo
+        for (Articulo article : articleRepository.findWithUsuarioByIdIn(distanciasPorId.keySet())) {
+            ArticleResponseDto dto = convertToResponseDto(article);
+            dto.setDistanceKm(Math.round(distanciasPorId.get(article.getId()) * 1000) / 1000.0);
+            cercanos.add(dto);
+        }
+        cercanos.sort(Comparator.comparing(ArticleResponseDto::getDistanceKm).thenComparing(ArticleResponseDto::getId));
+        return cercanos;
+    }
+    
     public ArticleResponseDto updateArticle(Long id, ArticleCreateDto updateDto) {
         Usuario currentUser = authService.getCurrentUser();
         if (currentUser == null) {
@@ -107,8 +180,10 @@ public class ArticleService {
         article.setDescripcion(updateDto.getDescription());
         article.setCategoria(updateDto.getCategory());
         article.setCondicion(updateDto.getCondition());
+        asignarUbicacion(article, updateDto, article.getUsuario());
         
         Articulo updatedArticle = articleRepository.save(article);
+        reportChangeTracker.markChanged(Articulo.class);
         return convertToResponseDto(updatedArticle);
     }
     
@@ -126,8 +201,42 @@ public class ArticleService {
             throw new RuntimeException("No tienes permisos para eliminar este artículo");
         }
         
+        boolean estabaPublicado = article.getEstado() != Articulo.EstadoArticulo.ELIMINADO;
         article.setEstado(Articulo.EstadoArticulo.ELIMINADO);
         articleRepository.save(article);
+        if (estabaPublicado) {
+            leaderboardService.registrarBaja(currentUser.getId(), article.getCreadoEn());
+        }
+        reportChangeTracker.markChanged(Articulo.class);
+    }
+    
+    public ArticleResponseDto markAsExchanged(Long id) {
+        Usuario currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("Usuario no autenticado");
+        }
+        
+        Articulo article = articleRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Artículo no encontrado"));
+        
+        // Verificar que el usuario sea el propietario del artículo
+        if (!article.getUsuario().getId().equals(currentUser.getId())) {
+            throw new RuntimeException("No tienes permisos para modificar este artículo");
+        }
+        if (article.getEstado() == Articulo.EstadoArticulo.INTERCAMBIADO) {
+            throw new RuntimeException("El artículo ya fue intercambiado");
+        }
+        if (article.getEstado() == Articulo.EstadoArticulo.ELIMINADO) {
+            throw new RuntimeException("No se puede intercambiar un artículo eliminado");
+        }
+        
+        article.setEstado(Articulo.EstadoArticulo.INTERCAMBIADO);
+        Articulo updatedArticle = articleRepository.save(article);
+        // Mismo commit que el cambio de estado: el libro de impacto nunca queda desfasado
+        MovimientoImpacto movimiento = impactService.registrarIntercambio(updatedArticle);
+        leaderboardService.registrarIntercambio(currentUser.getId(), movimiento != null ? movimiento.getCo2Kg() : null);
+        reportChangeTracker.markChanged(Articulo.class);
+        return convertToResponseDto(updatedArticle);
     }
     
     public List<ArticleResponseDto> getMostViewedArticles(Pageable pageable) {
@@ -136,6 +245,77 @@ public class ArticleService {
                 .collect(Collectors.toList());
     }
     
+    // Sin coordenadas en el pedido el artículo hereda (y sigue) la ubicación del usuario
+    private void asignarUbicacion(Articulo article, ArticleCreateDto dto, Usuario usuario) {
+        if (dto.getLatitude() == null && dto.getLongitude() == null) {
+            article.setLatitud(usuario.getLatitud());
+            article.setLongitud(usuario.getLongitud());
+            article.setUbicacionPropia(false);
+            return;
+        }
+        if (!coordenadasValidas(dto.getLatitude(), dto.getLongitude())) {
+            throw new RuntimeException("Coordenadas inválidas");
+        }
+        article.setLatitud(dto.getLatitude());
+        article.setLongitud(dto.getLongitude());
+        article.setUbicacionPropia(true);
+    }
+    
+    private static boolean coordenadasValidas(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+    
+    // Ids y distancia en km de los (a lo sumo) limite artículos más cercanos dentro del radio
+    private Map<Long, Double> masCercanos(double latitude, double longitude, double radiusKm,
+                                          Articulo.CategoriaArticulo categoria, Articulo.EstadoArticulo estado,
+                                          int limite) {
+        CajaGeografica caja = CajaGeografica.alrededor(latitude, longitude, radiusKm);
+        List<double[]> tramos = new ArrayList<>();
+        if (caja.cruzaAntimeridiano()) {
+            tramos.add(new double[]{caja.getLongitudMinima(), 180.0});
+            tramos.add(new double[]{-180.0, caja.getLongitudMaxima()});
+        } else {
+            tramos.add(new double[]{caja.getLongitudMinima(), caja.getLongitudMaxima()});
+        }
+        
+        List<Map.Entry<Long, Double>> encontrados = new ArrayList<>();
+        // Cerca de un polo la caja abarca todas las longitudes y no se puede expresar como polígono
+        if (spatialSqlEnabled && !caja.cubreTodasLasLongitudes()) {
+            for (double[] tramo : tramos) {
+                for (Object[] fila : articleRepository.findIdsCercanos(estado.name(),
+                        categoria != null ? categoria.name() : null, caja.comoPoligonoWkt(tramo[0], tramo[1]),
+                        latitude, longitude, radiusKm * 1000, limite)) {
+                    encontrados.add(new AbstractMap.SimpleEntry<>(
+                            ((Number) fila[0]).longValue(), ((Number) fila[1]).doubleValue() / 1000));
+                }
+            }
+        } else {
+            List<Object[]> filas = new ArrayList<>();
+            for (double[] tramo : tramos) {
+                filas.addAll(articleRepository.findUbicacionesEnCaja(estado, categoria,
+                        caja.getLatitudMinima(), caja.getLatitudMaxima(), tramo[0], tramo[1]));
+            }
+            LoteCoordenadas lote = new LoteCoordenadas(filas.size());
+            for (Object[] fila : filas) {
+                lote.agregar(((Number) fila[0]).longValue(), ((Number) fila[1]).doubleValue(), ((Number) fila[2]).doubleValue());
+            }
+            int[] posiciones = new int[filas.size()];
+            double[] distancias = new double[filas.size()];
+            int dentro = lote.dentroDeRadio(latitude, longitude, radiusKm, posiciones, distancias);
+            for (int i = 0; i < dentro; i++) {
+                encontrados.add(new AbstractMap.SimpleEntry<>(lote.getId(posiciones[i]), distancias[i]));
+            }
+        }
+        
+        encontrados.sort(Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        Map<Long, Double> distanciasPorId = new HashMap<>();
+        for (Map.Entry<Long, Double> entrada : encontrados.subList(0, Math.min(limite, encontrados.size()))) {
+            distanciasPorId.put(entrada.getKey(), entrada.getValue());
+        }
+        return distanciasPorId;
+    }
+    
     private ArticleResponseDto convertToResponseDto(Articulo article) {
         ArticleResponseDto dto = new ArticleResponseDto();
         dto.setId(article.getId());
@@ -148,6 +328,8 @@ public class ArticleService {
         dto.setUsername(article.getUsuario().getEmail());
         dto.setCreatedAt(article.getCreadoEn());
         dto.setUpdatedAt(article.getActualizadoEn());
+        dto.setLatitude(article.getLatitud());
+        dto.setLongitude(article.getLongitud());
         return dto;
     }
 }
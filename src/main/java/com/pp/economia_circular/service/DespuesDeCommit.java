@@ -0,0 +1,27 @@
+package com.pp.economia_circular.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Difiere efectos secundarios (notificaciones, cachés en memoria) hasta que la
+ * transacción actual se confirma. Si no hay transacción activa se ejecutan en el acto.
+ */
+public final class DespuesDeCommit {
+
+    private DespuesDeCommit() {
+    }
+
+    public static void ejecutar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -6,24 +6,61 @@ import com.pp.economia_circular.DTO.EventResponseDto;
 import com.pp.economia_circular.entity.Usuario;
 import com.pp.economia_circular.entity.Event;
 import com.pp.economia_circular.repositories.EventRepository;
+import com.pp.economia_circular.util.CacheGeohash;
+import com.pp.economia_circular.util.CajaGeografica;
+import com.pp.economia_circular.util.IndiceEspacioTemporal;
+import com.pp.economia_circular.util.IndiceGeografico;
+import com.pp.economia_circular.util.LoteCoordenadas;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class EventService {
     
+    private static final double MAX_RADIUS_KM = 500;
+    private static final int MAX_UPCOMING_DAYS = 365;
+    // Celdas de ~28 km: un radio de 10 km toca a lo sumo cuatro por día
+    private static final double UPCOMING_CELL_DEGREES = 0.25;
+    private static final int MAX_CACHED_CELLS = 2000;
+    // Acota cuánto tarda en verse un cambio hecho desde otra instancia
+    private static final long CACHE_TTL_MS = 60_000;
+    
     @Autowired
     private EventRepository eventRepository;
     
     @Autowired
     private JWTService authService;
     
+    @Autowired
+    private MapClusterService mapClusterService;
+    
+    @Value("${geo.spatial-sql.enabled:true}")
+    private boolean spatialSqlEnabled = true;
+    
+    @Value("${geo.nearby-cache.enabled:true}")
+    private boolean nearbyCacheEnabled = true;
+    
+    // Eventos activos futuros por día y celda; se carga en el primer pedido
+    private final IndiceEspacioTemporal<Event.EventType> proximos =
+            new IndiceEspacioTemporal<>(UPCOMING_CELL_DEGREES, Duration.ofDays(1));
+    private volatile boolean proximosCargados = false;
+    
+    // Eventos activos candidatos por celda geohash y cubeta de radio, con su organizador cargado
+    private final CacheGeohash<Event> cacheCercanos = new CacheGeohash<>(MAX_CACHED_CELLS, CACHE_TTL_MS);
+    
     public EventResponseDto createEvent(EventCreateDto createDto) {
         Usuario currentUser = authService.getCurrentUser();
         if (currentUser == null) {
@@ -46,6 +83,9 @@ public class EventService {
         event.setOrganizer(currentUser);
         
         Event savedEvent = eventRepository.save(event);
+        mapClusterService.registrarEvento(savedEvent);
+        indexarProximo(savedEvent);
+        invalidarCercanos(savedEvent.getLatitude(), savedEvent.getLongitude());
         return convertToResponseDto(savedEvent);
     }
     
@@ -68,14 +108,85 @@ public class EventService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Eventos activos a {@code radiusKm} o menos, del más cercano al más lejano. La base
+     * devuelve sólo los del rectángulo que contiene al círculo (por el SPATIAL INDEX o por
+     * rangos de latitud/longitud) y se descartan las esquinas con la distancia exacta.
+     * Con la caché activa esa consulta se hace una vez por celda geohash y cubeta de radio, y
+     * las siguientes de la zona sólo filtran los candidatos guardados.
+     */
+    @Transactional(readOnly = true)
     public List<EventResponseDto> getEventsNearLocation(Double latitude, Double longitude, Double radiusKm) {
-        // Implementación simplificada - en producción usarías una consulta espacial
-        return eventRepository.findByStatus(Event.EventStatus.ACTIVE).stream()
-                .filter(event -> event.getLatitude() != null && event.getLongitude() != null)
-                .filter(event -> calculateDistance(latitude, longitude, 
-                        event.getLatitude(), event.getLongitude()) <= radiusKm)
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+        if (latitude == null || longitude == null || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new RuntimeException("Coordenadas inválidas");
+        }
+        if (radiusKm == null || radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            throw new RuntimeException("El radio debe ser mayor que 0 y no superar " + (int) MAX_RADIUS_KM + " km");
+        }
+        
+        Map<Event, Double> distancias;
+        if (nearbyCacheEnabled) {
+            distancias = new HashMap<>();
+            for (IndiceGeografico.Resultado<Event> resultado
+                    : cacheCercanos.buscar(latitude, longitude, radiusKm, null, this::candidatosEnRadio)) {
+                distancias.put(resultado.getValor(), resultado.getDistanciaKm());
+            }
+        } else {
+            distancias = buscarEnRadio(latitude, longitude, radiusKm);
+        }
+        
+        List<EventResponseDto> cercanos = new ArrayList<>();
+        for (Map.Entry<Event, Double> entrada : distancias.entrySet()) {
+            EventResponseDto dto = convertToResponseDto(entrada.getKey());
+            dto.setDistanceKm(Math.round(entrada.getValue() * 1000) / 1000.0);
+            cercanos.add(dto);
+        }
+        cercanos.sort(Comparator.comparing(EventResponseDto::getDistanceKm).thenComparing(EventResponseDto::getId));
+        return cercanos;
+    }
+    
+    /**
+     * Eventos activos a {@code radiusKm} o menos que empiezan en los próximos {@code days}
+     * días, por fecha y luego por distancia. El índice de próximos sólo recorre los días del
+     * rango y, en cada uno, las celdas que cubren el círculo.
+     */
+    @Transactional(readOnly = true)
+    public List<EventResponseDto> getUpcomingEventsNearLocation(Double latitude, Double longitude, Double radiusKm,
+                                                                Integer days, Event.EventType eventType) {
+        if (latitude == null || longitude == null || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new RuntimeException("Coordenadas inválidas");
+        }
+        if (radiusKm == null || radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            throw new RuntimeException("El radio debe ser mayor que 0 y no superar " + (int) MAX_RADIUS_KM + " km");
+        }
+        if (days == null || days < 1 || days > MAX_UPCOMING_DAYS) {
+            throw new RuntimeException("Los días deben estar entre 1 y " + MAX_UPCOMING_DAYS);
+        }
+        
+        LocalDateTime desde = LocalDateTime.now();
+        asegurarProximos();
+        Map<Long, Double> distanciasPorId = new HashMap<>();
+        for (IndiceGeografico.Resultado<Event.EventType> resultado : proximos.buscar(latitude, longitude, radiusKm,
+                desde, desde.plusDays(days), eventType == null ? null : tipo -> tipo == eventType)) {
+            distanciasPorId.put(resultado.getId(), resultado.getDistanciaKm());
+        }
+        
+        List<EventResponseDto> cercanos = new ArrayList<>();
+        if (distanciasPorId.isEmpty()) {
+            return cercanos;
+        }
+        // Cambios de otras instancias llegan al índice con la recarga: se confirma con la fila
+        for (Event event : eventRepository.findWithOrganizerByIdIn(distanciasPorId.keySet())) {
+            if (event.getStatus() == Event.EventStatus.ACTIVE && event.getEventDate().isAfter(desde)) {
+                EventResponseDto dto = convertToResponseDto(event);
+                dto.setDistanceKm(Math.round(distanciasPorId.get(event.getId()) * 1000) / 1000.0);
+                cercanos.add(dto);
+            }
+        }
+        cercanos.sort(Comparator.comparing(EventResponseDto::getEventDate)
+                .thenComparing(EventResponseDto::getDistanceKm)
+                .thenComparing(EventResponseDto::getId));
+        return cercanos;
     }
     
     public EventResponseDto updateEvent(Long id, EventCreateDto updateDto) {
@@ -93,6 +204,7 @@ public class EventService {
             throw new RuntimeException("No tienes permisos para editar este evento");
         }
         
+        invalidarCercanos(event.getLatitude(), event.getLongitude());
         event.setEventName(updateDto.getEventName());
         event.setDescription(updateDto.getDescription());
         event.setEventDate(updateDto.getEventDate());
@@ -102,6 +214,9 @@ public class EventService {
         event.setEventType(updateDto.getEventType());
         
         Event updatedEvent = eventRepository.save(event);
+        mapClusterService.registrarEvento(updatedEvent);
+        indexarProximo(updatedEvent);
+        invalidarCercanos(updatedEvent.getLatitude(), updatedEvent.getLongitude());
         return convertToResponseDto(updatedEvent);
     }
     
@@ -122,6 +237,137 @@ public class EventService {
         
         event.setStatus(Event.EventStatus.CANCELLED);
         eventRepository.save(event);
+        mapClusterService.registrarEvento(event);
+        indexarProximo(event);
+        invalidarCercanos(event.getLatitude(), event.getLongitude());
+    }
+    
+    /**
+     * Vuelve a leer los eventos próximos, para incorporar cambios hechos desde otras instancias.
+     */
+    @Scheduled(fixedDelayString = "${events.index.refresh-ms:300000}")
+    public void recargarProximos() {
+        if (proximosCargados) {
+            cargarProximos();
+        }
+    }
+    
+    private void indexarProximo(Event event) {
+        if (!proximosCargados || event.getId() == null) {
+            return; // El primer pedido lo carga completo
+        }
+        long id = event.getId();
+        Double latitude = event.getLatitude();
+        Double longitude = event.getLongitude();
+        LocalDateTime eventDate = event.getEventDate();
+        Event.EventType eventType = event.getEventType();
+        boolean visible = event.getStatus() == Event.EventStatus.ACTIVE && latitude != null && longitude != null
+                && eventDate != null && eventDate.isAfter(LocalDateTime.now());
+        DespuesDeCommit.ejecutar(() -> {
+            if (visible) {
+                proximos.poner(id, latitude, longitude, eventDate, eventType);
+            } else {
+                proximos.quitar(id);
+            }
+        });
+    }
+    
+    private void asegurarProximos() {
+        if (!proximosCargados) {
+            synchronized (proximos) {
+                if (!proximosCargados) {
+                    cargarProximos();
+                    proximosCargados = true;
+                }
+            }
+        }
+    }
+    
+    private void cargarProximos() {
+        List<IndiceEspacioTemporal.Entrada<Event.EventType>> entradas = new ArrayList<>();
+        for (Event event : eventRepository.findByEventDateAfterAndStatus(LocalDateTime.now(), Event.EventStatus.ACTIVE)) {
+            if (event.getLatitude() != null && event.getLongitude() != null) {
+                entradas.add(new IndiceEspacioTemporal.Entrada<>(event.getId(), event.getLatitude(), event.getLongitude(),
+                        event.getEventDate(), event.getEventType()));
+            }
+        }
+        proximos.reemplazar(entradas);
+    }
+    
+    private void invalidarCercanos(Double latitude, Double longitude) {
+        if (latitude != null && longitude != null) {
+            DespuesDeCommit.ejecutar(() -> cacheCercanos.invalidar(latitude, longitude));
+        }
+    }
+    
+    private List<IndiceGeografico.Punto<Event>> candidatosEnRadio(double latitude, double longitude, double radiusKm) {
+        return buscarEnRadio(latitude, longitude, radiusKm).keySet().stream()
+                .map(event -> new IndiceGeografico.Punto<>(event.getId(), event.getLatitude(), event.getLongitude(), event))
+                .collect(Collectors.toList());
+    }
+    
+    private Map<Event, Double> buscarEnRadio(double latitude, double longitude, double radiusKm) {
+        CajaGeografica caja = CajaGeografica.alrededor(latitude, longitude, radiusKm);
+        // Cerca de un polo la caja abarca todas las longitudes y no se puede expresar como polígono
+        return spatialSqlEnabled && !caja.cubreTodasLasLongitudes()
+                ? buscarConIndiceEspacial(caja, latitude, longitude, radiusKm)
+                : buscarPorRangos(caja, latitude, longitude, radiusKm);
+    }
+    
+    private Map<Event, Double> buscarConIndiceEspacial(CajaGeografica caja, double latitude, double longitude, double radiusKm) {
+        List<String> poligonos = new ArrayList<>();
+        if (caja.cruzaAntimeridiano()) {
+            poligonos.add(caja.comoPoligonoWkt(caja.getLongitudMinima(), 180.0));
+            poligonos.add(caja.comoPoligonoWkt(-180.0, caja.getLongitudMaxima()));
+        } else {
+            poligonos.add(caja.comoPoligonoWkt(caja.getLongitudMinima(), caja.getLongitudMaxima()));
+        }
+        
+        Map<Long, Double> distanciasPorId = new HashMap<>();
+        for (String poligono : poligonos) {
+            for (Object[] fila : eventRepository.findIdsWithinRadius(Event.EventStatus.ACTIVE.name(), poligono,
+                    latitude, longitude, radiusKm * 1000)) {
+                distanciasPorId.put(((Number) fila[0]).longValue(), ((Number) fila[1]).doubleValue() / 1000);
+            }
+        }
+        
+        // Segunda consulta por id para traer los organizadores en un solo viaje
+        Map<Event, Double> distancias = new HashMap<>();
+        if (!distanciasPorId.isEmpty()) {
+            for (Event event : eventRepository.findWithOrganizerByIdIn(distanciasPorId.keySet())) {
+                distancias.put(event, distanciasPorId.get(event.getId()));
+            }
+        }
+        return distancias;
+    }
+    
+    private Map<Event, Double> buscarPorRangos(CajaGeografica caja, double latitude, double longitude, double radiusKm) {
+        List<Event> candidatos = new ArrayList<>();
+        if (caja.cruzaAntimeridiano()) {
+            candidatos.addAll(buscarEnCaja(caja, caja.getLongitudMinima(), 180.0));
+            candidatos.addAll(buscarEnCaja(caja, -180.0, caja.getLongitudMaxima()));
+        } else {
+            candidatos.addAll(buscarEnCaja(caja, caja.getLongitudMinima(), caja.getLongitudMaxima()));
+        }
+        
+        LoteCoordenadas lote = new LoteCoordenadas(candidatos.size());
+        for (int i = 0; i < candidatos.size(); i++) {
+            lote.agregar(i, candidatos.get(i).getLatitude(), candidatos.get(i).getLongitude());
+        }
+        int[] posiciones = new int[candidatos.size()];
+        double[] distanciasKm = new double[candidatos.size()];
+        int dentro = lote.dentroDeRadio(latitude, longitude, radiusKm, posiciones, distanciasKm);
+        
+        Map<Event, Double> distancias = new HashMap<>();
+        for (int i = 0; i < dentro; i++) {
+            distancias.put(candidatos.get(posiciones[i]), distanciasKm[i]);
+        }
+        return distancias;
+    }
+    
+    private List<Event> buscarEnCaja(CajaGeografica caja, double longitudMinima, double longitudMaxima) {
+        return eventRepository.findByStatusInBoundingBox(Event.EventStatus.ACTIVE,
+                caja.getLatitudMinima(), caja.getLatitudMaxima(), longitudMinima, longitudMaxima);
     }
     
     private EventResponseDto convertToResponseDto(Event event) {
@@ -141,15 +387,4 @@ public class EventService {
         dto.setUpdatedAt(event.getUpdatedAt());
         return dto;
     }
-    
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radio de la Tierra en kilómetros
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
 }
@@ -0,0 +1,153 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.ImpactDto;
+import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.entity.CoeficienteImpacto;
+import com.pp.economia_circular.entity.ImpactoAcumulado;
+import com.pp.economia_circular.entity.MovimientoImpacto;
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.CoeficienteImpactoRepository;
+import com.pp.economia_circular.repositories.ImpactoAcumuladoRepository;
+import com.pp.economia_circular.repositories.MovimientoImpactoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Libro de impacto ambiental.
+ * <p>
+ * Cada artículo que pasa a INTERCAMBIADO genera un asiento con los coeficientes de su
+ * categoría y suma ese aporte a tres totales corrientes (global, del dueño y de la
+ * categoría), en la misma transacción que el cambio de estado. Las consultas leen
+ * una sola fila por clave primaria, sin recorrer artículos.
+ */
+@Service
+@Transactional
+public class ImpactService {
+    
+    // Valores históricos del reporte, para categorías sin coeficiente cargado
+    private static final CoeficienteImpacto COEFICIENTE_POR_DEFECTO = new CoeficienteImpacto(null, 5.2, 2.1, 1.5);
+    
+    @Autowired
+    private CoeficienteImpactoRepository coeficienteRepository;
+    
+    @Autowired
+    private MovimientoImpactoRepository movimientoRepository;
+    
+    @Autowired
+    private ImpactoAcumuladoRepository acumuladoRepository;
+    
+    @Autowired
+    private JWTService authService;
+    
+    // Tabla chica y casi estática: se lee una vez
+    private volatile Map<Articulo.CategoriaArticulo, CoeficienteImpacto> coeficientes;
+    
+    /**
+     * Registra el intercambio de un artículo. Idempotente: un artículo aporta una sola vez.
+     *
+     * @return el asiento creado, o {@code null} si el artículo ya estaba registrado
+     */
+    public MovimientoImpacto registrarIntercambio(Articulo articulo) {
+        if (movimientoRepository.existsByArticuloId(articulo.getId())) {
+            return null;
+        }
+        CoeficienteImpacto coeficiente = coeficiente(articulo.getCategoria());
+        
+        MovimientoImpacto movimiento = new MovimientoImpacto();
+        movimiento.setArticuloId(articulo.getId());
+        movimiento.setUsuarioId(articulo.getUsuario().getId());
+        movimiento.setCategoria(articulo.getCategoria() != null ? articulo.getCategoria().name() : null);
+        movimiento.setCo2Kg(coeficiente.getCo2Kg());
+        movimiento.setResiduosKg(coeficiente.getResiduosKg());
+        movimiento.setRecursos(coeficiente.getRecursos());
+        movimientoRepository.save(movimiento);
+        
+        LocalDateTime ahora = LocalDateTime.now();
+        sumar(ImpactoAcumulado.GLOBAL, movimiento, ahora);
+        sumar(ImpactoAcumulado.deUsuario(movimiento.getUsuarioId()), movimiento, ahora);
+        if (articulo.getCategoria() != null) {
+            sumar(ImpactoAcumulado.deCategoria(articulo.getCategoria()), movimiento, ahora);
+        }
+        return movimiento;
+    }
+    
+    @Transactional(readOnly = true)
+    public ImpactDto getGlobalImpact() {
+        return convertToDto("GLOBAL", ImpactoAcumulado.GLOBAL);
+    }
+    
+    @Transactional(readOnly = true)
+    public ImpactDto getUserImpact(Long userId) {
+        return convertToDto("USER", ImpactoAcumulado.deUsuario(userId));
+    }
+    
+    @Transactional(readOnly = true)
+    public ImpactDto getMyImpact() {
+        Usuario currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("Usuario no autenticado");
+        }
+        return getUserImpact(currentUser.getId());
+    }
+    
+    @Transactional(readOnly = true)
+    public ImpactDto getCategoryImpact(Articulo.CategoriaArticulo category) {
+        return convertToDto("CATEGORY", ImpactoAcumulado.deCategoria(category));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ImpactDto> getImpactByCategory() {
+        return acumuladoRepository.findByClaveStartingWith("CATEGORIA:").stream()
+                .map(acumulado -> convertToDto("CATEGORY", acumulado))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Descarta los coeficientes en memoria para que el próximo intercambio vuelva a leerlos.
+     */
+    public void recargarCoeficientes() {
+        coeficientes = null;
+    }
+    
+    private void sumar(String clave, MovimientoImpacto movimiento, LocalDateTime ahora) {
+        acumuladoRepository.sumar(clave, 1L, movimiento.getCo2Kg(),
+                movimiento.getResiduosKg(), movimiento.getRecursos(), ahora);
+    }
+    
+    private CoeficienteImpacto coeficiente(Articulo.CategoriaArticulo categoria) {
+        Map<Articulo.CategoriaArticulo, CoeficienteImpacto> cargados = coeficientes;
+        if (cargados == null) {
+            cargados = new EnumMap<>(Articulo.CategoriaArticulo.class);
+            for (CoeficienteImpacto coeficiente : coeficienteRepository.findAll()) {
+                cargados.put(coeficiente.getCategoria(), coeficiente);
+            }
+            coeficientes = cargados;
+        }
+        CoeficienteImpacto coeficiente = categoria != null ? cargados.get(categoria) : null;
+        return coeficiente != null ? coeficiente : COEFICIENTE_POR_DEFECTO;
+    }
+    
+    private ImpactDto convertToDto(String scope, String clave) {
+        // Sin fila todavía: impacto cero
+        return convertToDto(scope, acumuladoRepository.findById(clave).orElseGet(() -> new ImpactoAcumulado(clave)));
+    }
+    
+    private ImpactDto convertToDto(String scope, ImpactoAcumulado acumulado) {
+        ImpactDto dto = new ImpactDto();
+        dto.setScope(scope);
+        dto.setKey(acumulado.getClave().substring(acumulado.getClave().indexOf(':') + 1));
+        dto.setExchangedArticles(acumulado.getArticulos());
+        dto.setCo2SavedKg(acumulado.getCo2Kg());
+        dto.setWasteReducedKg(acumulado.getResiduosKg());
+        dto.setResourcesSaved(acumulado.getRecursos());
+        dto.setUpdatedAt(acumulado.getActualizadoEn());
+        return dto;
+    }
+}
@@ -0,0 +1,555 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.LeaderboardDto;
+import com.pp.economia_circular.DTO.LeaderboardEntryDto;
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import com.pp.economia_circular.util.TablaPosiciones;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Tablas de posiciones públicas de intercambios, CO2 ahorrado y artículos publicados,
+ * históricas y por mes.
+ * <p>
+ * Cada tabla vive en memoria como una {@link TablaPosiciones}: actualizar un puntaje o pedir
+ * una posición o una página cuesta O(log n), sin ordenar usuarios en cada consulta. Los
+ * servicios de artículos las alimentan después de cada commit y se reconstruyen al arrancar
+ * (y cada noche) con consultas agrupadas sobre las tablas de origen, lo que absorbe cambios
+ * hechos por fuera de la aplicación.
+ * <p>
+ * La copia en {@code clasificaciones} es la referencia compartida entre instancias: cada una
+ * lleva periódicamente sólo las diferencias que acumuló ({@code puntaje = puntaje + delta}),
+ * así dos instancias no se pisan, y cada tanto recarga sus tablas desde ahí para ver lo que
+ * sumaron las demás. Sólo la reconstrucción escribe puntajes absolutos, porque los calcula
+ * desde las tablas de origen.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final String GLOBAL = "GLOBAL";
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // El CO2 se guarda en gramos para ordenar con enteros
+    private static final long GRAMOS_POR_KG = 1000L;
+
+    public enum Metric {
+        EXCHANGES, CO2, DONATED
+    }
+
+    // Métrica -> consultas de puntaje por (usuario, año, mes) sobre las tablas de origen
+    private static final Map<Metric, List<String>> CONSULTAS = new EnumMap<>(Metric.class);
+
+    static {
+        // Un intercambio por lado: el dueño del artículo intercambiado y quien concretó la solicitud
+        CONSULTAS.put(Metric.EXCHANGES, Arrays.asList(
+                "SELECT usuario_id AS usuario, YEAR(actualizado_en) AS anio, MONTH(actualizado_en) AS mes, " +
+                "COUNT(*) AS puntaje FROM articulos WHERE estado = 'INTERCAMBIADO' " +
+                "GROUP BY usuario_id, YEAR(actualizado_en), MONTH(actualizado_en)",
+                "SELECT solicitante_id AS usuario, YEAR(actualizado_en) AS anio, MONTH(actualizado_en) AS mes, " +
+                "COUNT(*) AS puntaje FROM solicitudes_intercambio WHERE estado = 'COMPLETADO' " +
+                "GROUP BY solicitante_id, YEAR(actualizado_en), MONTH(actualizado_en)"));
+        CONSULTAS.put(Metric.CO2, Collections.singletonList(
+                "SELECT usuario_id AS usuario, YEAR(creado_en) AS anio, MONTH(creado_en) AS mes, " +
+                "ROUND(SUM(co2_kg) * " + GRAMOS_POR_KG + ") AS puntaje FROM impacto_movimientos " +
+                "GROUP BY usuario_id, YEAR(creado_en), MONTH(creado_en)"));
+        // Artículos puestos en circulación: todos los publicados que no se dieron de baja
+        CONSULTAS.put(Metric.DONATED, Collections.singletonList(
+                "SELECT usuario_id AS usuario, YEAR(creado_en) AS anio, MONTH(creado_en) AS mes, " +
+                "COUNT(*) AS puntaje FROM articulos WHERE estado <> 'ELIMINADO' " +
+                "GROUP BY usuario_id, YEAR(creado_en), MONTH(creado_en)"));
+    }
+
+    private static final String LEER = "SELECT tablero, usuario_id, puntaje FROM clasificaciones";
+    private static final String BORRAR = "DELETE FROM clasificaciones WHERE tablero = :tablero";
+    private static final String QUITAR = "DELETE FROM clasificaciones WHERE tablero = :tablero AND usuario_id = :usuario";
+    private static final String FIJAR =
+            "INSERT INTO clasificaciones (tablero, usuario_id, puntaje, actualizado_en) " +
+            "VALUES (:tablero, :usuario, :puntaje, :ahora) " +
+            "ON DUPLICATE KEY UPDATE puntaje = VALUES(puntaje), actualizado_en = VALUES(actualizado_en)";
+    private static final String SUMAR =
+            "INSERT INTO clasificaciones (tablero, usuario_id, puntaje, actualizado_en) " +
+            "VALUES (:tablero, :usuario, :delta, :ahora) " +
+            "ON DUPLICATE KEY UPDATE puntaje = puntaje + VALUES(puntaje), actualizado_en = VALUES(actualizado_en)";
+    // Después de un delta negativo: la fila que quedó en cero (o debajo) deja de figurar
+    private static final String LIMPIAR =
+            "DELETE FROM clasificaciones WHERE tablero = :tablero AND usuario_id = :usuario AND puntaje <= 0";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JWTService authService;
+
+    @Value("${leaderboards.enabled:true}")
+    private boolean habilitado = true;
+
+    // false: arrancar desde la última copia persistida (si existe) en lugar de reconstruir
+    @Value("${leaderboards.rebuild-on-startup:true}")
+    private boolean reconstruirAlIniciar = true;
+
+    // Meses con tabla propia, incluido el actual
+    @Value("${leaderboards.months:12}")
+    private int meses = 12;
+
+    // Tablero ("METRICA:GLOBAL" o "METRICA:AAAA-MM") -> posiciones; se reemplaza entero al reconstruir
+    private volatile Map<String, TablaPosiciones> tablas = new ConcurrentHashMap<>();
+
+    // Tablero -> usuario -> diferencia acumulada desde la última copia a la base
+    private final Map<String, Map<Long, Long>> pendientes = new ConcurrentHashMap<>();
+
+    // Tableros que salieron de la ventana de meses: se borran enteros
+    private final Set<String> vencidos = ConcurrentHashMap.newKeySet();
+
+    public void registrarIntercambio(Long usuarioId, Double co2Kg) {
+        YearMonth mes = YearMonth.now();
+        DespuesDeCommit.ejecutar(() -> {
+            sumar(Metric.EXCHANGES, usuarioId, mes, 1L);
+            if (co2Kg != null && co2Kg > 0) {
+                sumar(Metric.CO2, usuarioId, mes, Math.round(co2Kg * GRAMOS_POR_KG));
+            }
+        });
+    }
+
+    public void registrarPublicacion(Long usuarioId, LocalDateTime creadoEn) {
+        YearMonth mes = creadoEn != null ? YearMonth.from(creadoEn) : YearMonth.now();
+        DespuesDeCommit.ejecutar(() -> sumar(Metric.DONATED, usuarioId, mes, 1L));
+    }
+
+    public void registrarBaja(Long usuarioId, LocalDateTime creadoEn) {
+        YearMonth mes = creadoEn != null ? YearMonth.from(creadoEn) : YearMonth.now();
+        DespuesDeCommit.ejecutar(() -> sumar(Metric.DONATED, usuarioId, mes, -1L));
+    }
+
+    public LeaderboardDto getLeaderboard(String metric, String month, int page, int size) {
+        Metric metrica = metrica(metric);
+        YearMonth mes = mes(month);
+        if (page < 0) {
+            throw new RuntimeException("La página no puede ser negativa");
+        }
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new RuntimeException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+
+        List<TablaPosiciones.Entrada> entradas = Collections.emptyList();
+        int total = 0;
+        TablaPosiciones tabla = tablas.get(clave(metrica, mes));
+        if (tabla != null) {
+            synchronized (tabla) {
+                total = tabla.tamanio();
+                if ((long) page * size < total) {
+                    entradas = tabla.rango(page * size + 1, size);
+                }
+            }
+        }
+
+        // Un único query para los nombres de toda la página
+        Map<Long, String> nombres = new HashMap<>();
+        if (!entradas.isEmpty()) {
+            List<Long> ids = entradas.stream().map(TablaPosiciones.Entrada::getClave).collect(Collectors.toList());
+            for (Object[] fila : usuarioRepository.findNombresByIds(ids)) {
+                nombres.put((Long) fila[0], nombreVisible((String) fila[1], (String) fila[2]));
+            }
+        }
+
+        List<LeaderboardEntryDto> filas = new ArrayList<>();
+        for (TablaPosiciones.Entrada entrada : entradas) {
+            LeaderboardEntryDto fila = new LeaderboardEntryDto(
+                    entrada.getPosicion(), entrada.getClave(), puntajeVisible(metrica, entrada.getPuntaje()));
+            fila.setDisplayName(nombres.get(entrada.getClave()));
+            filas.add(fila);
+        }
+
+        LeaderboardDto dto = new LeaderboardDto();
+        dto.setMetric(metrica.name());
+        dto.setPeriod(mes != null ? mes.toString() : GLOBAL);
+        dto.setTotalUsers(total);
+        dto.setPage(page);
+        dto.setSize(size);
+        dto.setEntries(filas);
+        return dto;
+    }
+
+    /**
+     * Posición del usuario autenticado; {@code rank} 0 si todavía no figura en la tabla.
+     */
+    public LeaderboardEntryDto getMyPosition(String metric, String month) {
+        Usuario currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("Usuario no autenticado");
+        }
+        Metric metrica = metrica(metric);
+        YearMonth mes = mes(month);
+
+        int posicion = 0;
+        long puntaje = 0L;
+        TablaPosiciones tabla = tablas.get(clave(metrica, mes));
+        if (tabla != null) {
+            synchronized (tabla) {
+                posicion = tabla.posicion(currentUser.getId());
+                puntaje = tabla.puntaje(currentUser.getId());
+            }
+        }
+
+        LeaderboardEntryDto dto = new LeaderboardEntryDto(posicion, currentUser.getId(), puntajeVisible(metrica, puntaje));
+        dto.setDisplayName(nombreVisible(currentUser.getNombre(), currentUser.getApellido()));
+        return dto;
+    }
+
+    /**
+     * Recalcula todas las tablas desde las tablas de origen, fija en {@code clasificaciones} sólo
+     * los puntajes que difieren de lo persistido y reemplaza las de memoria. Lo pendiente se
+     * copia antes, porque la reconstrucción ya lo cuenta; lo que se confirme mientras corre puede
+     * quedar fuera (o contarse dos veces) hasta la próxima reconstrucción.
+     *
+     * @return cantidad de tableros
+     */
+    public int reconstruir() {
+        persistirPendientes();
+
+        Map<String, Map<Long, Long>> puntajes = new HashMap<>();
+        for (Map.Entry<Metric, List<String>> consulta : CONSULTAS.entrySet()) {
+            for (String sql : consulta.getValue()) {
+                for (Map<String, Object> fila : jdbcTemplate.queryForList(sql, new MapSqlParameterSource())) {
+                    Long usuario = ((Number) fila.get("usuario")).longValue();
+                    long puntaje = ((Number) fila.get("puntaje")).longValue();
+                    acumular(puntajes, clave(consulta.getKey(), null), usuario, puntaje);
+                    if (fila.get("anio") != null) {
+                        YearMonth mes = YearMonth.of(((Number) fila.get("anio")).intValue(), ((Number) fila.get("mes")).intValue());
+                        if (mesConservado(mes)) {
+                            acumular(puntajes, clave(consulta.getKey(), mes), usuario, puntaje);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, TablaPosiciones> nuevas = new ConcurrentHashMap<>();
+        puntajes.forEach((clave, porUsuario) -> {
+            TablaPosiciones tabla = new TablaPosiciones();
+            porUsuario.forEach(tabla::fijar);
+            nuevas.put(clave, tabla);
+        });
+
+        tablas = conPendientes(nuevas);
+
+        // Los tableros que desaparecen también se comparan: sus usuarios se dan de baja
+        Map<String, Map<Long, Long>> persistidos = leerPersistidos();
+        Set<String> claves = new HashSet<>(persistidos.keySet());
+        claves.addAll(puntajes.keySet());
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        for (String clave : claves) {
+            if (!tableroConservado(clave)) {
+                vencidos.add(clave);
+                continue;
+            }
+            Map<Long, Long> antes = persistidos.getOrDefault(clave, Collections.emptyMap());
+            Map<Long, Long> despues = puntajes.getOrDefault(clave, Collections.emptyMap());
+            Set<Long> cambiados = new HashSet<>(antes.keySet());
+            cambiados.addAll(despues.keySet());
+            cambiados.removeIf(usuario -> Objects.equals(antes.get(usuario), despues.get(usuario)));
+            if (!cambiados.isEmpty()) {
+                transaccion.execute(status -> {
+                    fijar(clave, cambiados, despues);
+                    return null;
+                });
+            }
+        }
+        log.info("Tablas de posiciones reconstruidas ({} tableros)", nuevas.size());
+        return nuevas.size();
+    }
+
+    /**
+     * Reemplaza las tablas de memoria por la copia de la base más lo que esta instancia todavía
+     * no copió. Lo que se sume mientras se reemplazan llega a la base igual y aparece en la
+     * próxima recarga.
+     *
+     * @return cantidad de tableros cargados desde {@code clasificaciones}
+     */
+    public int cargarPersistidos() {
+        Map<String, TablaPosiciones> cargadas = new ConcurrentHashMap<>();
+        leerPersistidos().forEach((clave, porUsuario) -> {
+            TablaPosiciones tabla = new TablaPosiciones();
+            porUsuario.forEach(tabla::fijar);
+            cargadas.put(clave, tabla);
+        });
+        tablas = conPendientes(cargadas);
+        vencidos.clear();
+        return cargadas.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            // También antes de reconstruir: es la base contra la que se calculan las diferencias
+            if (cargarPersistidos() > 0 && !reconstruirAlIniciar) {
+                return;
+            }
+            reconstruir();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron preparar las tablas de posiciones", e);
+        }
+    }
+
+    @Scheduled(cron = "${leaderboards.rebuild-cron:0 45 3 * * *}")
+    public void reconstruirProgramado() {
+        if (habilitado) {
+            try {
+                reconstruir();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron reconstruir las tablas de posiciones", e);
+            }
+        }
+    }
+
+    // Trae lo que sumaron las otras instancias
+    @Scheduled(fixedDelayString = "${leaderboards.refresh-ms:300000}", initialDelayString = "${leaderboards.refresh-ms:300000}")
+    public void recargarProgramado() {
+        if (habilitado) {
+            try {
+                persistirPendientes();
+                cargarPersistidos();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron recargar las tablas de posiciones", e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboards.flush-ms:60000}")
+    public void persistirPendientes() {
+        if (!habilitado) {
+            return;
+        }
+        purgarMesesVencidos();
+
+        for (String clave : new ArrayList<>(vencidos)) {
+            try {
+                jdbcTemplate.update(BORRAR, new MapSqlParameterSource("tablero", clave));
+                vencidos.remove(clave);
+            } catch (RuntimeException e) {
+                log.warn("No se pudo borrar la tabla de posiciones {}", clave, e);
+                return;
+            }
+        }
+
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        for (String clave : new ArrayList<>(pendientes.keySet())) {
+            Map<Long, Long> deltas = pendientes.remove(clave);
+            if (deltas == null) {
+                continue;
+            }
+            try {
+                transaccion.execute(status -> {
+                    guardar(clave, deltas);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // Se reintenta en el próximo ciclo, sumado a lo que haya llegado mientras tanto
+                deltas.forEach((usuario, delta) -> acumularPendiente(clave, usuario, delta));
+                log.warn("No se pudo guardar la tabla de posiciones {}", clave, e);
+                return;
+            }
+        }
+    }
+
+    private void sumar(Metric metrica, Long usuarioId, YearMonth mes, long delta) {
+        actualizar(clave(metrica, null), usuarioId, delta);
+        if (mesConservado(mes)) {
+            actualizar(clave(metrica, mes), usuarioId, delta);
+        }
+    }
+
+    private void actualizar(String clave, Long usuarioId, long delta) {
+        TablaPosiciones tabla = tablas.computeIfAbsent(clave, c -> new TablaPosiciones());
+        synchronized (tabla) {
+            tabla.sumar(usuarioId, delta);
+        }
+        acumularPendiente(clave, usuarioId, delta);
+    }
+
+    // Dentro de compute: el flush retira el mapa entero con remove y no se pierden deltas
+    private void acumularPendiente(String clave, Long usuarioId, long delta) {
+        pendientes.compute(clave, (c, deltas) -> {
+            Map<Long, Long> actuales = deltas != null ? deltas : new HashMap<>();
+            actuales.merge(usuarioId, delta, Long::sum);
+            return actuales;
+        });
+    }
+
+    // Deltas de esta instancia: se suman a lo que haya en la base, sin pisar lo de las demás
+    private void guardar(String clave, Map<Long, Long> deltas) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<SqlParameterSource> sumas = new ArrayList<>();
+        List<SqlParameterSource> limpiezas = new ArrayList<>();
+        deltas.forEach((usuario, delta) -> {
+            if (delta == 0) {
+                return;
+            }
+            MapSqlParameterSource fila = new MapSqlParameterSource()
+                    .addValue("tablero", clave)
+                    .addValue("usuario", usuario);
+            sumas.add(new MapSqlParameterSource(fila.getValues()).addValue("delta", delta).addValue("ahora", ahora));
+            if (delta < 0) {
+                limpiezas.add(fila);
+            }
+        });
+        if (!sumas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SUMAR, sumas.toArray(new SqlParameterSource[0]));
+        }
+        if (!limpiezas.isEmpty()) {
+            jdbcTemplate.batchUpdate(LIMPIAR, limpiezas.toArray(new SqlParameterSource[0]));
+        }
+    }
+
+    // Puntajes absolutos recalculados por la reconstrucción; los que ya no figuran se borran
+    private void fijar(String clave, Set<Long> usuarios, Map<Long, Long> puntajes) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<SqlParameterSource> altas = new ArrayList<>();
+        List<SqlParameterSource> bajas = new ArrayList<>();
+        for (Long usuario : usuarios) {
+            long puntaje = puntajes.getOrDefault(usuario, 0L);
+            MapSqlParameterSource fila = new MapSqlParameterSource()
+                    .addValue("tablero", clave)
+                    .addValue("usuario", usuario);
+            if (puntaje > 0) {
+                altas.add(fila.addValue("puntaje", puntaje).addValue("ahora", ahora));
+            } else {
+                bajas.add(fila);
+            }
+        }
+        if (!altas.isEmpty()) {
+            jdbcTemplate.batchUpdate(FIJAR, altas.toArray(new SqlParameterSource[0]));
+        }
+        if (!bajas.isEmpty()) {
+            jdbcTemplate.batchUpdate(QUITAR, bajas.toArray(new SqlParameterSource[0]));
+        }
+    }
+
+    private Map<String, Map<Long, Long>> leerPersistidos() {
+        Map<String, Map<Long, Long>> persistidos = new HashMap<>();
+        for (Map<String, Object> fila : jdbcTemplate.queryForList(LEER, new MapSqlParameterSource())) {
+            acumular(persistidos, (String) fila.get("tablero"),
+                    ((Number) fila.get("usuario_id")).longValue(), ((Number) fila.get("puntaje")).longValue());
+        }
+        return persistidos;
+    }
+
+    // Suma a las tablas recién armadas lo que esta instancia todavía no llevó a la base
+    private Map<String, TablaPosiciones> conPendientes(Map<String, TablaPosiciones> nuevas) {
+        for (String clave : new ArrayList<>(pendientes.keySet())) {
+            Map<Long, Long> deltas = new HashMap<>();
+            pendientes.computeIfPresent(clave, (c, actuales) -> {
+                deltas.putAll(actuales);
+                return actuales;
+            });
+            if (!deltas.isEmpty()) {
+                TablaPosiciones tabla = nuevas.computeIfAbsent(clave, c -> new TablaPosiciones());
+                deltas.forEach(tabla::sumar);
+            }
+        }
+        return nuevas;
+    }
+
+    private void purgarMesesVencidos() {
+        for (String clave : new ArrayList<>(tablas.keySet())) {
+            if (!tableroConservado(clave)) {
+                tablas.remove(clave);
+                pendientes.remove(clave);
+                vencidos.add(clave);
+            }
+        }
+    }
+
+    private boolean tableroConservado(String clave) {
+        String periodo = clave.substring(clave.indexOf(':') + 1);
+        return GLOBAL.equals(periodo) || mesConservado(YearMonth.parse(periodo));
+    }
+
+    private static void acumular(Map<String, Map<Long, Long>> puntajes, String clave, Long usuario, long puntaje) {
+        puntajes.computeIfAbsent(clave, c -> new HashMap<>()).merge(usuario, puntaje, Long::sum);
+    }
+
+    private boolean mesConservado(YearMonth mes) {
+        YearMonth actual = YearMonth.now();
+        return !mes.isAfter(actual) && mes.isAfter(actual.minusMonths(meses));
+    }
+
+    private Metric metrica(String metric) {
+        try {
+            return Metric.valueOf(metric.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Métrica no válida: " + metric);
+        }
+    }
+
+    // null = histórica
+    private YearMonth mes(String month) {
+        if (month == null || month.trim().isEmpty()) {
+            return null;
+        }
+        YearMonth mes;
+        try {
+            mes = YearMonth.parse(month.trim());
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Formato de mes inválido (use AAAA-MM)");
+        }
+        if (!mesConservado(mes)) {
+            throw new RuntimeException("Sólo se conservan los últimos " + meses + " meses");
+        }
+        return mes;
+    }
+
+    private static String clave(Metric metrica, YearMonth mes) {
+        return metrica.name() + ":" + (mes != null ? mes.toString() : GLOBAL);
+    }
+
+    private static Number puntajeVisible(Metric metrica, long puntaje) {
+        return metrica == Metric.CO2 ? (Number) (puntaje / (double) GRAMOS_POR_KG) : (Number) puntaje;
+    }
+
+    // Nombre e inicial del apellido: la tabla es pública y no debe exponer el email
+    private static String nombreVisible(String nombre, String apellido) {
+        if (nombre == null) {
+            return null;
+        }
+        return apellido != null && !apellido.isEmpty() ? nombre + " " + apellido.charAt(0) + "." : nombre;
+    }
+}
@@ -0,0 +1,182 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.MapClusterDto;
+import com.pp.economia_circular.entity.Event;
+import com.pp.economia_circular.entity.RecyclingCenter;
+import com.pp.economia_circular.repositories.EventRepository;
+import com.pp.economia_circular.repositories.RecyclingCenterRepository;
+import com.pp.economia_circular.util.GrillaClusters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Grupos de centros y eventos activos para el mapa, ya agregados por zoom: cada movimiento
+ * del mapa recibe a lo sumo una entrada por celda visible en lugar de todos los marcadores.
+ * La grilla se carga en el primer pedido y se mantiene con los cambios de
+ * {@link RecyclingCenterService} y {@link EventService}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class MapClusterService {
+    
+    public static final String CENTERS = "centers";
+    public static final String EVENTS = "events";
+    
+    private static final int CAPA_CENTROS = 0;
+    private static final int CAPA_EVENTOS = 1;
+    // Por encima se devuelven los marcadores sueltos
+    private static final int ZOOM_MAXIMO = 16;
+    // Celdas de 64 px sobre teselas de 256 px
+    private static final int CELDAS_POR_TESELA = 4;
+    private static final int MAX_ZOOM = 22;
+    // Una pantalla grande a cualquier zoom son unas 600 celdas
+    private static final int MAX_CELDAS = 4096;
+    
+    @Autowired
+    private RecyclingCenterRepository recyclingCenterRepository;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    private final GrillaClusters grilla = new GrillaClusters(ZOOM_MAXIMO, CELDAS_POR_TESELA, 2);
+    private volatile boolean cargada = false;
+    
+    /**
+     * @param bbox   "oeste,sur,este,norte" en grados; oeste mayor que este si la vista cruza el antimeridiano
+     * @param layers capas separadas por coma ({@value #CENTERS}, {@value #EVENTS}); vacío = todas
+     */
+    public List<MapClusterDto> getClusters(String bbox, Integer zoom, String layers) {
+        double[] vista = parsearBbox(bbox);
+        if (zoom == null || zoom < 0 || zoom > MAX_ZOOM) {
+            throw new RuntimeException("El zoom debe estar entre 0 y " + MAX_ZOOM);
+        }
+        boolean[] capas = parsearCapas(layers);
+        if (grilla.celdasEnVista(vista[0], vista[1], vista[2], vista[3], zoom) > MAX_CELDAS) {
+            throw new RuntimeException("El área pedida es demasiado grande para ese zoom");
+        }
+        
+        asegurarCarga();
+        return grilla.buscar(vista[0], vista[1], vista[2], vista[3], zoom, capas).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+    
+    public void registrarCentro(RecyclingCenter center) {
+        boolean visible = center.getStatus() == RecyclingCenter.CenterStatus.ACTIVE;
+        registrar(CAPA_CENTROS, center.getId(), visible, center.getLatitude(), center.getLongitude());
+    }
+    
+    public void registrarEvento(Event event) {
+        boolean visible = event.getStatus() == Event.EventStatus.ACTIVE;
+        registrar(CAPA_EVENTOS, event.getId(), visible, event.getLatitude(), event.getLongitude());
+    }
+    
+    /**
+     * Vuelve a leer centros y eventos, para incorporar cambios hechos desde otras instancias.
+     */
+    @Scheduled(fixedDelayString = "${map.clusters.refresh-ms:300000}")
+    public void recargar() {
+        if (cargada) {
+            cargar();
+        }
+    }
+    
+    private void registrar(int capa, Long id, boolean visible, Double latitud, Double longitud) {
+        if (!cargada || id == null) {
+            return; // El primer pedido la carga completa
+        }
+        DespuesDeCommit.ejecutar(() -> {
+            if (visible && latitud != null && longitud != null) {
+                grilla.poner(capa, id, latitud, longitud);
+            } else {
+                grilla.quitar(capa, id);
+            }
+        });
+    }
+    
+    private void asegurarCarga() {
+        if (!cargada) {
+            synchronized (grilla) {
+                if (!cargada) {
+                    cargar();
+                    cargada = true;
+                }
+            }
+        }
+    }
+    
+    private void cargar() {
+        List<GrillaClusters.Elemento> elementos = new ArrayList<>();
+        for (RecyclingCenter center : recyclingCenterRepository.findByStatus(RecyclingCenter.CenterStatus.ACTIVE)) {
+            if (center.getLatitude() != null && center.getLongitude() != null) {
+                elementos.add(new GrillaClusters.Elemento(CAPA_CENTROS, center.getId(), center.getLatitude(), center.getLongitude()));
+            }
+        }
+        for (Event event : eventRepository.findByStatus(Event.EventStatus.ACTIVE)) {
+            if (event.getLatitude() != null && event.getLongitude() != null) {
+                elementos.add(new GrillaClusters.Elemento(CAPA_EVENTOS, event.getId(), event.getLatitude(), event.getLongitude()));
+            }
+        }
+        grilla.reemplazar(elementos);
+    }
+    
+    private double[] parsearBbox(String bbox) {
+        String[] partes = bbox == null ? new String[0] : bbox.split(",");
+        if (partes.length != 4) {
+            throw new RuntimeException("bbox debe tener el formato oeste,sur,este,norte");
+        }
+        double[] vista = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                vista[i] = Double.parseDouble(partes[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("bbox debe tener el formato oeste,sur,este,norte");
+        }
+        if (vista[0] < -180 || vista[0] > 180 || vista[2] < -180 || vista[2] > 180
+                || vista[1] < -90 || vista[3] > 90 || vista[1] > vista[3]) {
+            throw new RuntimeException("Coordenadas inválidas");
+        }
+        return vista;
+    }
+    
+    private boolean[] parsearCapas(String layers) {
+        if (layers == null || layers.trim().isEmpty()) {
+            return null;
+        }
+        boolean[] capas = new boolean[2];
+        for (String capa : layers.split(",")) {
+            switch (capa.trim().toLowerCase()) {
+                case CENTERS:
+                    capas[CAPA_CENTROS] = true;
+                    break;
+                case EVENTS:
+                    capas[CAPA_EVENTOS] = true;
+                    break;
+                default:
+                    throw new RuntimeException("Capa inválida: " + capa.trim());
+            }
+        }
+        return capas;
+    }
+    
+    private MapClusterDto convertToDto(GrillaClusters.Grupo grupo) {
+        MapClusterDto dto = new MapClusterDto();
+        dto.setLatitude(grupo.getLatitud());
+        dto.setLongitude(grupo.getLongitud());
+        dto.setCount(grupo.getCantidad());
+        dto.setCenterCount(grupo.getCantidad(CAPA_CENTROS));
+        dto.setEventCount(grupo.getCantidad(CAPA_EVENTOS));
+        if (grupo.getCantidad() == 1) {
+            dto.setType(grupo.getCapa() == CAPA_CENTROS ? "CENTER" : "EVENT");
+            dto.setId(grupo.getId());
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,114 @@
+package com.pp.economia_circular.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pp.economia_circular.DTO.RespuestaMensajeDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de conexiones WebSocket abiertas por usuario y envío de novedades de mensajería.
+ * Las conexiones inactivas no consumen hilos: sólo ocupan una entrada en el mapa.
+ */
+@Service
+public class NotificadorMensajes {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificadorMensajes.class);
+
+    // Límites por sesión para que un cliente lento no retenga memoria ni bloquee a los demás
+    private static final int LIMITE_TIEMPO_ENVIO_MS = 5000;
+    private static final int LIMITE_BUFFER_BYTES = 64 * 1024;
+
+    private final Map<Long, Set<WebSocketSession>> sesionesPorUsuario = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public WebSocketSession registrar(Long usuarioId, WebSocketSession sesion) {
+        WebSocketSession segura = new ConcurrentWebSocketSessionDecorator(
+                sesion, LIMITE_TIEMPO_ENVIO_MS, LIMITE_BUFFER_BYTES);
+        // El alta va dentro de compute: un desregistrar concurrente no puede descartar el
+        // conjunto vacío entre que se obtiene y se le agrega la sesión
+        sesionesPorUsuario.compute(usuarioId, (id, sesiones) -> {
+            Set<WebSocketSession> actuales = sesiones != null ? sesiones : ConcurrentHashMap.newKeySet();
+            actuales.add(segura);
+            return actuales;
+        });
+        return segura;
+    }
+
+    public void desregistrar(Long usuarioId, WebSocketSession sesion) {
+        sesionesPorUsuario.computeIfPresent(usuarioId, (id, sesiones) -> {
+            sesiones.removeIf(s -> s.getId().equals(sesion.getId()));
+            return sesiones.isEmpty() ? null : sesiones;
+        });
+    }
+
+    public boolean estaConectado(Long usuarioId) {
+        return usuarioId != null && sesionesPorUsuario.containsKey(usuarioId);
+    }
+
+    public Set<Long> usuariosConectados() {
+        return Collections.unmodifiableSet(sesionesPorUsuario.keySet());
+    }
+
+    public int cantidadConexiones() {
+        return sesionesPorUsuario.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public void notificarNuevoMensaje(Long usuarioId, RespuestaMensajeDto mensaje, Long noLeidos) {
+        Map<String, Object> evento = new LinkedHashMap<>();
+        evento.put("tipo", "NUEVO_MENSAJE");
+        evento.put("mensaje", mensaje);
+        evento.put("noLeidos", noLeidos);
+        enviar(usuarioId, evento);
+    }
+
+    public void notificarNoLeidos(Long usuarioId, Long noLeidos) {
+        Map<String, Object> evento = new LinkedHashMap<>();
+        evento.put("tipo", "NO_LEIDOS");
+        evento.put("noLeidos", noLeidos);
+        enviar(usuarioId, evento);
+    }
+
+    private void enviar(Long usuarioId, Map<String, Object> evento) {
+        Set<WebSocketSession> sesiones = sesionesPorUsuario.get(usuarioId);
+        if (sesiones == null || sesiones.isEmpty()) {
+            return;
+        }
+
+        TextMessage texto;
+        try {
+            texto = new TextMessage(objectMapper.writeValueAsString(evento));
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar la notificación para el usuario {}", usuarioId, e);
+            return;
+        }
+
+        for (WebSocketSession sesion : sesiones) {
+            if (!sesion.isOpen()) {
+                desregistrar(usuarioId, sesion);
+                continue;
+            }
+            try {
+                sesion.sendMessage(texto);
+            } catch (IOException | RuntimeException e) {
+                // El decorador cierra la sesión si supera los límites; la quitamos del registro
+                log.debug("Fallo al notificar al usuario {} en la sesión {}", usuarioId, sesion.getId(), e);
+                desregistrar(usuarioId, sesion);
+            }
+        }
+    }
+}
@@ -1,23 +1,81 @@
 package com.pp.economia_circular.service;
 
 import com.pp.economia_circular.DTO.RecyclingCenterDto;
+import com.pp.economia_circular.entity.OpeningInterval;
 import com.pp.economia_circular.entity.RecyclingCenter;
+import com.pp.economia_circular.repositories.OpeningIntervalRepository;
 import com.pp.economia_circular.repositories.RecyclingCenterRepository;
+import com.pp.economia_circular.util.ArbolKd;
+import com.pp.economia_circular.util.CacheGeohash;
+import com.pp.economia_circular.util.HorarioSemanal;
+import com.pp.economia_circular.util.IndiceGeografico;
+import com.pp.economia_circular.util.IndiceHorarios;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class RecyclingCenterService {
     
+    private static final Logger log = LoggerFactory.getLogger(RecyclingCenterService.class);
+    
+    // Celdas de ~11 km: un radio típico (5 km) toca unas pocas
+    private static final double TAMANIO_CELDA_GRADOS = 0.1;
+    private static final double MAX_RADIUS_KM = 500;
+    private static final int MAX_NEAREST = 50;
+    private static final int MAX_CACHED_CELLS = 2000;
+    // La relectura periódica ya la vacía; esto sólo acota entradas de celdas poco consultadas
+    private static final long CACHE_TTL_MS = 600_000;
+    
     @Autowired
     private RecyclingCenterRepository recyclingCenterRepository;
     
+    @Autowired
+    private OpeningIntervalRepository openingIntervalRepository;
+    
+    @Autowired
+    private MapClusterService mapClusterService;
+    
+    // Todos los centros con coordenadas; se cargan en la primera búsqueda
+    private final Map<Long, RecyclingCenter> centros = new ConcurrentHashMap<>();
+    // Sólo los activos, para búsquedas por radio
+    private final IndiceGeografico<RecyclingCenter> indice = new IndiceGeografico<>(TAMANIO_CELDA_GRADOS);
+    private volatile boolean indiceCargado = false;
+    // Para los k más cercanos; null si hubo cambios desde que se construyó
+    private volatile ArbolKd<RecyclingCenter> arbol;
+    // Candidatos de búsquedas por radio anteriores, por celda geohash y cubeta de radio
+    private final CacheGeohash<RecyclingCenter> cacheCercanos = new CacheGeohash<>(MAX_CACHED_CELLS, CACHE_TTL_MS);
+    // Intervalos semanales por centro, cargados con el índice
+    private final Map<Long, List<HorarioSemanal.Intervalo>> horarios = new ConcurrentHashMap<>();
+    // Abiertos por minuto de la semana; null si hubo cambios desde que se construyó
+    private volatile IndiceHorarios indiceHorarios;
+    
+    @Value("${geo.nearby-cache.enabled:true}")
+    private boolean nearbyCacheEnabled = true;
+    
+    @Value("${recycling-centers.opening-hours.backfill-on-startup:true}")
+    private boolean completarHorariosAlIniciar = true;
+    
     public RecyclingCenterDto createCenter(RecyclingCenterDto centerDto) {
+        List<HorarioSemanal.Intervalo> intervalos = interpretarHorario(centerDto.getName(), centerDto.getOpeningHours());
         RecyclingCenter center = new RecyclingCenter();
         center.setName(centerDto.getName());
         center.setDescription(centerDto.getDescription());
@@ -28,8 +86,12 @@ public class RecyclingCenterService {
         center.setEmail(centerDto.getEmail());
         center.setCenterType(centerDto.getCenterType());
         center.setOpeningHours(centerDto.getOpeningHours());
+        center.setOpeningHoursProcessed(true);
         
         RecyclingCenter savedCenter = recyclingCenterRepository.save(center);
+        guardarHorarios(savedCenter, intervalos);
+        indexar(savedCenter, intervalos);
+        mapClusterService.registrarCentro(savedCenter);
         return convertToDto(savedCenter);
     }
     
@@ -46,18 +108,107 @@ public class RecyclingCenterService {
     }
     
     public List<RecyclingCenterDto> getCentersNearLocation(Double latitude, Double longitude, Double radiusKm) {
-        // Implementación simplificada - en producción usarías una consulta espacial
-        return recyclingCenterRepository.findAll().stream()
-                .filter(center -> calculateDistance(latitude, longitude, 
-                        center.getLatitude(), center.getLongitude()) <= radiusKm)
-                .map(this::convertToDto)
+        return getCentersNearLocation(latitude, longitude, radiusKm, null, null);
+    }
+    
+    public List<RecyclingCenterDto> getCentersNearLocation(Double latitude, Double longitude, Double radiusKm,
+                                                           RecyclingCenter.CenterType centerType) {
+        return getCentersNearLocation(latitude, longitude, radiusKm, centerType, null);
+    }
+    
+    /**
+     * Centros activos a {@code radiusKm} o menos, del más cercano al más lejano; con
+     * {@code openAt}, sólo los abiertos en ese momento.
+     * Sólo se calcula la distancia a los centros de las celdas vecinas del índice, o a los
+     * candidatos ya guardados para la celda geohash de la consulta.
+     */
+    @Transactional(readOnly = true)
+    public List<RecyclingCenterDto> getCentersNearLocation(Double latitude, Double longitude, Double radiusKm,
+                                                           RecyclingCenter.CenterType centerType,
+                                                           LocalDateTime openAt) {
+        validarUbicacion(latitude, longitude, radiusKm);
+        asegurarIndice();
+        LongPredicate abiertos = abiertosEn(openAt);
+        Predicate<RecyclingCenter> filtro = center -> (centerType == null || center.getCenterType() == centerType)
+                && (abiertos == null || abiertos.test(center.getId()));
+        List<IndiceGeografico.Resultado<RecyclingCenter>> resultados = nearbyCacheEnabled
+                ? cacheCercanos.buscar(latitude, longitude, radiusKm, filtro, this::candidatosEnRadio)
+                : indice.buscarEnRadio(latitude, longitude, radiusKm, filtro);
+        return resultados.stream()
+                .map(this::convertToDtoWithDistance)
                 .collect(Collectors.toList());
     }
     
+    public List<RecyclingCenterDto> getNearestCenters(Double latitude, Double longitude, Integer k,
+                                                      RecyclingCenter.CenterType centerType,
+                                                      RecyclingCenter.CenterStatus status) {
+        return getNearestCenters(latitude, longitude, k, centerType, status, null);
+    }
+    
+    /**
+     * Los {@code k} centros más cercanos, del más cercano al más lejano. Sin {@code status}
+     * sólo considera los activos; con {@code openAt}, sólo los abiertos en ese momento.
+     */
+    @Transactional(readOnly = true)
+    public List<RecyclingCenterDto> getNearestCenters(Double latitude, Double longitude, Integer k,
+                                                      RecyclingCenter.CenterType centerType,
+                                                      RecyclingCenter.CenterStatus status,
+                                                      LocalDateTime openAt) {
+        validarCoordenadas(latitude, longitude);
+        if (k == null || k < 1 || k > MAX_NEAREST) {
+            throw new RuntimeException("k debe estar entre 1 y " + MAX_NEAREST);
+        }
+        RecyclingCenter.CenterStatus estado = status != null ? status : RecyclingCenter.CenterStatus.ACTIVE;
+        asegurarIndice();
+        LongPredicate abiertos = abiertosEn(openAt);
+        return arbolActual().buscarMasCercanos(latitude, longitude, k,
+                        center -> center.getStatus() == estado
+                                && (centerType == null || center.getCenterType() == centerType)
+                                && (abiertos == null || abiertos.test(center.getId()))).stream()
+                .map(this::convertToDtoWithDistance)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Vuelve a leer los centros, para incorporar cambios hechos desde otras instancias.
+     */
+    @Scheduled(fixedDelayString = "${recycling-centers.index.refresh-ms:300000}")
+    public void recargarIndice() {
+        if (indiceCargado) {
+            cargarIndice();
+        }
+    }
+    
+    /**
+     * Estructura los horarios de los centros guardados antes de que existieran los
+     * intervalos (el texto libre no se puede interpretar en SQL). Los que no se entienden
+     * quedan sin intervalos y no aparecen como abiertos; todos quedan marcados como
+     * procesados para no reintentarlos en el próximo arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarHorarios() {
+        if (!completarHorariosAlIniciar) {
+            return;
+        }
+        List<Long> procesados = new ArrayList<>();
+        for (RecyclingCenter center : recyclingCenterRepository.findWithUnprocessedOpeningHours()) {
+            List<HorarioSemanal.Intervalo> intervalos = interpretarHorario(center.getId(), center.getOpeningHours());
+            guardarHorarios(center, intervalos);
+            indexar(center, intervalos);
+            procesados.add(center.getId());
+        }
+        if (!procesados.isEmpty()) {
+            recyclingCenterRepository.marcarHorariosProcesados(procesados);
+            log.info("Horarios estructurados de {} centros", procesados.size());
+        }
+    }
+    
     public RecyclingCenterDto updateCenter(Long id, RecyclingCenterDto centerDto) {
         RecyclingCenter center = recyclingCenterRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Centro no encontrado"));
+        List<HorarioSemanal.Intervalo> intervalos = interpretarHorario(id, centerDto.getOpeningHours());
         
+        invalidarCercanos(center.getLatitude(), center.getLongitude());
         center.setName(centerDto.getName());
         center.setDescription(centerDto.getDescription());
         center.setAddress(centerDto.getAddress());
@@ -67,8 +218,13 @@ public class RecyclingCenterService {
         center.setEmail(centerDto.getEmail());
         center.setCenterType(centerDto.getCenterType());
         center.setOpeningHours(centerDto.getOpeningHours());
+        center.setOpeningHoursProcessed(true);
         
         RecyclingCenter updatedCenter = recyclingCenterRepository.save(center);
+        openingIntervalRepository.deleteByCenterId(updatedCenter.getId());
+        guardarHorarios(updatedCenter, intervalos);
+        indexar(updatedCenter, intervalos);
+        mapClusterService.registrarCentro(updatedCenter);
         return convertToDto(updatedCenter);
     }
     
@@ -78,6 +234,166 @@ public class RecyclingCenterService {
         
         center.setStatus(RecyclingCenter.CenterStatus.INACTIVE);
         recyclingCenterRepository.save(center);
+        indexar(center, null);
+        mapClusterService.registrarCentro(center);
+    }
+    
+    private void asegurarIndice() {
+        if (!indiceCargado) {
+            synchronized (indice) {
+                if (!indiceCargado) {
+                    cargarIndice();
+                    indiceCargado = true;
+                }
+            }
+        }
+    }
+    
+    private void cargarIndice() {
+        List<RecyclingCenter> todos = recyclingCenterRepository.findAll();
+        Map<Long, List<HorarioSemanal.Intervalo>> intervalosPorCentro = new HashMap<>();
+        for (Object[] fila : openingIntervalRepository.findAllMinutes()) {
+            intervalosPorCentro.computeIfAbsent(((Number) fila[0]).longValue(), id -> new ArrayList<>())
+                    .add(new HorarioSemanal.Intervalo(((Number) fila[1]).intValue(), ((Number) fila[2]).intValue()));
+        }
+        List<IndiceGeografico.Punto<RecyclingCenter>> activos = new ArrayList<>();
+        synchronized (centros) {
+            horarios.clear();
+            horarios.putAll(intervalosPorCentro);
+            indiceHorarios = null;
+            centros.clear();
+            for (RecyclingCenter center : todos) {
+                if (center.getLatitude() != null && center.getLongitude() != null) {
+                    centros.put(center.getId(), center);
+                    if (center.getStatus() == RecyclingCenter.CenterStatus.ACTIVE) {
+                        activos.add(punto(center));
+                    }
+                }
+            }
+            indice.reemplazar(activos);
+            arbol = null;
+            cacheCercanos.limpiar();
+        }
+    }
+    
+    // intervalos null: el horario no cambió
+    private void indexar(RecyclingCenter center, List<HorarioSemanal.Intervalo> intervalos) {
+        if (!indiceCargado || center.getId() == null) {
+            return; // La primera búsqueda lo carga completo
+        }
+        DespuesDeCommit.ejecutar(() -> {
+            synchronized (centros) {
+                if (intervalos != null) {
+                    horarios.put(center.getId(), intervalos);
+                    indiceHorarios = null;
+                }
+                boolean ubicado = center.getLatitude() != null && center.getLongitude() != null;
+                if (ubicado) {
+                    centros.put(center.getId(), center);
+                } else {
+                    centros.remove(center.getId());
+                }
+                if (ubicado && center.getStatus() == RecyclingCenter.CenterStatus.ACTIVE) {
+                    indice.poner(center.getId(), center.getLatitude(), center.getLongitude(), center);
+                } else {
+                    indice.quitar(center.getId());
+                }
+                arbol = null;
+                // Recién con el índice al día: invalidando antes, una búsqueda que corriera
+                // entre la invalidación y el cambio cachearía el estado viejo
+                if (ubicado) {
+                    cacheCercanos.invalidar(center.getLatitude(), center.getLongitude());
+                }
+            }
+        });
+    }
+    
+    // Los cambios son raros (alta/baja de centros): se reconstruye entero en la consulta siguiente
+    private ArbolKd<RecyclingCenter> arbolActual() {
+        ArbolKd<RecyclingCenter> actual = arbol;
+        if (actual == null) {
+            synchronized (centros) {
+                actual = arbol;
+                if (actual == null) {
+                    actual = new ArbolKd<>(centros.values().stream().map(this::punto).collect(Collectors.toList()));
+                    arbol = actual;
+                }
+            }
+        }
+        return actual;
+    }
+    
+    // El texto se guarda igual aunque no se entienda: el centro queda sin intervalos
+    // (no aparece como abierto) en lugar de rechazar el alta o la modificación
+    private List<HorarioSemanal.Intervalo> interpretarHorario(Object centro, String texto) {
+        try {
+            return HorarioSemanal.parsear(texto);
+        } catch (IllegalArgumentException e) {
+            log.warn("Centro {}: {}", centro, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+    
+    private void guardarHorarios(RecyclingCenter center, List<HorarioSemanal.Intervalo> intervalos) {
+        if (!intervalos.isEmpty()) {
+            openingIntervalRepository.saveAll(intervalos.stream()
+                    .map(intervalo -> new OpeningInterval(center, intervalo.getInicio(), intervalo.getFin()))
+                    .collect(Collectors.toList()));
+        }
+    }
+    
+    // null sin momento pedido; si no, quién está abierto en ese minuto de la semana
+    private LongPredicate abiertosEn(LocalDateTime momento) {
+        if (momento == null) {
+            return null;
+        }
+        IndiceHorarios actual = indiceHorarios;
+        if (actual == null) {
+            synchronized (centros) {
+                actual = indiceHorarios;
+                if (actual == null) {
+                    actual = new IndiceHorarios(horarios);
+                    indiceHorarios = actual;
+                }
+            }
+        }
+        return actual.abiertosEn(HorarioSemanal.minutoDeLaSemana(momento));
+    }
+    
+    // La posición anterior a un cambio; la nueva la invalida indexar
+    private void invalidarCercanos(Double latitude, Double longitude) {
+        if (latitude != null && longitude != null) {
+            DespuesDeCommit.ejecutar(() -> cacheCercanos.invalidar(latitude, longitude));
+        }
+    }
+    
+    private List<IndiceGeografico.Punto<RecyclingCenter>> candidatosEnRadio(double latitude, double longitude, double radiusKm) {
+        return indice.buscarEnRadio(latitude, longitude, radiusKm, null).stream()
+                .map(resultado -> punto(resultado.getValor()))
+                .collect(Collectors.toList());
+    }
+    
+    private IndiceGeografico.Punto<RecyclingCenter> punto(RecyclingCenter center) {
+        return new IndiceGeografico.Punto<>(center.getId(), center.getLatitude(), center.getLongitude(), center);
+    }
+    
+    private RecyclingCenterDto convertToDtoWithDistance(IndiceGeografico.Resultado<RecyclingCenter> resultado) {
+        RecyclingCenterDto dto = convertToDto(resultado.getValor());
+        dto.setDistanceKm(Math.round(resultado.getDistanciaKm() * 1000) / 1000.0);
+        return dto;
+    }
+    
+    private void validarUbicacion(Double latitude, Double longitude, Double radiusKm) {
+        validarCoordenadas(latitude, longitude);
+        if (radiusKm == null || radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            throw new RuntimeException("El radio debe ser mayor que 0 y no superar " + (int) MAX_RADIUS_KM + " km");
+        }
+    }
+    
+    private void validarCoordenadas(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new RuntimeException("Coordenadas inválidas");
+        }
     }
     
     private RecyclingCenterDto convertToDto(RecyclingCenter center) {
@@ -97,15 +413,4 @@ public class RecyclingCenterService {
         dto.setUpdatedAt(center.getUpdatedAt());
         return dto;
     }
-    
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radio de la Tierra en kilómetros
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
 }
@@ -0,0 +1,50 @@
+package com.pp.economia_circular.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Marca qué reportes quedaron desactualizados por escrituras de entidades.
+ * Lo alimentan los servicios que escriben esas entidades (también por SQL masivo),
+ * después del commit; lo consume {@link ReportSnapshotService}.
+ */
+@Component
+public class ReportChangeTracker {
+    
+    private final Set<ReportType> dirty = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Marca los reportes que dependen de {@code entityClass} cuando se confirme la
+     * transacción actual; sin transacción, en el acto. Marcar antes del commit dejaría
+     * que un recálculo concurrente limpie la marca sin ver el cambio.
+     */
+    public void markChanged(Class<?> entityClass) {
+        DespuesDeCommit.ejecutar(() -> {
+            for (ReportType type : ReportType.values()) {
+                for (Class<?> source : type.getSources()) {
+                    if (source.isAssignableFrom(entityClass)) {
+                        dirty.add(type);
+                        break;
+                    }
+                }
+            }
+        });
+    }
+    
+    public void markDirty(ReportType type) {
+        dirty.add(type);
+    }
+    
+    public boolean isDirty(ReportType type) {
+        return dirty.contains(type);
+    }
+    
+    /**
+     * Limpia la marca antes de recalcular: lo que cambie durante el cálculo vuelve a marcarla.
+     */
+    public void clear(ReportType type) {
+        dirty.remove(type);
+    }
+}
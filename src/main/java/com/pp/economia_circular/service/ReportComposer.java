@@ -0,0 +1,162 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.ReportDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Arma un reporte a partir de secciones independientes que se calculan en paralelo
+ * en {@code ejecutorSeccionesReporte}.
+ * <p>
+ * Cada sección tiene su propio tiempo límite, contado desde que empieza la composición:
+ * el reporte tarda lo que la sección más lenta (o su límite). Si una sección falla o
+ * vence, el reporte se devuelve igual con {@code partial = true} y el motivo en
+ * {@code failedSections}.
+ * <p>
+ * Cancelar la tarea no corta una consulta JDBC en curso: por eso cada sección corre en
+ * una transacción de sólo lectura con timeout igual a lo que le queda de su límite, y
+ * las consultas de los repositorios heredan ese timeout.
+ */
+@Service
+public class ReportComposer {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReportComposer.class);
+    
+    @Autowired
+    @Qualifier("ejecutorSeccionesReporte")
+    private TaskExecutor ejecutor;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${reports.sections.timeout-ms:5000}")
+    private long timeoutPorDefectoMs = 5000;
+    
+    public static Section section(String name, Callable<Map<String, Object>> task) {
+        return new Section(name, 0, task);
+    }
+    
+    public static Section section(String name, long timeoutMs, Callable<Map<String, Object>> task) {
+        return new Section(name, timeoutMs, task);
+    }
+    
+    public static boolean isPartial(ReportDto report) {
+        return report.getData() != null && Boolean.TRUE.equals(report.getData().get("partial"));
+    }
+    
+    public ReportDto compose(String title, List<Section> sections) {
+        long inicio = System.nanoTime();
+        List<FutureTask<Map<String, Object>>> tareas = new ArrayList<>();
+        for (Section section : sections) {
+            long venceNs = inicio + TimeUnit.MILLISECONDS.toNanos(limiteMs(section));
+            FutureTask<Map<String, Object>> tarea = new FutureTask<>(() -> ejecutarConPlazo(section, venceNs));
+            tareas.add(tarea);
+            try {
+                ejecutor.execute(tarea);
+            } catch (TaskRejectedException e) {
+                // Sin lugar en la cola: se calcula en el hilo que compone en vez de perder la sección
+                tarea.run();
+            }
+        }
+        
+        Map<String, Object> data = new HashMap<>();
+        Map<String, String> fallidas = new LinkedHashMap<>();
+        for (int i = 0; i < sections.size(); i++) {
+            Section section = sections.get(i);
+            FutureTask<Map<String, Object>> tarea = tareas.get(i);
+            long limiteMs = limiteMs(section);
+            long restanteNs = TimeUnit.MILLISECONDS.toNanos(limiteMs) - (System.nanoTime() - inicio);
+            try {
+                Map<String, Object> parcial = tarea.get(Math.max(0L, restanteNs), TimeUnit.NANOSECONDS);
+                if (parcial != null) {
+                    data.putAll(parcial);
+                }
+            } catch (TimeoutException e) {
+                tarea.cancel(true);
+                fallidas.put(section.name, "timeout");
+                log.warn("La sección {} del reporte '{}' superó {} ms", section.name, title, limiteMs);
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause() != null ? e.getCause() : e;
+                fallidas.put(section.name, causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName());
+                log.warn("Falló la sección {} del reporte '{}'", section.name, title, causa);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tareas.forEach(t -> t.cancel(true));
+                throw new RuntimeException("Se interrumpió la generación del reporte");
+            }
+        }
+        
+        if (!fallidas.isEmpty()) {
+            data.put("partial", true);
+            data.put("failedSections", fallidas);
+        }
+        
+        ReportDto report = new ReportDto(title);
+        report.setGeneratedAt(LocalDateTime.now());
+        report.setData(data);
+        return report;
+    }
+    
+    private long limiteMs(Section section) {
+        return section.timeoutMs > 0 ? section.timeoutMs : timeoutPorDefectoMs;
+    }
+    
+    private Map<String, Object> ejecutarConPlazo(Section section, long venceNs) {
+        long restanteMs = TimeUnit.NANOSECONDS.toMillis(venceNs - System.nanoTime());
+        if (restanteMs <= 0) {
+            throw new RuntimeException("La sección no llegó a empezar dentro de su límite");
+        }
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setReadOnly(true);
+        // El timeout de JDBC es en segundos: se redondea hacia arriba
+        transaccion.setTimeout((int) TimeUnit.MILLISECONDS.toSeconds(restanteMs + 999));
+        return transaccion.execute(status -> {
+            try {
+                return section.task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Parte independiente de un reporte: devuelve las claves que aporta a {@code data}.
+     */
+    public static final class Section {
+        private final String name;
+        private final long timeoutMs;
+        private final Callable<Map<String, Object>> task;
+        
+        private Section(String name, long timeoutMs, Callable<Map<String, Object>> task) {
+            this.name = name;
+            this.timeoutMs = timeoutMs;
+            this.task = task;
+        }
+        
+        public String getName() { return name; }
+        
+        public long getTimeoutMs() { return timeoutMs; }
+    }
+}
@@ -0,0 +1,454 @@
+package com.pp.economia_circular.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pp.economia_circular.DTO.ReportDto;
+import com.pp.economia_circular.DTO.ReportJobDto;
+import com.pp.economia_circular.DTO.ReportJobRequestDto;
+import com.pp.economia_circular.repositories.ArticleRepository;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Reportes generados en segundo plano y volcados a archivo.
+ * <p>
+ * Corren en {@code ejecutorReportes} (acotado), fuera de los hilos de petición. Las filas se
+ * leen en streaming y se escriben una a una en CSV o NDJSON sobre disco local, así que la
+ * memoria no depende del tamaño del reporte. La descarga sirve el archivo terminado sin
+ * pasarlo por el heap (ver {@code ReportController}).
+ */
+@Service
+public class ReportJobService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+    
+    private static final int MAX_TRABAJOS_EN_MEMORIA = 100;
+    private static final int TOP_USERS_POR_DEFECTO = 1000;
+    
+    private static final String[] COLUMNAS_ARTICULOS =
+            {"id", "title", "category", "condition", "status", "ownerEmail", "createdAt"};
+    private static final String[] COLUMNAS_USUARIOS =
+            {"id", "firstName", "lastName", "email", "role", "active", "createdAt"};
+    private static final String[] COLUMNAS_TOP_USERS = {"position", "userId", "email", "count"};
+    private static final String[] COLUMNAS_TENDENCIAS =
+            {"date", "newArticles", "exchanges", "messages", "activeUsers", "views", "exchangeRequests"};
+    
+    public enum JobType {
+        ARTICLES, USERS, TOP_USERS, TRENDS
+    }
+    
+    public enum JobFormat {
+        CSV("csv", "text/csv; charset=UTF-8"),
+        NDJSON("ndjson", "application/x-ndjson");
+        
+        private final String extension;
+        private final String contentType;
+        
+        JobFormat(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+        
+        public String getExtension() { return extension; }
+        
+        public String getContentType() { return contentType; }
+    }
+    
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+    
+    @Autowired
+    private ArticleRepository articleRepository;
+    
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    
+    @Autowired
+    private ReportService reportService;
+    
+    @Autowired
+    private ServicioMetricasDiarias servicioMetricasDiarias;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    @Qualifier("ejecutorReportes")
+    private TaskExecutor ejecutorReportes;
+    
+    // Vacío: subdirectorio del temporal del sistema
+    @Value("${reports.jobs.dir:}")
+    private String directorio = "";
+    
+    @Value("${reports.jobs.retention-minutes:60}")
+    private long retencionMinutos = 60;
+    
+    // En orden de alta: al llenarse se desalojan los terminados más viejos, nunca los activos
+    private final Map<String, Trabajo> trabajos = Collections.synchronizedMap(new LinkedHashMap<>());
+    
+    public ReportJobDto submit(ReportJobRequestDto solicitud) {
+        Trabajo trabajo = new Trabajo(UUID.randomUUID().toString(),
+                parsear(JobType.class, solicitud.getType(), "Tipo de reporte no soportado: "),
+                solicitud.getFormat() == null ? JobFormat.CSV
+                        : parsear(JobFormat.class, solicitud.getFormat(), "Formato de reporte no soportado: "));
+        
+        // Los parámetros se validan antes de encolar para responder el error en la misma petición
+        if (trabajo.tipo == JobType.TOP_USERS) {
+            trabajo.metrica = solicitud.getMetric() == null ? ReportService.TopUsersMetric.AVAILABLE_ARTICLES
+                    : parsear(ReportService.TopUsersMetric.class, solicitud.getMetric(), "Métrica no soportada: ");
+            trabajo.limite = solicitud.getLimit() != null ? solicitud.getLimit() : TOP_USERS_POR_DEFECTO;
+            if (trabajo.limite < 1 || trabajo.limite > TOP_USERS_POR_DEFECTO) {
+                throw new RuntimeException("El límite debe estar entre 1 y " + TOP_USERS_POR_DEFECTO);
+            }
+        } else if (trabajo.tipo == JobType.TRENDS) {
+            if (solicitud.getFrom() == null || solicitud.getTo() == null) {
+                throw new RuntimeException("Debe indicar las fechas desde y hasta");
+            }
+            trabajo.desde = solicitud.getFrom();
+            trabajo.hasta = solicitud.getTo();
+        }
+        
+        registrar(trabajo);
+        try {
+            ejecutorReportes.execute(() -> ejecutar(trabajo));
+        } catch (TaskRejectedException e) {
+            trabajos.remove(trabajo.id);
+            throw new RuntimeException("Hay demasiados reportes en curso, intente más tarde");
+        }
+        return trabajo.aDto();
+    }
+    
+    public ReportJobDto getStatus(String jobId) {
+        return buscar(jobId).aDto();
+    }
+    
+    public ReportJobResult getResult(String jobId) {
+        Trabajo trabajo = buscar(jobId);
+        if (trabajo.estado != JobStatus.COMPLETED || trabajo.archivo == null || !Files.exists(trabajo.archivo)) {
+            throw new RuntimeException("El reporte todavía no está disponible");
+        }
+        String nombre = "report-" + trabajo.tipo.name().toLowerCase() + "-" + trabajo.id + "." + trabajo.formato.getExtension();
+        return new ReportJobResult(trabajo.archivo, nombre, trabajo.formato.getContentType());
+    }
+    
+    @Scheduled(fixedDelayString = "${reports.jobs.cleanup-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(retencionMinutos);
+        List<Trabajo> vencidos = new ArrayList<>();
+        synchronized (trabajos) {
+            for (Trabajo trabajo : trabajos.values()) {
+                if (trabajo.finalizadoEn != null && trabajo.finalizadoEn.isBefore(limite)) {
+                    vencidos.add(trabajo);
+                }
+            }
+        }
+        for (Trabajo trabajo : vencidos) {
+            trabajos.remove(trabajo.id);
+            borrarArchivo(trabajo);
+        }
+    }
+    
+    private void registrar(Trabajo trabajo) {
+        List<Trabajo> desalojados = new ArrayList<>();
+        try {
+            synchronized (trabajos) {
+                Iterator<Trabajo> it = trabajos.values().iterator();
+                while (trabajos.size() >= MAX_TRABAJOS_EN_MEMORIA && it.hasNext()) {
+                    Trabajo candidato = it.next();
+                    if (candidato.finalizadoEn != null) {
+                        it.remove();
+                        desalojados.add(candidato);
+                    }
+                }
+                if (trabajos.size() >= MAX_TRABAJOS_EN_MEMORIA) {
+                    throw new RuntimeException("Hay demasiados reportes en curso, intente más tarde");
+                }
+                trabajos.put(trabajo.id, trabajo);
+            }
+        } finally {
+            // El disco se toca fuera del candado para no frenar las consultas de estado
+            desalojados.forEach(this::borrarArchivo);
+        }
+    }
+    
+    private void ejecutar(Trabajo trabajo) {
+        trabajo.estado = JobStatus.RUNNING;
+        Path parcial = null;
+        try {
+            Path carpeta = carpeta();
+            parcial = carpeta.resolve(trabajo.id + ".part");
+            try (Writer salida = Files.newBufferedWriter(parcial, StandardCharsets.UTF_8)) {
+                escribir(trabajo, salida);
+            }
+            // Sólo aparece con su nombre final cuando está completo
+            Path destino = carpeta.resolve(trabajo.id + "." + trabajo.formato.getExtension());
+            Files.move(parcial, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            trabajo.archivo = destino;
+            trabajo.bytes = Files.size(destino);
+            trabajo.estado = JobStatus.COMPLETED;
+        } catch (IOException | RuntimeException e) {
+            trabajo.estado = JobStatus.FAILED;
+            trabajo.error = e.getMessage();
+            log.error("Falló el reporte {} ({}) tras {} filas", trabajo.id, trabajo.tipo, trabajo.filas.get(), e);
+            if (parcial != null) {
+                try {
+                    Files.deleteIfExists(parcial);
+                } catch (IOException ignorada) {
+                    log.warn("No se pudo borrar el archivo parcial {}", parcial);
+                }
+            }
+        } finally {
+            trabajo.finalizadoEn = LocalDateTime.now();
+        }
+    }
+    
+    private void escribir(Trabajo trabajo, Writer salida) throws IOException {
+        switch (trabajo.tipo) {
+            case ARTICLES:
+                escribirStream(trabajo, escritor(trabajo, salida, COLUMNAS_ARTICULOS), articleRepository::streamArticleExport);
+                break;
+            case USERS:
+                escribirStream(trabajo, escritor(trabajo, salida, COLUMNAS_USUARIOS), usuarioRepository::streamUserExport);
+                break;
+            case TOP_USERS:
+                ReportDto ranking = reportService.generateTopUsersReport(trabajo.metrica, trabajo.limite);
+                escribirMapas(trabajo, escritor(trabajo, salida, COLUMNAS_TOP_USERS), ranking.getData().get("ranking"));
+                break;
+            case TRENDS:
+                ReportDto tendencias = servicioMetricasDiarias.obtenerTendencias(trabajo.desde, trabajo.hasta);
+                escribirMapas(trabajo, escritor(trabajo, salida, COLUMNAS_TENDENCIAS), tendencias.getData().get("days"));
+                break;
+            default:
+                throw new RuntimeException("Tipo de reporte no soportado: " + trabajo.tipo);
+        }
+    }
+    
+    // El stream necesita la conexión abierta: se recorre dentro de una transacción de sólo lectura
+    private void escribirStream(Trabajo trabajo, EscritorFilas escritor, Supplier<Stream<Object[]>> consulta) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setReadOnly(true);
+        transaccion.execute(status -> {
+            try (Stream<Object[]> filas = consulta.get()) {
+                Iterator<Object[]> it = filas.iterator();
+                while (it.hasNext()) {
+                    escritor.fila(it.next());
+                    trabajo.filas.incrementAndGet();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void escribirMapas(Trabajo trabajo, EscritorFilas escritor, Object filas) throws IOException {
+        if (!(filas instanceof List)) {
+            return;
+        }
+        for (Map<String, Object> fila : (List<Map<String, Object>>) filas) {
+            Object[] valores = new Object[escritor.columnas.length];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = fila.get(escritor.columnas[i]);
+            }
+            escritor.fila(valores);
+            trabajo.filas.incrementAndGet();
+        }
+    }
+    
+    private EscritorFilas escritor(Trabajo trabajo, Writer salida, String[] columnas) throws IOException {
+        return trabajo.formato == JobFormat.NDJSON
+                ? new EscritorNdjson(salida, columnas, objectMapper)
+                : new EscritorCsv(salida, columnas);
+    }
+    
+    private Path carpeta() throws IOException {
+        Path carpeta = directorio == null || directorio.trim().isEmpty()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "economia-circular-reportes")
+                : Paths.get(directorio);
+        return Files.createDirectories(carpeta);
+    }
+    
+    private Trabajo buscar(String jobId) {
+        Trabajo trabajo = trabajos.get(jobId);
+        if (trabajo == null) {
+            throw new RuntimeException("Reporte no encontrado");
+        }
+        return trabajo;
+    }
+    
+    private void borrarArchivo(Trabajo trabajo) {
+        if (trabajo.archivo != null) {
+            try {
+                Files.deleteIfExists(trabajo.archivo);
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el reporte {}", trabajo.archivo, e);
+            }
+        }
+    }
+    
+    private static <E extends Enum<E>> E parsear(Class<E> tipo, String valor, String mensaje) {
+        try {
+            return Enum.valueOf(tipo, valor.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException(mensaje + valor);
+        }
+    }
+    
+    /**
+     * Archivo terminado de un trabajo, listo para descargar.
+     */
+    public static class ReportJobResult {
+        private final Path path;
+        private final String fileName;
+        private final String contentType;
+        
+        public ReportJobResult(Path path, String fileName, String contentType) {
+            this.path = path;
+            this.fileName = fileName;
+            this.contentType = contentType;
+        }
+        
+        public Path getPath() { return path; }
+        
+        public String getFileName() { return fileName; }
+        
+        public String getContentType() { return contentType; }
+    }
+    
+    private abstract static class EscritorFilas {
+        protected final Writer salida;
+        protected final String[] columnas;
+        
+        private EscritorFilas(Writer salida, String[] columnas) {
+            this.salida = salida;
+            this.columnas = columnas;
+        }
+        
+        abstract void fila(Object[] valores) throws IOException;
+    }
+    
+    private static class EscritorCsv extends EscritorFilas {
+        
+        private EscritorCsv(Writer salida, String[] columnas) throws IOException {
+            super(salida, columnas);
+            fila(columnas);
+        }
+        
+        @Override
+        void fila(Object[] valores) throws IOException {
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    salida.write(',');
+                }
+                salida.write(celda(valores[i]));
+            }
+            salida.write("\r\n");
+        }
+        
+        private static String celda(Object valor) {
+            if (valor == null) {
+                return "";
+            }
+            String texto = valor instanceof Enum ? ((Enum<?>) valor).name() : valor.toString();
+            // Textos de usuario que una planilla interpretaría como fórmula
+            if (valor instanceof String && !texto.isEmpty() && "=+-@".indexOf(texto.charAt(0)) >= 0) {
+                texto = "'" + texto;
+            }
+            if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+                return '"' + texto.replace("\"", "\"\"") + '"';
+            }
+            return texto;
+        }
+    }
+    
+    private static class EscritorNdjson extends EscritorFilas {
+        private final ObjectMapper objectMapper;
+        
+        private EscritorNdjson(Writer salida, String[] columnas, ObjectMapper objectMapper) {
+            super(salida, columnas);
+            this.objectMapper = objectMapper;
+        }
+        
+        @Override
+        void fila(Object[] valores) throws IOException {
+            Map<String, Object> objeto = new LinkedHashMap<>();
+            for (int i = 0; i < columnas.length; i++) {
+                objeto.put(columnas[i], valores[i]);
+            }
+            salida.write(objectMapper.writeValueAsString(objeto));
+            salida.write('\n');
+        }
+    }
+    
+    private static class Trabajo {
+        private final String id;
+        private final JobType tipo;
+        private final JobFormat formato;
+        private final LocalDateTime creadoEn = LocalDateTime.now();
+        private final AtomicLong filas = new AtomicLong();
+        private ReportService.TopUsersMetric metrica;
+        private int limite;
+        private LocalDate desde;
+        private LocalDate hasta;
+        private volatile JobStatus estado = JobStatus.QUEUED;
+        private volatile Path archivo;
+        private volatile long bytes;
+        private volatile LocalDateTime finalizadoEn;
+        private volatile String error;
+        
+        private Trabajo(String id, JobType tipo, JobFormat formato) {
+            this.id = id;
+            this.tipo = tipo;
+            this.formato = formato;
+        }
+        
+        private ReportJobDto aDto() {
+            ReportJobDto dto = new ReportJobDto();
+            dto.setId(id);
+            dto.setType(tipo.name());
+            dto.setFormat(formato.name());
+            dto.setStatus(estado.name());
+            dto.setRows(filas.get());
+            dto.setSizeBytes(bytes);
+            dto.setCreatedAt(creadoEn);
+            dto.setFinishedAt(finalizadoEn);
+            dto.setError(error);
+            return dto;
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package com.pp.economia_circular.service;
 
 import com.pp.economia_circular.DTO.ReportDto;
-import com.pp.economia_circular.entity.Usuario;
 import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.entity.ImpactoAcumulado;
 import com.pp.economia_circular.entity.Mensaje;
 import com.pp.economia_circular.repositories.ArticleRepository;
+import com.pp.economia_circular.repositories.ImpactoAcumuladoRepository;
+import com.pp.economia_circular.repositories.MensajeArchivadoRepository;
 import com.pp.economia_circular.repositories.MensajeRepository;
 import com.pp.economia_circular.repositories.UsuarioRepository;
+import com.pp.economia_circular.util.TopK;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Transactional(readOnly = true)
 public class ReportService {
     
+    private static final int DEFAULT_TOP_USERS = 10;
+    static final int MAX_TOP_USERS = 1000;
+    
+    public enum TopUsersMetric {
+        AVAILABLE_ARTICLES, EXCHANGED_ARTICLES, MESSAGES
+    }
+    
     @Autowired
     private UsuarioRepository usuarioRepository;
     
@@ -27,88 +47,117 @@ public class ReportService {
     @Autowired
     private MensajeRepository mensajeRepository;
     
+    @Autowired
+    private MensajeArchivadoRepository mensajeArchivadoRepository;
+    
+    @Autowired
+    private ImpactoAcumuladoRepository impactoAcumuladoRepository;
+    
+    @Autowired
+    private ReportComposer reportComposer;
+    
     public ReportDto generateUserReport() {
         ReportDto report = new ReportDto();
         report.setTitle("Reporte de Usuarios");
         report.setGeneratedAt(LocalDateTime.now());
-        
-        Map<String, Object> data = new HashMap<>();
-        
-        // Total de usuarios
-        long totalUsers = usuarioRepository.count();
-        data.put("totalUsers", totalUsers);
-        
-        // Usuarios activos
-        long activeUsers = usuarioRepository.findAll().stream()
-                .filter(Usuario::isActivo)
-                .count();
-        data.put("activeUsers", activeUsers);
-        
-        report.setData(data);
+        report.setData(userSection());
         return report;
     }
     
+    /**
+     * Las agregaciones por estado y por categoría/condición no dependen entre sí:
+     * se calculan en paralelo, cada una con su propia conexión.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ReportDto generateArticleReport() {
+        return reportComposer.compose("Reporte de Artículos", Arrays.asList(
+                ReportComposer.section("articlesByStatus", this::articleStatusSection),
+                ReportComposer.section("availableArticlesBreakdown", this::articleBreakdownSection)));
+    }
+    
+    /**
+     * Resumen general para el panel de administración: usuarios, artículos y mensajes
+     * en paralelo, agrupados por sección.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReportDto generateOverviewReport() {
+        return reportComposer.compose("Resumen General", Arrays.asList(
+                ReportComposer.section("users", () -> Collections.singletonMap("users", userSection())),
+                ReportComposer.section("articles", () -> Collections.singletonMap("articles", articleStatusSection())),
+                ReportComposer.section("availableArticles",
+                        () -> Collections.singletonMap("availableArticles", articleBreakdownSection())),
+                ReportComposer.section("messages", () -> Collections.singletonMap("messages", communicationSection()))));
+    }
+    
+    public ReportDto generateTopUsersReport() {
+        return generateTopUsersReport(TopUsersMetric.AVAILABLE_ARTICLES, DEFAULT_TOP_USERS);
+    }
+    
+    /**
+     * Ranking de los {@code limit} usuarios con mayor valor en la métrica pedida.
+     * Una única consulta agrupada recorrida en streaming y un heap acotado a K:
+     * la memoria no depende de la cantidad de usuarios.
+     */
+    public ReportDto generateTopUsersReport(TopUsersMetric metric, int limit) {
+        if (limit < 1 || limit > MAX_TOP_USERS) {
+            throw new RuntimeException("El límite debe estar entre 1 y " + MAX_TOP_USERS);
+        }
+        
         ReportDto report = new ReportDto();
-        report.setTitle("Reporte de Artículos");
+        report.setTitle("Reporte de Mejores Usuarios");
         report.setGeneratedAt(LocalDateTime.now());
         
-        Map<String, Object> data = new HashMap<>();
-        
-        // Total de artículos
-        long totalArticles = articleRepository.count();
-        data.put("totalArticles", totalArticles);
-        
-        // Artículos disponibles
-        long availableArticles = articleRepository.findByEstado(Articulo.EstadoArticulo.DISPONIBLE).size();
-        data.put("availableArticles", availableArticles);
+        TopK topK = new TopK(limit);
+        try (Stream<Object[]> filas = streamCountsByUser(metric)) {
+            filas.filter(fila -> fila[0] != null)
+                 .forEach(fila -> topK.ofrecer(((Number) fila[0]).longValue(), ((Number) fila[1]).longValue()));
+        }
+        List<TopK.Entrada> ganadores = topK.resultado();
         
-        // Artículos intercambiados
-        long exchangedArticles = articleRepository.findByEstado(Articulo.EstadoArticulo.INTERCAMBIADO).size();
-        data.put("exchangedArticles", exchangedArticles);
+        // Emails sólo de los K ganadores
+        Map<Long, String> emails = new HashMap<>();
+        if (!ganadores.isEmpty()) {
+            List<Long> ids = ganadores.stream().map(TopK.Entrada::getClave).collect(Collectors.toList());
+            for (Object[] fila : usuarioRepository.findEmailsByIds(ids)) {
+                emails.put((Long) fila[0], (String) fila[1]);
+            }
+        }
         
-        // Artículos por categoría
-        Map<String, Long> articlesByCategory = new HashMap<>();
-        for (Articulo.CategoriaArticulo category : Articulo.CategoriaArticulo.values()) {
-            articlesByCategory.put(category.name(), 
-                (long) articleRepository.findByCategoriaAndEstado(category, Articulo.EstadoArticulo.DISPONIBLE).size());
+        List<Map<String, Object>> ranking = new ArrayList<>();
+        Map<String, Long> usersByCount = new LinkedHashMap<>();
+        for (TopK.Entrada ganador : ganadores) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("position", ranking.size() + 1);
+            fila.put("userId", ganador.getClave());
+            fila.put("email", emails.get(ganador.getClave()));
+            fila.put("count", ganador.getPuntaje());
+            ranking.add(fila);
+            usersByCount.put(emails.get(ganador.getClave()), ganador.getPuntaje());
         }
-        data.put("articlesByCategory", articlesByCategory);
         
-        // Artículos por condición
-        Map<String, Long> articlesByCondition = new HashMap<>();
-        for (Articulo.CondicionArticulo condition : Articulo.CondicionArticulo.values()) {
-            articlesByCondition.put(condition.name(), 
-                (long) articleRepository.findByEstado(Articulo.EstadoArticulo.DISPONIBLE).stream()
-                    .filter(a -> a.getCondicion() == condition)
-                    .count());
+        Map<String, Object> data = new HashMap<>();
+        data.put("metric", metric.name());
+        data.put("limit", limit);
+        data.put("ranking", ranking);
+        if (metric == TopUsersMetric.AVAILABLE_ARTICLES) {
+            // Formato anterior del reporte (email -> artículos disponibles), ahora ordenado
+            data.put("usersByArticleCount", usersByCount);
         }
-        data.put("articlesByCondition", articlesByCondition);
         
         report.setData(data);
         return report;
     }
     
-    public ReportDto generateTopUsersReport() {
-        ReportDto report = new ReportDto();
-        report.setTitle("Reporte de Mejores Usuarios");
-        report.setGeneratedAt(LocalDateTime.now());
-        
-        Map<String, Object> data = new HashMap<>();
-        
-        // Usuarios con más artículos
-        List<Usuario> users = usuarioRepository.findAll();
-        Map<String, Long> usersByArticleCount = new HashMap<>();
-        for (Usuario user : users) {
-            long articleCount = articleRepository.countAvailableArticlesByUser(user.getId());
-            if (articleCount > 0) {
-                usersByArticleCount.put(user.getEmail(), articleCount);
-            }
+    private Stream<Object[]> streamCountsByUser(TopUsersMetric metric) {
+        switch (metric) {
+            case EXCHANGED_ARTICLES:
+                return articleRepository.streamCountGroupedByUser(Articulo.EstadoArticulo.INTERCAMBIADO);
+            case MESSAGES:
+                return mensajeRepository.streamCountSentGroupedByUser();
+            case AVAILABLE_ARTICLES:
+            default:
+                return articleRepository.streamCountGroupedByUser(Articulo.EstadoArticulo.DISPONIBLE);
         }
-        data.put("usersByArticleCount", usersByArticleCount);
-        
-        report.setData(data);
-        return report;
     }
     
     public ReportDto generateTopArticlesReport() {
@@ -119,16 +168,16 @@ public class ReportService {
         Map<String, Object> data = new HashMap<>();
         
         // Artículos más consultados (simulado con artículos más recientes)
-        List<Articulo> recentArticles = articleRepository.findAvailableArticles();
+        List<Object[]> recentArticles = articleRepository.findAvailableArticleSummaries(PageRequest.of(0, 10));
         Map<String, Object> popularArticles = new HashMap<>();
         
-        for (int i = 0; i < Math.min(10, recentArticles.size()); i++) {
-            Articulo article = recentArticles.get(i);
+        for (int i = 0; i < recentArticles.size(); i++) {
+            Object[] article = recentArticles.get(i);
             Map<String, Object> articleInfo = new HashMap<>();
-            articleInfo.put("title", article.getTitulo());
-            articleInfo.put("category", article.getCategoria());
-            articleInfo.put("user", article.getUsuario().getEmail());
-            articleInfo.put("createdAt", article.getCreadoEn());
+            articleInfo.put("title", article[0]);
+            articleInfo.put("category", article[1]);
+            articleInfo.put("user", article[2]);
+            articleInfo.put("createdAt", article[3]);
             popularArticles.put("article_" + (i + 1), articleInfo);
         }
         
@@ -141,22 +190,7 @@ public class ReportService {
         ReportDto report = new ReportDto();
         report.setTitle("Reporte de Comunicación");
         report.setGeneratedAt(LocalDateTime.now());
-        
-        Map<String, Object> data = new HashMap<>();
-        
-        // Total de mensajes
-        long totalMessages = mensajeRepository.count();
-        data.put("totalMessages", totalMessages);
-        
-        // Mensajes no leídos
-        long unreadMessages = mensajeRepository.findByEstado(Mensaje.EstadoMensaje.NO_LEIDO).size();
-        data.put("unreadMessages", unreadMessages);
-        
-        // Mensajes leídos
-        long readMessages = mensajeRepository.findByEstado(Mensaje.EstadoMensaje.LEIDO).size();
-        data.put("readMessages", readMessages);
-        
-        report.setData(data);
+        report.setData(communicationSection());
         return report;
     }
     
@@ -167,18 +201,93 @@ public class ReportService {
         
         Map<String, Object> data = new HashMap<>();
         
-        // Artículos intercambiados (evitando compras nuevas)
-        long exchangedArticles = articleRepository.findByEstado(Articulo.EstadoArticulo.INTERCAMBIADO).size();
-        data.put("exchangedArticles", exchangedArticles);
+        // Totales corrientes del libro de impacto (coeficientes por categoría): una fila por PK
+        ImpactoAcumulado global = impactoAcumuladoRepository.findById(ImpactoAcumulado.GLOBAL)
+                .orElseGet(() -> new ImpactoAcumulado(ImpactoAcumulado.GLOBAL));
+        data.put("exchangedArticles", global.getArticulos());
         
-        // Estimación de impacto ambiental
         Map<String, Object> environmentalImpact = new HashMap<>();
-        environmentalImpact.put("co2SavedKg", exchangedArticles * 5.2); // Estimación: 5.2kg CO2 por artículo
-        environmentalImpact.put("wasteReducedKg", exchangedArticles * 2.1); // Estimación: 2.1kg residuos evitados
-        environmentalImpact.put("resourcesSaved", exchangedArticles * 1.5); // Estimación: 1.5 recursos naturales
+        environmentalImpact.put("co2SavedKg", global.getCo2Kg());
+        environmentalImpact.put("wasteReducedKg", global.getResiduosKg());
+        environmentalImpact.put("resourcesSaved", global.getRecursos());
         
         data.put("environmentalImpact", environmentalImpact);
         report.setData(data);
         return report;
     }
+    
+    // Total y activos en una sola agregación
+    private Map<String, Object> userSection() {
+        Map<String, Object> data = new HashMap<>();
+        long totalUsers = 0;
+        long activeUsers = 0;
+        for (Object[] fila : usuarioRepository.countGroupedByActivo()) {
+            long cantidad = (Long) fila[1];
+            totalUsers += cantidad;
+            if (Boolean.TRUE.equals(fila[0])) {
+                activeUsers += cantidad;
+            }
+        }
+        data.put("totalUsers", totalUsers);
+        data.put("activeUsers", activeUsers);
+        return data;
+    }
+    
+    // Total, disponibles e intercambiados a partir de un único GROUP BY estado
+    private Map<String, Object> articleStatusSection() {
+        Map<String, Object> data = new HashMap<>();
+        Map<Object, Long> articlesByStatus = contarPorClave(articleRepository.countGroupedByEstado());
+        long totalArticles = articlesByStatus.values().stream().mapToLong(Long::longValue).sum();
+        data.put("totalArticles", totalArticles);
+        data.put("availableArticles", articlesByStatus.getOrDefault(Articulo.EstadoArticulo.DISPONIBLE, 0L));
+        data.put("exchangedArticles", articlesByStatus.getOrDefault(Articulo.EstadoArticulo.INTERCAMBIADO, 0L));
+        return data;
+    }
+    
+    // Disponibles por categoría y por condición: ambas salen del mismo GROUP BY
+    private Map<String, Object> articleBreakdownSection() {
+        Map<String, Long> articlesByCategory = new HashMap<>();
+        for (Articulo.CategoriaArticulo category : Articulo.CategoriaArticulo.values()) {
+            articlesByCategory.put(category.name(), 0L);
+        }
+        Map<String, Long> articlesByCondition = new HashMap<>();
+        for (Articulo.CondicionArticulo condition : Articulo.CondicionArticulo.values()) {
+            articlesByCondition.put(condition.name(), 0L);
+        }
+        for (Object[] fila : articleRepository.countAvailableGroupedByCategoriaAndCondicion()) {
+            Long cantidad = (Long) fila[2];
+            if (fila[0] != null) {
+                articlesByCategory.merge(((Articulo.CategoriaArticulo) fila[0]).name(), cantidad, Long::sum);
+            }
+            if (fila[1] != null) {
+                articlesByCondition.merge(((Articulo.CondicionArticulo) fila[1]).name(), cantidad, Long::sum);
+            }
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("articlesByCategory", articlesByCategory);
+        data.put("articlesByCondition", articlesByCondition);
+        return data;
+    }
+    
+    // Total, no leídos y leídos: un GROUP BY estado sobre mensajes y otro sobre el archivo
+    private Map<String, Object> communicationSection() {
+        Map<String, Object> data = new HashMap<>();
+        Map<Object, Long> messagesByStatus = contarPorClave(mensajeRepository.countGroupedByEstado());
+        contarPorClave(mensajeArchivadoRepository.countGroupedByEstado())
+                .forEach((estado, cantidad) -> messagesByStatus.merge(estado, cantidad, Long::sum));
+        long totalMessages = messagesByStatus.values().stream().mapToLong(Long::longValue).sum();
+        data.put("totalMessages", totalMessages);
+        data.put("unreadMessages", messagesByStatus.getOrDefault(Mensaje.EstadoMensaje.NO_LEIDO, 0L));
+        data.put("readMessages", messagesByStatus.getOrDefault(Mensaje.EstadoMensaje.LEIDO, 0L));
+        return data;
+    }
+    
+    // Filas (clave, cantidad) de un GROUP BY a mapa
+    private Map<Object, Long> contarPorClave(List<Object[]> filas) {
+        Map<Object, Long> conteos = new HashMap<>();
+        for (Object[] fila : filas) {
+            conteos.merge(fila[0], (Long) fila[1], Long::sum);
+        }
+        return conteos;
+    }
 }
@@ -0,0 +1,257 @@
+package com.pp.economia_circular.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pp.economia_circular.DTO.ReportDto;
+import com.pp.economia_circular.entity.ReportSnapshot;
+import com.pp.economia_circular.repositories.ReportSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reportes precalculados servidos desde memoria.
+ * <p>
+ * Cada {@link ReportType} se recalcula en segundo plano cuando su snapshot supera la
+ * antigüedad máxima declarada, o antes si {@link ReportChangeTracker} lo marcó por cambios
+ * en sus entidades (respetando un intervalo mínimo entre recálculos). El resultado se
+ * persiste en {@code report_snapshots} para que un reinicio no obligue a recalcular todo.
+ * Las lecturas nunca recorren tablas salvo la primera vez que un reporte no tiene snapshot.
+ */
+@Service
+public class ReportSnapshotService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReportSnapshotService.class);
+    
+    // El ranking precalculado cubre todo límite válido: ninguna petición lo calcula en el momento
+    static final int SNAPSHOT_TOP_USERS = ReportService.MAX_TOP_USERS;
+    
+    private static final TypeReference<Map<String, Object>> TIPO_DATOS = new TypeReference<Map<String, Object>>() {};
+    
+    @Autowired
+    private ReportService reportService;
+    
+    @Autowired
+    private ReportSnapshotRepository snapshotRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ReportChangeTracker reportChangeTracker;
+    
+    @Value("${reports.snapshots.enabled:true}")
+    private boolean habilitado = true;
+    
+    @Value("${reports.snapshots.min-refresh-ms:30000}")
+    private long minRefreshMs = 30000;
+    
+    private final Map<ReportType, ReportDto> snapshots = new ConcurrentHashMap<>();
+    
+    // Un candado por tipo para la primera carga: no bloquea a los demás tipos ni al mapa
+    private final Map<ReportType, Object> cargas = new ConcurrentHashMap<>();
+    
+    public ReportDto getReport(ReportType type) {
+        ReportDto actual = snapshots.get(type);
+        if (actual != null) {
+            return actual;
+        }
+        // La carga consulta la base y puede tardar: se hace fuera del mapa
+        synchronized (cargas.computeIfAbsent(type, t -> new Object())) {
+            actual = snapshots.get(type);
+            if (actual == null) {
+                actual = cargarOCalcular(type);
+                ReportDto previo = snapshots.putIfAbsent(type, actual);
+                if (previo != null) {
+                    actual = previo;
+                }
+            }
+            return actual;
+        }
+    }
+    
+    /**
+     * Recorta el ranking precalculado a {@code limit}.
+     */
+    public ReportDto getTopUsers(ReportService.TopUsersMetric metric, int limit) {
+        if (limit < 1 || limit > SNAPSHOT_TOP_USERS) {
+            throw new RuntimeException("El límite debe estar entre 1 y " + SNAPSHOT_TOP_USERS);
+        }
+        return recortarTopUsers(getReport(ReportType.topUsers(metric)), limit);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarPersistidos() {
+        if (!habilitado) {
+            return;
+        }
+        for (ReportSnapshot snapshot : snapshotRepository.findAll()) {
+            ReportType type = porClave(snapshot.getReportKey());
+            if (type != null) {
+                try {
+                    snapshots.putIfAbsent(type, aDto(snapshot));
+                } catch (RuntimeException e) {
+                    log.warn("Snapshot de reporte {} ilegible; se recalculará", snapshot.getReportKey(), e);
+                }
+            }
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${reports.snapshots.check-ms:60000}")
+    public void refreshDueReports() {
+        if (!habilitado) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        for (ReportType type : ReportType.values()) {
+            if (debeRecalcular(type, ahora)) {
+                refresh(type);
+            }
+        }
+    }
+    
+    public void refresh(ReportType type) {
+        // Se limpia antes de calcular: lo que cambie durante el cálculo vuelve a marcarlo
+        reportChangeTracker.clear(type);
+        try {
+            ReportDto report = calcularYGuardar(type);
+            // Un resultado parcial no pisa un snapshot completo anterior
+            if (!ReportComposer.isPartial(report) || !snapshots.containsKey(type)) {
+                snapshots.put(type, report);
+            }
+        } catch (RuntimeException e) {
+            reportChangeTracker.markDirty(type);
+            log.warn("No se pudo recalcular el reporte {}", type.getKey(), e);
+        }
+    }
+    
+    private boolean debeRecalcular(ReportType type, LocalDateTime ahora) {
+        ReportDto actual = snapshots.get(type);
+        if (actual == null || actual.getGeneratedAt() == null) {
+            return true;
+        }
+        Duration antiguedad = Duration.between(actual.getGeneratedAt(), ahora);
+        if (antiguedad.compareTo(type.getMaxStaleness()) >= 0) {
+            return true;
+        }
+        return reportChangeTracker.isDirty(type) && antiguedad.toMillis() >= minRefreshMs;
+    }
+    
+    private ReportDto cargarOCalcular(ReportType type) {
+        ReportSnapshot persistido = snapshotRepository.findById(type.getKey()).orElse(null);
+        if (persistido != null) {
+            try {
+                return aDto(persistido);
+            } catch (RuntimeException e) {
+                log.warn("Snapshot de reporte {} ilegible; se recalcula", type.getKey(), e);
+            }
+        }
+        reportChangeTracker.clear(type);
+        return calcularYGuardar(type);
+    }
+    
+    private ReportDto calcularYGuardar(ReportType type) {
+        ReportDto report = calcular(type);
+        if (ReportComposer.isPartial(report)) {
+            // Secciones vencidas o fallidas: no se persiste y se reintenta en la próxima revisión
+            reportChangeTracker.markDirty(type);
+            return report;
+        }
+        try {
+            snapshotRepository.save(new ReportSnapshot(type.getKey(), report.getTitle(),
+                    report.getGeneratedAt(), objectMapper.writeValueAsString(report.getData())));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("No se pudo serializar el reporte " + type.getKey(), e);
+        }
+        return report;
+    }
+    
+    private ReportDto calcular(ReportType type) {
+        switch (type) {
+            case USERS:
+                return reportService.generateUserReport();
+            case ARTICLES:
+                return reportService.generateArticleReport();
+            case TOP_USERS_AVAILABLE_ARTICLES:
+                return reportService.generateTopUsersReport(ReportService.TopUsersMetric.AVAILABLE_ARTICLES, SNAPSHOT_TOP_USERS);
+            case TOP_USERS_EXCHANGED_ARTICLES:
+                return reportService.generateTopUsersReport(ReportService.TopUsersMetric.EXCHANGED_ARTICLES, SNAPSHOT_TOP_USERS);
+            case TOP_USERS_MESSAGES:
+                return reportService.generateTopUsersReport(ReportService.TopUsersMetric.MESSAGES, SNAPSHOT_TOP_USERS);
+            case TOP_ARTICLES:
+                return reportService.generateTopArticlesReport();
+            case COMMUNICATION:
+                return reportService.generateCommunicationReport();
+            case ENVIRONMENTAL_IMPACT:
+                return reportService.generateEnvironmentalImpactReport();
+            case OVERVIEW:
+                return reportService.generateOverviewReport();
+            default:
+                throw new RuntimeException("Tipo de reporte no soportado: " + type);
+        }
+    }
+    
+    private ReportDto aDto(ReportSnapshot snapshot) {
+        ReportDto report = new ReportDto(snapshot.getTitle());
+        report.setGeneratedAt(snapshot.getGeneratedAt());
+        try {
+            report.setData(objectMapper.readValue(snapshot.getDataJson(), TIPO_DATOS));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("No se pudo leer el snapshot " + snapshot.getReportKey(), e);
+        }
+        return report;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private ReportDto recortarTopUsers(ReportDto completo, int limit) {
+        Map<String, Object> data = new HashMap<>(completo.getData());
+        data.put("limit", limit);
+        
+        Object ranking = data.get("ranking");
+        if (ranking instanceof List) {
+            List<Object> filas = (List<Object>) ranking;
+            data.put("ranking", new ArrayList<>(filas.subList(0, Math.min(limit, filas.size()))));
+        }
+        
+        Object porEmail = data.get("usersByArticleCount");
+        if (porEmail instanceof Map) {
+            Map<String, Object> recortado = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entrada : ((Map<String, Object>) porEmail).entrySet()) {
+                if (recortado.size() == limit) {
+                    break;
+                }
+                recortado.put(entrada.getKey(), entrada.getValue());
+            }
+            data.put("usersByArticleCount", recortado);
+        }
+        
+        ReportDto report = new ReportDto(completo.getTitle());
+        report.setGeneratedAt(completo.getGeneratedAt());
+        report.setData(data);
+        return report;
+    }
+    
+    private static ReportType porClave(String key) {
+        for (ReportType type : ReportType.values()) {
+            if (type.getKey().equals(key)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.entity.Usuario;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reportes precalculados. Cada uno declara cuánto puede envejecer su snapshot
+ * y de qué entidades depende (un cambio en ellas adelanta el recálculo).
+ */
+public enum ReportType {
+    
+    USERS("users", Duration.ofMinutes(15), Usuario.class),
+    ARTICLES("articles", Duration.ofMinutes(10), Articulo.class),
+    TOP_USERS_AVAILABLE_ARTICLES("top-users:AVAILABLE_ARTICLES", Duration.ofMinutes(15), Articulo.class, Usuario.class),
+    TOP_USERS_EXCHANGED_ARTICLES("top-users:EXCHANGED_ARTICLES", Duration.ofMinutes(15), Articulo.class, Usuario.class),
+    TOP_USERS_MESSAGES("top-users:MESSAGES", Duration.ofMinutes(15), Mensaje.class, Usuario.class),
+    TOP_ARTICLES("top-articles", Duration.ofMinutes(5), Articulo.class),
+    COMMUNICATION("communication", Duration.ofMinutes(5), Mensaje.class),
+    ENVIRONMENTAL_IMPACT("environmental-impact", Duration.ofMinutes(30), Articulo.class),
+    OVERVIEW("overview", Duration.ofMinutes(10), Usuario.class, Articulo.class, Mensaje.class);
+    
+    private final String key;
+    private final Duration maxStaleness;
+    private final List<Class<?>> sources;
+    
+    ReportType(String key, Duration maxStaleness, Class<?>... sources) {
+        this.key = key;
+        this.maxStaleness = maxStaleness;
+        this.sources = Collections.unmodifiableList(Arrays.asList(sources));
+    }
+    
+    public String getKey() { return key; }
+    
+    public Duration getMaxStaleness() { return maxStaleness; }
+    
+    public List<Class<?>> getSources() { return sources; }
+    
+    public static ReportType topUsers(ReportService.TopUsersMetric metric) {
+        switch (metric) {
+            case EXCHANGED_ARTICLES:
+                return TOP_USERS_EXCHANGED_ARTICLES;
+            case MESSAGES:
+                return TOP_USERS_MESSAGES;
+            case AVAILABLE_ARTICLES:
+            default:
+                return TOP_USERS_AVAILABLE_ARTICLES;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.entity.MensajeArchivado;
+import com.pp.economia_circular.repositories.MensajeArchivadoRepository;
+import com.pp.economia_circular.repositories.MensajeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mueve a {@code mensajes_archivados} los mensajes leídos más antiguos que la ventana
+ * caliente y los eliminados, en lotes pequeños recorridos por id y con una pausa entre
+ * lotes para no competir con el tráfico normal. Cada lote es su propia transacción.
+ */
+@Service
+public class ServicioArchivoMensajes {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicioArchivoMensajes.class);
+
+    @Autowired
+    private MensajeRepository mensajeRepository;
+
+    @Autowired
+    private MensajeArchivadoRepository mensajeArchivadoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReportChangeTracker reportChangeTracker;
+
+    @Value("${mensajes.archivo.habilitado:true}")
+    private boolean habilitado = true;
+
+    @Value("${mensajes.archivo.dias:180}")
+    private int dias = 180;
+
+    @Value("${mensajes.archivo.tamanio-lote:500}")
+    private int tamanioLote = 500;
+
+    @Value("${mensajes.archivo.pausa-ms:200}")
+    private long pausaMs = 200;
+
+    @Value("${mensajes.archivo.max-lotes-por-ejecucion:500}")
+    private int maxLotesPorEjecucion = 500;
+
+    @Scheduled(cron = "${mensajes.archivo.cron:0 0 4 * * *}")
+    public void archivarProgramado() {
+        if (habilitado) {
+            archivar();
+        }
+    }
+
+    /**
+     * @return cantidad de mensajes movidos al archivo
+     */
+    public int archivar() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(dias);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        long ultimoId = 0L;
+        int total = 0;
+
+        for (int lote = 0; lote < maxLotesPorEjecucion; lote++) {
+            List<Long> ids = mensajeRepository.findIdsArchivables(ultimoId, limite, PageRequest.of(0, tamanioLote));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Integer movidos = transaccion.execute(status -> {
+                mensajeArchivadoRepository.copiarDesdeMensajes(ids, LocalDateTime.now());
+                return mensajeRepository.borrarPorIds(ids);
+            });
+            total += movidos != null ? movidos : 0;
+            ultimoId = ids.get(ids.size() - 1);
+
+            if (ids.size() < tamanioLote || !pausar()) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Archivados {} mensajes anteriores a {}", total, limite);
+            reportChangeTracker.markChanged(Mensaje.class);
+        }
+        return total;
+    }
+
+    public LocalDateTime inicioVentanaCaliente() {
+        return LocalDateTime.now().minusDays(dias);
+    }
+
+    public List<MensajeArchivado> leerConversacion(String conversacionId, LocalDateTime antesDe, Long antesDeId, int limite) {
+        Pageable pageable = PageRequest.of(0, limite);
+        return antesDe == null
+                ? mensajeArchivadoRepository.findUltimosDeConversacion(conversacionId, pageable)
+                : mensajeArchivadoRepository.findDeConversacionAntesDe(conversacionId, antesDe, antesDeId, pageable);
+    }
+
+    // Lecturas sin paginar: toda la conversación (orden cronológico) o todo lo del usuario (más reciente primero)
+    public List<MensajeArchivado> leerConversacionCompleta(String conversacionId) {
+        return mensajeArchivadoRepository.findByConversacion(conversacionId);
+    }
+
+    public List<MensajeArchivado> leerDeUsuario(Long usuarioId) {
+        return mensajeArchivadoRepository.findDeUsuario(usuarioId);
+    }
+
+    // Devuelve false si el hilo fue interrumpido (apagado de la aplicación)
+    private boolean pausar() {
+        if (pausaMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
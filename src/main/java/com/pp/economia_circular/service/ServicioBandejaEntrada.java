@@ -0,0 +1,214 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.PaginaBandejaDto;
+import com.pp.economia_circular.DTO.ResumenConversacionDto;
+import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.entity.MensajeArchivado;
+import com.pp.economia_circular.entity.ResumenConversacion;
+import com.pp.economia_circular.repositories.MensajeArchivadoRepository;
+import com.pp.economia_circular.repositories.MensajeRepository;
+import com.pp.economia_circular.repositories.ResumenConversacionRepository;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene la bandeja de entrada materializada ({@link ResumenConversacion}).
+ * Se invoca desde {@link ServicioMensaje} dentro de la misma transacción que el cambio del mensaje.
+ */
+@Service
+@Transactional
+public class ServicioBandejaEntrada {
+
+    private static final int LIMITE_MAXIMO_BANDEJA = 100;
+
+    @Autowired
+    private ResumenConversacionRepository resumenRepository;
+
+    @Autowired
+    private MensajeRepository mensajeRepository;
+
+    @Autowired
+    private MensajeArchivadoRepository mensajeArchivadoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    public void registrarEnvio(Mensaje mensaje) {
+        Long remitenteId = mensaje.getRemitente().getId();
+        Long destinatarioId = mensaje.getDestinatario().getId();
+        Long articuloId = articuloId(mensaje);
+
+        // Las dos filas se bloquean siempre en el mismo orden para que dos envíos cruzados no se traben
+        ResumenConversacion delRemitente;
+        ResumenConversacion delDestinatario;
+        if (ResumenConversacion.clave(remitenteId, destinatarioId, articuloId)
+                .compareTo(ResumenConversacion.clave(destinatarioId, remitenteId, articuloId)) < 0) {
+            delRemitente = obtenerOCrear(remitenteId, destinatarioId, articuloId);
+            delDestinatario = obtenerOCrear(destinatarioId, remitenteId, articuloId);
+        } else {
+            delDestinatario = obtenerOCrear(destinatarioId, remitenteId, articuloId);
+            delRemitente = obtenerOCrear(remitenteId, destinatarioId, articuloId);
+        }
+
+        delRemitente.registrarUltimoMensaje(mensaje);
+        resumenRepository.save(delRemitente);
+
+        delDestinatario.registrarUltimoMensaje(mensaje);
+        delDestinatario.setNoLeidos(delDestinatario.getNoLeidos() + 1);
+        resumenRepository.save(delDestinatario);
+    }
+
+    public void registrarLectura(Mensaje mensaje) {
+        String clave = ResumenConversacion.clave(
+                mensaje.getDestinatario().getId(), mensaje.getRemitente().getId(), articuloId(mensaje));
+        resumenRepository.findByClaveParaActualizar(clave).ifPresent(resumen -> descontarNoLeidos(resumen, 1));
+    }
+
+    public void registrarEliminacion(Mensaje mensaje, boolean eraNoLeido) {
+        Long remitenteId = mensaje.getRemitente().getId();
+        Long destinatarioId = mensaje.getDestinatario().getId();
+        Long articuloId = articuloId(mensaje);
+
+        ResumenConversacion delDestinatario = resumenRepository
+                .findByClaveParaActualizar(ResumenConversacion.clave(destinatarioId, remitenteId, articuloId)).orElse(null);
+        if (delDestinatario != null && eraNoLeido) {
+            descontarNoLeidos(delDestinatario, 1);
+        }
+
+        ResumenConversacion delRemitente = resumenRepository
+                .findByClaveParaActualizar(ResumenConversacion.clave(remitenteId, destinatarioId, articuloId)).orElse(null);
+
+        // Sólo hace falta buscar el nuevo "último mensaje" si se borró el que se mostraba
+        for (ResumenConversacion resumen : new ResumenConversacion[]{delDestinatario, delRemitente}) {
+            if (resumen != null && mensaje.getId().equals(resumen.getUltimoMensajeId())) {
+                recalcularUltimoMensaje(resumen);
+            }
+        }
+    }
+
+    /**
+     * Variante para lecturas masivas: descuenta {@code cantidad} no leídos de la conversación
+     * que {@code usuarioId} mantiene con {@code otroUsuarioId} sobre {@code articuloId}.
+     */
+    public void registrarLecturas(Long usuarioId, Long otroUsuarioId, Long articuloId, int cantidad) {
+        resumenRepository.findByClaveParaActualizar(ResumenConversacion.clave(usuarioId, otroUsuarioId, articuloId))
+                .ifPresent(resumen -> descontarNoLeidos(resumen, cantidad));
+    }
+
+    /**
+     * Variante para eliminaciones masivas ya aplicadas en la base: descuenta los no leídos
+     * del destinatario y recalcula el último mensaje de ambos lados.
+     */
+    public void registrarEliminaciones(Long remitenteId, Long destinatarioId, Long articuloId, int noLeidos) {
+        resumenRepository.findByClaveParaActualizar(ResumenConversacion.clave(destinatarioId, remitenteId, articuloId))
+                .ifPresent(resumen -> {
+                    if (noLeidos > 0) {
+                        resumen.setNoLeidos(Math.max(0, resumen.getNoLeidos() - noLeidos));
+                    }
+                    recalcularUltimoMensaje(resumen);
+                });
+        resumenRepository.findByClaveParaActualizar(ResumenConversacion.clave(remitenteId, destinatarioId, articuloId))
+                .ifPresent(this::recalcularUltimoMensaje);
+    }
+
+    /**
+     * Una página de la bandeja, la conversación con el mensaje más reciente primero. Sin cursor
+     * devuelve la primera; con {@code antesDeMensajeId}/{@code antesDeId} de la página anterior,
+     * la siguiente. El costo no depende de cuántas conversaciones tenga el usuario.
+     */
+    @Transactional(readOnly = true)
+    public PaginaBandejaDto obtenerBandeja(Long usuarioId, Long antesDeMensajeId, Long antesDeId, int limite) {
+        int tamanio = Math.max(1, Math.min(limite, LIMITE_MAXIMO_BANDEJA));
+        // Se pide una fila de más para saber si quedan conversaciones sin contarlas todas
+        Pageable pageable = PageRequest.of(0, tamanio + 1);
+        List<ResumenConversacion> filas = antesDeMensajeId == null
+                ? resumenRepository.findUltimasDeUsuario(usuarioId, pageable)
+                : resumenRepository.findDeUsuarioAntesDe(usuarioId, antesDeMensajeId,
+                        antesDeId != null ? antesDeId : Long.MAX_VALUE, pageable);
+        boolean hayMas = filas.size() > tamanio;
+        List<ResumenConversacion> pagina = hayMas ? filas.subList(0, tamanio) : filas;
+
+        // Un único query para los nombres de toda la página
+        Set<Long> otros = pagina.stream()
+                .map(ResumenConversacion::getOtroUsuarioId)
+                .collect(Collectors.toSet());
+        Map<Long, String> emails = new HashMap<>();
+        if (!otros.isEmpty()) {
+            for (Object[] fila : usuarioRepository.findEmailsByIds(otros)) {
+                emails.put((Long) fila[0], (String) fila[1]);
+            }
+        }
+
+        PaginaBandejaDto dto = new PaginaBandejaDto();
+        dto.setHayMas(hayMas);
+        if (!pagina.isEmpty()) {
+            ResumenConversacion ultima = pagina.get(pagina.size() - 1);
+            dto.setSiguienteAntesDeMensajeId(ultima.getUltimoMensajeId());
+            dto.setSiguienteAntesDeId(ultima.getId());
+        }
+        dto.setConversaciones(pagina.stream()
+                .map(resumen -> convertirADto(resumen, emails.get(resumen.getOtroUsuarioId())))
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    // Si en la tabla caliente no queda nada se muestra el último archivado; sólo sin ninguno se borra la fila
+    private void recalcularUltimoMensaje(ResumenConversacion resumen) {
+        String conversacionId = Mensaje.claveConversacion(resumen.getUsuarioId(), resumen.getOtroUsuarioId());
+        List<Mensaje> ultimos = mensajeRepository.findUltimosMensajesDeConversacion(
+                conversacionId, resumen.getArticuloId(), PageRequest.of(0, 1));
+        if (!ultimos.isEmpty()) {
+            resumen.registrarUltimoMensaje(ultimos.get(0));
+            resumenRepository.save(resumen);
+            return;
+        }
+        List<MensajeArchivado> archivados = mensajeArchivadoRepository.findUltimosMensajesDeConversacion(
+                conversacionId, resumen.getArticuloId(), PageRequest.of(0, 1));
+        if (archivados.isEmpty()) {
+            resumenRepository.delete(resumen);
+        } else {
+            resumen.registrarUltimoMensaje(archivados.get(0));
+            resumenRepository.save(resumen);
+        }
+    }
+
+    private void descontarNoLeidos(ResumenConversacion resumen, int cantidad) {
+        resumen.setNoLeidos(Math.max(0, resumen.getNoLeidos() - cantidad));
+        resumenRepository.save(resumen);
+    }
+
+    // Crea la fila si falta y la devuelve bloqueada; un alta concurrente de la misma clave no falla
+    private ResumenConversacion obtenerOCrear(Long usuarioId, Long otroUsuarioId, Long articuloId) {
+        String clave = ResumenConversacion.clave(usuarioId, otroUsuarioId, articuloId);
+        resumenRepository.crearSiNoExiste(clave, usuarioId, otroUsuarioId, articuloId);
+        return resumenRepository.findByClaveParaActualizar(clave)
+                .orElseThrow(() -> new RuntimeException("Conversación no encontrada"));
+    }
+
+    private Long articuloId(Mensaje mensaje) {
+        return mensaje.getArticulo() != null ? mensaje.getArticulo().getId() : null;
+    }
+
+    private ResumenConversacionDto convertirADto(ResumenConversacion resumen, String nombreOtroUsuario) {
+        ResumenConversacionDto dto = new ResumenConversacionDto();
+        dto.setOtroUsuarioId(resumen.getOtroUsuarioId());
+        dto.setNombreOtroUsuario(nombreOtroUsuario); // Usando email como username por ahora
+        dto.setArticuloId(resumen.getArticuloId());
+        dto.setUltimoMensajeId(resumen.getUltimoMensajeId());
+        dto.setUltimoRemitenteId(resumen.getUltimoRemitenteId());
+        dto.setVistaPrevia(resumen.getVistaPrevia());
+        dto.setUltimoMensajeEn(resumen.getUltimoMensajeEn());
+        dto.setNoLeidos(resumen.getNoLeidos());
+        return dto;
+    }
+}
@@ -0,0 +1,254 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.entity.ContadorNoLeidos;
+import com.pp.economia_circular.repositories.ContadorNoLeidosRepository;
+import com.pp.economia_circular.repositories.MensajeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de mensajes no leídos por usuario mantenidos de forma incremental.
+ * <p>
+ * Las lecturas salen de memoria (O(1)) y se vuelven a leer de la base pasado
+ * {@code mensajes.contadores.cache-ttl-ms}, para ver lo que volcaron otras instancias.
+ * Los cambios se acumulan como deltas y se vuelcan periódicamente a
+ * {@code contadores_no_leidos} con {@code cantidad = cantidad + delta}, de modo que varias
+ * instancias pueden escribir sin pisarse. La reconciliación nocturna recalcula los valores
+ * a partir de {@code mensajes} y marca cada fila con el momento del recálculo: la parte de
+ * un delta anotada antes de ese momento ya está incluida y se descarta al volcarlo, venga de
+ * esta instancia o de otra; la anotada después se suma igual.
+ */
+@Service
+public class ServicioContadorNoLeidos {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicioContadorNoLeidos.class);
+
+    private static final int USUARIOS_POR_TRANSACCION = 500;
+
+    @Autowired
+    private ContadorNoLeidosRepository contadorRepository;
+
+    @Autowired
+    private MensajeRepository mensajeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${mensajes.contadores.max-en-memoria:100000}")
+    private int maxEnMemoria = 100000;
+
+    @Value("${mensajes.contadores.cache-ttl-ms:60000}")
+    private long cacheTtlMs = 60000;
+
+    // Valor absoluto conocido por usuario (caché de lectura)
+    private final Map<Long, Valor> contadores = new ConcurrentHashMap<>();
+
+    // Deltas aún no volcados a la base
+    private final Map<Long, Pendiente> pendientes = new ConcurrentHashMap<>();
+
+    public long obtener(Long usuarioId) {
+        Valor valor = contadores.get(usuarioId);
+        if (valor == null || valor.vencido(cacheTtlMs)) {
+            valor = new Valor(cargar(usuarioId));
+            // Lleno, sólo se refrescan los que ya estaban; los demás se leen de la base cada vez
+            if (contadores.containsKey(usuarioId) || contadores.size() < maxEnMemoria) {
+                contadores.put(usuarioId, valor);
+            }
+        }
+        return Math.max(0L, valor.cantidad.get());
+    }
+
+    public void incrementar(Long usuarioId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        pendientes.merge(usuarioId, new Pendiente(delta, LocalDateTime.now()), Pendiente::sumar);
+        Valor valor = contadores.get(usuarioId);
+        if (valor != null) {
+            valor.cantidad.addAndGet(delta);
+        }
+    }
+
+    public void decrementar(Long usuarioId, long delta) {
+        incrementar(usuarioId, -delta);
+    }
+
+    /**
+     * Descarta el valor en memoria de un usuario para que la próxima lectura
+     * vuelva a la base (p. ej. tras escrituras masivas hechas directamente por SQL).
+     */
+    public void invalidar(Long usuarioId) {
+        contadores.remove(usuarioId);
+    }
+
+    @Scheduled(fixedDelayString = "${mensajes.contadores.volcado-ms:5000}")
+    public void volcarPendientes() {
+        List<Long> usuarios = new ArrayList<>(pendientes.keySet());
+        for (int desde = 0; desde < usuarios.size(); desde += USUARIOS_POR_TRANSACCION) {
+            Map<Long, Pendiente> lote = new LinkedHashMap<>();
+            for (Long usuarioId : usuarios.subList(desde, Math.min(desde + USUARIOS_POR_TRANSACCION, usuarios.size()))) {
+                Pendiente pendiente = pendientes.remove(usuarioId);
+                if (pendiente != null) {
+                    lote.put(usuarioId, pendiente);
+                }
+            }
+
+            try {
+                transactionTemplate().execute(status -> {
+                    LocalDateTime ahora = LocalDateTime.now();
+                    lote.forEach((usuarioId, pendiente) -> aplicar(usuarioId, pendiente, ahora));
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // Se devuelven los deltas para reintentar en el próximo ciclo
+                lote.forEach((usuarioId, pendiente) -> pendientes.merge(usuarioId, pendiente, Pendiente::sumar));
+                log.warn("No se pudieron volcar {} contadores de no leídos", lote.size(), e);
+                return;
+            }
+        }
+
+        contadores.values().removeIf(valor -> valor.vencido(cacheTtlMs));
+    }
+
+    @Scheduled(cron = "${mensajes.contadores.reconciliacion-cron:0 30 3 * * *}")
+    public void reconciliarTodos() {
+        transactionTemplate().execute(status -> {
+            // Los deltas locales anteriores al recálculo ya están en el conteo; los de otras
+            // instancias se descartan al volcarse porque son anteriores a reconciliado_en
+            LocalDateTime ahora = LocalDateTime.now();
+            pendientes.clear();
+            List<Object[]> cantidades = mensajeRepository.countUnreadMessagesGroupedByUser();
+            contadorRepository.reiniciarTodos(ahora);
+            for (Object[] fila : cantidades) {
+                fijar((Long) fila[0], (Long) fila[1], ahora);
+            }
+            return null;
+        });
+        contadores.clear();
+    }
+
+    public long reconciliar(Long usuarioId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        pendientes.remove(usuarioId);
+        long cantidad = mensajeRepository.countUnreadMessagesByUser(usuarioId);
+        transactionTemplate().execute(status -> {
+            fijar(usuarioId, cantidad, ahora);
+            return null;
+        });
+        contadores.put(usuarioId, new Valor(cantidad));
+        return cantidad;
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        volcarPendientes();
+    }
+
+    private long cargar(Long usuarioId) {
+        ContadorNoLeidos contador = contadorRepository.findById(usuarioId).orElse(null);
+        Pendiente pendiente = pendientes.get(usuarioId);
+        if (contador != null) {
+            return contador.getCantidad() + (pendiente != null ? pendiente.total : 0L);
+        }
+        // Primera vez que se consulta: se parte de los mensajes y se agenda la creación de la fila
+        pendientes.merge(usuarioId, new Pendiente(0L, LocalDateTime.now()), Pendiente::sumar);
+        Long cantidad = mensajeRepository.countUnreadMessagesByUser(usuarioId);
+        return cantidad != null ? cantidad : 0L;
+    }
+
+    private void aplicar(Long usuarioId, Pendiente pendiente, LocalDateTime ahora) {
+        // Caso común: nadie recalculó el contador desde el primer cambio, va el delta entero
+        if (contadorRepository.incrementar(usuarioId, pendiente.total, pendiente.desde(), ahora) > 0) {
+            return;
+        }
+        ContadorNoLeidos contador = contadorRepository.findById(usuarioId).orElse(null);
+        if (contador == null) {
+            // Sin fila previa: el conteo de mensajes ya incluye este delta
+            contadorRepository.save(new ContadorNoLeidos(usuarioId,
+                    mensajeRepository.countUnreadMessagesByUser(usuarioId), ahora));
+            return;
+        }
+        // Se recalculó en medio: sólo se suma lo anotado desde el recálculo
+        LocalDateTime reconciliadoEn = contador.getReconciliadoEn();
+        long posterior = pendiente.desde(reconciliadoEn);
+        if (posterior != 0) {
+            contadorRepository.incrementar(usuarioId, posterior, reconciliadoEn, ahora);
+        }
+        log.debug("Delta {} del usuario {} descartado: el contador se recalculó después",
+                pendiente.total - posterior, usuarioId);
+    }
+
+    private void fijar(Long usuarioId, Long cantidad, LocalDateTime ahora) {
+        if (contadorRepository.fijar(usuarioId, cantidad, ahora) == 0) {
+            contadorRepository.save(new ContadorNoLeidos(usuarioId, cantidad, ahora));
+        }
+    }
+
+    private TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    // Delta acumulado de un usuario, repartido por momento del cambio para poder separar
+    // lo anterior y lo posterior a un recálculo que caiga entre dos volcados
+    private static final class Pendiente {
+        private final long total;
+        private final NavigableMap<LocalDateTime, Long> porMomento;
+
+        private Pendiente(long delta, LocalDateTime momento) {
+            this(delta, new TreeMap<>(Collections.singletonMap(momento, delta)));
+        }
+
+        private Pendiente(long total, NavigableMap<LocalDateTime, Long> porMomento) {
+            this.total = total;
+            this.porMomento = porMomento;
+        }
+
+        // Momento del primer cambio
+        private LocalDateTime desde() {
+            return porMomento.firstKey();
+        }
+
+        // Parte anotada desde ese momento (inclusive), el mismo criterio que la consulta
+        private long desde(LocalDateTime momento) {
+            return porMomento.tailMap(momento, true).values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        // Copia: el mapa de un Pendiente ya publicado no se modifica
+        private static Pendiente sumar(Pendiente anterior, Pendiente nuevo) {
+            NavigableMap<LocalDateTime, Long> porMomento = new TreeMap<>(anterior.porMomento);
+            nuevo.porMomento.forEach((momento, delta) -> porMomento.merge(momento, delta, Long::sum));
+            return new Pendiente(anterior.total + nuevo.total, porMomento);
+        }
+    }
+
+    private static final class Valor {
+        private final AtomicLong cantidad;
+        private final long cargadoEn = System.currentTimeMillis();
+
+        private Valor(long cantidad) {
+            this.cantidad = new AtomicLong(cantidad);
+        }
+
+        private boolean vencido(long ttlMs) {
+            return System.currentTimeMillis() - cargadoEn > ttlMs;
+        }
+    }
+}
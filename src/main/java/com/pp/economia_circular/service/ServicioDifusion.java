@@ -0,0 +1,244 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.CrearDifusionDto;
+import com.pp.economia_circular.DTO.EstadoDifusionDto;
+import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.entity.ResumenConversacion;
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Difusión de un mensaje de administración a todos los usuarios activos.
+ * <p>
+ * Corre en {@code ejecutorDifusion}, fuera de los hilos de petición. Los destinatarios se
+ * recorren por id y cada tramo se inserta con un batch JDBC en su propia transacción;
+ * la bandeja y los contadores se actualizan con una sentencia por tramo, no por usuario.
+ */
+@Service
+public class ServicioDifusion {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicioDifusion.class);
+
+    private static final int MAX_DIFUSIONES_EN_MEMORIA = 50;
+
+    private static final String INSERTAR_MENSAJE =
+            "INSERT INTO mensajes (contenido, remitente_id, destinatario_id, estado, creado_en, conversacion_id, difusion_id) " +
+            "VALUES (:contenido, :remitenteId, :destinatarioId, 'NO_LEIDO', :creadoEn, :conversacionId, :difusionId)";
+
+    // MySQL: crea o actualiza la fila de bandeja de cada destinatario a partir de los mensajes recién insertados.
+    // Se identifican por difusión y conversación del tramo: hay exactamente uno por destinatario
+    private static final String ACTUALIZAR_BANDEJA =
+            "INSERT INTO resumen_conversaciones (clave, usuario_id, otro_usuario_id, articulo_id, ultimo_mensaje_id, " +
+            "ultimo_remitente_id, vista_previa, ultimo_mensaje_en, no_leidos) " +
+            "SELECT CONCAT(m.destinatario_id, ':', m.remitente_id, ':0'), m.destinatario_id, m.remitente_id, NULL, m.id, " +
+            "m.remitente_id, LEFT(m.contenido, " + ResumenConversacion.LARGO_VISTA_PREVIA + "), m.creado_en, 1 " +
+            "FROM mensajes m WHERE m.conversacion_id IN (:conversaciones) AND m.difusion_id = :difusionId " +
+            "ON DUPLICATE KEY UPDATE ultimo_mensaje_id = VALUES(ultimo_mensaje_id), " +
+            "ultimo_remitente_id = VALUES(ultimo_remitente_id), vista_previa = VALUES(vista_previa), " +
+            "ultimo_mensaje_en = VALUES(ultimo_mensaje_en), no_leidos = no_leidos + 1";
+
+    // Las filas que falten se crean al primer uso contando mensajes, que ya incluyen la difusión
+    private static final String ACTUALIZAR_CONTADORES =
+            "UPDATE contadores_no_leidos SET cantidad = cantidad + 1, actualizado_en = :ahora " +
+            "WHERE usuario_id IN (:usuarios)";
+
+    public enum EstadoDifusion {
+        EN_COLA, EN_CURSO, COMPLETADA, FALLIDA
+    }
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JWTService authService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ServicioContadorNoLeidos servicioContadorNoLeidos;
+
+    @Autowired
+    private NotificadorMensajes notificadorMensajes;
+
+    @Autowired
+    private ReportChangeTracker reportChangeTracker;
+
+    @Autowired
+    @Qualifier("ejecutorDifusion")
+    private TaskExecutor ejecutorDifusion;
+
+    @Value("${mensajes.difusion.destinatarios-por-transaccion:5000}")
+    private int destinatariosPorTransaccion = 5000;
+
+    private final Map<String, Progreso> difusiones = Collections.synchronizedMap(
+            new LinkedHashMap<String, Progreso>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Progreso> mayor) {
+                    return size() > MAX_DIFUSIONES_EN_MEMORIA;
+                }
+            });
+
+    public EstadoDifusionDto iniciar(CrearDifusionDto crearDto) {
+        Usuario currentUser = authService.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("Usuario no autenticado");
+        }
+
+        // Solo administradores pueden difundir mensajes
+        if (!"ADMIN".equals(currentUser.getRol())) {
+            throw new RuntimeException("Solo los administradores pueden enviar difusiones");
+        }
+
+        Progreso progreso = new Progreso(UUID.randomUUID().toString());
+        difusiones.put(progreso.id, progreso);
+        Long remitenteId = currentUser.getId();
+        String contenido = crearDto.getContenido();
+        try {
+            ejecutorDifusion.execute(() -> ejecutar(progreso, contenido, remitenteId));
+        } catch (TaskRejectedException e) {
+            difusiones.remove(progreso.id);
+            throw new RuntimeException("Hay demasiadas difusiones en curso, intente más tarde");
+        }
+        return progreso.aDto();
+    }
+
+    public EstadoDifusionDto obtenerEstado(String difusionId) {
+        Progreso progreso = difusiones.get(difusionId);
+        if (progreso == null) {
+            throw new RuntimeException("Difusión no encontrada");
+        }
+        return progreso.aDto();
+    }
+
+    private void ejecutar(Progreso progreso, String contenido, Long remitenteId) {
+        progreso.estado = EstadoDifusion.EN_CURSO;
+        progreso.total = usuarioRepository.countActivosExcepto(remitenteId);
+        LocalDateTime creadoEn = LocalDateTime.now();
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        try {
+            long desdeId = 0L;
+            while (true) {
+                List<Long> destinatarios = usuarioRepository.findIdsActivosDesde(
+                        desdeId, remitenteId, PageRequest.of(0, destinatariosPorTransaccion));
+                if (destinatarios.isEmpty()) {
+                    break;
+                }
+
+                transaccion.execute(status -> {
+                    insertarTramo(progreso.id, destinatarios, contenido, remitenteId, creadoEn);
+                    return null;
+                });
+                despuesDelTramo(destinatarios);
+                progreso.enviados.addAndGet(destinatarios.size());
+
+                if (destinatarios.size() < destinatariosPorTransaccion) {
+                    break;
+                }
+                desdeId = destinatarios.get(destinatarios.size() - 1);
+            }
+            progreso.estado = EstadoDifusion.COMPLETADA;
+        } catch (RuntimeException e) {
+            // Los tramos ya confirmados quedan enviados; "enviados" indica hasta dónde llegó
+            progreso.estado = EstadoDifusion.FALLIDA;
+            progreso.error = e.getMessage();
+            log.error("Falló la difusión {} tras {} mensajes", progreso.id, progreso.enviados.get(), e);
+        } finally {
+            progreso.finalizadoEn = LocalDateTime.now();
+        }
+    }
+
+    private void insertarTramo(String difusionId, List<Long> destinatarios, String contenido, Long remitenteId,
+                               LocalDateTime creadoEn) {
+        SqlParameterSource[] filas = new SqlParameterSource[destinatarios.size()];
+        for (int i = 0; i < filas.length; i++) {
+            Long destinatarioId = destinatarios.get(i);
+            filas[i] = new MapSqlParameterSource()
+                    .addValue("contenido", contenido)
+                    .addValue("remitenteId", remitenteId)
+                    .addValue("destinatarioId", destinatarioId)
+                    .addValue("creadoEn", creadoEn)
+                    .addValue("conversacionId", Mensaje.claveConversacion(remitenteId, destinatarioId))
+                    .addValue("difusionId", difusionId);
+        }
+        jdbcTemplate.batchUpdate(INSERTAR_MENSAJE, filas);
+
+        List<String> conversaciones = destinatarios.stream()
+                .map(destinatarioId -> Mensaje.claveConversacion(remitenteId, destinatarioId))
+                .collect(Collectors.toList());
+        jdbcTemplate.update(ACTUALIZAR_BANDEJA, new MapSqlParameterSource()
+                .addValue("conversaciones", conversaciones)
+                .addValue("difusionId", difusionId));
+
+        jdbcTemplate.update(ACTUALIZAR_CONTADORES, new MapSqlParameterSource()
+                .addValue("usuarios", destinatarios)
+                .addValue("ahora", LocalDateTime.now()));
+    }
+
+    private void despuesDelTramo(List<Long> destinatarios) {
+        // Los mensajes se insertan por JDBC: los reportes no se enteran por otra vía
+        reportChangeTracker.markChanged(Mensaje.class);
+        Set<Long> conectados = notificadorMensajes.usuariosConectados();
+        for (Long destinatarioId : destinatarios) {
+            // La fila de contadores cambió por SQL: la próxima lectura vuelve a la base
+            servicioContadorNoLeidos.invalidar(destinatarioId);
+            if (conectados.contains(destinatarioId)) {
+                notificadorMensajes.notificarNoLeidos(destinatarioId, servicioContadorNoLeidos.obtener(destinatarioId));
+            }
+        }
+    }
+
+    private static class Progreso {
+        private final String id;
+        private final LocalDateTime iniciadoEn = LocalDateTime.now();
+        private final AtomicLong enviados = new AtomicLong();
+        private volatile EstadoDifusion estado = EstadoDifusion.EN_COLA;
+        private volatile long total;
+        private volatile LocalDateTime finalizadoEn;
+        private volatile String error;
+
+        private Progreso(String id) {
+            this.id = id;
+        }
+
+        private EstadoDifusionDto aDto() {
+            EstadoDifusionDto dto = new EstadoDifusionDto();
+            dto.setId(id);
+            dto.setEstado(estado.name());
+            dto.setTotal(total);
+            dto.setEnviados(enviados.get());
+            dto.setIniciadoEn(iniciadoEn);
+            dto.setFinalizadoEn(finalizadoEn);
+            dto.setError(error);
+            return dto;
+        }
+    }
+}
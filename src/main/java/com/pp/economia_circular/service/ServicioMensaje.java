@@ -1,25 +1,44 @@
 package com.pp.economia_circular.service;
 
 import com.pp.economia_circular.DTO.CrearMensajeDto;
+import com.pp.economia_circular.DTO.PaginaBandejaDto;
+import com.pp.economia_circular.DTO.PaginaMensajesDto;
 import com.pp.economia_circular.DTO.RespuestaMensajeDto;
 import com.pp.economia_circular.entity.Usuario;
 import com.pp.economia_circular.entity.Articulo;
 import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.entity.MensajeArchivado;
 import com.pp.economia_circular.repositories.ArticleRepository;
 import com.pp.economia_circular.repositories.MensajeRepository;
 import com.pp.economia_circular.repositories.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ServicioMensaje {
     
+    private static final int LIMITE_MAXIMO_CONVERSACION = 100;
+    
+    private static final int MAXIMO_IDS_POR_LOTE = 500;
+    
+    private static final Comparator<RespuestaMensajeDto> ORDEN_CRONOLOGICO =
+            Comparator.comparing(RespuestaMensajeDto::getCreadoEn).thenComparing(RespuestaMensajeDto::getId);
+    
     @Autowired
     private MensajeRepository mensajeRepository;
     
@@ -29,6 +48,21 @@ public class ServicioMensaje {
     @Autowired
     private UsuarioRepository usuarioRepository;
     
+    @Autowired
+    private NotificadorMensajes notificadorMensajes;
+    
+    @Autowired
+    private ServicioContadorNoLeidos servicioContadorNoLeidos;
+    
+    @Autowired
+    private ServicioBandejaEntrada servicioBandejaEntrada;
+    
+    @Autowired
+    private ServicioArchivoMensajes servicioArchivoMensajes;
+    
+    @Autowired
+    private ReportChangeTracker reportChangeTracker;
+    
     public RespuestaMensajeDto enviarMensaje(CrearMensajeDto crearDto, Long remitenteId) {
         Usuario remitente = usuarioRepository.findById(remitenteId)
                 .orElseThrow(() -> new RuntimeException("Usuario emisor no encontrado"));
@@ -56,19 +90,84 @@ public class ServicioMensaje {
         mensaje.setArticulo(articulo);
         
         Mensaje mensajeGuardado = mensajeRepository.save(mensaje);
-        return convertirARespuestaDto(mensajeGuardado);
+        servicioBandejaEntrada.registrarEnvio(mensajeGuardado);
+        reportChangeTracker.markChanged(Mensaje.class);
+        RespuestaMensajeDto respuesta = convertirARespuestaDto(mensajeGuardado);
+        
+        Long destinatarioId = destinatario.getId();
+        DespuesDeCommit.ejecutar(() -> {
+            servicioContadorNoLeidos.incrementar(destinatarioId, 1);
+            if (notificadorMensajes.estaConectado(destinatarioId)) {
+                notificadorMensajes.notificarNuevoMensaje(destinatarioId, respuesta, contarMensajesNoLeidos(destinatarioId));
+            }
+        });
+        return respuesta;
     }
     
     public List<RespuestaMensajeDto> obtenerMisMensajes(Long usuarioId) {
-        return mensajeRepository.findConversationsByUser(usuarioId).stream()
+        List<RespuestaMensajeDto> mensajes = mensajeRepository.findConversationsByUser(usuarioId).stream()
                 .map(this::convertirARespuestaDto)
                 .collect(Collectors.toList());
+        // Lo archivado también es parte del historial: mismo orden, más reciente primero
+        mensajes.addAll(convertirArchivados(servicioArchivoMensajes.leerDeUsuario(usuarioId)));
+        mensajes.sort(ORDEN_CRONOLOGICO.reversed());
+        return mensajes;
+    }
+    
+    public PaginaBandejaDto obtenerBandejaEntrada(Long usuarioId, Long antesDeMensajeId, Long antesDeId, int limite) {
+        return servicioBandejaEntrada.obtenerBandeja(usuarioId, antesDeMensajeId, antesDeId, limite);
     }
     
     public List<RespuestaMensajeDto> obtenerConversacionConUsuario(Long usuarioId, Long otroUsuarioId) {
-        return mensajeRepository.findConversationBetweenUsers(usuarioId, otroUsuarioId).stream()
+        List<RespuestaMensajeDto> mensajes = mensajeRepository.findConversationBetweenUsers(usuarioId, otroUsuarioId).stream()
                 .map(this::convertirARespuestaDto)
                 .collect(Collectors.toList());
+        mensajes.addAll(convertirArchivados(servicioArchivoMensajes.leerConversacionCompleta(
+                Mensaje.claveConversacion(usuarioId, otroUsuarioId))));
+        mensajes.sort(ORDEN_CRONOLOGICO);
+        return mensajes;
+    }
+    
+    public PaginaMensajesDto obtenerConversacionPaginada(Long usuarioId, Long otroUsuarioId,
+                                                        LocalDateTime antesDe, Long antesDeId, int limite) {
+        int tamanio = Math.max(1, Math.min(limite, LIMITE_MAXIMO_CONVERSACION));
+        String conversacionId = Mensaje.claveConversacion(usuarioId, otroUsuarioId);
+        Long cursorId = antesDe != null && antesDeId == null ? Long.MAX_VALUE : antesDeId;
+        
+        // Se pide una fila de más para saber si quedan mensajes anteriores sin contar toda la conversación
+        Pageable pageable = PageRequest.of(0, tamanio + 1);
+        List<Mensaje> filas = antesDe == null
+                ? mensajeRepository.findUltimosDeConversacion(conversacionId, pageable)
+                : mensajeRepository.findDeConversacionAntesDe(conversacionId, antesDe, cursorId, pageable);
+        
+        List<RespuestaMensajeDto> candidatos = filas.stream()
+                .map(this::convertirARespuestaDto)
+                .collect(Collectors.toList());
+        
+        // El archivo sólo se consulta cuando la página llega más atrás que la ventana caliente
+        if (filas.size() <= tamanio
+                || filas.get(filas.size() - 1).getCreadoEn().isBefore(servicioArchivoMensajes.inicioVentanaCaliente())) {
+            List<MensajeArchivado> archivados = servicioArchivoMensajes.leerConversacion(
+                    conversacionId, antesDe, cursorId, tamanio + 1);
+            if (!archivados.isEmpty()) {
+                candidatos.addAll(convertirArchivados(archivados));
+                candidatos.sort(ORDEN_CRONOLOGICO.reversed());
+            }
+        }
+        
+        boolean hayMas = candidatos.size() > tamanio;
+        List<RespuestaMensajeDto> pagina = new ArrayList<>(hayMas ? candidatos.subList(0, tamanio) : candidatos);
+        
+        PaginaMensajesDto dto = new PaginaMensajesDto();
+        dto.setHayMas(hayMas);
+        if (!pagina.isEmpty()) {
+            RespuestaMensajeDto masAntiguo = pagina.get(pagina.size() - 1);
+            dto.setSiguienteAntesDe(masAntiguo.getCreadoEn());
+            dto.setSiguienteAntesDeId(masAntiguo.getId());
+        }
+        Collections.reverse(pagina);
+        dto.setMensajes(pagina);
+        return dto;
     }
     
     public List<RespuestaMensajeDto> obtenerMensajesPorArticulo(Long articuloId) {
@@ -84,7 +183,7 @@ public class ServicioMensaje {
     }
     
     public Long contarMensajesNoLeidos(Long usuarioId) {
-        return mensajeRepository.countUnreadMessagesByUser(usuarioId);
+        return servicioContadorNoLeidos.obtener(usuarioId);
     }
     
     public RespuestaMensajeDto marcarComoLeido(Long mensajeId, Long usuarioId) {
@@ -96,10 +195,16 @@ public class ServicioMensaje {
             throw new RuntimeException("No tienes permisos para marcar este mensaje como leído");
         }
         
+        boolean eraNoLeido = mensaje.getEstado() == Mensaje.EstadoMensaje.NO_LEIDO;
         mensaje.setEstado(Mensaje.EstadoMensaje.LEIDO);
         mensaje.setLeidoEn(LocalDateTime.now());
         
         Mensaje mensajeActualizado = mensajeRepository.save(mensaje);
+        if (eraNoLeido) {
+            servicioBandejaEntrada.registrarLectura(mensajeActualizado);
+            descontarNoLeidoDespuesDeCommit(usuarioId);
+            reportChangeTracker.markChanged(Mensaje.class);
+        }
         return convertirARespuestaDto(mensajeActualizado);
     }
     
@@ -113,8 +218,151 @@ public class ServicioMensaje {
             throw new RuntimeException("No tienes permisos para eliminar este mensaje");
         }
         
+        boolean eraNoLeido = mensaje.getEstado() == Mensaje.EstadoMensaje.NO_LEIDO;
         mensaje.setEstado(Mensaje.EstadoMensaje.ELIMINADO);
         mensajeRepository.save(mensaje);
+        servicioBandejaEntrada.registrarEliminacion(mensaje, eraNoLeido);
+        reportChangeTracker.markChanged(Mensaje.class);
+        if (eraNoLeido) {
+            descontarNoLeidoDespuesDeCommit(mensaje.getDestinatario().getId());
+        }
+    }
+    
+    public int marcarConversacionComoLeida(Long usuarioId, Long otroUsuarioId) {
+        String conversacionId = Mensaje.claveConversacion(usuarioId, otroUsuarioId);
+        List<Object[]> grupos = mensajeRepository.resumirNoLeidosDeConversacion(conversacionId, usuarioId);
+        if (grupos.isEmpty()) {
+            return 0;
+        }
+        int actualizados = mensajeRepository.marcarConversacionComoLeida(conversacionId, usuarioId, LocalDateTime.now());
+        registrarLecturasMasivas(usuarioId, grupos);
+        return actualizados;
+    }
+    
+    public int marcarComoLeidos(List<Long> mensajeIds, Long usuarioId) {
+        if (validarLoteIds(mensajeIds)) {
+            return 0;
+        }
+        List<Object[]> grupos = mensajeRepository.resumirNoLeidosPorIds(mensajeIds, usuarioId);
+        if (grupos.isEmpty()) {
+            return 0;
+        }
+        int actualizados = mensajeRepository.marcarComoLeidos(mensajeIds, usuarioId, LocalDateTime.now());
+        registrarLecturasMasivas(usuarioId, grupos);
+        return actualizados;
+    }
+    
+    public int eliminarConversacion(Long usuarioId, Long otroUsuarioId) {
+        String conversacionId = Mensaje.claveConversacion(usuarioId, otroUsuarioId);
+        List<Object[]> grupos = mensajeRepository.resumirConversacionParaEliminar(conversacionId, usuarioId);
+        if (grupos.isEmpty()) {
+            return 0;
+        }
+        int eliminados = mensajeRepository.eliminarConversacion(conversacionId, usuarioId);
+        registrarEliminacionesMasivas(grupos);
+        return eliminados;
+    }
+    
+    public int eliminarMensajes(List<Long> mensajeIds, Long usuarioId) {
+        if (validarLoteIds(mensajeIds)) {
+            return 0;
+        }
+        List<Object[]> grupos = mensajeRepository.resumirPorIdsParaEliminar(mensajeIds, usuarioId);
+        if (grupos.isEmpty()) {
+            return 0;
+        }
+        int eliminados = mensajeRepository.eliminarPorIds(mensajeIds, usuarioId);
+        registrarEliminacionesMasivas(grupos);
+        return eliminados;
+    }
+    
+    // Devuelve true si no hay nada que procesar
+    private boolean validarLoteIds(List<Long> mensajeIds) {
+        if (mensajeIds == null || mensajeIds.isEmpty()) {
+            return true;
+        }
+        if (mensajeIds.size() > MAXIMO_IDS_POR_LOTE) {
+            throw new RuntimeException("No se pueden procesar más de " + MAXIMO_IDS_POR_LOTE + " mensajes a la vez");
+        }
+        return false;
+    }
+    
+    // grupos: [remitenteId, articuloId, cantidad] de los no leídos del usuario afectados, ya bloqueados:
+    // bandeja y contador se descuentan de las mismas cantidades
+    private void registrarLecturasMasivas(Long usuarioId, List<Object[]> grupos) {
+        long leidos = 0;
+        for (Object[] grupo : grupos) {
+            int cantidad = ((Long) grupo[2]).intValue();
+            servicioBandejaEntrada.registrarLecturas(usuarioId, (Long) grupo[0], (Long) grupo[1], cantidad);
+            leidos += cantidad;
+        }
+        if (leidos > 0) {
+            descontarNoLeidosDespuesDeCommit(usuarioId, leidos);
+            // Escritura masiva por JPQL: no pasa por las entidades
+            reportChangeTracker.markChanged(Mensaje.class);
+        }
+    }
+    
+    // grupos: [remitenteId, destinatarioId, articuloId, noLeidos] de los mensajes eliminados
+    private void registrarEliminacionesMasivas(List<Object[]> grupos) {
+        Map<Long, Long> noLeidosPorDestinatario = new HashMap<>();
+        for (Object[] grupo : grupos) {
+            Long destinatarioId = (Long) grupo[1];
+            long noLeidos = grupo[3] != null ? ((Number) grupo[3]).longValue() : 0L;
+            servicioBandejaEntrada.registrarEliminaciones((Long) grupo[0], destinatarioId, (Long) grupo[2], (int) noLeidos);
+            if (noLeidos > 0) {
+                noLeidosPorDestinatario.merge(destinatarioId, noLeidos, Long::sum);
+            }
+        }
+        noLeidosPorDestinatario.forEach(this::descontarNoLeidosDespuesDeCommit);
+        reportChangeTracker.markChanged(Mensaje.class);
+    }
+    
+    private void descontarNoLeidoDespuesDeCommit(Long usuarioId) {
+        descontarNoLeidosDespuesDeCommit(usuarioId, 1);
+    }
+    
+    private void descontarNoLeidosDespuesDeCommit(Long usuarioId, long cantidad) {
+        DespuesDeCommit.ejecutar(() -> {
+            servicioContadorNoLeidos.decrementar(usuarioId, cantidad);
+            if (notificadorMensajes.estaConectado(usuarioId)) {
+                notificadorMensajes.notificarNoLeidos(usuarioId, contarMensajesNoLeidos(usuarioId));
+            }
+        });
+    }
+    
+    // Un único query para los nombres de todos los mensajes archivados
+    private List<RespuestaMensajeDto> convertirArchivados(List<MensajeArchivado> archivados) {
+        if (archivados.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> usuarios = new HashSet<>();
+        for (MensajeArchivado archivado : archivados) {
+            usuarios.add(archivado.getRemitenteId());
+            usuarios.add(archivado.getDestinatarioId());
+        }
+        Map<Long, String> emails = new HashMap<>();
+        for (Object[] fila : usuarioRepository.findEmailsByIds(usuarios)) {
+            emails.put((Long) fila[0], (String) fila[1]);
+        }
+        return archivados.stream()
+                .map(archivado -> convertirARespuestaDto(archivado, emails))
+                .collect(Collectors.toList());
+    }
+    
+    private RespuestaMensajeDto convertirARespuestaDto(MensajeArchivado mensaje, Map<Long, String> emails) {
+        RespuestaMensajeDto dto = new RespuestaMensajeDto();
+        dto.setId(mensaje.getId());
+        dto.setContenido(mensaje.getContenido());
+        dto.setRemitenteId(mensaje.getRemitenteId());
+        dto.setNombreRemitente(emails.get(mensaje.getRemitenteId())); // Usando email como username por ahora
+        dto.setDestinatarioId(mensaje.getDestinatarioId());
+        dto.setNombreDestinatario(emails.get(mensaje.getDestinatarioId())); // Usando email como username por ahora
+        dto.setArticuloId(mensaje.getArticuloId());
+        dto.setEstado(mensaje.getEstado());
+        dto.setCreadoEn(mensaje.getCreadoEn());
+        dto.setLeidoEn(mensaje.getLeidoEn());
+        return dto;
     }
     
     private RespuestaMensajeDto convertirARespuestaDto(Mensaje mensaje) {
@@ -0,0 +1,288 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.ReportDto;
+import com.pp.economia_circular.entity.MetricaDiaria;
+import com.pp.economia_circular.repositories.MetricaDiariaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rollup diario de actividad ({@code metricas_diarias}) y reportes de tendencias sobre él.
+ * <p>
+ * Cada ejecución procesa los días nuevos y vuelve a calcular una ventana de días recientes,
+ * de modo que filas que llegan tarde (o cambios de estado sobre días ya cerrados) quedan
+ * reflejados sin recorrer el histórico. Cada día se calcula con consultas agrupadas por
+ * rango de fechas y se escribe con un upsert idempotente, así que reprocesar es seguro.
+ */
+@Service
+public class ServicioMetricasDiarias {
+    
+    private static final Logger log = LoggerFactory.getLogger(ServicioMetricasDiarias.class);
+    
+    private static final int DIAS_POR_TRANSACCION = 31;
+    private static final int MAX_DIAS_RANGO = 731;
+    
+    // Columna del rollup -> conteo agrupado por día en [:desde, :hasta)
+    private static final Map<String, String> CONSULTAS = new LinkedHashMap<>();
+    
+    static {
+        CONSULTAS.put("articulos_nuevos",
+                "SELECT DATE(creado_en) AS dia, COUNT(*) AS cantidad FROM articulos " +
+                "WHERE creado_en >= :desde AND creado_en < :hasta GROUP BY DATE(creado_en)");
+        // Un intercambio cuenta el día en que la solicitud pasó a aceptada/completada
+        CONSULTAS.put("intercambios",
+                "SELECT DATE(actualizado_en) AS dia, COUNT(*) AS cantidad FROM solicitudes_intercambio " +
+                "WHERE estado IN ('ACEPTADO', 'COMPLETADO') AND actualizado_en >= :desde AND actualizado_en < :hasta " +
+                "GROUP BY DATE(actualizado_en)");
+        // Incluye el archivo para que reconstruir días viejos no pierda mensajes ya movidos
+        CONSULTAS.put("mensajes",
+                "SELECT dia, SUM(cantidad) AS cantidad FROM (" +
+                "SELECT DATE(creado_en) AS dia, COUNT(*) AS cantidad FROM mensajes " +
+                "WHERE creado_en >= :desde AND creado_en < :hasta GROUP BY DATE(creado_en) " +
+                "UNION ALL " +
+                "SELECT DATE(creado_en) AS dia, COUNT(*) AS cantidad FROM mensajes_archivados " +
+                "WHERE creado_en >= :desde AND creado_en < :hasta GROUP BY DATE(creado_en)) t GROUP BY dia");
+        CONSULTAS.put("vistas",
+                "SELECT DATE(visto_en) AS dia, COUNT(*) AS cantidad FROM vistas_articulos " +
+                "WHERE visto_en >= :desde AND visto_en < :hasta GROUP BY DATE(visto_en)");
+        CONSULTAS.put("solicitudes_nuevas",
+                "SELECT DATE(creado_en) AS dia, COUNT(*) AS cantidad FROM solicitudes_intercambio " +
+                "WHERE creado_en >= :desde AND creado_en < :hasta GROUP BY DATE(creado_en)");
+        // Usuario activo: publicó, envió un mensaje, pidió un intercambio o vio un artículo ese día.
+        // Los mensajes ya archivados también cuentan, igual que en "mensajes"
+        CONSULTAS.put("usuarios_activos",
+                "SELECT dia, COUNT(DISTINCT usuario_id) AS cantidad FROM (" +
+                "SELECT DATE(creado_en) AS dia, usuario_id FROM articulos " +
+                "WHERE creado_en >= :desde AND creado_en < :hasta " +
+                "UNION SELECT DATE(creado_en), remitente_id FROM mensajes " +
+                "WHERE creado_en >= :desde AND creado_en < :hasta " +
+                "UNION SELECT DATE(creado_en), remitente_id FROM mensajes_archivados " +
+                "WHERE creado_en >= :desde AND creado_en < :hasta " +
+                "UNION SELECT DATE(creado_en), solicitante_id FROM solicitudes_intercambio " +
+                "WHERE creado_en >= :desde AND creado_en < :hasta " +
+                "UNION SELECT DATE(visto_en), usuario_id FROM vistas_articulos " +
+                "WHERE visto_en >= :desde AND visto_en < :hasta AND usuario_id IS NOT NULL) a GROUP BY dia");
+    }
+    
+    private static final String PRIMER_DIA =
+            "SELECT LEAST(COALESCE((SELECT MIN(creado_en) FROM articulos), NOW()), " +
+            "COALESCE((SELECT MIN(creado_en) FROM mensajes), NOW()), " +
+            "COALESCE((SELECT MIN(creado_en) FROM mensajes_archivados), NOW()), " +
+            "COALESCE((SELECT MIN(creado_en) FROM solicitudes_intercambio), NOW()))";
+    
+    private static final String GUARDAR =
+            "INSERT INTO metricas_diarias (dia, articulos_nuevos, intercambios, mensajes, vistas, " +
+            "solicitudes_nuevas, usuarios_activos, calculado_en) " +
+            "VALUES (:dia, :articulos_nuevos, :intercambios, :mensajes, :vistas, " +
+            ":solicitudes_nuevas, :usuarios_activos, :calculadoEn) " +
+            "ON DUPLICATE KEY UPDATE articulos_nuevos = VALUES(articulos_nuevos), " +
+            "intercambios = VALUES(intercambios), mensajes = VALUES(mensajes), vistas = VALUES(vistas), " +
+            "solicitudes_nuevas = VALUES(solicitudes_nuevas), usuarios_activos = VALUES(usuarios_activos), " +
+            "calculado_en = VALUES(calculado_en)";
+    
+    @Autowired
+    private MetricaDiariaRepository metricaDiariaRepository;
+    
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${metricas.diarias.habilitado:true}")
+    private boolean habilitado = true;
+    
+    // Días ya calculados que se vuelven a procesar para absorber cambios tardíos
+    @Value("${metricas.diarias.ventana-dias:3}")
+    private int ventanaDias = 3;
+    
+    // Tope de una reconstrucción pedida por API: corre en el hilo de la petición
+    @Value("${metricas.diarias.max-dias-reconstruccion:92}")
+    private int maxDiasReconstruccion = 92;
+    
+    @Scheduled(cron = "${metricas.diarias.cron:0 10 * * * *}")
+    public void actualizarProgramado() {
+        if (habilitado) {
+            try {
+                actualizar();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron actualizar las métricas diarias", e);
+            }
+        }
+    }
+    
+    /**
+     * Procesa desde el último día calculado (menos la ventana de reproceso) hasta hoy.
+     * La primera vez parte del dato más antiguo disponible.
+     *
+     * @return días calculados
+     */
+    public int actualizar() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate ultimo = metricaDiariaRepository.findUltimoDia();
+        LocalDate desde;
+        if (ultimo != null) {
+            desde = ultimo.minusDays(ventanaDias);
+        } else {
+            LocalDateTime primero = jdbcTemplate.queryForObject(PRIMER_DIA, new MapSqlParameterSource(), LocalDateTime.class);
+            desde = primero != null ? primero.toLocalDate() : hoy;
+        }
+        return recalcular(desde.isAfter(hoy) ? hoy : desde, hoy);
+    }
+    
+    /**
+     * Recalcula los días {@code desde}..{@code hasta} (inclusive), en transacciones de hasta un mes.
+     */
+    public int recalcular(LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        int dias = 0;
+        for (LocalDate inicio = desde; !inicio.isAfter(hasta); inicio = inicio.plusDays(DIAS_POR_TRANSACCION)) {
+            LocalDate fin = inicio.plusDays(DIAS_POR_TRANSACCION - 1);
+            LocalDate finTramo = fin.isAfter(hasta) ? hasta : fin;
+            LocalDate inicioTramo = inicio;
+            dias += transaccion.execute(status -> calcularTramo(inicioTramo, finTramo));
+        }
+        log.info("Métricas diarias recalculadas del {} al {} ({} días)", desde, hasta, dias);
+        return dias;
+    }
+    
+    /**
+     * Reconstrucción a pedido: como {@link #recalcular} pero con un rango acotado.
+     */
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        if (ChronoUnit.DAYS.between(desde, hasta) + 1 > maxDiasReconstruccion) {
+            throw new RuntimeException("El rango a reconstruir no puede superar " + maxDiasReconstruccion + " días");
+        }
+        return recalcular(desde, hasta);
+    }
+    
+    public ReportDto obtenerTendencias(LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        if (ChronoUnit.DAYS.between(desde, hasta) + 1 > MAX_DIAS_RANGO) {
+            throw new RuntimeException("El rango no puede superar " + MAX_DIAS_RANGO + " días");
+        }
+        
+        Map<LocalDate, MetricaDiaria> porDia = new HashMap<>();
+        LocalDateTime calculadoEn = null;
+        for (MetricaDiaria metrica : metricaDiariaRepository.findByDiaBetweenOrderByDiaAsc(desde, hasta)) {
+            porDia.put(metrica.getDia(), metrica);
+            if (metrica.getCalculadoEn() != null && (calculadoEn == null || metrica.getCalculadoEn().isAfter(calculadoEn))) {
+                calculadoEn = metrica.getCalculadoEn();
+            }
+        }
+        
+        List<Map<String, Object>> dias = new ArrayList<>();
+        long articulos = 0, intercambios = 0, mensajes = 0, vistas = 0, solicitudes = 0, picoActivos = 0;
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            // Los días sin fila (aún no calculados o sin actividad) se informan en cero
+            MetricaDiaria metrica = porDia.getOrDefault(dia, new MetricaDiaria(dia));
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("date", dia.toString());
+            fila.put("newArticles", metrica.getArticulosNuevos());
+            fila.put("exchanges", metrica.getIntercambios());
+            fila.put("messages", metrica.getMensajes());
+            fila.put("activeUsers", metrica.getUsuariosActivos());
+            fila.put("views", metrica.getVistas());
+            fila.put("exchangeRequests", metrica.getSolicitudesNuevas());
+            dias.add(fila);
+            
+            articulos += metrica.getArticulosNuevos();
+            intercambios += metrica.getIntercambios();
+            mensajes += metrica.getMensajes();
+            vistas += metrica.getVistas();
+            solicitudes += metrica.getSolicitudesNuevas();
+            picoActivos = Math.max(picoActivos, metrica.getUsuariosActivos());
+        }
+        
+        // Los usuarios activos no se suman entre días (el mismo usuario contaría varias veces)
+        Map<String, Object> totales = new LinkedHashMap<>();
+        totales.put("newArticles", articulos);
+        totales.put("exchanges", intercambios);
+        totales.put("messages", mensajes);
+        totales.put("views", vistas);
+        totales.put("exchangeRequests", solicitudes);
+        totales.put("peakActiveUsers", picoActivos);
+        
+        Map<String, Object> data = new HashMap<>();
+        data.put("from", desde.toString());
+        data.put("to", hasta.toString());
+        data.put("days", dias);
+        data.put("totals", totales);
+        data.put("calculatedAt", calculadoEn);
+        
+        ReportDto report = new ReportDto("Reporte de Tendencias");
+        report.setData(data);
+        return report;
+    }
+    
+    private int calcularTramo(LocalDate desde, LocalDate hasta) {
+        MapSqlParameterSource rango = new MapSqlParameterSource()
+                .addValue("desde", desde.atStartOfDay())
+                .addValue("hasta", hasta.plusDays(1).atStartOfDay());
+        
+        Map<LocalDate, Map<String, Long>> conteos = new HashMap<>();
+        for (Map.Entry<String, String> consulta : CONSULTAS.entrySet()) {
+            for (Map<String, Object> fila : jdbcTemplate.queryForList(consulta.getValue(), rango)) {
+                LocalDate dia = aFecha(fila.get("dia"));
+                if (dia != null) {
+                    conteos.computeIfAbsent(dia, d -> new HashMap<>())
+                           .put(consulta.getKey(), ((Number) fila.get("cantidad")).longValue());
+                }
+            }
+        }
+        
+        LocalDateTime ahora = LocalDateTime.now();
+        List<SqlParameterSource> filas = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            Map<String, Long> delDia = conteos.getOrDefault(dia, new HashMap<>());
+            MapSqlParameterSource fila = new MapSqlParameterSource()
+                    .addValue("dia", dia)
+                    .addValue("calculadoEn", ahora);
+            for (String columna : CONSULTAS.keySet()) {
+                fila.addValue(columna, delDia.getOrDefault(columna, 0L));
+            }
+            filas.add(fila);
+        }
+        jdbcTemplate.batchUpdate(GUARDAR, filas.toArray(new SqlParameterSource[0]));
+        return filas.size();
+    }
+    
+    private void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new RuntimeException("Debe indicar las fechas desde y hasta");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new RuntimeException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+    }
+    
+    private static LocalDate aFecha(Object valor) {
+        if (valor instanceof LocalDate) {
+            return (LocalDate) valor;
+        }
+        if (valor instanceof java.sql.Date) {
+            return ((java.sql.Date) valor).toLocalDate();
+        }
+        return valor != null ? LocalDate.parse(valor.toString()) : null;
+    }
+}
@@ -0,0 +1,72 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.ArticleRepository;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+@Service
+public class UsuarioService {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ReportChangeTracker reportChangeTracker;
+
+    /**
+     * Actualiza el usuario y, si se mudó, los artículos que heredan su ubicación, en la misma
+     * transacción: no puede quedar el usuario movido con sus artículos en el lugar anterior.
+     *
+     * @return vacío si el usuario no existe
+     */
+    @Transactional
+    public Optional<Usuario> actualizarUsuario(Long id, Usuario datosActualizados) {
+        validarUbicacion(datosActualizados.getLatitud(), datosActualizados.getLongitud());
+
+        return usuarioRepository.findById(id)
+                .map(usuario -> {
+                    usuario.setNombre(datosActualizados.getNombre());
+                    usuario.setApellido(datosActualizados.getApellido());
+                    usuario.setEmail(datosActualizados.getEmail());
+                    usuario.setContrasena(datosActualizados.getContrasena());
+                    usuario.setRol(datosActualizados.getRol());
+                    usuario.setDomicilio(datosActualizados.getDomicilio());
+                    boolean seMudo = !Objects.equals(usuario.getLatitud(), datosActualizados.getLatitud())
+                            || !Objects.equals(usuario.getLongitud(), datosActualizados.getLongitud());
+                    usuario.setLatitud(datosActualizados.getLatitud());
+                    usuario.setLongitud(datosActualizados.getLongitud());
+                    usuario.setFoto(datosActualizados.getFoto());
+                    usuario.setActivo(datosActualizados.isActivo());
+                    usuario.setActualizadoEn(LocalDateTime.now());
+                    Usuario guardado = usuarioRepository.save(usuario);
+                    if (seMudo) {
+                        articleRepository.actualizarUbicacionHeredada(id, guardado.getLatitud(), guardado.getLongitud());
+                    }
+                    reportChangeTracker.markChanged(Usuario.class);
+                    return guardado;
+                });
+    }
+
+    // Sin ubicación (ambas null) o una ubicación completa y dentro de rango
+    private static void validarUbicacion(Double latitud, Double longitud) {
+        if (latitud == null && longitud == null) {
+            return;
+        }
+        if (latitud == null || longitud == null) {
+            throw new RuntimeException("Debe indicar latitud y longitud juntas");
+        }
+        if (latitud < -90 || latitud > 90 || longitud < -180 || longitud > 180) {
+            throw new RuntimeException("Coordenadas inválidas");
+        }
+    }
+}
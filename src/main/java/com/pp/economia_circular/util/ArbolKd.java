@@ -0,0 +1,208 @@
+package com.pp.economia_circular.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Árbol k-d inmutable para buscar los k puntos más cercanos sobre la esfera.
+ * <p>
+ * Cada punto se guarda como vector unitario (x, y, z): la distancia en línea recta entre dos
+ * vectores crece con la distancia sobre la superficie, así que el vecino más cercano en 3D es
+ * también el más cercano en kilómetros y no hay casos especiales en los polos ni en el
+ * antimeridiano. La búsqueda es best-first: siempre se expande la rama con la menor cota de
+ * distancia y se corta en cuanto esa cota supera al k-ésimo candidato.
+ */
+public class ArbolKd<T> {
+
+    private static final Comparator<IndiceGeografico.Resultado<?>> MAS_CERCANO_PRIMERO = Comparator
+            .comparingDouble((IndiceGeografico.Resultado<?> r) -> r.getDistanciaKm())
+            .thenComparingLong(IndiceGeografico.Resultado::getId);
+
+    // Árbol implícito: el nodo del rango [desde, hasta) está en la posición del medio
+    private final double[][] coordenadas;
+    private final IndiceGeografico.Punto<T>[] puntos;
+    private final byte[] eje;
+
+    @SuppressWarnings("unchecked")
+    public ArbolKd(Collection<IndiceGeografico.Punto<T>> origen) {
+        int n = origen.size();
+        this.puntos = origen.toArray(new IndiceGeografico.Punto[n]);
+        this.coordenadas = new double[n][];
+        this.eje = new byte[n];
+        for (int i = 0; i < n; i++) {
+            coordenadas[i] = vectorUnitario(puntos[i].getLatitud(), puntos[i].getLongitud());
+        }
+        construir(0, n);
+    }
+
+    public int tamanio() {
+        return puntos.length;
+    }
+
+    /**
+     * @return hasta {@code k} puntos que cumplen el filtro, del más cercano al más lejano
+     */
+    public List<IndiceGeografico.Resultado<T>> buscarMasCercanos(double latitud, double longitud, int k, Predicate<? super T> filtro) {
+        if (k <= 0 || puntos.length == 0) {
+            return Collections.emptyList();
+        }
+        double[] consulta = vectorUnitario(latitud, longitud);
+
+        // Candidatos con el más lejano en la cabeza, para descartarlo al encontrar uno mejor
+        PriorityQueue<Candidato> mejores = new PriorityQueue<>(k + 1,
+                (a, b) -> Double.compare(b.distancia2, a.distancia2));
+        PriorityQueue<Rama> pendientes = new PriorityQueue<>(Comparator.comparingDouble((Rama r) -> r.cota2));
+        pendientes.add(new Rama(0, puntos.length, 0.0));
+
+        while (!pendientes.isEmpty()) {
+            Rama rama = pendientes.poll();
+            if (mejores.size() == k && rama.cota2 > mejores.peek().distancia2) {
+                break;
+            }
+            if (rama.desde >= rama.hasta) {
+                continue;
+            }
+            int medio = (rama.desde + rama.hasta) >>> 1;
+            if (filtro == null || filtro.test(puntos[medio].getValor())) {
+                double distancia2 = distancia2(consulta, coordenadas[medio]);
+                if (mejores.size() < k) {
+                    mejores.add(new Candidato(medio, distancia2));
+                } else if (distancia2 < mejores.peek().distancia2) {
+                    mejores.poll();
+                    mejores.add(new Candidato(medio, distancia2));
+                }
+            }
+
+            // El lado de la consulta hereda la cota; el otro queda al menos a la distancia del plano
+            double diferencia = consulta[eje[medio]] - coordenadas[medio][eje[medio]];
+            double cotaOpuesta = Math.max(rama.cota2, diferencia * diferencia);
+            if (diferencia < 0) {
+                pendientes.add(new Rama(rama.desde, medio, rama.cota2));
+                pendientes.add(new Rama(medio + 1, rama.hasta, cotaOpuesta));
+            } else {
+                pendientes.add(new Rama(medio + 1, rama.hasta, rama.cota2));
+                pendientes.add(new Rama(rama.desde, medio, cotaOpuesta));
+            }
+        }
+
+        List<IndiceGeografico.Resultado<T>> resultados = new ArrayList<>(mejores.size());
+        for (Candidato candidato : mejores) {
+            IndiceGeografico.Punto<T> punto = puntos[candidato.indice];
+            resultados.add(new IndiceGeografico.Resultado<>(punto.getId(), punto.getValor(), kilometros(candidato.distancia2)));
+        }
+        resultados.sort(MAS_CERCANO_PRIMERO);
+        return resultados;
+    }
+
+    private void construir(int desde, int hasta) {
+        if (hasta - desde <= 0) {
+            return;
+        }
+        int ejeCorte = ejeMasExtendido(desde, hasta);
+        int medio = (desde + hasta) >>> 1;
+        seleccionar(desde, hasta - 1, medio, ejeCorte);
+        eje[medio] = (byte) ejeCorte;
+        construir(desde, medio);
+        construir(medio + 1, hasta);
+    }
+
+    private int ejeMasExtendido(int desde, int hasta) {
+        int mejorEje = 0;
+        double mejorExtension = -1;
+        for (int e = 0; e < 3; e++) {
+            double minimo = Double.POSITIVE_INFINITY;
+            double maximo = Double.NEGATIVE_INFINITY;
+            for (int i = desde; i < hasta; i++) {
+                minimo = Math.min(minimo, coordenadas[i][e]);
+                maximo = Math.max(maximo, coordenadas[i][e]);
+            }
+            if (maximo - minimo > mejorExtension) {
+                mejorExtension = maximo - minimo;
+                mejorEje = e;
+            }
+        }
+        return mejorEje;
+    }
+
+    // Quickselect: deja en la posición k el elemento que le corresponde ordenando por el eje
+    private void seleccionar(int izquierda, int derecha, int k, int ejeCorte) {
+        while (izquierda < derecha) {
+            double pivote = coordenadas[(izquierda + derecha) >>> 1][ejeCorte];
+            int i = izquierda;
+            int j = derecha;
+            while (i <= j) {
+                while (coordenadas[i][ejeCorte] < pivote) {
+                    i++;
+                }
+                while (coordenadas[j][ejeCorte] > pivote) {
+                    j--;
+                }
+                if (i <= j) {
+                    intercambiar(i++, j--);
+                }
+            }
+            if (k <= j) {
+                derecha = j;
+            } else if (k >= i) {
+                izquierda = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void intercambiar(int a, int b) {
+        double[] coordenada = coordenadas[a];
+        coordenadas[a] = coordenadas[b];
+        coordenadas[b] = coordenada;
+        IndiceGeografico.Punto<T> punto = puntos[a];
+        puntos[a] = puntos[b];
+        puntos[b] = punto;
+    }
+
+    private static double[] vectorUnitario(double latitud, double longitud) {
+        double phi = Math.toRadians(latitud);
+        double lambda = Math.toRadians(longitud);
+        return new double[]{Math.cos(phi) * Math.cos(lambda), Math.cos(phi) * Math.sin(lambda), Math.sin(phi)};
+    }
+
+    private static double distancia2(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Cuerda al cuadrado sobre la esfera unitaria -> distancia sobre la superficie
+    private static double kilometros(double distancia2) {
+        double mediaCuerda = Math.min(1.0, Math.sqrt(distancia2) / 2);
+        return 2 * IndiceGeografico.RADIO_TIERRA_KM * Math.asin(mediaCuerda);
+    }
+
+    private static class Rama {
+        private final int desde;
+        private final int hasta;
+        private final double cota2;
+
+        Rama(int desde, int hasta, double cota2) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.cota2 = cota2;
+        }
+    }
+
+    private static class Candidato {
+        private final int indice;
+        private final double distancia2;
+
+        Candidato(int indice, double distancia2) {
+            this.indice = indice;
+            this.distancia2 = distancia2;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.pp.economia_circular.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Caché de candidatos para búsquedas por radio, compartida entre consultas cercanas.
+ * <p>
+ * La clave es la celda geohash del centro de la consulta más una cubeta de radio (potencias
+ * de 2 km). Cada entrada guarda los puntos a {@code cubeta + semidiagonal} o menos del centro
+ * de la celda: por la desigualdad triangular contiene todo lo que pueda pedir una consulta
+ * con centro en esa celda y radio hasta la cubeta, y alcanza con calcular la distancia exacta
+ * a esos candidatos, guardados como {@link LoteCoordenadas}. La celda se elige con
+ * semidiagonal de a lo sumo media cubeta, así que la entrada cubre como mucho 1.5 veces el
+ * radio de la cubeta.
+ * <p>
+ * Las escrituras invalidan las entradas cuyo círculo contiene la posición afectada; un
+ * vencimiento acota lo que tardan en verse cambios hechos desde otras instancias.
+ */
+public class CacheGeohash<T> {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final int MAX_PRECISION = 9;
+    // Cubetas de 1, 2, 4, ... 512 km
+    private static final int CUBETAS = 10;
+
+    private static final Comparator<IndiceGeografico.Resultado<?>> MAS_CERCANO_PRIMERO = Comparator
+            .comparingDouble((IndiceGeografico.Resultado<?> r) -> r.getDistanciaKm())
+            .thenComparingLong(IndiceGeografico.Resultado::getId);
+
+    private static final int[] PRECISION_POR_CUBETA = new int[CUBETAS];
+
+    static {
+        for (int cubeta = 0; cubeta < CUBETAS; cubeta++) {
+            // La celda más grande que entra en media cubeta
+            int precision = 1;
+            while (precision < MAX_PRECISION && semidiagonalEnEcuadorKm(precision) > radioDeCubeta(cubeta) / 2) {
+                precision++;
+            }
+            PRECISION_POR_CUBETA[cubeta] = precision;
+        }
+    }
+
+    /**
+     * Trae los puntos a {@code radioKm} o menos de un centro; lo usa la caché ante un fallo.
+     */
+    @FunctionalInterface
+    public interface Cargador<T> {
+        List<IndiceGeografico.Punto<T>> cargar(double latitud, double longitud, double radioKm);
+    }
+
+    private final long vencimientoMs;
+    private final Map<String, Entrada<T>> entradas;
+    // Cambia con cada invalidación: una carga que empezó antes no se guarda
+    private long version = 0;
+
+    public CacheGeohash(int maxEntradas, long vencimientoMs) {
+        this.vencimientoMs = vencimientoMs;
+        this.entradas = new LinkedHashMap<String, Entrada<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada<T>> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Puntos a {@code radioKm} o menos que cumplen el filtro, del más cercano al más lejano.
+     * Radios mayores que la última cubeta van directo al cargador.
+     */
+    public List<IndiceGeografico.Resultado<T>> buscar(double latitud, double longitud, double radioKm,
+                                                      Predicate<T> filtro, Cargador<T> cargador) {
+        int cubeta = cubeta(radioKm);
+        Candidatos<T> candidatos = cubeta >= CUBETAS
+                ? new Candidatos<>(cargador.cargar(latitud, longitud, radioKm))
+                : candidatos(latitud, longitud, cubeta, cargador);
+
+        int cantidad = candidatos.lote.tamanio();
+        int[] posiciones = new int[cantidad];
+        double[] distancias = new double[cantidad];
+        int dentro = candidatos.lote.dentroDeRadio(latitud, longitud, radioKm, posiciones, distancias);
+        List<IndiceGeografico.Resultado<T>> resultados = new ArrayList<>(dentro);
+        for (int i = 0; i < dentro; i++) {
+            T valor = candidatos.valores.get(posiciones[i]);
+            if (filtro == null || filtro.test(valor)) {
+                resultados.add(new IndiceGeografico.Resultado<>(candidatos.lote.getId(posiciones[i]), valor, distancias[i]));
+            }
+        }
+        resultados.sort(MAS_CERCANO_PRIMERO);
+        return resultados;
+    }
+
+    /**
+     * Descarta las entradas que podrían contener un punto en esa posición.
+     */
+    public synchronized void invalidar(double latitud, double longitud) {
+        version++;
+        entradas.values().removeIf(entrada ->
+                IndiceGeografico.distanciaKm(entrada.latitud, entrada.longitud, latitud, longitud) <= entrada.radioKm);
+    }
+
+    public synchronized void limpiar() {
+        version++;
+        entradas.clear();
+    }
+
+    public synchronized int tamanio() {
+        return entradas.size();
+    }
+
+    private Candidatos<T> candidatos(double latitud, double longitud, int cubeta, Cargador<T> cargador) {
+        double[] celda = new double[4];
+        String clave = geohash(latitud, longitud, PRECISION_POR_CUBETA[cubeta], celda) + ":" + cubeta;
+        long esperada;
+        synchronized (this) {
+            Entrada<T> entrada = entradas.get(clave);
+            if (entrada != null && System.currentTimeMillis() - entrada.creada <= vencimientoMs) {
+                return entrada.candidatos;
+            }
+            esperada = version;
+        }
+
+        // Fuera del bloqueo: dos fallos simultáneos pueden cargar la misma celda
+        double centroLatitud = (celda[0] + celda[1]) / 2;
+        double centroLongitud = (celda[2] + celda[3]) / 2;
+        double radio = radioDeCubeta(cubeta) + semidiagonalKm(celda, centroLatitud, centroLongitud);
+        Candidatos<T> candidatos = new Candidatos<>(cargador.cargar(centroLatitud, centroLongitud, radio));
+        synchronized (this) {
+            if (version == esperada) {
+                entradas.put(clave, new Entrada<>(centroLatitud, centroLongitud, radio, candidatos, System.currentTimeMillis()));
+            }
+        }
+        return candidatos;
+    }
+
+    public static String geohash(double latitud, double longitud, int precision) {
+        return geohash(latitud, longitud, precision, new double[4]);
+    }
+
+    // Deja en celda {sur, norte, oeste, este}
+    private static String geohash(double latitud, double longitud, int precision, double[] celda) {
+        double sur = -90, norte = 90, oeste = -180, este = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean esLongitud = true;
+        int bits = 0;
+        int caracter = 0;
+        while (hash.length() < precision) {
+            caracter <<= 1;
+            if (esLongitud) {
+                double medio = (oeste + este) / 2;
+                if (longitud >= medio) {
+                    caracter |= 1;
+                    oeste = medio;
+                } else {
+                    este = medio;
+                }
+            } else {
+                double medio = (sur + norte) / 2;
+                if (latitud >= medio) {
+                    caracter |= 1;
+                    sur = medio;
+                } else {
+                    norte = medio;
+                }
+            }
+            esLongitud = !esLongitud;
+            if (++bits == 5) {
+                hash.append(BASE32.charAt(caracter));
+                bits = 0;
+                caracter = 0;
+            }
+        }
+        celda[0] = sur;
+        celda[1] = norte;
+        celda[2] = oeste;
+        celda[3] = este;
+        return hash.toString();
+    }
+
+    private static int cubeta(double radioKm) {
+        int cubeta = 0;
+        while (cubeta < CUBETAS && radioDeCubeta(cubeta) < radioKm) {
+            cubeta++;
+        }
+        return cubeta;
+    }
+
+    private static double radioDeCubeta(int cubeta) {
+        return 1 << cubeta;
+    }
+
+    private static double semidiagonalEnEcuadorKm(int precision) {
+        double[] celda = new double[4];
+        geohash(0.0, 0.0, precision, celda);
+        return semidiagonalKm(celda, (celda[0] + celda[1]) / 2, (celda[2] + celda[3]) / 2);
+    }
+
+    private static double semidiagonalKm(double[] celda, double centroLatitud, double centroLongitud) {
+        double maxima = 0;
+        for (int i = 0; i < 2; i++) {
+            for (int j = 2; j < 4; j++) {
+                maxima = Math.max(maxima, IndiceGeografico.distanciaKm(centroLatitud, centroLongitud, celda[i], celda[j]));
+            }
+        }
+        return maxima;
+    }
+
+    // Coordenadas en un lote y valores en la misma posición; no cambian una vez armados
+    private static class Candidatos<T> {
+        private final LoteCoordenadas lote;
+        private final List<T> valores;
+
+        private Candidatos(List<IndiceGeografico.Punto<T>> puntos) {
+            lote = new LoteCoordenadas(puntos.size());
+            valores = new ArrayList<>(puntos.size());
+            for (IndiceGeografico.Punto<T> punto : puntos) {
+                lote.agregar(punto.getId(), punto.getLatitud(), punto.getLongitud());
+                valores.add(punto.getValor());
+            }
+        }
+    }
+
+    private static class Entrada<T> {
+        private final double latitud;
+        private final double longitud;
+        private final double radioKm;
+        private final Candidatos<T> candidatos;
+        private final long creada;
+
+        private Entrada(double latitud, double longitud, double radioKm, Candidatos<T> candidatos, long creada) {
+            this.latitud = latitud;
+            this.longitud = longitud;
+            this.radioKm = radioKm;
+            this.candidatos = candidatos;
+            this.creada = creada;
+        }
+    }
+}
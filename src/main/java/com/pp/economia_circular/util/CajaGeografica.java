@@ -0,0 +1,104 @@
+package com.pp.economia_circular.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Rectángulo de latitud/longitud que contiene un círculo sobre la superficie, para prefiltrar
+ * en SQL con rangos sobre un índice antes de calcular la distancia exacta.
+ * <p>
+ * Si el círculo cruza el antimeridiano, {@link #cruzaAntimeridiano()} es verdadero y la
+ * longitud mínima es mayor que la máxima: hay que consultar [mínima, 180] y [-180, máxima].
+ */
+public final class CajaGeografica {
+
+    private static final double KM_POR_GRADO = Math.PI * IndiceGeografico.RADIO_TIERRA_KM / 180.0;
+    private static final double GRADOS_POR_TRAMO = 0.5;
+    private static final double MARGEN_GRADOS = 0.01;
+
+    private final double latitudMinima;
+    private final double latitudMaxima;
+    private final double longitudMinima;
+    private final double longitudMaxima;
+
+    private CajaGeografica(double latitudMinima, double latitudMaxima, double longitudMinima, double longitudMaxima) {
+        this.latitudMinima = latitudMinima;
+        this.latitudMaxima = latitudMaxima;
+        this.longitudMinima = longitudMinima;
+        this.longitudMaxima = longitudMaxima;
+    }
+
+    public static CajaGeografica alrededor(double latitud, double longitud, double radioKm) {
+        double deltaLatitud = radioKm / KM_POR_GRADO;
+        double latitudMinima = latitud - deltaLatitud;
+        double latitudMaxima = latitud + deltaLatitud;
+        if (latitudMinima <= -90.0 || latitudMaxima >= 90.0) {
+            // Incluye un polo: todas las longitudes
+            return new CajaGeografica(Math.max(-90.0, latitudMinima), Math.min(90.0, latitudMaxima), -180.0, 180.0);
+        }
+
+        // Mitad angular del ancho del círculo en su punto más ancho (no en el paralelo del centro)
+        double deltaLongitud = Math.toDegrees(Math.asin(Math.min(1.0,
+                Math.sin(Math.toRadians(deltaLatitud)) / Math.cos(Math.toRadians(latitud)))));
+        if (deltaLongitud >= 180.0 || Double.isNaN(deltaLongitud)) {
+            return new CajaGeografica(latitudMinima, latitudMaxima, -180.0, 180.0);
+        }
+        double longitudMinima = longitud - deltaLongitud;
+        double longitudMaxima = longitud + deltaLongitud;
+        if (longitudMinima < -180.0) {
+            longitudMinima += 360.0;
+        }
+        if (longitudMaxima > 180.0) {
+            longitudMaxima -= 360.0;
+        }
+        return new CajaGeografica(latitudMinima, latitudMaxima, longitudMinima, longitudMaxima);
+    }
+
+    public boolean cruzaAntimeridiano() {
+        return longitudMinima > longitudMaxima;
+    }
+
+    public boolean cubreTodasLasLongitudes() {
+        return longitudMinima == -180.0 && longitudMaxima == 180.0;
+    }
+
+    /**
+     * WKT del rectángulo entre las longitudes dadas (un tramo que no cruce el antimeridiano),
+     * en orden latitud-longitud como espera MySQL para SRID 4326.
+     * <p>
+     * En un sistema geográfico los lados del polígono son geodésicas, que se curvan hacia el
+     * polo y dejarían afuera parte del borde del círculo: los lados de latitud constante se
+     * dividen en tramos de {@value #GRADOS_POR_TRAMO} grados y la caja se agranda un margen.
+     */
+    public String comoPoligonoWkt(double desdeLongitud, double hastaLongitud) {
+        double sur = Math.max(-90.0, latitudMinima - MARGEN_GRADOS);
+        double norte = Math.min(90.0, latitudMaxima + MARGEN_GRADOS);
+        double oeste = Math.max(-180.0, desdeLongitud - MARGEN_GRADOS);
+        double este = Math.min(180.0, hastaLongitud + MARGEN_GRADOS);
+        int tramos = Math.max(1, (int) Math.ceil((este - oeste) / GRADOS_POR_TRAMO));
+
+        StringBuilder wkt = new StringBuilder("POLYGON((");
+        for (int i = 0; i <= tramos; i++) {
+            agregarVertice(wkt, sur, oeste + (este - oeste) * i / tramos);
+        }
+        for (int i = tramos; i >= 0; i--) {
+            agregarVertice(wkt, norte, oeste + (este - oeste) * i / tramos);
+        }
+        agregarVertice(wkt, sur, oeste);
+        wkt.setLength(wkt.length() - 2);
+        return wkt.append("))").toString();
+    }
+
+    public double getLatitudMinima() { return latitudMinima; }
+
+    public double getLatitudMaxima() { return latitudMaxima; }
+
+    public double getLongitudMinima() { return longitudMinima; }
+
+    public double getLongitudMaxima() { return longitudMaxima; }
+
+    // Decimales planos: Double.toString usaría notación científica (1.0E-4)
+    private static void agregarVertice(StringBuilder wkt, double latitud, double longitud) {
+        wkt.append(BigDecimal.valueOf(latitud).toPlainString()).append(' ')
+                .append(BigDecimal.valueOf(longitud).toPlainString()).append(", ");
+    }
+}
@@ -0,0 +1,353 @@
+package com.pp.economia_circular.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Agrupamiento de puntos para mapas, precalculado para cada nivel de zoom.
+ * <p>
+ * Cada zoom divide el mapa (proyección Web Mercator, la de las teselas) en celdas de
+ * {@code 1 / celdasPorTesela} de tesela. Cada celda guarda, por capa, cuántos puntos tiene y la
+ * suma de sus coordenadas, así que agregar o quitar un punto actualiza una celda por zoom y
+ * pedir los grupos de una vista sólo recorre las celdas que la cubren. Por encima del zoom
+ * máximo se devuelven los puntos sueltos, que se guardan por celda del zoom máximo.
+ */
+public class GrillaClusters {
+
+    private static final double LATITUD_MAXIMA_MERCATOR = 85.05112878;
+
+    private final int zoomMaximo;
+    private final int celdasPorTesela;
+    private final int capas;
+
+    // Por zoom: celda -> acumulados
+    private final List<Map<Long, Celda>> niveles = new ArrayList<>();
+    // Celda del zoom máximo -> puntos
+    private final Map<Long, Map<Long, Elemento>> miembros = new HashMap<>();
+    private final Map<Long, Elemento> porClave = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public GrillaClusters(int zoomMaximo, int celdasPorTesela, int capas) {
+        if (zoomMaximo < 0 || zoomMaximo > 24 || celdasPorTesela < 1 || capas < 1) {
+            throw new IllegalArgumentException("Parámetros de grilla inválidos");
+        }
+        this.zoomMaximo = zoomMaximo;
+        this.celdasPorTesela = celdasPorTesela;
+        this.capas = capas;
+        for (int z = 0; z <= zoomMaximo; z++) {
+            niveles.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Agrega el punto o lo mueve si ya estaba.
+     */
+    public void poner(int capa, long id, double latitud, double longitud) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(capa, id);
+            agregarSinBloqueo(new Elemento(capa, id, latitud, longitud));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(int capa, long id) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(capa, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza todo el contenido de una vez.
+     */
+    public void reemplazar(Collection<Elemento> elementos) {
+        lock.writeLock().lock();
+        try {
+            niveles.forEach(Map::clear);
+            miembros.clear();
+            porClave.clear();
+            for (Elemento elemento : elementos) {
+                quitarSinBloqueo(elemento.getCapa(), elemento.getId());
+                agregarSinBloqueo(elemento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanio() {
+        lock.readLock().lock();
+        try {
+            return porClave.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de celdas del zoom dado que cubren la vista; sirve para acotar el pedido antes de buscar.
+     */
+    public long celdasEnVista(double oeste, double sur, double este, double norte, int zoom) {
+        int z = Math.min(zoom, zoomMaximo);
+        long filas = fila(sur, z) - fila(norte, z) + 1L;
+        return filas * columnasEnVista(oeste, este, z);
+    }
+
+    /**
+     * Grupos de la vista con las capas pedidas ({@code capasVisibles[capa]}). Si la vista
+     * cruza el antimeridiano, {@code oeste} es mayor que {@code este}.
+     */
+    public List<Grupo> buscar(double oeste, double sur, double este, double norte, int zoom, boolean[] capasVisibles) {
+        int z = Math.max(0, Math.min(zoom, zoomMaximo));
+        boolean sueltos = zoom > zoomMaximo;
+        int filaMinima = fila(norte, z);
+        int filaMaxima = fila(sur, z);
+        int columnaInicial = columna(oeste, z);
+        long cantidadColumnas = columnasEnVista(oeste, este, z);
+        long lado = lado(z);
+
+        List<Grupo> grupos = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, Celda> nivel = niveles.get(z);
+            long celdasVista = (filaMaxima - filaMinima + 1L) * cantidadColumnas;
+            if (celdasVista > nivel.size()) {
+                for (Map.Entry<Long, Celda> entrada : nivel.entrySet()) {
+                    int fila = (int) (entrada.getKey() / lado);
+                    int columna = (int) (entrada.getKey() % lado);
+                    if (fila >= filaMinima && fila <= filaMaxima
+                            && Math.floorMod(columna - columnaInicial, lado) < cantidadColumnas) {
+                        agregarGrupos(entrada.getKey(), entrada.getValue(), sueltos, capasVisibles, grupos);
+                    }
+                }
+            } else {
+                for (int fila = filaMinima; fila <= filaMaxima; fila++) {
+                    for (long k = 0; k < cantidadColumnas; k++) {
+                        long clave = celda(fila, (int) Math.floorMod(columnaInicial + k, lado), z);
+                        Celda celda = nivel.get(clave);
+                        if (celda != null) {
+                            agregarGrupos(clave, celda, sueltos, capasVisibles, grupos);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return grupos;
+    }
+
+    private void agregarGrupos(long clave, Celda celda, boolean sueltos, boolean[] capasVisibles, List<Grupo> grupos) {
+        if (sueltos) {
+            for (Elemento elemento : miembros.getOrDefault(clave, Collections.<Long, Elemento>emptyMap()).values()) {
+                if (visible(capasVisibles, elemento.getCapa())) {
+                    grupos.add(grupoDe(elemento));
+                }
+            }
+            return;
+        }
+        int[] cantidades = new int[capas];
+        int total = 0;
+        double sumaLatitud = 0;
+        double sumaLongitud = 0;
+        int ultimaCapa = -1;
+        for (int capa = 0; capa < capas; capa++) {
+            if (visible(capasVisibles, capa) && celda.cantidades[capa] > 0) {
+                cantidades[capa] = celda.cantidades[capa];
+                total += celda.cantidades[capa];
+                sumaLatitud += celda.sumaLatitud[capa];
+                sumaLongitud += celda.sumaLongitud[capa];
+                ultimaCapa = capa;
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+        if (total == 1) {
+            // La suma de ids de una capa con un solo punto es su id
+            grupos.add(grupoDe(porClave.get(clave(ultimaCapa, celda.sumaIds[ultimaCapa]))));
+        } else {
+            grupos.add(new Grupo(sumaLatitud / total, sumaLongitud / total, total, cantidades, -1, -1L));
+        }
+    }
+
+    private Grupo grupoDe(Elemento elemento) {
+        int[] cantidades = new int[capas];
+        cantidades[elemento.getCapa()] = 1;
+        return new Grupo(elemento.getLatitud(), elemento.getLongitud(), 1, cantidades, elemento.getCapa(), elemento.getId());
+    }
+
+    private void agregarSinBloqueo(Elemento elemento) {
+        porClave.put(clave(elemento.getCapa(), elemento.getId()), elemento);
+        for (int z = 0; z <= zoomMaximo; z++) {
+            long clave = celdaDe(elemento, z);
+            niveles.get(z).computeIfAbsent(clave, c -> new Celda(capas)).sumar(elemento, 1);
+            if (z == zoomMaximo) {
+                miembros.computeIfAbsent(clave, c -> new HashMap<>()).put(clave(elemento.getCapa(), elemento.getId()), elemento);
+            }
+        }
+    }
+
+    private void quitarSinBloqueo(int capa, long id) {
+        Elemento anterior = porClave.remove(clave(capa, id));
+        if (anterior == null) {
+            return;
+        }
+        for (int z = 0; z <= zoomMaximo; z++) {
+            long clave = celdaDe(anterior, z);
+            Map<Long, Celda> nivel = niveles.get(z);
+            Celda celda = nivel.get(clave);
+            celda.sumar(anterior, -1);
+            if (celda.vacia()) {
+                nivel.remove(clave);
+            }
+            if (z == zoomMaximo) {
+                Map<Long, Elemento> enCelda = miembros.get(clave);
+                enCelda.remove(clave(capa, id));
+                if (enCelda.isEmpty()) {
+                    miembros.remove(clave);
+                }
+            }
+        }
+    }
+
+    private long celdaDe(Elemento elemento, int z) {
+        return celda(fila(elemento.getLatitud(), z), columna(elemento.getLongitud(), z), z);
+    }
+
+    private long celda(int fila, int columna, int z) {
+        return fila * lado(z) + columna;
+    }
+
+    private long lado(int z) {
+        return (1L << z) * celdasPorTesela;
+    }
+
+    private int columna(double longitud, int z) {
+        long lado = lado(z);
+        long columna = (long) Math.floor((longitud + 180.0) / 360.0 * lado);
+        return (int) Math.max(0, Math.min(lado - 1, columna));
+    }
+
+    private int fila(double latitud, int z) {
+        double phi = Math.toRadians(Math.max(-LATITUD_MAXIMA_MERCATOR, Math.min(LATITUD_MAXIMA_MERCATOR, latitud)));
+        double y = (1 - Math.log(Math.tan(phi) + 1 / Math.cos(phi)) / Math.PI) / 2;
+        long lado = lado(z);
+        return (int) Math.max(0, Math.min(lado - 1, (long) Math.floor(y * lado)));
+    }
+
+    private long columnasEnVista(double oeste, double este, int z) {
+        long lado = lado(z);
+        long columnas = Math.floorMod(columna(este, z) - columna(oeste, z), lado) + 1L;
+        // Una vista que da toda la vuelta (o casi) termina en la columna donde empezó
+        return oeste > este && columnas == 1 ? lado : columnas;
+    }
+
+    private static boolean visible(boolean[] capasVisibles, int capa) {
+        return capasVisibles == null || (capa < capasVisibles.length && capasVisibles[capa]);
+    }
+
+    // Capa en los 8 bits altos: los ids de la base no llegan a 2^56
+    private static long clave(int capa, long id) {
+        return ((long) capa << 56) | id;
+    }
+
+    private static class Celda {
+        private final int[] cantidades;
+        private final double[] sumaLatitud;
+        private final double[] sumaLongitud;
+        private final long[] sumaIds;
+
+        Celda(int capas) {
+            cantidades = new int[capas];
+            sumaLatitud = new double[capas];
+            sumaLongitud = new double[capas];
+            sumaIds = new long[capas];
+        }
+
+        void sumar(Elemento elemento, int signo) {
+            int capa = elemento.getCapa();
+            cantidades[capa] += signo;
+            sumaLatitud[capa] += signo * elemento.getLatitud();
+            sumaLongitud[capa] += signo * elemento.getLongitud();
+            sumaIds[capa] += signo * elemento.getId();
+        }
+
+        boolean vacia() {
+            for (int cantidad : cantidades) {
+                if (cantidad != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static class Elemento {
+        private final int capa;
+        private final long id;
+        private final double latitud;
+        private final double longitud;
+
+        public Elemento(int capa, long id, double latitud, double longitud) {
+            this.capa = capa;
+            this.id = id;
+            this.latitud = latitud;
+            this.longitud = longitud;
+        }
+
+        public int getCapa() { return capa; }
+
+        public long getId() { return id; }
+
+        public double getLatitud() { return latitud; }
+
+        public double getLongitud() { return longitud; }
+    }
+
+    public static class Grupo {
+        private final double latitud;
+        private final double longitud;
+        private final int cantidad;
+        private final int[] cantidadesPorCapa;
+        private final int capa;
+        private final long id;
+
+        public Grupo(double latitud, double longitud, int cantidad, int[] cantidadesPorCapa, int capa, long id) {
+            this.latitud = latitud;
+            this.longitud = longitud;
+            this.cantidad = cantidad;
+            this.cantidadesPorCapa = cantidadesPorCapa;
+            this.capa = capa;
+            this.id = id;
+        }
+
+        public double getLatitud() { return latitud; }
+
+        public double getLongitud() { return longitud; }
+
+        public int getCantidad() { return cantidad; }
+
+        public int getCantidad(int capa) { return cantidadesPorCapa[capa]; }
+
+        /**
+         * @return la capa del punto si el grupo tiene uno solo; si no, -1
+         */
+        public int getCapa() { return capa; }
+
+        /**
+         * @return el id del punto si el grupo tiene uno solo; si no, -1
+         */
+        public long getId() { return id; }
+    }
+}
@@ -0,0 +1,270 @@
+package com.pp.economia_circular.util;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Horario de atención escrito a mano ("Lunes a Viernes 9:00-18:00, Sábados 10-14",
+ * "Lun-Vie 9-18", "Martes y Jueves de 9 a 13 y de 15 a 19", también "Mon-Fri 9AM-5PM")
+ * convertido en intervalos de minutos de la semana, con 0 = lunes 00:00.
+ * <p>
+ * Cada grupo de días se aplica a los rangos horarios que lo siguen; sin días, los rangos
+ * valen para toda la semana. Un rango que pasa la medianoche sigue en el día siguiente (y
+ * el del domingo, en el lunes). Los intervalos que devuelve están ordenados y no se pisan.
+ */
+public final class HorarioSemanal {
+
+    public static final int MINUTOS_POR_DIA = 24 * 60;
+    public static final int MINUTOS_POR_SEMANA = 7 * MINUTOS_POR_DIA;
+
+    private static final Pattern TOKEN = Pattern.compile("\\d{1,2}(?:[:.]\\d{2})?|[a-z]+|[-,;/]");
+    private static final Pattern HORA = Pattern.compile("(\\d{1,2})(?:[:.](\\d{2}))?");
+
+    // Nombre, abreviatura o plural -> día (0 = lunes)
+    private static final Map<String, Integer> DIAS = new HashMap<>();
+    // Palabras que sólo unen partes del texto
+    private static final Set<String> CONECTORES = new HashSet<>(Arrays.asList(
+            "y", "e", "de", "del", "desde", "los", "las", "dias", "and", "from", ",", ";", "/"));
+    private static final Set<String> UNIDADES = new HashSet<>(Arrays.asList("hs", "h", "hrs", "horas"));
+    private static final Set<String> HASTA = new HashSet<>(Arrays.asList("-", "a", "al", "hasta", "to"));
+
+    static {
+        String[][] nombres = {
+                {"lunes", "lun", "lu", "monday", "mon"},
+                {"martes", "mar", "ma", "tuesday", "tue"},
+                {"miercoles", "mie", "mi", "wednesday", "wed"},
+                {"jueves", "jue", "ju", "thursday", "thu"},
+                {"viernes", "vie", "vi", "friday", "fri"},
+                {"sabado", "sabados", "sab", "sa", "saturday", "sat"},
+                {"domingo", "domingos", "dom", "do", "sunday", "sun"}};
+        for (int dia = 0; dia < nombres.length; dia++) {
+            for (String nombre : nombres[dia]) {
+                DIAS.put(nombre, dia);
+            }
+        }
+    }
+
+    private HorarioSemanal() {
+    }
+
+    /**
+     * @return los intervalos del texto; vacío si el texto es null o está en blanco
+     * @throws IllegalArgumentException si el texto no se puede interpretar
+     */
+    public static List<Intervalo> parsear(String texto) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(normalizar(texto));
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+
+        List<Intervalo> intervalos = new ArrayList<>();
+        boolean[] dias = null;
+        boolean diasUsados = false;
+        int i = 0;
+        while (i < tokens.size()) {
+            String token = tokens.get(i);
+            if (DIAS.containsKey(token)) {
+                if (dias == null || diasUsados) {
+                    dias = new boolean[7];
+                    diasUsados = false;
+                }
+                int desde = DIAS.get(token);
+                int hasta = desde;
+                if (i + 2 < tokens.size() && HASTA.contains(tokens.get(i + 1)) && DIAS.containsKey(tokens.get(i + 2))) {
+                    hasta = DIAS.get(tokens.get(i + 2));
+                    i += 2;
+                }
+                for (int dia = desde; ; dia = (dia + 1) % 7) {
+                    dias[dia] = true;
+                    if (dia == hasta) {
+                        break;
+                    }
+                }
+                i++;
+            } else if (token.equals("todos") || token.equals("diario") || token.equals("diariamente") || token.equals("daily")) {
+                if (dias == null || diasUsados) {
+                    dias = new boolean[7];
+                    diasUsados = false;
+                }
+                Arrays.fill(dias, true);
+                i++;
+            } else if (token.equals("cerrado") || token.equals("cerrados") || token.equals("closed")) {
+                if (dias == null) {
+                    throw invalido("falta a qué días corresponde 'cerrado'");
+                }
+                diasUsados = true;
+                i++;
+            } else if (HORA.matcher(token).matches()) {
+                int inicio = minutos(tokens, i);
+                int fin;
+                i = despuesDeLaHora(tokens, i);
+                if (i + 1 < tokens.size() && HASTA.contains(tokens.get(i)) && HORA.matcher(tokens.get(i + 1)).matches()) {
+                    fin = minutos(tokens, i + 1);
+                    i = despuesDeLaHora(tokens, i + 1);
+                } else if (inicio == MINUTOS_POR_DIA) {
+                    // "24 hs": el día entero
+                    inicio = 0;
+                    fin = MINUTOS_POR_DIA;
+                } else {
+                    throw invalido("falta el fin del rango que empieza en '" + token + "'");
+                }
+                if (fin == inicio) {
+                    if (inicio != 0) {
+                        throw invalido("el rango '" + token + "' no dura nada");
+                    }
+                    fin = MINUTOS_POR_DIA;
+                }
+                if (dias == null) {
+                    dias = new boolean[7];
+                    Arrays.fill(dias, true);
+                }
+                agregar(intervalos, dias, inicio, fin);
+                diasUsados = true;
+            } else if (CONECTORES.contains(token) || UNIDADES.contains(token) || HASTA.contains(token)) {
+                i++;
+            } else {
+                throw invalido("no se reconoce '" + token + "'");
+            }
+        }
+        if (dias != null && !diasUsados) {
+            throw invalido("faltan los horarios de los últimos días");
+        }
+        return unir(intervalos);
+    }
+
+    /**
+     * Minuto de la semana de una fecha, en la misma escala que los intervalos.
+     */
+    public static int minutoDeLaSemana(LocalDateTime fecha) {
+        return (fecha.getDayOfWeek().getValue() - 1) * MINUTOS_POR_DIA + fecha.getHour() * 60 + fecha.getMinute();
+    }
+
+    private static String normalizar(String texto) {
+        return Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('–', '-')
+                .replace('—', '-');
+    }
+
+    // La hora de tokens[i], con el "am"/"pm" que la sigue si lo hay
+    private static int minutos(List<String> tokens, int i) {
+        String hora = tokens.get(i);
+        Matcher matcher = HORA.matcher(hora);
+        matcher.matches();
+        int horas = Integer.parseInt(matcher.group(1));
+        int minutos = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+        String sufijo = i + 1 < tokens.size() ? tokens.get(i + 1) : "";
+        if (sufijo.equals("am") || sufijo.equals("pm")) {
+            if (horas < 1 || horas > 12 || minutos > 59) {
+                throw invalido("hora fuera de rango '" + hora + sufijo + "'");
+            }
+            horas = horas % 12 + (sufijo.equals("pm") ? 12 : 0);
+        } else if (horas > 24 || minutos > 59 || (horas == 24 && minutos > 0)) {
+            throw invalido("hora fuera de rango '" + hora + "'");
+        }
+        return horas * 60 + minutos;
+    }
+
+    // Posición siguiente a la hora de tokens[i] y a su "am"/"pm" o "hs"
+    private static int despuesDeLaHora(List<String> tokens, int i) {
+        i++;
+        if (i < tokens.size() && (tokens.get(i).equals("am") || tokens.get(i).equals("pm"))) {
+            i++;
+        }
+        while (i < tokens.size() && UNIDADES.contains(tokens.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void agregar(List<Intervalo> intervalos, boolean[] dias, int inicio, int fin) {
+        for (int dia = 0; dia < 7; dia++) {
+            if (!dias[dia]) {
+                continue;
+            }
+            int desde = dia * MINUTOS_POR_DIA + inicio;
+            int hasta = dia * MINUTOS_POR_DIA + fin + (fin < inicio ? MINUTOS_POR_DIA : 0);
+            if (hasta > MINUTOS_POR_SEMANA) {
+                intervalos.add(new Intervalo(desde, MINUTOS_POR_SEMANA));
+                intervalos.add(new Intervalo(0, hasta - MINUTOS_POR_SEMANA));
+            } else {
+                intervalos.add(new Intervalo(desde, hasta));
+            }
+        }
+    }
+
+    // Ordena y junta los que se pisan o se tocan
+    private static List<Intervalo> unir(List<Intervalo> intervalos) {
+        intervalos.sort((a, b) -> Integer.compare(a.getInicio(), b.getInicio()));
+        List<Intervalo> unidos = new ArrayList<>();
+        for (Intervalo intervalo : intervalos) {
+            Intervalo ultimo = unidos.isEmpty() ? null : unidos.get(unidos.size() - 1);
+            if (ultimo != null && intervalo.getInicio() <= ultimo.getFin()) {
+                unidos.set(unidos.size() - 1, new Intervalo(ultimo.getInicio(), Math.max(ultimo.getFin(), intervalo.getFin())));
+            } else {
+                unidos.add(intervalo);
+            }
+        }
+        return Collections.unmodifiableList(unidos);
+    }
+
+    private static IllegalArgumentException invalido(String detalle) {
+        return new IllegalArgumentException("Horario de atención inválido: " + detalle);
+    }
+
+    /**
+     * Minutos de la semana [inicio, fin), con 0 &lt;= inicio &lt; fin &lt;= {@link #MINUTOS_POR_SEMANA}.
+     */
+    public static final class Intervalo {
+        private final int inicio;
+        private final int fin;
+
+        public Intervalo(int inicio, int fin) {
+            if (inicio < 0 || fin > MINUTOS_POR_SEMANA || inicio >= fin) {
+                throw new IllegalArgumentException("Intervalo inválido: " + inicio + "-" + fin);
+            }
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        public int getInicio() { return inicio; }
+
+        public int getFin() { return fin; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Intervalo)) {
+                return false;
+            }
+            Intervalo otro = (Intervalo) o;
+            return inicio == otro.inicio && fin == otro.fin;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * inicio + fin;
+        }
+
+        @Override
+        public String toString() {
+            return inicio + "-" + fin;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.pp.economia_circular.util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice en memoria de puntos con fecha: cada punto cae en un tramo de tiempo de
+ * {@code tamanioTramo} y, dentro del tramo, en un {@link IndiceGeografico}.
+ * <p>
+ * Una búsqueda por radio entre dos fechas sólo recorre los tramos del rango y, en cada uno,
+ * las celdas que cubren el círculo; la fecha exacta y la distancia se confirman por punto.
+ */
+public class IndiceEspacioTemporal<T> {
+
+    private static final Comparator<IndiceGeografico.Resultado<?>> MAS_CERCANO_PRIMERO = Comparator
+            .comparingDouble((IndiceGeografico.Resultado<?> r) -> r.getDistanciaKm())
+            .thenComparingLong(IndiceGeografico.Resultado::getId);
+
+    private final double tamanioCelda;
+    private final long segundosPorTramo;
+
+    // Tramo -> índice espacial; sólo existen los tramos ocupados
+    private final NavigableMap<Long, IndiceGeografico<Elemento<T>>> tramos = new TreeMap<>();
+    private final Map<Long, Long> tramoPorId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public IndiceEspacioTemporal(double tamanioCelda, Duration tamanioTramo) {
+        if (tamanioCelda <= 0 || tamanioCelda > 90) {
+            throw new IllegalArgumentException("El tamaño de celda debe estar entre 0 y 90 grados");
+        }
+        if (tamanioTramo.getSeconds() <= 0) {
+            throw new IllegalArgumentException("El tramo debe durar al menos un segundo");
+        }
+        this.tamanioCelda = tamanioCelda;
+        this.segundosPorTramo = tamanioTramo.getSeconds();
+    }
+
+    /**
+     * Agrega el punto o lo mueve (de lugar o de fecha) si el id ya estaba indexado.
+     */
+    public void poner(long id, double latitud, double longitud, LocalDateTime fecha, T valor) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+            agregarSinBloqueo(new Entrada<>(id, latitud, longitud, fecha, valor));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(long id) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza todo el contenido del índice de una vez.
+     */
+    public void reemplazar(Collection<Entrada<T>> entradas) {
+        lock.writeLock().lock();
+        try {
+            tramos.clear();
+            tramoPorId.clear();
+            for (Entrada<T> entrada : entradas) {
+                quitarSinBloqueo(entrada.getId());
+                agregarSinBloqueo(entrada);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanio() {
+        lock.readLock().lock();
+        try {
+            return tramoPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return los puntos a {@code radioKm} o menos con fecha en [{@code desde}, {@code hasta}]
+     *         que cumplen el filtro, del más cercano al más lejano
+     */
+    public List<IndiceGeografico.Resultado<T>> buscar(double latitud, double longitud, double radioKm,
+                                                      LocalDateTime desde, LocalDateTime hasta,
+                                                      Predicate<? super T> filtro) {
+        List<IndiceGeografico.Resultado<T>> resultados = new ArrayList<>();
+        if (hasta.isBefore(desde)) {
+            return resultados;
+        }
+        Predicate<Elemento<T>> enRango = elemento -> !elemento.fecha.isBefore(desde) && !elemento.fecha.isAfter(hasta)
+                && (filtro == null || filtro.test(elemento.valor));
+        lock.readLock().lock();
+        try {
+            for (IndiceGeografico<Elemento<T>> tramo : tramos.subMap(tramo(desde), true, tramo(hasta), true).values()) {
+                for (IndiceGeografico.Resultado<Elemento<T>> resultado : tramo.buscarEnRadio(latitud, longitud, radioKm, enRango)) {
+                    resultados.add(new IndiceGeografico.Resultado<>(resultado.getId(), resultado.getValor().valor,
+                            resultado.getDistanciaKm()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        resultados.sort(MAS_CERCANO_PRIMERO);
+        return resultados;
+    }
+
+    private void agregarSinBloqueo(Entrada<T> entrada) {
+        long clave = tramo(entrada.getFecha());
+        tramos.computeIfAbsent(clave, t -> new IndiceGeografico<>(tamanioCelda))
+                .poner(entrada.getId(), entrada.getLatitud(), entrada.getLongitud(), new Elemento<>(entrada.getFecha(), entrada.getValor()));
+        tramoPorId.put(entrada.getId(), clave);
+    }
+
+    private void quitarSinBloqueo(long id) {
+        Long clave = tramoPorId.remove(id);
+        if (clave != null) {
+            IndiceGeografico<Elemento<T>> tramo = tramos.get(clave);
+            tramo.quitar(id);
+            if (tramo.tamanio() == 0) {
+                tramos.remove(clave);
+            }
+        }
+    }
+
+    private long tramo(LocalDateTime fecha) {
+        return Math.floorDiv(fecha.toEpochSecond(ZoneOffset.UTC), segundosPorTramo);
+    }
+
+    public static class Entrada<T> {
+        private final long id;
+        private final double latitud;
+        private final double longitud;
+        private final LocalDateTime fecha;
+        private final T valor;
+
+        public Entrada(long id, double latitud, double longitud, LocalDateTime fecha, T valor) {
+            this.id = id;
+            this.latitud = latitud;
+            this.longitud = longitud;
+            this.fecha = fecha;
+            this.valor = valor;
+        }
+
+        public long getId() { return id; }
+
+        public double getLatitud() { return latitud; }
+
+        public double getLongitud() { return longitud; }
+
+        public LocalDateTime getFecha() { return fecha; }
+
+        public T getValor() { return valor; }
+    }
+
+    // Lo que guarda cada tramo: la fecha exacta para recortar los bordes del rango
+    private static final class Elemento<T> {
+        private final LocalDateTime fecha;
+        private final T valor;
+
+        private Elemento(LocalDateTime fecha, T valor) {
+            this.fecha = fecha;
+            this.valor = valor;
+        }
+    }
+}
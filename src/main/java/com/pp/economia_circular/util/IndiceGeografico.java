@@ -0,0 +1,239 @@
+package com.pp.economia_circular.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice espacial en memoria sobre una grilla regular de latitud/longitud.
+ * <p>
+ * Cada punto cae en una celda de {@code tamanioCelda} grados. Una búsqueda por radio recorre
+ * sólo las celdas que cubren el rectángulo envolvente del círculo y calcula la distancia exacta
+ * (haversine) a los puntos que contienen; si ese rectángulo tiene más celdas que las ocupadas,
+ * recorre directamente las ocupadas. Admite lecturas concurrentes con escrituras ocasionales.
+ */
+public class IndiceGeografico<T> {
+
+    public static final double RADIO_TIERRA_KM = 6371.0;
+    private static final double KM_POR_GRADO = Math.PI * RADIO_TIERRA_KM / 180.0;
+
+    private static final Comparator<Resultado<?>> MAS_CERCANO_PRIMERO = Comparator
+            .comparingDouble((Resultado<?> r) -> r.getDistanciaKm())
+            .thenComparingLong(Resultado::getId);
+
+    private final double tamanioCelda;
+    private final int filas;
+    private final int columnas;
+
+    // Celda -> puntos por id; sólo existen las celdas ocupadas
+    private final Map<Long, Map<Long, Punto<T>>> celdas = new HashMap<>();
+    private final Map<Long, Punto<T>> porId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public IndiceGeografico(double tamanioCelda) {
+        if (tamanioCelda <= 0 || tamanioCelda > 90) {
+            throw new IllegalArgumentException("El tamaño de celda debe estar entre 0 y 90 grados");
+        }
+        this.tamanioCelda = tamanioCelda;
+        this.filas = (int) Math.ceil(180.0 / tamanioCelda);
+        this.columnas = (int) Math.ceil(360.0 / tamanioCelda);
+    }
+
+    /**
+     * Agrega el punto o lo mueve si el id ya estaba indexado.
+     */
+    public void poner(long id, double latitud, double longitud, T valor) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+            agregarSinBloqueo(new Punto<>(id, latitud, longitud, valor));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(long id) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza todo el contenido del índice de una vez.
+     */
+    public void reemplazar(Collection<Punto<T>> puntos) {
+        lock.writeLock().lock();
+        try {
+            celdas.clear();
+            porId.clear();
+            for (Punto<T> punto : puntos) {
+                quitarSinBloqueo(punto.getId());
+                agregarSinBloqueo(punto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanio() {
+        lock.readLock().lock();
+        try {
+            return porId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return los puntos a {@code radioKm} o menos que cumplen el filtro, del más cercano al más lejano
+     */
+    public List<Resultado<T>> buscarEnRadio(double latitud, double longitud, double radioKm, Predicate<? super T> filtro) {
+        double deltaLatitud = radioKm / KM_POR_GRADO;
+        int filaMinima = fila(Math.max(-90.0, latitud - deltaLatitud));
+        int filaMaxima = fila(Math.min(90.0, latitud + deltaLatitud));
+
+        // Los grados de longitud se achican hacia los polos: se usa la latitud más extrema de la caja
+        double cosenoExtremo = Math.cos(Math.toRadians(Math.min(90.0, Math.abs(latitud) + deltaLatitud)));
+        double deltaLongitud = cosenoExtremo > 1e-9 ? deltaLatitud / cosenoExtremo : 360.0;
+        int columnaInicial = (int) Math.floor((longitud - deltaLongitud + 180.0) / tamanioCelda);
+        int cantidadColumnas = (int) Math.floor((longitud + deltaLongitud + 180.0) / tamanioCelda) - columnaInicial + 1;
+        if (deltaLongitud >= 180.0 || cantidadColumnas >= columnas) {
+            columnaInicial = 0;
+            cantidadColumnas = columnas;
+        }
+
+        double latitudRad = Math.toRadians(latitud);
+        double longitudRad = Math.toRadians(longitud);
+        double coseno = Math.cos(latitudRad);
+        List<Resultado<T>> resultados = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long celdasCaja = (long) (filaMaxima - filaMinima + 1) * cantidadColumnas;
+            if (celdasCaja > celdas.size()) {
+                for (Map<Long, Punto<T>> celda : celdas.values()) {
+                    agregarCercanos(celda, latitudRad, longitudRad, coseno, radioKm, filtro, resultados);
+                }
+            } else {
+                for (int fila = filaMinima; fila <= filaMaxima; fila++) {
+                    for (int k = 0; k < cantidadColumnas; k++) {
+                        Map<Long, Punto<T>> celda = celdas.get(celda(fila, Math.floorMod(columnaInicial + k, columnas)));
+                        if (celda != null) {
+                            agregarCercanos(celda, latitudRad, longitudRad, coseno, radioKm, filtro, resultados);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        resultados.sort(MAS_CERCANO_PRIMERO);
+        return resultados;
+    }
+
+    public static double distanciaKm(double latitud1, double longitud1, double latitud2, double longitud2) {
+        double latitud1Rad = Math.toRadians(latitud1);
+        double latitud2Rad = Math.toRadians(latitud2);
+        return LoteCoordenadas.distanciaKm(latitud1Rad, Math.toRadians(longitud1), Math.cos(latitud1Rad),
+                latitud2Rad, Math.toRadians(longitud2), Math.cos(latitud2Rad));
+    }
+
+    private void agregarCercanos(Map<Long, Punto<T>> celda, double latitudRad, double longitudRad, double coseno,
+                                 double radioKm, Predicate<? super T> filtro, List<Resultado<T>> resultados) {
+        for (Punto<T> punto : celda.values()) {
+            if (filtro != null && !filtro.test(punto.getValor())) {
+                continue;
+            }
+            double distancia = LoteCoordenadas.distanciaKm(latitudRad, longitudRad, coseno,
+                    punto.latitudRad, punto.longitudRad, punto.cosenoLatitud);
+            if (distancia <= radioKm) {
+                resultados.add(new Resultado<>(punto.getId(), punto.getValor(), distancia));
+            }
+        }
+    }
+
+    private void agregarSinBloqueo(Punto<T> punto) {
+        porId.put(punto.getId(), punto);
+        celdas.computeIfAbsent(celdaDe(punto), c -> new HashMap<>()).put(punto.getId(), punto);
+    }
+
+    private void quitarSinBloqueo(long id) {
+        Punto<T> anterior = porId.remove(id);
+        if (anterior != null) {
+            long clave = celdaDe(anterior);
+            Map<Long, Punto<T>> celda = celdas.get(clave);
+            celda.remove(id);
+            if (celda.isEmpty()) {
+                celdas.remove(clave);
+            }
+        }
+    }
+
+    private long celdaDe(Punto<T> punto) {
+        return celda(fila(punto.getLatitud()), Math.floorMod((int) Math.floor((punto.getLongitud() + 180.0) / tamanioCelda), columnas));
+    }
+
+    private int fila(double latitud) {
+        int fila = (int) Math.floor((latitud + 90.0) / tamanioCelda);
+        return Math.max(0, Math.min(filas - 1, fila));
+    }
+
+    private long celda(int fila, int columna) {
+        return (long) fila * columnas + columna;
+    }
+
+    public static class Punto<T> {
+        private final long id;
+        private final double latitud;
+        private final double longitud;
+        private final T valor;
+        // Para no convertir en cada búsqueda
+        private final double latitudRad;
+        private final double longitudRad;
+        private final double cosenoLatitud;
+
+        public Punto(long id, double latitud, double longitud, T valor) {
+            this.id = id;
+            this.latitud = latitud;
+            this.longitud = longitud;
+            this.valor = valor;
+            this.latitudRad = Math.toRadians(latitud);
+            this.longitudRad = Math.toRadians(longitud);
+            this.cosenoLatitud = Math.cos(latitudRad);
+        }
+
+        public long getId() { return id; }
+
+        public double getLatitud() { return latitud; }
+
+        public double getLongitud() { return longitud; }
+
+        public T getValor() { return valor; }
+    }
+
+    public static class Resultado<T> {
+        private final long id;
+        private final T valor;
+        private final double distanciaKm;
+
+        public Resultado(long id, T valor, double distanciaKm) {
+            this.id = id;
+            this.valor = valor;
+            this.distanciaKm = distanciaKm;
+        }
+
+        public long getId() { return id; }
+
+        public T getValor() { return valor; }
+
+        public double getDistanciaKm() { return distanciaKm; }
+    }
+}
@@ -0,0 +1,76 @@
+package com.pp.economia_circular.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Qué ids están abiertos en cada minuto de la semana, precalculado a partir de sus
+ * {@link HorarioSemanal.Intervalo intervalos}. Los extremos de todos los intervalos parten la
+ * semana en tramos en los que el conjunto de abiertos no cambia, y cada tramo guarda sus ids
+ * ordenados: una consulta ubica el tramo con una búsqueda binaria y no recorre ningún horario.
+ * <p>
+ * Es inmutable; ante cambios se construye de nuevo.
+ */
+public final class IndiceHorarios {
+
+    // Minuto en que empieza cada tramo; el último llega hasta el fin de la semana
+    private final int[] inicios;
+    private final long[][] abiertos;
+
+    public IndiceHorarios(Map<Long, List<HorarioSemanal.Intervalo>> intervalosPorId) {
+        TreeSet<Integer> extremos = new TreeSet<>();
+        extremos.add(0);
+        for (List<HorarioSemanal.Intervalo> intervalos : intervalosPorId.values()) {
+            for (HorarioSemanal.Intervalo intervalo : intervalos) {
+                extremos.add(intervalo.getInicio());
+                if (intervalo.getFin() < HorarioSemanal.MINUTOS_POR_SEMANA) {
+                    extremos.add(intervalo.getFin());
+                }
+            }
+        }
+        inicios = extremos.stream().mapToInt(Integer::intValue).toArray();
+
+        List<List<Long>> porTramo = new ArrayList<>(inicios.length);
+        for (int i = 0; i < inicios.length; i++) {
+            porTramo.add(new ArrayList<>());
+        }
+        for (Map.Entry<Long, List<HorarioSemanal.Intervalo>> entrada : intervalosPorId.entrySet()) {
+            for (HorarioSemanal.Intervalo intervalo : entrada.getValue()) {
+                int desde = Arrays.binarySearch(inicios, intervalo.getInicio());
+                int hasta = intervalo.getFin() == HorarioSemanal.MINUTOS_POR_SEMANA
+                        ? inicios.length
+                        : Arrays.binarySearch(inicios, intervalo.getFin());
+                for (int tramo = desde; tramo < hasta; tramo++) {
+                    porTramo.get(tramo).add(entrada.getKey());
+                }
+            }
+        }
+
+        abiertos = new long[inicios.length][];
+        for (int i = 0; i < inicios.length; i++) {
+            abiertos[i] = porTramo.get(i).stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        }
+    }
+
+    /**
+     * @param minutoDeLaSemana ver {@link HorarioSemanal#minutoDeLaSemana}
+     * @return si un id está abierto en ese minuto
+     */
+    public LongPredicate abiertosEn(int minutoDeLaSemana) {
+        long[] ids = abiertos[tramo(minutoDeLaSemana)];
+        return id -> Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public int cantidadAbiertos(int minutoDeLaSemana) {
+        return abiertos[tramo(minutoDeLaSemana)].length;
+    }
+
+    private int tramo(int minutoDeLaSemana) {
+        int posicion = Arrays.binarySearch(inicios, Math.floorMod(minutoDeLaSemana, HorarioSemanal.MINUTOS_POR_SEMANA));
+        return posicion >= 0 ? posicion : -posicion - 2;
+    }
+}
@@ -0,0 +1,124 @@
+package com.pp.economia_circular.util;
+
+import java.util.Arrays;
+
+/**
+ * Coordenadas de muchos puntos en arreglos paralelos de {@code double} (latitud y longitud
+ * en radianes, coseno de la latitud ya calculado), para medir la distancia de un punto a
+ * todo el lote en un solo recorrido sin crear objetos ni desempaquetar {@code Double}.
+ * <p>
+ * {@link #dentroDeRadio} compara primero el término de haversine contra el del radio y sólo
+ * calcula la raíz y el arcotangente de los que quedan adentro. Las distancias coinciden con
+ * {@link IndiceGeografico#distanciaKm}, que usa la misma fórmula.
+ */
+public final class LoteCoordenadas {
+
+    private static final double DIAMETRO_TIERRA_KM = 2 * IndiceGeografico.RADIO_TIERRA_KM;
+    // Holgura del umbral: el radio se confirma con la distancia exacta
+    private static final double HOLGURA_UMBRAL = 1e-9;
+
+    private long[] ids;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] cosenosLatitud;
+    private int tamanio = 0;
+
+    public LoteCoordenadas(int capacidad) {
+        int inicial = Math.max(capacidad, 8);
+        ids = new long[inicial];
+        latitudes = new double[inicial];
+        longitudes = new double[inicial];
+        cosenosLatitud = new double[inicial];
+    }
+
+    /**
+     * Agrega un punto en grados; queda en la posición {@code tamanio() - 1}.
+     */
+    public void agregar(long id, double latitud, double longitud) {
+        if (tamanio == ids.length) {
+            int capacidad = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacidad);
+            latitudes = Arrays.copyOf(latitudes, capacidad);
+            longitudes = Arrays.copyOf(longitudes, capacidad);
+            cosenosLatitud = Arrays.copyOf(cosenosLatitud, capacidad);
+        }
+        double radianes = Math.toRadians(latitud);
+        ids[tamanio] = id;
+        latitudes[tamanio] = radianes;
+        longitudes[tamanio] = Math.toRadians(longitud);
+        cosenosLatitud[tamanio] = Math.cos(radianes);
+        tamanio++;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public long getId(int posicion) {
+        return ids[posicion];
+    }
+
+    /**
+     * Deja en {@code salida[i]} la distancia en km del punto a cada posición del lote.
+     */
+    public void distanciasKm(double latitud, double longitud, double[] salida) {
+        double latitudRad = Math.toRadians(latitud);
+        double longitudRad = Math.toRadians(longitud);
+        double coseno = Math.cos(latitudRad);
+        for (int i = 0; i < tamanio; i++) {
+            salida[i] = distancia(haversine(latitudRad, longitudRad, coseno, latitudes[i], longitudes[i], cosenosLatitud[i]));
+        }
+    }
+
+    /**
+     * Posiciones a {@code radioKm} o menos, en el orden del lote, con su distancia en la misma
+     * posición de {@code distancias}. Ambos arreglos deben tener al menos {@link #tamanio()}.
+     *
+     * @return cuántas posiciones se escribieron
+     */
+    public int dentroDeRadio(double latitud, double longitud, double radioKm, int[] posiciones, double[] distancias) {
+        double latitudRad = Math.toRadians(latitud);
+        double longitudRad = Math.toRadians(longitud);
+        double coseno = Math.cos(latitudRad);
+        double umbral;
+        if (radioKm * 2 >= Math.PI * DIAMETRO_TIERRA_KM) {
+            umbral = Double.POSITIVE_INFINITY; // Media vuelta o más: toda la esfera
+        } else {
+            double seno = Math.sin(radioKm / DIAMETRO_TIERRA_KM);
+            umbral = seno * seno * (1 + HOLGURA_UMBRAL);
+        }
+
+        int encontrados = 0;
+        for (int i = 0; i < tamanio; i++) {
+            double h = haversine(latitudRad, longitudRad, coseno, latitudes[i], longitudes[i], cosenosLatitud[i]);
+            if (h <= umbral) {
+                double distancia = distancia(h);
+                if (distancia <= radioKm) {
+                    posiciones[encontrados] = i;
+                    distancias[encontrados] = distancia;
+                    encontrados++;
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Distancia en km entre dos puntos ya convertidos a radianes, con el coseno de cada latitud.
+     */
+    public static double distanciaKm(double latitud1, double longitud1, double coseno1,
+                                     double latitud2, double longitud2, double coseno2) {
+        return distancia(haversine(latitud1, longitud1, coseno1, latitud2, longitud2, coseno2));
+    }
+
+    private static double haversine(double latitud1, double longitud1, double coseno1,
+                                    double latitud2, double longitud2, double coseno2) {
+        double senoLatitud = Math.sin((latitud2 - latitud1) / 2);
+        double senoLongitud = Math.sin((longitud2 - longitud1) / 2);
+        return senoLatitud * senoLatitud + coseno1 * coseno2 * senoLongitud * senoLongitud;
+    }
+
+    private static double distancia(double haversine) {
+        return DIAMETRO_TIERRA_KM * Math.atan2(Math.sqrt(haversine), Math.sqrt(1 - haversine));
+    }
+}
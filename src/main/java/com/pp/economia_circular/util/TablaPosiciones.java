@@ -0,0 +1,221 @@
+package com.pp.economia_circular.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tabla de posiciones (mayor puntaje primero; ante empate, clave menor) sobre una skip list
+ * indexable: cada enlace guarda cuántas posiciones salta, así que cambiar un puntaje, pedir la
+ * posición de una clave o ubicar el comienzo de un rango cuesta O(log n) esperado.
+ * Las claves con puntaje menor o igual a cero no figuran. No es thread-safe.
+ */
+public class TablaPosiciones {
+
+    private static final int NIVEL_MAXIMO = 32;
+    private static final double PROBABILIDAD_NIVEL = 0.25;
+
+    private final Nodo cabeza = new Nodo(0L, 0L, NIVEL_MAXIMO);
+    private final Map<Long, Nodo> porClave = new HashMap<>();
+    private final Random random;
+    private int nivel = 1;
+    private int tamanio = 0;
+
+    public TablaPosiciones() {
+        this(new Random());
+    }
+
+    TablaPosiciones(Random random) {
+        this.random = random;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    /**
+     * @return el puntaje de la clave, o 0 si no figura
+     */
+    public long puntaje(long clave) {
+        Nodo nodo = porClave.get(clave);
+        return nodo != null ? nodo.puntaje : 0L;
+    }
+
+    public void fijar(long clave, long puntaje) {
+        Nodo actual = porClave.get(clave);
+        if (actual != null) {
+            if (actual.puntaje == puntaje) {
+                return;
+            }
+            eliminar(actual);
+            porClave.remove(clave);
+        }
+        if (puntaje > 0) {
+            porClave.put(clave, insertar(clave, puntaje));
+        }
+    }
+
+    /**
+     * @return el nuevo puntaje de la clave
+     */
+    public long sumar(long clave, long delta) {
+        long nuevo = puntaje(clave) + delta;
+        fijar(clave, nuevo);
+        return Math.max(0L, nuevo);
+    }
+
+    /**
+     * @return la posición de la clave (desde 1), o 0 si no figura
+     */
+    public int posicion(long clave) {
+        Nodo nodo = porClave.get(clave);
+        if (nodo == null) {
+            return 0;
+        }
+        int posicion = 0;
+        Nodo x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguiente[i] != null && comparar(x.siguiente[i], nodo.clave, nodo.puntaje) <= 0) {
+                posicion += x.salto[i];
+                x = x.siguiente[i];
+            }
+            if (x == nodo) {
+                return posicion;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return hasta {@code cantidad} entradas a partir de la posición {@code desde} (base 1)
+     */
+    public List<Entrada> rango(int desde, int cantidad) {
+        List<Entrada> entradas = new ArrayList<>();
+        if (desde < 1 || desde > tamanio || cantidad <= 0) {
+            return entradas;
+        }
+        int recorrido = 0;
+        Nodo x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguiente[i] != null && recorrido + x.salto[i] <= desde) {
+                recorrido += x.salto[i];
+                x = x.siguiente[i];
+            }
+        }
+        for (int posicion = desde; x != null && entradas.size() < cantidad; posicion++, x = x.siguiente[0]) {
+            entradas.add(new Entrada(posicion, x.clave, x.puntaje));
+        }
+        return entradas;
+    }
+
+    private Nodo insertar(long clave, long puntaje) {
+        Nodo[] anteriores = new Nodo[NIVEL_MAXIMO];
+        int[] posiciones = new int[NIVEL_MAXIMO];
+        Nodo x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            posiciones[i] = i == nivel - 1 ? 0 : posiciones[i + 1];
+            while (x.siguiente[i] != null && comparar(x.siguiente[i], clave, puntaje) < 0) {
+                posiciones[i] += x.salto[i];
+                x = x.siguiente[i];
+            }
+            anteriores[i] = x;
+        }
+
+        int nivelNodo = nivelAleatorio();
+        if (nivelNodo > nivel) {
+            for (int i = nivel; i < nivelNodo; i++) {
+                posiciones[i] = 0;
+                anteriores[i] = cabeza;
+                cabeza.salto[i] = tamanio;
+            }
+            nivel = nivelNodo;
+        }
+
+        Nodo nuevo = new Nodo(clave, puntaje, nivelNodo);
+        for (int i = 0; i < nivelNodo; i++) {
+            nuevo.siguiente[i] = anteriores[i].siguiente[i];
+            anteriores[i].siguiente[i] = nuevo;
+            // El salto del anterior se reparte entre él y el nodo nuevo
+            nuevo.salto[i] = anteriores[i].salto[i] - (posiciones[0] - posiciones[i]);
+            anteriores[i].salto[i] = posiciones[0] - posiciones[i] + 1;
+        }
+        for (int i = nivelNodo; i < nivel; i++) {
+            anteriores[i].salto[i]++;
+        }
+        tamanio++;
+        return nuevo;
+    }
+
+    private void eliminar(Nodo nodo) {
+        Nodo[] anteriores = new Nodo[NIVEL_MAXIMO];
+        Nodo x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.siguiente[i] != null && comparar(x.siguiente[i], nodo.clave, nodo.puntaje) < 0) {
+                x = x.siguiente[i];
+            }
+            anteriores[i] = x;
+        }
+        for (int i = 0; i < nivel; i++) {
+            if (anteriores[i].siguiente[i] == nodo) {
+                anteriores[i].salto[i] += nodo.salto[i] - 1;
+                anteriores[i].siguiente[i] = nodo.siguiente[i];
+            } else {
+                anteriores[i].salto[i]--;
+            }
+        }
+        while (nivel > 1 && cabeza.siguiente[nivel - 1] == null) {
+            nivel--;
+        }
+        tamanio--;
+    }
+
+    // Negativo si el nodo va antes que (clave, puntaje)
+    private static int comparar(Nodo nodo, long clave, long puntaje) {
+        if (nodo.puntaje != puntaje) {
+            return nodo.puntaje > puntaje ? -1 : 1;
+        }
+        return Long.compare(nodo.clave, clave);
+    }
+
+    private int nivelAleatorio() {
+        int n = 1;
+        while (n < NIVEL_MAXIMO && random.nextDouble() < PROBABILIDAD_NIVEL) {
+            n++;
+        }
+        return n;
+    }
+
+    private static class Nodo {
+        private final long clave;
+        private final long puntaje;
+        private final Nodo[] siguiente;
+        private final int[] salto;
+
+        Nodo(long clave, long puntaje, int niveles) {
+            this.clave = clave;
+            this.puntaje = puntaje;
+            this.siguiente = new Nodo[niveles];
+            this.salto = new int[niveles];
+        }
+    }
+
+    public static class Entrada {
+        private final int posicion;
+        private final long clave;
+        private final long puntaje;
+
+        public Entrada(int posicion, long clave, long puntaje) {
+            this.posicion = posicion;
+            this.clave = clave;
+            this.puntaje = puntaje;
+        }
+
+        public int getPosicion() { return posicion; }
+
+        public long getClave() { return clave; }
+
+        public long getPuntaje() { return puntaje; }
+    }
+}
@@ -0,0 +1,63 @@
+package com.pp.economia_circular.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selección de los K mayores puntajes en una sola pasada con un min-heap acotado:
+ * O(n log K) de tiempo y O(K) de memoria, sin importar cuántos elementos se ofrezcan.
+ * Ante empate gana la clave menor, para que el resultado sea estable entre ejecuciones.
+ * No es thread-safe.
+ */
+public class TopK {
+
+    private static final Comparator<Entrada> PEOR_PRIMERO = Comparator
+            .comparingLong(Entrada::getPuntaje)
+            .thenComparing(Comparator.comparingLong(Entrada::getClave).reversed());
+
+    private final int k;
+    private final PriorityQueue<Entrada> heap;
+
+    public TopK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k debe ser mayor que cero");
+        }
+        this.k = k;
+        this.heap = new PriorityQueue<>(k, PEOR_PRIMERO);
+    }
+
+    public void ofrecer(long clave, long puntaje) {
+        Entrada entrada = new Entrada(clave, puntaje);
+        if (heap.size() < k) {
+            heap.add(entrada);
+        } else if (PEOR_PRIMERO.compare(entrada, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(entrada);
+        }
+    }
+
+    /**
+     * @return las entradas retenidas, de mayor a menor puntaje
+     */
+    public List<Entrada> resultado() {
+        List<Entrada> ordenadas = new ArrayList<>(heap);
+        ordenadas.sort(PEOR_PRIMERO.reversed());
+        return ordenadas;
+    }
+
+    public static class Entrada {
+        private final long clave;
+        private final long puntaje;
+
+        public Entrada(long clave, long puntaje) {
+            this.clave = clave;
+            this.puntaje = puntaje;
+        }
+
+        public long getClave() { return clave; }
+
+        public long getPuntaje() { return puntaje; }
+    }
+}
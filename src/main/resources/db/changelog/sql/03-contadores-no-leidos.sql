@@ -0,0 +1,24 @@
+-- =====================================================
+-- Contadores de mensajes no leídos por usuario
+-- Se mantienen de forma incremental desde ServicioContadorNoLeidos
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS contadores_no_leidos (
+  usuario_id BIGINT NOT NULL,
+  cantidad BIGINT NOT NULL DEFAULT 0,
+  actualizado_en DATETIME,
+  -- Último recálculo desde mensajes: los deltas anotados antes ya están incluidos
+  reconciliado_en DATETIME(3),
+  PRIMARY KEY (usuario_id),
+  CONSTRAINT fk_contadores_no_leidos_usuario FOREIGN KEY (usuario_id) REFERENCES usuario (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Índice compuesto para reconciliar contadores sin recorrer toda la tabla
+CREATE INDEX idx_mensajes_destinatario_estado ON mensajes(destinatario_id, estado);
+
+-- Carga inicial a partir de los mensajes existentes
+INSERT INTO contadores_no_leidos (usuario_id, cantidad, actualizado_en, reconciliado_en)
+SELECT destinatario_id, COUNT(*), NOW(), NOW(3)
+FROM mensajes
+WHERE estado = 'NO_LEIDO'
+GROUP BY destinatario_id;
@@ -0,0 +1,44 @@
+-- =====================================================
+-- Bandeja de entrada materializada
+-- Una fila por participante y conversación (par de usuarios + artículo)
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS resumen_conversaciones (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  clave VARCHAR(100) NOT NULL,
+  usuario_id BIGINT NOT NULL,
+  otro_usuario_id BIGINT NOT NULL,
+  articulo_id BIGINT,
+  ultimo_mensaje_id BIGINT,
+  ultimo_remitente_id BIGINT,
+  vista_previa VARCHAR(200),
+  ultimo_mensaje_en DATETIME,
+  no_leidos INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_resumen_clave (clave),
+  -- Bandeja por cursor (ultimo_mensaje_id, id); InnoDB agrega el id al final del índice
+  KEY idx_resumen_usuario_ultimo_mensaje (usuario_id, ultimo_mensaje_id),
+  CONSTRAINT fk_resumen_usuario FOREIGN KEY (usuario_id) REFERENCES usuario (id) ON DELETE CASCADE,
+  CONSTRAINT fk_resumen_otro_usuario FOREIGN KEY (otro_usuario_id) REFERENCES usuario (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Carga inicial: último mensaje visible y no leídos de cada conversación existente
+INSERT INTO resumen_conversaciones (clave, usuario_id, otro_usuario_id, articulo_id, ultimo_mensaje_id,
+                                    ultimo_remitente_id, vista_previa, ultimo_mensaje_en, no_leidos)
+SELECT CONCAT(p.usuario_id, ':', p.otro_usuario_id, ':', COALESCE(p.articulo_id, 0)),
+       p.usuario_id, p.otro_usuario_id, p.articulo_id, m.id,
+       m.remitente_id, LEFT(m.contenido, 200), m.creado_en, p.no_leidos
+FROM (
+  SELECT x.usuario_id, x.otro_usuario_id, x.articulo_id,
+         MAX(x.id) AS ultimo_id, SUM(x.no_leido) AS no_leidos
+  FROM (
+    SELECT id, remitente_id AS usuario_id, destinatario_id AS otro_usuario_id, articulo_id, 0 AS no_leido
+    FROM mensajes WHERE estado <> 'ELIMINADO'
+    UNION ALL
+    SELECT id, destinatario_id, remitente_id, articulo_id,
+           CASE WHEN estado = 'NO_LEIDO' THEN 1 ELSE 0 END
+    FROM mensajes WHERE estado <> 'ELIMINADO'
+  ) x
+  GROUP BY x.usuario_id, x.otro_usuario_id, x.articulo_id
+) p
+JOIN mensajes m ON m.id = p.ultimo_id;
@@ -0,0 +1,6 @@
+-- =====================================================
+-- Clave de conversación normalizada ("menor:mayor") en mensajes
+-- El relleno de filas existentes lo hace RellenoConversacionMensajes por lotes
+-- =====================================================
+
+ALTER TABLE mensajes ADD COLUMN conversacion_id VARCHAR(41) NULL;
@@ -0,0 +1,5 @@
+-- =====================================================
+-- Índice para leer una conversación por páginas (cursor creado_en, id)
+-- =====================================================
+
+CREATE INDEX idx_mensajes_conversacion_fecha ON mensajes(conversacion_id, creado_en, id);
@@ -0,0 +1,21 @@
+-- =====================================================
+-- Archivo de mensajes fuera de la ventana caliente
+-- Lo alimenta ServicioArchivoMensajes; sin claves foráneas a propósito
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS mensajes_archivados (
+  id BIGINT NOT NULL,
+  contenido TEXT,
+  remitente_id BIGINT,
+  destinatario_id BIGINT,
+  articulo_id BIGINT,
+  estado VARCHAR(50),
+  creado_en DATETIME,
+  leido_en DATETIME,
+  conversacion_id VARCHAR(41),
+  archivado_en DATETIME,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE INDEX idx_archivados_conversacion_fecha ON mensajes_archivados(conversacion_id, creado_en, id);
+CREATE INDEX idx_archivados_destinatario ON mensajes_archivados(destinatario_id);
@@ -0,0 +1,11 @@
+-- =====================================================
+-- Índices de cobertura para los reportes agregados (ReportService)
+-- Permiten resolver los GROUP BY leyendo sólo el índice
+-- =====================================================
+
+CREATE INDEX idx_articulos_estado_categoria_condicion ON articulos(estado, categoria, condicion);
+CREATE INDEX idx_articulos_estado_usuario ON articulos(estado, usuario_id);
+CREATE INDEX idx_articulos_estado_creado_en ON articulos(estado, creado_en);
+CREATE INDEX idx_usuario_activo ON usuario(activo);
+CREATE INDEX idx_archivados_estado ON mensajes_archivados(estado);
+CREATE INDEX idx_archivados_remitente ON mensajes_archivados(remitente_id);
@@ -0,0 +1,12 @@
+-- =====================================================
+-- Snapshots de reportes precalculados
+-- Los escribe ReportSnapshotService; una fila por tipo de reporte
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS report_snapshots (
+  report_key VARCHAR(100) NOT NULL,
+  title VARCHAR(200),
+  generated_at DATETIME,
+  data_json LONGTEXT,
+  PRIMARY KEY (report_key)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
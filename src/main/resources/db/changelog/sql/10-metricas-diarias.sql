@@ -0,0 +1,24 @@
+-- =====================================================
+-- Rollup diario de actividad para reportes de tendencias
+-- Lo mantiene ServicioMetricasDiarias (recalcula sólo los últimos días)
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS metricas_diarias (
+  dia DATE NOT NULL,
+  articulos_nuevos BIGINT NOT NULL DEFAULT 0,
+  intercambios BIGINT NOT NULL DEFAULT 0,
+  mensajes BIGINT NOT NULL DEFAULT 0,
+  vistas BIGINT NOT NULL DEFAULT 0,
+  solicitudes_nuevas BIGINT NOT NULL DEFAULT 0,
+  usuarios_activos BIGINT NOT NULL DEFAULT 0,
+  calculado_en DATETIME,
+  PRIMARY KEY (dia)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Rangos por fecha de las fuentes del rollup (incluyen el usuario para contar activos sin leer filas)
+CREATE INDEX idx_vistas_visto_en_usuario ON vistas_articulos(visto_en, usuario_id);
+CREATE INDEX idx_solicitudes_creado_en_solicitante ON solicitudes_intercambio(creado_en, solicitante_id);
+CREATE INDEX idx_solicitudes_estado_actualizado_en ON solicitudes_intercambio(estado, actualizado_en);
+CREATE INDEX idx_articulos_creado_en_usuario ON articulos(creado_en, usuario_id);
+CREATE INDEX idx_mensajes_creado_en_remitente ON mensajes(creado_en, remitente_id);
+CREATE INDEX idx_archivados_creado_en ON mensajes_archivados(creado_en);
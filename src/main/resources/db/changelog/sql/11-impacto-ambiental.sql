@@ -0,0 +1,77 @@
+-- =====================================================
+-- Libro de impacto ambiental
+-- Coeficientes por categoría, un asiento por artículo intercambiado
+-- y totales corrientes (global, por usuario, por categoría)
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS coeficientes_impacto (
+  categoria VARCHAR(50) NOT NULL,
+  co2_kg DOUBLE NOT NULL,
+  residuos_kg DOUBLE NOT NULL,
+  recursos DOUBLE NOT NULL,
+  PRIMARY KEY (categoria)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS impacto_movimientos (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  articulo_id BIGINT NOT NULL,
+  usuario_id BIGINT NOT NULL,
+  categoria VARCHAR(50),
+  co2_kg DOUBLE NOT NULL,
+  residuos_kg DOUBLE NOT NULL,
+  recursos DOUBLE NOT NULL,
+  creado_en DATETIME,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_impacto_movimientos_articulo (articulo_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS impacto_acumulado (
+  clave VARCHAR(60) NOT NULL,
+  articulos BIGINT NOT NULL DEFAULT 0,
+  co2_kg DOUBLE NOT NULL DEFAULT 0,
+  residuos_kg DOUBLE NOT NULL DEFAULT 0,
+  recursos DOUBLE NOT NULL DEFAULT 0,
+  actualizado_en DATETIME,
+  PRIMARY KEY (clave)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Estimaciones por artículo reutilizado (kg CO2e evitados, kg de residuos evitados, recursos)
+INSERT INTO coeficientes_impacto (categoria, co2_kg, residuos_kg, recursos) VALUES
+  ('ELECTRONICOS', 45.0, 1.5, 3.0),
+  ('ROPA', 8.0, 0.5, 2.0),
+  ('LIBROS', 2.5, 0.5, 1.0),
+  ('MUEBLES', 40.0, 15.0, 2.5),
+  ('HERRAMIENTAS', 10.0, 2.0, 1.5),
+  ('DEPORTES', 12.0, 2.0, 1.5),
+  ('DECORACION_HOGAR', 6.0, 1.5, 1.0),
+  ('COCINA', 7.0, 1.5, 1.0),
+  ('JARDIN', 5.0, 2.0, 1.0),
+  ('AUTOMOTRIZ', 20.0, 5.0, 2.0),
+  ('JUGUETES', 4.0, 1.0, 1.0),
+  ('SUMINISTROS_ARTE', 2.0, 0.5, 0.5),
+  ('INSTRUMENTOS_MUSICALES', 15.0, 3.0, 1.5),
+  ('OTROS', 5.2, 2.1, 1.5);
+
+-- Artículos ya intercambiados antes del libro
+INSERT INTO impacto_movimientos (articulo_id, usuario_id, categoria, co2_kg, residuos_kg, recursos, creado_en)
+SELECT a.id, a.usuario_id, a.categoria,
+       COALESCE(c.co2_kg, 5.2), COALESCE(c.residuos_kg, 2.1), COALESCE(c.recursos, 1.5),
+       COALESCE(a.actualizado_en, NOW())
+FROM articulos a
+LEFT JOIN coeficientes_impacto c ON c.categoria = a.categoria
+WHERE a.estado = 'INTERCAMBIADO';
+
+INSERT INTO impacto_acumulado (clave, articulos, co2_kg, residuos_kg, recursos, actualizado_en)
+SELECT 'GLOBAL', COUNT(*), COALESCE(SUM(co2_kg), 0), COALESCE(SUM(residuos_kg), 0), COALESCE(SUM(recursos), 0), NOW()
+FROM impacto_movimientos;
+
+INSERT INTO impacto_acumulado (clave, articulos, co2_kg, residuos_kg, recursos, actualizado_en)
+SELECT CONCAT('USUARIO:', usuario_id), COUNT(*), SUM(co2_kg), SUM(residuos_kg), SUM(recursos), NOW()
+FROM impacto_movimientos
+GROUP BY usuario_id;
+
+INSERT INTO impacto_acumulado (clave, articulos, co2_kg, residuos_kg, recursos, actualizado_en)
+SELECT CONCAT('CATEGORIA:', categoria), COUNT(*), SUM(co2_kg), SUM(residuos_kg), SUM(recursos), NOW()
+FROM impacto_movimientos
+WHERE categoria IS NOT NULL
+GROUP BY categoria;
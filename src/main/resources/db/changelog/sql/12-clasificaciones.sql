@@ -0,0 +1,17 @@
+-- =====================================================
+-- Tablas de posiciones (intercambios, CO2 ahorrado, artículos publicados)
+-- Copia periódica del estado en memoria de LeaderboardService; se reconstruye
+-- desde articulos, solicitudes_intercambio e impacto_movimientos
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS clasificaciones (
+  tablero VARCHAR(40) NOT NULL,
+  usuario_id BIGINT NOT NULL,
+  puntaje BIGINT NOT NULL,
+  actualizado_en DATETIME,
+  PRIMARY KEY (tablero, usuario_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Reconstrucción agrupada por dueño y mes sin leer filas completas
+CREATE INDEX idx_articulos_estado_usuario_fechas ON articulos(estado, usuario_id, creado_en, actualizado_en);
+CREATE INDEX idx_movimientos_usuario_creado_en ON impacto_movimientos(usuario_id, creado_en, co2_kg);
@@ -0,0 +1,7 @@
+-- =====================================================
+-- Búsqueda de eventos cercanos (EventService.getEventsNearLocation)
+-- El rango de latitud recorre el índice y la longitud se filtra sobre sus entradas,
+-- sin leer la fila hasta que el evento cae dentro del rectángulo
+-- =====================================================
+
+CREATE INDEX idx_events_status_lat_lon ON events(status, latitude, longitude);
@@ -0,0 +1,16 @@
+-- =====================================================
+-- Columna espacial (SRID 4326) con SPATIAL INDEX para eventos
+-- Los centros no la llevan: las búsquedas de centros se resuelven con el índice en memoria
+-- de RecyclingCenterService y nunca consultan la tabla por ubicación.
+-- Es una columna generada a partir de latitude/longitude: se rellena para las filas
+-- existentes y se mantiene sola en cada INSERT/UPDATE, sin cambios en las entidades.
+-- POINT(x, y) guarda x como longitud también en 4326: POINT(longitude, latitude).
+-- El orden latitud-longitud de 4326 sólo rige al leer WKT (ST_GeomFromText).
+-- Un SPATIAL INDEX exige NOT NULL: sin coordenadas queda en (0, 0) y las consultas
+-- filtran latitude IS NOT NULL.
+-- =====================================================
+
+ALTER TABLE events
+  ADD COLUMN geo_point POINT
+    AS (ST_SRID(POINT(COALESCE(longitude, 0), COALESCE(latitude, 0)), 4326)) STORED SRID 4326 NOT NULL;
+CREATE SPATIAL INDEX idx_events_geo_point ON events(geo_point);
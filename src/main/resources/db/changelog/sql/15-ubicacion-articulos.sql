@@ -0,0 +1,25 @@
+-- =====================================================
+-- Ubicación de usuarios y artículos
+-- Un artículo sin ubicación propia (ubicacion_propia = FALSE) copia la del usuario y la
+-- sigue cuando el usuario la cambia.
+-- geo_point es la misma columna generada que en eventos (ver 14-ubicacion-espacial).
+-- Los índices compuestos sirven a la búsqueda por rangos y permiten filtrar por estado y
+-- categoría sin leer las filas.
+-- =====================================================
+
+ALTER TABLE usuario
+  ADD COLUMN latitud DOUBLE NULL,
+  ADD COLUMN longitud DOUBLE NULL;
+
+ALTER TABLE articulos
+  ADD COLUMN latitud DOUBLE NULL,
+  ADD COLUMN longitud DOUBLE NULL,
+  ADD COLUMN ubicacion_propia BOOLEAN NOT NULL DEFAULT FALSE;
+
+ALTER TABLE articulos
+  ADD COLUMN geo_point POINT
+    AS (ST_SRID(POINT(COALESCE(longitud, 0), COALESCE(latitud, 0)), 4326)) STORED SRID 4326 NOT NULL;
+CREATE SPATIAL INDEX idx_articulos_geo_point ON articulos(geo_point);
+
+CREATE INDEX idx_articulos_estado_categoria_lat_lon ON articulos(estado, categoria, latitud, longitud);
+CREATE INDEX idx_articulos_estado_lat_lon ON articulos(estado, latitud, longitud);
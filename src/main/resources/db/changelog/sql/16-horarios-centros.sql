@@ -0,0 +1,20 @@
+-- =====================================================
+-- Horario de atención estructurado de los centros de reciclaje
+-- Cada fila es un tramo semanal en minutos desde el lunes 00:00 ([start_minute, end_minute)),
+-- generado desde opening_hours al guardar el centro. Los centros existentes se completan
+-- al iniciar la aplicación (el texto libre no se puede interpretar en SQL).
+-- opening_hours_processed marca los centros ya interpretados, se haya entendido o no el texto,
+-- para no volver a intentarlo en cada arranque.
+-- =====================================================
+
+CREATE TABLE recycling_center_opening_intervals (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  center_id BIGINT NOT NULL,
+  start_minute INT NOT NULL,
+  end_minute INT NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_opening_intervals_center (center_id),
+  CONSTRAINT fk_opening_intervals_center FOREIGN KEY (center_id) REFERENCES recycling_centers (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+ALTER TABLE recycling_centers ADD COLUMN opening_hours_processed BOOLEAN NOT NULL DEFAULT FALSE;
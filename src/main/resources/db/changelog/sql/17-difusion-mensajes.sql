@@ -0,0 +1,7 @@
+-- =====================================================
+-- Difusión a la que pertenece cada mensaje enviado por ServicioDifusion
+-- La bandeja de cada tramo se actualiza a partir de los mensajes de esa difusión,
+-- sin depender de la fecha de creación
+-- =====================================================
+
+ALTER TABLE mensajes ADD COLUMN difusion_id VARCHAR(36) NULL;
@@ -20,11 +20,13 @@ public class TestSecurityConfig {
                 .authorizeRequests(auth -> auth
                         // Endpoints públicos
                         .antMatchers("/api/auth/**", "/api/registro/**", "/api/registrar/**", "/ping").permitAll()
-                        .antMatchers(HttpMethod.GET, "/api/events", "/api/events/upcoming", "/api/events/type/**", "/api/events/nearby").permitAll()
+                        .antMatchers(HttpMethod.GET, "/api/events", "/api/events/upcoming", "/api/events/type/**", "/api/events/nearby", "/api/events/upcoming/nearby").permitAll()
                         .antMatchers(HttpMethod.GET, "/api/articles", "/api/articles/search", "/api/articles/category/**", 
-                                     "/api/articles/most-viewed", "/api/articles/user/**").permitAll()
+                                     "/api/articles/most-viewed", "/api/articles/user/**", "/api/articles/nearby").permitAll()
                         .antMatchers(HttpMethod.GET, "/api/articles/{id}").permitAll()
-                        .antMatchers(HttpMethod.GET, "/api/recycling-centers", "/api/recycling-centers/type/**", "/api/recycling-centers/nearby").permitAll()
+                        .antMatchers(HttpMethod.GET, "/api/recycling-centers", "/api/recycling-centers/type/**", "/api/recycling-centers/nearby", "/api/recycling-centers/nearest").permitAll()
+                        .antMatchers(HttpMethod.GET, "/api/leaderboards/*").permitAll()
+                        .antMatchers(HttpMethod.GET, "/api/map/clusters").permitAll()
                         // Crear/Actualizar/Eliminar eventos y centros requiere ADMIN
                         .antMatchers(HttpMethod.POST, "/api/events/**").hasRole("ADMIN")
                         .antMatchers(HttpMethod.PUT, "/api/events/**").hasRole("ADMIN")
@@ -32,6 +34,8 @@ public class TestSecurityConfig {
                         .antMatchers(HttpMethod.POST, "/api/recycling-centers/**").hasRole("ADMIN")
                         .antMatchers(HttpMethod.PUT, "/api/recycling-centers/**").hasRole("ADMIN")
                         .antMatchers(HttpMethod.DELETE, "/api/recycling-centers/**").hasRole("ADMIN")
+                        .antMatchers("/api/mensajes/difusion/**").hasRole("ADMIN")
+                        .antMatchers("/api/reports/jobs/**").hasRole("ADMIN")
                         // Resto requiere autenticación
                         .anyRequest().authenticated()
                 )
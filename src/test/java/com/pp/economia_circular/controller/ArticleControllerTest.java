@@ -297,6 +297,36 @@ class ArticleControllerTest {
         verify(articleService, times(1)).deleteArticle(1L);
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void markAsExchanged_Success() throws Exception {
+        // Arrange
+        responseDto.setStatus(Articulo.EstadoArticulo.INTERCAMBIADO);
+        when(articleService.markAsExchanged(1L)).thenReturn(responseDto);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/articles/1/exchanged")
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("INTERCAMBIADO"));
+
+        verify(articleService, times(1)).markAsExchanged(1L);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void markAsExchanged_AlreadyExchanged() throws Exception {
+        // Arrange
+        when(articleService.markAsExchanged(1L))
+            .thenThrow(new RuntimeException("El artículo ya fue intercambiado"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/articles/1/exchanged")
+                .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("El artículo ya fue intercambiado"));
+    }
+
     @Test
     void deleteArticle_Unauthorized() throws Exception {
         // Act & Assert - sin autenticación
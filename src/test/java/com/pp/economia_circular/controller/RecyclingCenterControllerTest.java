@@ -20,6 +20,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -27,6 +28,7 @@ import java.util.List;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -200,7 +202,7 @@ class RecyclingCenterControllerTest {
         Double latitude = -34.6037;
         Double longitude = -58.3816;
         Double radius = 5.0;
-        when(recyclingCenterService.getCentersNearLocation(latitude, longitude, radius))
+        when(recyclingCenterService.getCentersNearLocation(latitude, longitude, radius, null, null))
                 .thenReturn(centersList);
 
         // Act & Assert
@@ -212,7 +214,7 @@ class RecyclingCenterControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)));
 
-        verify(recyclingCenterService, times(1)).getCentersNearLocation(latitude, longitude, radius);
+        verify(recyclingCenterService, times(1)).getCentersNearLocation(latitude, longitude, radius, null, null);
     }
 
     @Test
@@ -221,7 +223,7 @@ class RecyclingCenterControllerTest {
         // Arrange
         Double latitude = -34.6037;
         Double longitude = -58.3816;
-        when(recyclingCenterService.getCentersNearLocation(eq(latitude), eq(longitude), any(Double.class)))
+        when(recyclingCenterService.getCentersNearLocation(eq(latitude), eq(longitude), any(Double.class), isNull(), isNull()))
                 .thenReturn(centersList);
 
         // Act & Assert
@@ -232,7 +234,93 @@ class RecyclingCenterControllerTest {
                 .andExpect(status().isOk());
 
         verify(recyclingCenterService, times(1))
-                .getCentersNearLocation(eq(latitude), eq(longitude), any(Double.class));
+                .getCentersNearLocation(eq(latitude), eq(longitude), any(Double.class), isNull(), isNull());
+    }
+
+    @Test
+    @DisplayName("Obtener centros cercanos filtrando por tipo")
+    void testObtenerCentrosCercanosPorTipo() throws Exception {
+        // Arrange
+        Double latitude = -34.6037;
+        Double longitude = -58.3816;
+        when(recyclingCenterService.getCentersNearLocation(eq(latitude), eq(longitude), any(Double.class),
+                eq(RecyclingCenter.CenterType.NGO), isNull()))
+                .thenReturn(centersList.subList(1, 2));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/recycling-centers/nearby")
+                        .param("latitude", latitude.toString())
+                        .param("longitude", longitude.toString())
+                        .param("centerType", "NGO"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(recyclingCenterService, times(1))
+                .getCentersNearLocation(eq(latitude), eq(longitude), any(Double.class), eq(RecyclingCenter.CenterType.NGO), isNull());
+    }
+
+    @Test
+    @DisplayName("Obtener centros cercanos abiertos en un momento")
+    void testObtenerCentrosCercanosAbiertos() throws Exception {
+        // Arrange
+        Double latitude = -34.6037;
+        Double longitude = -58.3816;
+        LocalDateTime momento = LocalDateTime.of(2025, 3, 10, 10, 0);
+        when(recyclingCenterService.getCentersNearLocation(eq(latitude), eq(longitude), any(Double.class), isNull(),
+                eq(momento)))
+                .thenReturn(centersList.subList(0, 1));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/recycling-centers/nearby")
+                        .param("latitude", latitude.toString())
+                        .param("longitude", longitude.toString())
+                        .param("openAt", "2025-03-10T10:00:00"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(recyclingCenterService, times(1))
+                .getCentersNearLocation(eq(latitude), eq(longitude), any(Double.class), isNull(), eq(momento));
+    }
+
+    @Test
+    @DisplayName("Obtener los k centros más cercanos")
+    void testObtenerCentrosMasCercanos() throws Exception {
+        // Arrange
+        Double latitude = -34.6037;
+        Double longitude = -58.3816;
+        when(recyclingCenterService.getNearestCenters(latitude, longitude, 3, RecyclingCenter.CenterType.NGO, null, null))
+                .thenReturn(centersList);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/recycling-centers/nearest")
+                        .param("latitude", latitude.toString())
+                        .param("longitude", longitude.toString())
+                        .param("k", "3")
+                        .param("centerType", "NGO"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        verify(recyclingCenterService, times(1)).getNearestCenters(latitude, longitude, 3, RecyclingCenter.CenterType.NGO, null, null);
+    }
+
+    @Test
+    @DisplayName("Obtener centros más cercanos con k inválido")
+    void testObtenerCentrosMasCercanosKInvalido() throws Exception {
+        // Arrange
+        when(recyclingCenterService.getNearestCenters(any(Double.class), any(Double.class), eq(0), isNull(), isNull(), isNull()))
+                .thenThrow(new RuntimeException("k debe estar entre 1 y 50"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/recycling-centers/nearest")
+                        .param("latitude", "-34.6037")
+                        .param("longitude", "-58.3816")
+                        .param("k", "0"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("k debe estar entre 1 y 50"));
     }
 
     @Test
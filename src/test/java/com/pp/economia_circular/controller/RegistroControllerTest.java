@@ -48,6 +48,9 @@ class RegistroControllerTest {
     @MockBean
     private JWTService jwtService;
 
+    @MockBean
+    private ReportChangeTracker reportChangeTracker;
+
     @MockBean
     private ArticleService articleService;
 
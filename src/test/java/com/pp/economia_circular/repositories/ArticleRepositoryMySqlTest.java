@@ -0,0 +1,114 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.util.CajaGeografica;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Búsqueda espacial de artículos contra un MySQL 8 real con el esquema de Liquibase:
+ * H2 no tiene geo_point ni ST_Distance_Sphere. Se saltea si no hay Docker.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ArticleRepositoryMySqlTest {
+
+    // Ushuaia: a esta latitud invertir los ejes cambia las distancias de forma visible
+    private static final double LATITUD = -54.8019;
+    private static final double LONGITUD = -68.3030;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void mysql(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("spring.datasource.driver-class-name", MYSQL::getDriverClassName);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.MySQL8Dialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.liquibase.enabled", () -> "true");
+        registry.add("spring.liquibase.contexts", () -> "test");
+    }
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long usuarioId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO usuario (nombre, apellido, email, contrasena, rol, activo) " +
+                "VALUES ('Ana', 'Espacial', 'ana-espacial@test.com', 'x', 'USER', TRUE)");
+        usuarioId = jdbcTemplate.queryForObject("SELECT id FROM usuario WHERE email = 'ana-espacial@test.com'", Long.class);
+    }
+
+    @Test
+    void findIdsCercanos_OrdenaPorDistanciaConLongitudYLatitudEnSuEje() {
+        // Arrange: ~10 km al este, ~5 km al norte y ~20 km al este
+        Long alEste = insertarArticulo("Este", "ELECTRONICOS", LATITUD, -68.1470);
+        Long alNorte = insertarArticulo("Norte", "ELECTRONICOS", -54.7570, LONGITUD);
+        Long lejos = insertarArticulo("Lejos", "ELECTRONICOS", LATITUD, -67.9910);
+
+        // Act
+        List<Object[]> filas = buscar(null, 12.0, 10);
+
+        // Assert
+        assertEquals(2, filas.size());
+        assertEquals(alNorte, ((Number) filas.get(0)[0]).longValue());
+        assertEquals(5_000, ((Number) filas.get(0)[1]).doubleValue(), 100);
+        assertEquals(alEste, ((Number) filas.get(1)[0]).longValue());
+        assertEquals(10_000, ((Number) filas.get(1)[1]).doubleValue(), 100);
+        assertTrue(filas.stream().noneMatch(fila -> lejos.equals(((Number) fila[0]).longValue())));
+    }
+
+    @Test
+    void findIdsCercanos_FiltraCategoriaYRespetaElLimite() {
+        // Arrange
+        Long cerca = insertarArticulo("Cerca", "ROPA", LATITUD, LONGITUD);
+        insertarArticulo("Medio", "ROPA", -54.7570, LONGITUD);
+        insertarArticulo("Otra categoria", "LIBROS", LATITUD, LONGITUD);
+
+        // Act
+        List<Object[]> filas = buscar("ROPA", 12.0, 1);
+
+        // Assert
+        assertEquals(1, filas.size());
+        assertEquals(cerca, ((Number) filas.get(0)[0]).longValue());
+    }
+
+    private List<Object[]> buscar(String categoria, double radioKm, int limite) {
+        CajaGeografica caja = CajaGeografica.alrededor(LATITUD, LONGITUD, radioKm);
+        return new ArrayList<>(articleRepository.findIdsCercanos("DISPONIBLE", categoria,
+                caja.comoPoligonoWkt(caja.getLongitudMinima(), caja.getLongitudMaxima()),
+                LATITUD, LONGITUD, radioKm * 1000, limite));
+    }
+
+    private Long insertarArticulo(String titulo, String categoria, double latitud, double longitud) {
+        jdbcTemplate.update("INSERT INTO articulos (titulo, descripcion, categoria, condicion, estado, usuario_id, " +
+                "latitud, longitud, ubicacion_propia, creado_en, actualizado_en) " +
+                "VALUES (?, 'Prueba espacial', ?, 'BUENO', 'DISPONIBLE', ?, ?, ?, TRUE, NOW(), NOW())",
+                titulo, categoria, usuarioId, latitud, longitud);
+        return jdbcTemplate.queryForObject("SELECT id FROM articulos WHERE titulo = ?", Long.class, titulo);
+    }
+}
@@ -0,0 +1,129 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.DTO.EventResponseDto;
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.service.EventService;
+import com.pp.economia_circular.service.JWTService;
+import com.pp.economia_circular.service.MapClusterService;
+import com.pp.economia_circular.util.IndiceGeografico;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara la búsqueda de eventos cercanos por rectángulo indexado contra recorrer todos los
+ * eventos activos, sobre 1M de eventos sintéticos. No corre con el resto de los tests:
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(EventService.class)
+class EventNearbyBenchmarkTest {
+
+    private static final int EVENTOS = 1_000_000;
+    private static final int CONSULTAS = 50;
+    private static final double RADIO_KM = 10.0;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private JWTService jwtService;
+
+    @MockBean
+    private MapClusterService mapClusterService;
+
+    @Test
+    void getEventsNearLocation_RectanguloIndexadoContraRecorridoCompleto() {
+        // Arrange - eventos repartidos sobre Argentina, 90% activos
+        Usuario organizador = new Usuario();
+        organizador.setNombre("Org");
+        organizador.setApellido("Benchmark");
+        organizador.setEmail("benchmark@test.com");
+        organizador.setContrasena("x");
+        organizador.setRol("ADMIN");
+        Long organizadorId = entityManager.persistAndFlush(organizador).getId();
+        insertarEventos(organizadorId, new Random(42));
+        entityManager.clear();
+
+        Random random = new Random(7);
+        double[][] centros = new double[CONSULTAS][];
+        for (int i = 0; i < CONSULTAS; i++) {
+            centros[i] = new double[]{-55 + random.nextDouble() * 33, -73 + random.nextDouble() * 20};
+        }
+
+        // Act
+        long inicio = System.nanoTime();
+        List<Set<Long>> recorrido = new ArrayList<>();
+        for (double[] centro : centros) {
+            recorrido.add(recorrerTodos(centro[0], centro[1]));
+        }
+        long recorridoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        inicio = System.nanoTime();
+        List<Set<Long>> indexado = new ArrayList<>();
+        for (double[] centro : centros) {
+            List<EventResponseDto> cercanos = eventService.getEventsNearLocation(centro[0], centro[1], RADIO_KM);
+            indexado.add(cercanos.stream().map(EventResponseDto::getId).collect(Collectors.toSet()));
+            entityManager.clear();
+        }
+        long indexadoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        // Assert
+        System.out.printf("Eventos cercanos (%d eventos, %d consultas de %.0f km): recorrido completo %d ms, rectángulo indexado %d ms%n",
+                EVENTOS, CONSULTAS, RADIO_KM, recorridoMs, indexadoMs);
+        assertEquals(recorrido, indexado);
+        assertTrue(indexadoMs < recorridoMs);
+    }
+
+    private void insertarEventos(Long organizadorId, Random random) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        String sql = "INSERT INTO events (event_name, description, event_date, location, latitude, longitude, " +
+                "event_type, status, organizer_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        int lote = 10_000;
+        for (int desde = 0; desde < EVENTOS; desde += lote) {
+            List<Object[]> filas = new ArrayList<>(lote);
+            for (int i = desde; i < desde + lote; i++) {
+                filas.add(new Object[]{"Evento " + i, "Sintético", ahora, "Lugar " + i,
+                        -55 + random.nextDouble() * 33, -73 + random.nextDouble() * 20,
+                        "MEETUP", random.nextInt(10) == 0 ? "COMPLETED" : "ACTIVE", organizadorId, ahora, ahora});
+            }
+            jdbcTemplate.batchUpdate(sql, filas);
+        }
+    }
+
+    // Lo que hacía antes el servicio: leer todos los activos y medir la distancia a cada uno
+    private Set<Long> recorrerTodos(double latitud, double longitud) {
+        Set<Long> ids = new HashSet<>();
+        jdbcTemplate.query("SELECT id, latitude, longitude FROM events WHERE status = 'ACTIVE'", fila -> {
+            if (IndiceGeografico.distanciaKm(latitud, longitud, fila.getDouble(2), fila.getDouble(3)) <= RADIO_KM) {
+                ids.add(fila.getLong(1));
+            }
+        });
+        return ids;
+    }
+}
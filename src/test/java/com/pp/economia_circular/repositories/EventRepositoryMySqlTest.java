@@ -0,0 +1,121 @@
+package com.pp.economia_circular.repositories;
+
+import com.pp.economia_circular.util.CajaGeografica;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Consultas espaciales de eventos contra un MySQL 8 real con el esquema de Liquibase:
+ * H2 no tiene geo_point ni ST_Distance_Sphere. Se saltea si no hay Docker.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class EventRepositoryMySqlTest {
+
+    // Ushuaia: a esta latitud un grado de longitud mide bastante menos que uno de latitud,
+    // así que invertir los ejes cambia las distancias de forma visible
+    private static final double LATITUD = -54.8019;
+    private static final double LONGITUD = -68.3030;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void mysql(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("spring.datasource.driver-class-name", MYSQL::getDriverClassName);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.MySQL8Dialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.liquibase.enabled", () -> "true");
+        registry.add("spring.liquibase.contexts", () -> "test");
+    }
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long organizadorId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO usuario (nombre, apellido, email, contrasena, rol, activo) " +
+                "VALUES ('Org', 'Espacial', 'org-espacial@test.com', 'x', 'ADMIN', TRUE)");
+        organizadorId = jdbcTemplate.queryForObject("SELECT id FROM usuario WHERE email = 'org-espacial@test.com'", Long.class);
+    }
+
+    @Test
+    void findIdsWithinRadius_MideLaDistanciaConLongitudYLatitudEnSuEje() {
+        // Arrange: dos eventos a ~10 km (uno al este, otro al norte) y uno a ~20 km al este
+        Long alEste = insertarEvento("Este", LATITUD, -68.1470);
+        Long alNorte = insertarEvento("Norte", -54.7120, LONGITUD);
+        Long lejos = insertarEvento("Lejos", LATITUD, -67.9910);
+
+        // Act
+        Map<Long, Double> distancias = buscar(12.0);
+
+        // Assert
+        assertEquals(2, distancias.size());
+        assertEquals(10_000, distancias.get(alEste), 100);
+        assertEquals(10_000, distancias.get(alNorte), 100);
+        assertFalse(distancias.containsKey(lejos));
+    }
+
+    @Test
+    void findIdsWithinRadius_GeoPointGuardaLongitudComoX() {
+        // Arrange
+        Long id = insertarEvento("Centro", LATITUD, LONGITUD);
+
+        // Act
+        Double longitud = jdbcTemplate.queryForObject("SELECT ST_Longitude(geo_point) FROM events WHERE id = ?", Double.class, id);
+        Double latitud = jdbcTemplate.queryForObject("SELECT ST_Latitude(geo_point) FROM events WHERE id = ?", Double.class, id);
+
+        // Assert
+        assertEquals(LONGITUD, longitud, 1e-9);
+        assertEquals(LATITUD, latitud, 1e-9);
+        assertEquals(0.0, buscar(1.0).get(id), 1.0);
+    }
+
+    private Map<Long, Double> buscar(double radioKm) {
+        CajaGeografica caja = CajaGeografica.alrededor(LATITUD, LONGITUD, radioKm);
+        List<Object[]> filas = eventRepository.findIdsWithinRadius("ACTIVE",
+                caja.comoPoligonoWkt(caja.getLongitudMinima(), caja.getLongitudMaxima()),
+                LATITUD, LONGITUD, radioKm * 1000);
+        Map<Long, Double> distancias = new HashMap<>();
+        for (Object[] fila : filas) {
+            distancias.put(((Number) fila[0]).longValue(), ((Number) fila[1]).doubleValue());
+        }
+        return distancias;
+    }
+
+    private Long insertarEvento(String nombre, double latitud, double longitud) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO events (event_name, description, event_date, location, latitude, longitude, " +
+                "event_type, status, organizer_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                nombre, "Prueba espacial", ahora, nombre, latitud, longitud, "MEETUP", "ACTIVE", organizadorId, ahora, ahora);
+        return jdbcTemplate.queryForObject("SELECT id FROM events WHERE event_name = ?", Long.class, nombre);
+    }
+}
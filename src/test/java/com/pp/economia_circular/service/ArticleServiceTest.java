@@ -9,6 +9,7 @@ import com.pp.economia_circular.repositories.ArticleRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,15 +17,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +43,15 @@ class ArticleServiceTest {
     @Mock
     private JWTService authService;
 
+    @Mock
+    private ImpactService impactService;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private ReportChangeTracker reportChangeTracker;
+
     @InjectMocks
     private ArticleService articleService;
 
@@ -45,6 +61,9 @@ class ArticleServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Las consultas espaciales son de MySQL; los tests usan la búsqueda por rangos
+        ReflectionTestUtils.setField(articleService, "spatialSqlEnabled", false);
+
         testUser = new Usuario();
         testUser.setId(1L);
         testUser.setEmail("test@example.com");
@@ -85,6 +104,7 @@ class ArticleServiceTest {
         assertEquals("Test Description", result.getDescription());
         assertEquals(Articulo.CategoriaArticulo.ELECTRONICOS, result.getCategory());
         verify(articleRepository, times(1)).save(any(Articulo.class));
+        verify(leaderboardService, times(1)).registrarPublicacion(1L, testArticulo.getCreadoEn());
     }
 
     @Test
@@ -286,6 +306,7 @@ class ArticleServiceTest {
         // Assert
         verify(articleRepository, times(1)).save(any(Articulo.class));
         assertEquals(Articulo.EstadoArticulo.ELIMINADO, testArticulo.getEstado());
+        verify(leaderboardService, times(1)).registrarBaja(1L, testArticulo.getCreadoEn());
     }
 
     @Test
@@ -303,6 +324,52 @@ class ArticleServiceTest {
         assertEquals("No tienes permisos para eliminar este artículo", exception.getMessage());
     }
 
+    @Test
+    void markAsExchanged_Success_RegistraImpacto() {
+        // Arrange
+        when(authService.getCurrentUser()).thenReturn(testUser);
+        when(articleRepository.findById(1L)).thenReturn(Optional.of(testArticulo));
+        when(articleRepository.save(testArticulo)).thenReturn(testArticulo);
+
+        // Act
+        ArticleResponseDto result = articleService.markAsExchanged(1L);
+
+        // Assert
+        assertEquals(Articulo.EstadoArticulo.INTERCAMBIADO, result.getStatus());
+        verify(impactService, times(1)).registrarIntercambio(testArticulo);
+        verify(leaderboardService, times(1)).registrarIntercambio(1L, null);
+    }
+
+    @Test
+    void markAsExchanged_AlreadyExchanged_ThrowsException() {
+        // Arrange
+        testArticulo.setEstado(Articulo.EstadoArticulo.INTERCAMBIADO);
+        when(authService.getCurrentUser()).thenReturn(testUser);
+        when(articleRepository.findById(1L)).thenReturn(Optional.of(testArticulo));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> articleService.markAsExchanged(1L));
+        assertEquals("El artículo ya fue intercambiado", exception.getMessage());
+        verify(impactService, never()).registrarIntercambio(any());
+    }
+
+    @Test
+    void markAsExchanged_NotOwner_ThrowsException() {
+        // Arrange
+        Usuario otherUser = new Usuario();
+        otherUser.setId(2L);
+
+        when(authService.getCurrentUser()).thenReturn(otherUser);
+        when(articleRepository.findById(1L)).thenReturn(Optional.of(testArticulo));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> articleService.markAsExchanged(1L));
+        assertEquals("No tienes permisos para modificar este artículo", exception.getMessage());
+        verify(articleRepository, never()).save(any());
+    }
+
     @Test
     void getMostViewedArticles_Success() {
         // Arrange
@@ -317,5 +384,140 @@ class ArticleServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
     }
-}
 
+    @Test
+    void createArticle_SinCoordenadas_HeredaLaUbicacionDelUsuario() {
+        // Arrange
+        testUser.setLatitud(-34.6037);
+        testUser.setLongitud(-58.3816);
+        when(authService.getCurrentUser()).thenReturn(testUser);
+        when(articleRepository.save(any(Articulo.class))).thenReturn(testArticulo);
+        ArgumentCaptor<Articulo> guardado = ArgumentCaptor.forClass(Articulo.class);
+
+        // Act
+        articleService.createArticle(createDto);
+
+        // Assert
+        verify(articleRepository).save(guardado.capture());
+        assertEquals(-34.6037, guardado.getValue().getLatitud());
+        assertEquals(-58.3816, guardado.getValue().getLongitud());
+        assertFalse(guardado.getValue().isUbicacionPropia());
+    }
+
+    @Test
+    void createArticle_ConCoordenadas_UsaUbicacionPropia() {
+        // Arrange
+        testUser.setLatitud(-34.6037);
+        testUser.setLongitud(-58.3816);
+        createDto.setLatitude(-31.4201);
+        createDto.setLongitude(-64.1888);
+        when(authService.getCurrentUser()).thenReturn(testUser);
+        when(articleRepository.save(any(Articulo.class))).thenReturn(testArticulo);
+        ArgumentCaptor<Articulo> guardado = ArgumentCaptor.forClass(Articulo.class);
+
+        // Act
+        articleService.createArticle(createDto);
+
+        // Assert
+        verify(articleRepository).save(guardado.capture());
+        assertEquals(-31.4201, guardado.getValue().getLatitud());
+        assertEquals(-64.1888, guardado.getValue().getLongitud());
+        assertTrue(guardado.getValue().isUbicacionPropia());
+    }
+
+    @Test
+    void createArticle_SoloLatitud_ThrowsException() {
+        // Arrange
+        createDto.setLatitude(-34.6037);
+        when(authService.getCurrentUser()).thenReturn(testUser);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> articleService.createArticle(createDto));
+        assertEquals("Coordenadas inválidas", exception.getMessage());
+        verify(articleRepository, never()).save(any());
+    }
+
+    @Test
+    void getArticlesNearLocation_OrdenaPorDistanciaYCortaEnElLimite() {
+        // Arrange
+        List<Object[]> ubicaciones = new ArrayList<>();
+        ubicaciones.add(new Object[]{3L, -34.6083, -58.3712}); // Plaza de Mayo, ~1.1 km
+        ubicaciones.add(new Object[]{1L, -34.6037, -58.3816}); // Obelisco
+        ubicaciones.add(new Object[]{2L, -34.6050, -58.3850}); // ~0.3 km
+        when(articleRepository.findUbicacionesEnCaja(eq(Articulo.EstadoArticulo.DISPONIBLE), isNull(),
+                anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(ubicaciones);
+        when(articleRepository.findWithUsuarioByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            List<Articulo> articulos = new ArrayList<>();
+            for (Long id : ids) {
+                articulos.add(articulo(id));
+            }
+            return articulos;
+        });
+
+        // Act
+        List<ArticleResponseDto> result = articleService.getArticlesNearLocation(-34.6037, -58.3816, 10.0, null, null, 2);
+
+        // Assert - el radio inicial ya tiene el límite: una sola consulta
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(0.0, result.get(0).getDistanceKm());
+        assertEquals(2L, result.get(1).getId());
+        verify(articleRepository, times(1)).findUbicacionesEnCaja(any(), any(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void getArticlesNearLocation_AgrandaElRadioHastaJuntarElLimite() {
+        // Arrange
+        List<Object[]> ubicaciones = new ArrayList<>();
+        ubicaciones.add(new Object[]{1L, -34.6037, -58.3816}); // Obelisco
+        ubicaciones.add(new Object[]{2L, -34.5587, -58.3816}); // ~5 km al norte
+        ubicaciones.add(new Object[]{3L, -34.9205, -57.9536}); // La Plata, fuera del radio
+        when(articleRepository.findUbicacionesEnCaja(eq(Articulo.EstadoArticulo.DISPONIBLE),
+                eq(Articulo.CategoriaArticulo.ELECTRONICOS), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenAnswer(invocation -> {
+                    List<Object[]> enCaja = new ArrayList<>();
+                    for (Object[] fila : ubicaciones) {
+                        double latitud = (Double) fila[1];
+                        double longitud = (Double) fila[2];
+                        if (latitud >= (Double) invocation.getArgument(2) && latitud <= (Double) invocation.getArgument(3)
+                                && longitud >= (Double) invocation.getArgument(4) && longitud <= (Double) invocation.getArgument(5)) {
+                            enCaja.add(fila);
+                        }
+                    }
+                    return enCaja;
+                });
+        when(articleRepository.findWithUsuarioByIdIn(any())).thenReturn(Arrays.asList(articulo(2L), articulo(1L)));
+
+        // Act
+        List<ArticleResponseDto> result = articleService.getArticlesNearLocation(-34.6037, -58.3816, 100.0,
+                Articulo.CategoriaArticulo.ELECTRONICOS, null, 2);
+
+        // Assert - 2 km no alcanza, 8 km sí
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(2L, result.get(1).getId());
+        assertEquals(5.0, result.get(1).getDistanceKm(), 0.1);
+        verify(articleRepository, times(2)).findUbicacionesEnCaja(any(), any(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void getArticlesNearLocation_LimiteInvalido_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> articleService.getArticlesNearLocation(-34.6037, -58.3816, 10.0, null, null, 500));
+        assertEquals("El límite debe estar entre 1 y 100", exception.getMessage());
+        verify(articleRepository, never()).findWithUsuarioByIdIn(any());
+    }
+
+    private Articulo articulo(Long id) {
+        Articulo articulo = new Articulo();
+        articulo.setId(id);
+        articulo.setTitulo("Artículo " + id);
+        articulo.setCategoria(Articulo.CategoriaArticulo.ELECTRONICOS);
+        articulo.setEstado(Articulo.EstadoArticulo.DISPONIBLE);
+        articulo.setUsuario(testUser);
+        return articulo;
+    }
+}
@@ -8,17 +8,23 @@ import com.pp.economia_circular.repositories.EventRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +36,9 @@ class EventServiceTest {
     @Mock
     private JWTService authService;
 
+    @Mock
+    private MapClusterService mapClusterService;
+
     @InjectMocks
     private EventService eventService;
 
@@ -74,6 +83,11 @@ class EventServiceTest {
         createDto.setLatitude(40.7128);
         createDto.setLongitude(-74.0060);
         createDto.setEventType(Event.EventType.WORKSHOP);
+
+        // Sin MySQL: búsqueda por rangos de latitud/longitud, salvo en los tests del índice espacial
+        ReflectionTestUtils.setField(eventService, "spatialSqlEnabled", false);
+        // Sin caché de cercanos, salvo en sus propios tests: cada consulta llega al repositorio
+        ReflectionTestUtils.setField(eventService, "nearbyCacheEnabled", false);
     }
 
     @Test
@@ -163,7 +177,7 @@ class EventServiceTest {
     @Test
     void getEventsNearLocation_Success() {
         // Arrange
-        when(eventRepository.findByStatus(Event.EventStatus.ACTIVE))
+        when(eventRepository.findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
             .thenReturn(Arrays.asList(testEvent));
 
         // Act
@@ -172,12 +186,13 @@ class EventServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
+        assertEquals(0.0, result.get(0).getDistanceKm());
     }
 
     @Test
     void getEventsNearLocation_NoEventsInRange() {
-        // Arrange
-        when(eventRepository.findByStatus(Event.EventStatus.ACTIVE))
+        // Arrange - la base devuelve un candidato de la esquina del rectángulo
+        when(eventRepository.findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
             .thenReturn(Arrays.asList(testEvent));
 
         // Act - búsqueda lejos de Nueva York
@@ -188,6 +203,136 @@ class EventServiceTest {
         assertEquals(0, result.size());
     }
 
+    @Test
+    void getEventsNearLocation_ConsultaElRectanguloYOrdenaPorDistancia() {
+        // Arrange
+        Event lejano = new Event();
+        lejano.setId(2L);
+        lejano.setEventName("Far Event");
+        lejano.setLatitude(40.7580);
+        lejano.setLongitude(-73.9855);
+        lejano.setStatus(Event.EventStatus.ACTIVE);
+        lejano.setOrganizer(adminUser);
+        when(eventRepository.findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+            .thenReturn(Arrays.asList(lejano, testEvent));
+
+        // Act
+        List<EventResponseDto> result = eventService.getEventsNearLocation(40.7128, -74.0060, 10.0);
+
+        // Assert - 10 km son ~0.09 grados de latitud
+        assertEquals(Arrays.asList(1L, 2L), Arrays.asList(result.get(0).getId(), result.get(1).getId()));
+        ArgumentCaptor<Double> minLatitude = ArgumentCaptor.forClass(Double.class);
+        ArgumentCaptor<Double> maxLatitude = ArgumentCaptor.forClass(Double.class);
+        verify(eventRepository).findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE),
+            minLatitude.capture(), maxLatitude.capture(), anyDouble(), anyDouble());
+        assertEquals(40.7128 - 0.0899, minLatitude.getValue(), 0.001);
+        assertEquals(40.7128 + 0.0899, maxLatitude.getValue(), 0.001);
+        verify(eventRepository, never()).findByStatus(any());
+    }
+
+    @Test
+    void getEventsNearLocation_CruzaElAntimeridiano_ConsultaAmbosLados() {
+        // Arrange
+        when(eventRepository.findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+            .thenReturn(Arrays.asList());
+
+        // Act
+        eventService.getEventsNearLocation(-16.5, 179.99, 20.0);
+
+        // Assert
+        verify(eventRepository).findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), eq(180.0));
+        verify(eventRepository).findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), eq(-180.0), anyDouble());
+    }
+
+    @Test
+    void getEventsNearLocation_ConIndiceEspacial_UsaDistanciasDeLaBase() {
+        // Arrange
+        ReflectionTestUtils.setField(eventService, "spatialSqlEnabled", true);
+        Event otro = new Event();
+        otro.setId(2L);
+        otro.setEventName("Other Event");
+        otro.setLatitude(40.7130);
+        otro.setLongitude(-74.0070);
+        otro.setOrganizer(adminUser);
+        when(eventRepository.findIdsWithinRadius(eq("ACTIVE"), anyString(), eq(40.7128), eq(-74.0060), eq(10000.0)))
+            .thenReturn(Arrays.asList(new Object[]{2L, 85.2}, new Object[]{1L, 0.0}));
+        when(eventRepository.findWithOrganizerByIdIn(any())).thenReturn(Arrays.asList(otro, testEvent));
+
+        // Act
+        List<EventResponseDto> result = eventService.getEventsNearLocation(40.7128, -74.0060, 10.0);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L), Arrays.asList(result.get(0).getId(), result.get(1).getId()));
+        assertEquals(0.085, result.get(1).getDistanceKm());
+        ArgumentCaptor<String> poligono = ArgumentCaptor.forClass(String.class);
+        verify(eventRepository).findIdsWithinRadius(eq("ACTIVE"), poligono.capture(), anyDouble(), anyDouble(), anyDouble());
+        assertTrue(poligono.getValue().startsWith("POLYGON((40.6"));
+        verify(eventRepository, never()).findByStatusInBoundingBox(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getEventsNearLocation_ConIndiceEspacialSinResultados_NoBuscaEventos() {
+        // Arrange
+        ReflectionTestUtils.setField(eventService, "spatialSqlEnabled", true);
+        when(eventRepository.findIdsWithinRadius(anyString(), anyString(), anyDouble(), anyDouble(), anyDouble()))
+            .thenReturn(Arrays.asList());
+
+        // Act
+        List<EventResponseDto> result = eventService.getEventsNearLocation(40.7128, -74.0060, 10.0);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(eventRepository, never()).findWithOrganizerByIdIn(any());
+    }
+
+    @Test
+    void getEventsNearLocation_ConCache_ConsultasDeLaMismaZonaUsanUnaSolaBusqueda() {
+        // Arrange
+        ReflectionTestUtils.setField(eventService, "nearbyCacheEnabled", true);
+        when(eventRepository.findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+            .thenReturn(Arrays.asList(testEvent));
+
+        // Act
+        List<EventResponseDto> primera = eventService.getEventsNearLocation(40.7128, -74.0060, 10.0);
+        List<EventResponseDto> segunda = eventService.getEventsNearLocation(40.7130, -74.0055, 12.0);
+        List<EventResponseDto> lejos = eventService.getEventsNearLocation(40.7500, -73.9000, 5.0);
+
+        // Assert
+        assertEquals(1, primera.size());
+        assertEquals(1, segunda.size());
+        assertTrue(lejos.isEmpty());
+        verify(eventRepository, times(2)).findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void getEventsNearLocation_ConCache_CrearEventoInvalidaLaZona() {
+        // Arrange
+        ReflectionTestUtils.setField(eventService, "nearbyCacheEnabled", true);
+        when(eventRepository.findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+            .thenReturn(Arrays.asList())
+            .thenReturn(Arrays.asList(testEvent));
+        when(authService.getCurrentUser()).thenReturn(adminUser);
+        when(eventRepository.save(any(Event.class))).thenReturn(testEvent);
+        eventService.getEventsNearLocation(40.7128, -74.0060, 10.0);
+
+        // Act
+        eventService.createEvent(createDto);
+        List<EventResponseDto> result = eventService.getEventsNearLocation(40.7128, -74.0060, 10.0);
+
+        // Assert
+        assertEquals(1, result.size());
+        verify(eventRepository, times(2)).findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void getEventsNearLocation_RadioInvalido_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> eventService.getEventsNearLocation(40.7128, -74.0060, 1000.0));
+        assertEquals("El radio debe ser mayor que 0 y no superar 500 km", exception.getMessage());
+        verifyNoInteractions(eventRepository);
+    }
+
     @Test
     void updateEvent_AsOrganizer_Success() {
         // Arrange
@@ -249,6 +394,7 @@ class EventServiceTest {
         // Assert
         verify(eventRepository, times(1)).save(any(Event.class));
         assertEquals(Event.EventStatus.CANCELLED, testEvent.getStatus());
+        verify(mapClusterService).registrarEvento(testEvent);
     }
 
     @Test
@@ -269,7 +415,7 @@ class EventServiceTest {
         // a través de getEventsNearLocation
         
         // Arrange
-        when(eventRepository.findByStatus(Event.EventStatus.ACTIVE))
+        when(eventRepository.findByStatusInBoundingBox(eq(Event.EventStatus.ACTIVE), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
             .thenReturn(Arrays.asList(testEvent));
 
         // Act - misma ubicación exacta
@@ -281,5 +427,50 @@ class EventServiceTest {
         // Assert
         assertEquals(1, result.size());
     }
-}
 
+    @Test
+    void getUpcomingEventsNearLocation_SoloLosDelRangoOrdenadosPorFecha() {
+        // Arrange
+        Event masTarde = evento(2L, LocalDateTime.now().plusDays(10), 40.7130, -74.0050);
+        Event fueraDeRango = evento(3L, LocalDateTime.now().plusDays(30), 40.7128, -74.0060);
+        Event otroTipo = evento(4L, LocalDateTime.now().plusDays(2), 40.7128, -74.0060);
+        otroTipo.setEventType(Event.EventType.FAIR);
+        when(eventRepository.findByEventDateAfterAndStatus(any(LocalDateTime.class), eq(Event.EventStatus.ACTIVE)))
+            .thenReturn(Arrays.asList(masTarde, testEvent, fueraDeRango, otroTipo));
+        when(eventRepository.findWithOrganizerByIdIn(any())).thenReturn(Arrays.asList(masTarde, testEvent));
+
+        // Act
+        List<EventResponseDto> result = eventService.getUpcomingEventsNearLocation(
+            40.7128, -74.0060, 5.0, 14, Event.EventType.WORKSHOP);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(2L, result.get(1).getId());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(eventRepository).findWithOrganizerByIdIn(ids.capture());
+        assertEquals(2, ids.getValue().size());
+    }
+
+    @Test
+    void getUpcomingEventsNearLocation_DiasInvalidos_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> eventService.getUpcomingEventsNearLocation(40.7128, -74.0060, 5.0, 0, null));
+        assertEquals("Los días deben estar entre 1 y 365", exception.getMessage());
+    }
+
+    private Event evento(Long id, LocalDateTime fecha, double latitud, double longitud) {
+        Event event = new Event();
+        event.setId(id);
+        event.setEventName("Evento " + id);
+        event.setEventDate(fecha);
+        event.setLatitude(latitud);
+        event.setLongitude(longitud);
+        event.setEventType(Event.EventType.WORKSHOP);
+        event.setStatus(Event.EventStatus.ACTIVE);
+        event.setOrganizer(adminUser);
+        return event;
+    }
+}
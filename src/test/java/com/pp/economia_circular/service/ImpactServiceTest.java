@@ -0,0 +1,177 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.ImpactDto;
+import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.entity.CoeficienteImpacto;
+import com.pp.economia_circular.entity.ImpactoAcumulado;
+import com.pp.economia_circular.entity.MovimientoImpacto;
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.CoeficienteImpactoRepository;
+import com.pp.economia_circular.repositories.ImpactoAcumuladoRepository;
+import com.pp.economia_circular.repositories.MovimientoImpactoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImpactServiceTest {
+
+    @Mock
+    private CoeficienteImpactoRepository coeficienteRepository;
+
+    @Mock
+    private MovimientoImpactoRepository movimientoRepository;
+
+    @Mock
+    private ImpactoAcumuladoRepository acumuladoRepository;
+
+    @Mock
+    private JWTService authService;
+
+    @InjectMocks
+    private ImpactService impactService;
+
+    private Articulo articulo;
+
+    @BeforeEach
+    void setUp() {
+        Usuario usuario = new Usuario();
+        usuario.setId(4L);
+
+        articulo = new Articulo();
+        articulo.setId(9L);
+        articulo.setCategoria(Articulo.CategoriaArticulo.ELECTRONICOS);
+        articulo.setEstado(Articulo.EstadoArticulo.INTERCAMBIADO);
+        articulo.setUsuario(usuario);
+    }
+
+    @Test
+    void registrarIntercambio_SumaEnLosTresTotales() {
+        // Arrange
+        when(movimientoRepository.existsByArticuloId(9L)).thenReturn(false);
+        when(coeficienteRepository.findAll()).thenReturn(Collections.singletonList(
+            new CoeficienteImpacto(Articulo.CategoriaArticulo.ELECTRONICOS, 30.0, 2.0, 8.0)));
+        when(acumuladoRepository.sumar(anyString(), anyLong(), anyDouble(), anyDouble(), anyDouble(), any()))
+            .thenReturn(1);
+
+        // Act
+        impactService.registrarIntercambio(articulo);
+
+        // Assert
+        ArgumentCaptor<MovimientoImpacto> captor = ArgumentCaptor.forClass(MovimientoImpacto.class);
+        verify(movimientoRepository).save(captor.capture());
+        assertEquals(9L, captor.getValue().getArticuloId());
+        assertEquals(30.0, captor.getValue().getCo2Kg());
+        verify(acumuladoRepository).sumar(eq(ImpactoAcumulado.GLOBAL), eq(1L), eq(30.0), eq(2.0), eq(8.0), any());
+        verify(acumuladoRepository).sumar(eq("USUARIO:4"), eq(1L), eq(30.0), eq(2.0), eq(8.0), any());
+        verify(acumuladoRepository).sumar(eq("CATEGORIA:ELECTRONICOS"), eq(1L), eq(30.0), eq(2.0), eq(8.0), any());
+        verify(acumuladoRepository, never()).save(any());
+    }
+
+    @Test
+    void registrarIntercambio_YaRegistrado_NoSumaDeNuevo() {
+        // Arrange
+        when(movimientoRepository.existsByArticuloId(9L)).thenReturn(true);
+
+        // Act
+        MovimientoImpacto result = impactService.registrarIntercambio(articulo);
+
+        // Assert
+        assertNull(result);
+        verify(movimientoRepository, never()).save(any());
+        verifyNoInteractions(acumuladoRepository, coeficienteRepository);
+    }
+
+    @Test
+    void registrarIntercambio_SinCoeficiente_SumaValoresPorDefectoSinGuardarEntidades() {
+        // Arrange
+        when(movimientoRepository.existsByArticuloId(9L)).thenReturn(false);
+        when(coeficienteRepository.findAll()).thenReturn(Collections.emptyList());
+
+        // Act
+        impactService.registrarIntercambio(articulo);
+
+        // Assert - la fila faltante la crea el mismo upsert
+        verify(acumuladoRepository).sumar(eq(ImpactoAcumulado.GLOBAL), eq(1L), eq(5.2), eq(2.1), eq(1.5), any());
+        verify(acumuladoRepository, times(3)).sumar(anyString(), anyLong(), anyDouble(), anyDouble(), anyDouble(), any());
+        verify(acumuladoRepository, never()).save(any());
+    }
+
+    @Test
+    void registrarIntercambio_CoeficientesSeLeenUnaVez() {
+        // Arrange
+        when(movimientoRepository.existsByArticuloId(anyLong())).thenReturn(false);
+        when(coeficienteRepository.findAll()).thenReturn(Collections.emptyList());
+        when(acumuladoRepository.sumar(anyString(), anyLong(), anyDouble(), anyDouble(), anyDouble(), any()))
+            .thenReturn(1);
+
+        // Act
+        impactService.registrarIntercambio(articulo);
+        articulo.setId(10L);
+        impactService.registrarIntercambio(articulo);
+
+        // Assert
+        verify(coeficienteRepository, times(1)).findAll();
+    }
+
+    @Test
+    void getUserImpact_LeeUnaFila() {
+        // Arrange
+        ImpactoAcumulado acumulado = new ImpactoAcumulado("USUARIO:4");
+        acumulado.setArticulos(3L);
+        acumulado.setCo2Kg(12.5);
+        when(acumuladoRepository.findById("USUARIO:4")).thenReturn(Optional.of(acumulado));
+
+        // Act
+        ImpactDto result = impactService.getUserImpact(4L);
+
+        // Assert
+        assertEquals("USER", result.getScope());
+        assertEquals("4", result.getKey());
+        assertEquals(3L, result.getExchangedArticles());
+        assertEquals(12.5, result.getCo2SavedKg());
+        verify(acumuladoRepository, times(1)).findById("USUARIO:4");
+        verifyNoMoreInteractions(acumuladoRepository);
+    }
+
+    @Test
+    void getGlobalImpact_SinIntercambios_DevuelveCero() {
+        // Arrange
+        when(acumuladoRepository.findById(ImpactoAcumulado.GLOBAL)).thenReturn(Optional.empty());
+
+        // Act
+        ImpactDto result = impactService.getGlobalImpact();
+
+        // Assert
+        assertEquals("GLOBAL", result.getKey());
+        assertEquals(0L, result.getExchangedArticles());
+        assertEquals(0.0, result.getCo2SavedKg());
+    }
+
+    @Test
+    void getMyImpact_NotAuthenticated_ThrowsException() {
+        // Arrange
+        when(authService.getCurrentUser()).thenReturn(null);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> impactService.getMyImpact());
+        assertEquals("Usuario no autenticado", exception.getMessage());
+        verifyNoInteractions(acumuladoRepository);
+    }
+}
@@ -0,0 +1,325 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.LeaderboardDto;
+import com.pp.economia_circular.DTO.LeaderboardEntryDto;
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderboardServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private JWTService authService;
+
+    @InjectMocks
+    private LeaderboardService leaderboardService;
+
+    @Test
+    void registrarIntercambio_OrdenaGlobalYMesActual() {
+        // Arrange
+        List<Object[]> nombres = new ArrayList<>();
+        nombres.add(new Object[]{5L, "Ana", "García"});
+        nombres.add(new Object[]{4L, "Luis", null});
+        when(usuarioRepository.findNombresByIds(any())).thenReturn(nombres);
+
+        // Act
+        leaderboardService.registrarIntercambio(4L, 2.5);
+        leaderboardService.registrarIntercambio(5L, 1.0);
+        leaderboardService.registrarIntercambio(5L, 1.0);
+        LeaderboardDto intercambios = leaderboardService.getLeaderboard("exchanges", null, 0, 10);
+        LeaderboardDto co2DelMes = leaderboardService.getLeaderboard("co2", YearMonth.now().toString(), 0, 10);
+
+        // Assert
+        assertEquals("GLOBAL", intercambios.getPeriod());
+        assertEquals(2, intercambios.getTotalUsers());
+        assertEquals(5L, intercambios.getEntries().get(0).getUserId());
+        assertEquals(2L, intercambios.getEntries().get(0).getScore());
+        assertEquals("Ana G.", intercambios.getEntries().get(0).getDisplayName());
+        assertEquals("Luis", intercambios.getEntries().get(1).getDisplayName());
+        assertEquals(4L, co2DelMes.getEntries().get(0).getUserId());
+        assertEquals(2.5, co2DelMes.getEntries().get(0).getScore());
+    }
+
+    @Test
+    void registrarBaja_DescuentaYQuitaAlLlegarACero() {
+        // Arrange
+        LocalDateTime creadoEn = LocalDateTime.now();
+        leaderboardService.registrarPublicacion(4L, creadoEn);
+        leaderboardService.registrarPublicacion(5L, creadoEn);
+        leaderboardService.registrarPublicacion(5L, creadoEn);
+        when(usuarioRepository.findNombresByIds(any())).thenReturn(Collections.emptyList());
+
+        // Act
+        leaderboardService.registrarBaja(4L, creadoEn);
+        LeaderboardDto result = leaderboardService.getLeaderboard("donated", null, 0, 10);
+
+        // Assert
+        assertEquals(1, result.getTotalUsers());
+        assertEquals(5L, result.getEntries().get(0).getUserId());
+    }
+
+    @Test
+    void getLeaderboard_PaginaFueraDeRango_DevuelveVacia() {
+        // Arrange
+        leaderboardService.registrarPublicacion(4L, LocalDateTime.now());
+
+        // Act
+        LeaderboardDto result = leaderboardService.getLeaderboard("donated", null, 3, 10);
+
+        // Assert
+        assertEquals(1, result.getTotalUsers());
+        assertTrue(result.getEntries().isEmpty());
+        verifyNoInteractions(usuarioRepository);
+    }
+
+    @Test
+    void reconstruir_SumaFuentesPorUsuarioYConservaSoloMesesRecientes() {
+        // Arrange
+        YearMonth actual = YearMonth.now();
+        YearMonth viejo = actual.minusYears(2);
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class))).thenAnswer(invocacion -> {
+            String sql = invocacion.getArgument(0);
+            List<Map<String, Object>> filas = new ArrayList<>();
+            if (sql.contains("FROM articulos WHERE estado = 'INTERCAMBIADO'")) {
+                filas.add(fila(1L, actual, 2L));
+                filas.add(fila(1L, viejo, 1L));
+            } else if (sql.contains("FROM solicitudes_intercambio")) {
+                filas.add(fila(2L, actual, 3L));
+            }
+            return filas;
+        });
+        when(usuarioRepository.findNombresByIds(any())).thenReturn(Collections.emptyList());
+
+        // Act
+        int tableros = leaderboardService.reconstruir();
+        LeaderboardDto global = leaderboardService.getLeaderboard("EXCHANGES", null, 0, 10);
+        LeaderboardDto delMes = leaderboardService.getLeaderboard("EXCHANGES", actual.toString(), 0, 10);
+
+        // Assert
+        assertEquals(2, tableros);
+        // Empate en 3: gana el id menor
+        assertEquals(1L, global.getEntries().get(0).getUserId());
+        assertEquals(3L, global.getEntries().get(0).getScore());
+        assertEquals(2L, delMes.getEntries().get(0).getUserId());
+        assertEquals(2L, delMes.getEntries().get(1).getScore());
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> leaderboardService.getLeaderboard("EXCHANGES", viejo.toString(), 0, 10));
+        assertEquals("Sólo se conservan los últimos 12 meses", exception.getMessage());
+    }
+
+    @Test
+    void persistirPendientes_CopiaSoloLasDiferenciasDeLosUsuariosModificados() {
+        // Arrange: en la base el usuario 4 ya tiene 10 publicados (sumados por otra instancia)
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class))).thenReturn(
+            Collections.singletonList(persistida("DONATED:GLOBAL", 4L, 10L)));
+        leaderboardService.cargarPersistidos();
+        leaderboardService.registrarPublicacion(4L, LocalDateTime.now());
+
+        // Act
+        leaderboardService.persistirPendientes();
+        leaderboardService.persistirPendientes();
+
+        // Assert: tabla histórica y del mes, una fila cada una y una sola vez, con el delta y no el total
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("puntaje = puntaje + VALUES(puntaje)"), captor.capture());
+        for (SqlParameterSource[] filas : captor.getAllValues()) {
+            assertEquals(1, filas.length);
+            assertEquals(4L, filas[0].getValue("usuario"));
+            assertEquals(1L, filas[0].getValue("delta"));
+        }
+        verify(jdbcTemplate, never()).batchUpdate(contains("puntaje <= 0"), any(SqlParameterSource[].class));
+        verify(jdbcTemplate, never()).update(anyString(), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void persistirPendientes_Baja_RestaYLimpiaLaFilaSiQuedaEnCero() {
+        // Arrange
+        LocalDateTime creadoEn = LocalDateTime.now();
+        leaderboardService.registrarPublicacion(4L, creadoEn);
+        leaderboardService.persistirPendientes();
+        clearInvocations(jdbcTemplate);
+
+        // Act
+        leaderboardService.registrarBaja(4L, creadoEn);
+        leaderboardService.persistirPendientes();
+
+        // Assert
+        ArgumentCaptor<SqlParameterSource[]> sumas = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("puntaje = puntaje + VALUES(puntaje)"), sumas.capture());
+        assertEquals(-1L, sumas.getValue()[0].getValue("delta"));
+        ArgumentCaptor<SqlParameterSource[]> limpiezas = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("puntaje <= 0"), limpiezas.capture());
+        assertEquals(4L, limpiezas.getValue()[0].getValue("usuario"));
+    }
+
+    @Test
+    void persistirPendientes_FalloEnBase_ReintentaEnElProximoCicloSinDuplicarElDelta() {
+        // Arrange
+        leaderboardService.registrarPublicacion(4L, null);
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+            .thenThrow(new RuntimeException("base caída"))
+            .thenReturn(new int[]{1});
+
+        // Act
+        leaderboardService.persistirPendientes();
+        leaderboardService.persistirPendientes();
+
+        // Assert
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), captor.capture());
+        for (SqlParameterSource[] filas : captor.getAllValues()) {
+            assertEquals(1L, filas[0].getValue("delta"));
+        }
+    }
+
+    @Test
+    void recargarProgramado_TraeLoDeOtrasInstanciasSinPerderLoPropioSinCopiar() {
+        // Arrange: la copia a la base falla, así que el +1 local sigue pendiente
+        leaderboardService.registrarPublicacion(4L, LocalDateTime.now());
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+            .thenThrow(new RuntimeException("base caída"));
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class))).thenReturn(Arrays.asList(
+            persistida("DONATED:GLOBAL", 4L, 5L),
+            persistida("DONATED:GLOBAL", 6L, 3L)));
+        when(usuarioRepository.findNombresByIds(any())).thenReturn(Collections.emptyList());
+
+        // Act
+        leaderboardService.recargarProgramado();
+        LeaderboardDto result = leaderboardService.getLeaderboard("donated", null, 0, 10);
+
+        // Assert
+        assertEquals(2, result.getTotalUsers());
+        assertEquals(4L, result.getEntries().get(0).getUserId());
+        assertEquals(6L, result.getEntries().get(0).getScore());
+        assertEquals(3L, result.getEntries().get(1).getScore());
+    }
+
+    @Test
+    void reconstruir_TrasCargarPersistidos_CopiaSoloLasDiferencias() {
+        // Arrange: en la base el usuario 1 ya está al día y el 7 ya no tiene intercambios
+        YearMonth actual = YearMonth.now();
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class))).thenAnswer(invocacion -> {
+            String sql = invocacion.getArgument(0);
+            List<Map<String, Object>> filas = new ArrayList<>();
+            if (sql.startsWith("SELECT tablero")) {
+                filas.add(persistida("EXCHANGES:GLOBAL", 1L, 3L));
+                filas.add(persistida("EXCHANGES:GLOBAL", 7L, 1L));
+                filas.add(persistida("EXCHANGES:" + actual, 1L, 3L));
+            } else if (sql.contains("FROM articulos WHERE estado = 'INTERCAMBIADO'")) {
+                filas.add(fila(1L, actual, 3L));
+            } else if (sql.contains("FROM solicitudes_intercambio")) {
+                filas.add(fila(2L, actual, 4L));
+            }
+            return filas;
+        });
+        leaderboardService.cargarPersistidos();
+
+        // Act
+        leaderboardService.reconstruir();
+        leaderboardService.persistirPendientes();
+
+        // Assert: la reconstrucción fija puntajes absolutos y no deja deltas pendientes
+        ArgumentCaptor<SqlParameterSource[]> altas = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("puntaje = VALUES(puntaje)"), altas.capture());
+        for (SqlParameterSource[] filas : altas.getAllValues()) {
+            assertEquals(1, filas.length);
+            assertEquals(2L, filas[0].getValue("usuario"));
+            assertEquals(4L, filas[0].getValue("puntaje"));
+        }
+        verify(jdbcTemplate, never()).batchUpdate(contains("puntaje = puntaje +"), any(SqlParameterSource[].class));
+        ArgumentCaptor<SqlParameterSource[]> bajas = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(contains("AND usuario_id = :usuario"), bajas.capture());
+        assertEquals(1, bajas.getValue().length);
+        assertEquals(7L, bajas.getValue()[0].getValue("usuario"));
+        assertEquals("EXCHANGES:GLOBAL", bajas.getValue()[0].getValue("tablero"));
+    }
+
+    @Test
+    void getMyPosition_SinPuntaje_DevuelvePosicionCero() {
+        // Arrange
+        Usuario usuario = new Usuario();
+        usuario.setId(9L);
+        usuario.setNombre("Eva");
+        usuario.setApellido("Ruiz");
+        when(authService.getCurrentUser()).thenReturn(usuario);
+        leaderboardService.registrarPublicacion(4L, LocalDateTime.now());
+
+        // Act
+        LeaderboardEntryDto result = leaderboardService.getMyPosition("donated", null);
+
+        // Assert
+        assertEquals(0, result.getRank());
+        assertEquals(0L, result.getScore());
+        assertEquals("Eva R.", result.getDisplayName());
+    }
+
+    @Test
+    void getMyPosition_NotAuthenticated_ThrowsException() {
+        // Arrange
+        when(authService.getCurrentUser()).thenReturn(null);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> leaderboardService.getMyPosition("donated", null));
+        assertEquals("Usuario no autenticado", exception.getMessage());
+    }
+
+    @Test
+    void getLeaderboard_MetricaInvalida_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> leaderboardService.getLeaderboard("likes", null, 0, 10));
+        assertEquals("Métrica no válida: likes", exception.getMessage());
+    }
+
+    private static Map<String, Object> persistida(String tablero, Long usuario, Long puntaje) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("tablero", tablero);
+        fila.put("usuario_id", usuario);
+        fila.put("puntaje", puntaje);
+        return fila;
+    }
+
+    private static Map<String, Object> fila(Long usuario, YearMonth mes, Long puntaje) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("usuario", usuario);
+        fila.put("anio", mes.getYear());
+        fila.put("mes", mes.getMonthValue());
+        fila.put("puntaje", puntaje);
+        return fila;
+    }
+}
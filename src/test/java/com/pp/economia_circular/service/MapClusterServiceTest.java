@@ -0,0 +1,144 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.MapClusterDto;
+import com.pp.economia_circular.entity.Event;
+import com.pp.economia_circular.entity.RecyclingCenter;
+import com.pp.economia_circular.repositories.EventRepository;
+import com.pp.economia_circular.repositories.RecyclingCenterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MapClusterServiceTest {
+
+    private static final String BUENOS_AIRES = "-58.6,-34.8,-58.2,-34.4";
+
+    @Mock
+    private RecyclingCenterRepository recyclingCenterRepository;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @InjectMocks
+    private MapClusterService mapClusterService;
+
+    private RecyclingCenter centro1;
+    private RecyclingCenter centro2;
+    private Event evento;
+
+    @BeforeEach
+    void setUp() {
+        centro1 = centro(1L, -34.6037, -58.3816);
+        centro2 = centro(2L, -34.6040, -58.3820);
+        evento = new Event();
+        evento.setId(7L);
+        evento.setLatitude(-34.6050);
+        evento.setLongitude(-58.3830);
+        evento.setStatus(Event.EventStatus.ACTIVE);
+    }
+
+    @Test
+    void getClusters_ZoomBajo_AgrupaCentrosYEventos() {
+        // Arrange
+        when(recyclingCenterRepository.findByStatus(RecyclingCenter.CenterStatus.ACTIVE)).thenReturn(Arrays.asList(centro1, centro2));
+        when(eventRepository.findByStatus(Event.EventStatus.ACTIVE)).thenReturn(Collections.singletonList(evento));
+
+        // Act
+        List<MapClusterDto> result = mapClusterService.getClusters(BUENOS_AIRES, 5, null);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(3, result.get(0).getCount());
+        assertEquals(2, result.get(0).getCenterCount());
+        assertEquals(1, result.get(0).getEventCount());
+        assertNull(result.get(0).getId());
+    }
+
+    @Test
+    void getClusters_FiltraPorCapa_DevuelvePuntoSuelto() {
+        // Arrange
+        when(recyclingCenterRepository.findByStatus(RecyclingCenter.CenterStatus.ACTIVE)).thenReturn(Arrays.asList(centro1, centro2));
+        when(eventRepository.findByStatus(Event.EventStatus.ACTIVE)).thenReturn(Collections.singletonList(evento));
+
+        // Act
+        List<MapClusterDto> result = mapClusterService.getClusters(BUENOS_AIRES, 5, "events");
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("EVENT", result.get(0).getType());
+        assertEquals(7L, result.get(0).getId());
+    }
+
+    @Test
+    void registrarCentro_DadoDeBaja_LoQuitaDeLosGrupos() {
+        // Arrange
+        when(recyclingCenterRepository.findByStatus(RecyclingCenter.CenterStatus.ACTIVE)).thenReturn(Arrays.asList(centro1, centro2));
+        when(eventRepository.findByStatus(Event.EventStatus.ACTIVE)).thenReturn(Collections.emptyList());
+        mapClusterService.getClusters(BUENOS_AIRES, 5, null);
+        centro1.setStatus(RecyclingCenter.CenterStatus.INACTIVE);
+
+        // Act
+        mapClusterService.registrarCentro(centro1);
+        List<MapClusterDto> result = mapClusterService.getClusters(BUENOS_AIRES, 5, null);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("CENTER", result.get(0).getType());
+        assertEquals(2L, result.get(0).getId());
+        verify(recyclingCenterRepository, times(1)).findByStatus(RecyclingCenter.CenterStatus.ACTIVE);
+    }
+
+    @Test
+    void registrarEvento_AntesDeLaPrimeraConsulta_NoCargaNada() {
+        // Act
+        mapClusterService.registrarEvento(evento);
+
+        // Assert
+        verifyNoInteractions(recyclingCenterRepository, eventRepository);
+    }
+
+    @Test
+    void getClusters_BboxInvalido_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> mapClusterService.getClusters("-58.6,-34.8,-58.2", 5, null));
+        assertEquals("bbox debe tener el formato oeste,sur,este,norte", exception.getMessage());
+    }
+
+    @Test
+    void getClusters_AreaDemasiadoGrande_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> mapClusterService.getClusters("-180,-85,180,85", 12, null));
+        assertEquals("El área pedida es demasiado grande para ese zoom", exception.getMessage());
+        verifyNoInteractions(recyclingCenterRepository, eventRepository);
+    }
+
+    @Test
+    void getClusters_CapaInvalida_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> mapClusterService.getClusters(BUENOS_AIRES, 5, "articles"));
+        assertEquals("Capa inválida: articles", exception.getMessage());
+    }
+
+    private RecyclingCenter centro(Long id, double latitud, double longitud) {
+        RecyclingCenter center = new RecyclingCenter();
+        center.setId(id);
+        center.setLatitude(latitud);
+        center.setLongitude(longitud);
+        center.setStatus(RecyclingCenter.CenterStatus.ACTIVE);
+        return center;
+    }
+}
@@ -0,0 +1,144 @@
+package com.pp.economia_circular.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pp.economia_circular.DTO.RespuestaMensajeDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificadorMensajesTest {
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private NotificadorMensajes notificadorMensajes;
+
+    private WebSocketSession sesion;
+
+    @BeforeEach
+    void setUp() {
+        sesion = mock(WebSocketSession.class);
+        lenient().when(sesion.getId()).thenReturn("s1");
+        lenient().when(sesion.isOpen()).thenReturn(true);
+    }
+
+    @Test
+    void registrar_UsuarioQuedaConectado() {
+        // Act
+        notificadorMensajes.registrar(2L, sesion);
+
+        // Assert
+        assertTrue(notificadorMensajes.estaConectado(2L));
+        assertFalse(notificadorMensajes.estaConectado(3L));
+        assertEquals(1, notificadorMensajes.cantidadConexiones());
+    }
+
+    @Test
+    void desregistrar_UltimaSesion_LiberaEntrada() {
+        // Arrange
+        notificadorMensajes.registrar(2L, sesion);
+
+        // Act
+        notificadorMensajes.desregistrar(2L, sesion);
+
+        // Assert
+        assertFalse(notificadorMensajes.estaConectado(2L));
+        assertTrue(notificadorMensajes.usuariosConectados().isEmpty());
+    }
+
+    @Test
+    void registrar_ConcurrenteConDesregistrar_NoPierdeSesiones() throws Exception {
+        // Arrange - cada alta compite con la baja de la sesión anterior del mismo usuario
+        int cantidad = 500;
+        List<WebSocketSession> sesiones = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            WebSocketSession otra = mock(WebSocketSession.class);
+            lenient().when(otra.getId()).thenReturn("s" + i);
+            sesiones.add(otra);
+        }
+        List<WebSocketSession> registradas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i += 2) {
+            registradas.add(notificadorMensajes.registrar(2L, sesiones.get(i)));
+        }
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+
+        // Act - se dan de baja las pares y de alta las impares
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i += 2) {
+            WebSocketSession baja = registradas.get(i / 2);
+            WebSocketSession alta = sesiones.get(i + 1);
+            tareas.add(hilos.submit(() -> notificadorMensajes.desregistrar(2L, baja)));
+            tareas.add(hilos.submit(() -> notificadorMensajes.registrar(2L, alta)));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        hilos.shutdown();
+
+        // Assert
+        assertEquals(cantidad / 2, notificadorMensajes.cantidadConexiones());
+        assertTrue(notificadorMensajes.estaConectado(2L));
+    }
+
+    @Test
+    void notificarNuevoMensaje_EnviaEventoJson() throws IOException {
+        // Arrange
+        notificadorMensajes.registrar(2L, sesion);
+        RespuestaMensajeDto dto = new RespuestaMensajeDto();
+        dto.setId(10L);
+        dto.setContenido("Hola");
+        dto.setCreadoEn(LocalDateTime.now());
+
+        // Act
+        notificadorMensajes.notificarNuevoMensaje(2L, dto, 4L);
+
+        // Assert
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(sesion, times(1)).sendMessage(captor.capture());
+        String payload = captor.getValue().getPayload();
+        assertTrue(payload.contains("\"tipo\":\"NUEVO_MENSAJE\""));
+        assertTrue(payload.contains("\"noLeidos\":4"));
+        assertTrue(payload.contains("\"contenido\":\"Hola\""));
+    }
+
+    @Test
+    void notificarNoLeidos_SesionCerrada_SeDesregistra() throws IOException {
+        // Arrange
+        notificadorMensajes.registrar(2L, sesion);
+        when(sesion.isOpen()).thenReturn(false);
+
+        // Act
+        notificadorMensajes.notificarNoLeidos(2L, 1L);
+
+        // Assert
+        verify(sesion, never()).sendMessage(any());
+        assertFalse(notificadorMensajes.estaConectado(2L));
+    }
+
+    @Test
+    void notificarNoLeidos_UsuarioSinSesiones_NoHaceNada() {
+        // Act & Assert
+        assertDoesNotThrow(() -> notificadorMensajes.notificarNoLeidos(99L, 1L));
+        verifyNoInteractions(objectMapper);
+    }
+}
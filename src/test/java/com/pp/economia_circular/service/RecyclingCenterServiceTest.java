@@ -1,19 +1,24 @@
 package com.pp.economia_circular.service;
 
 import com.pp.economia_circular.DTO.RecyclingCenterDto;
+import com.pp.economia_circular.entity.OpeningInterval;
 import com.pp.economia_circular.entity.RecyclingCenter;
+import com.pp.economia_circular.repositories.OpeningIntervalRepository;
 import com.pp.economia_circular.repositories.RecyclingCenterRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -25,6 +30,12 @@ class RecyclingCenterServiceTest {
     @Mock
     private RecyclingCenterRepository recyclingCenterRepository;
 
+    @Mock
+    private MapClusterService mapClusterService;
+
+    @Mock
+    private OpeningIntervalRepository openingIntervalRepository;
+
     @InjectMocks
     private RecyclingCenterService recyclingCenterService;
 
@@ -76,6 +87,59 @@ class RecyclingCenterServiceTest {
         verify(recyclingCenterRepository, times(1)).save(any(RecyclingCenter.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void createCenter_GuardaElHorarioComoIntervalosSemanales() {
+        // Arrange
+        when(recyclingCenterRepository.save(any(RecyclingCenter.class))).thenReturn(testCenter);
+        ArgumentCaptor<List<OpeningInterval>> captor = ArgumentCaptor.forClass(List.class);
+
+        // Act
+        recyclingCenterService.createCenter(centerDto);
+
+        // Assert - lunes a viernes de 9 a 17
+        verify(openingIntervalRepository).saveAll(captor.capture());
+        List<OpeningInterval> intervalos = captor.getValue();
+        assertEquals(5, intervalos.size());
+        assertEquals(540, intervalos.get(0).getStartMinute());
+        assertEquals(1020, intervalos.get(0).getEndMinute());
+        assertEquals(4 * 1440 + 540, intervalos.get(4).getStartMinute());
+    }
+
+    @Test
+    void createCenter_HorarioNoInterpretable_GuardaElTextoSinIntervalos() {
+        // Arrange
+        centerDto.setOpeningHours("Lunes cuando se pueda");
+        when(recyclingCenterRepository.save(any(RecyclingCenter.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        // Act
+        RecyclingCenterDto result = recyclingCenterService.createCenter(centerDto);
+
+        // Assert
+        assertEquals("Lunes cuando se pueda", result.getOpeningHours());
+        ArgumentCaptor<RecyclingCenter> captor = ArgumentCaptor.forClass(RecyclingCenter.class);
+        verify(recyclingCenterRepository).save(captor.capture());
+        assertTrue(captor.getValue().isOpeningHoursProcessed());
+        verifyNoInteractions(openingIntervalRepository);
+    }
+
+    @Test
+    void completarHorarios_MarcaComoProcesadosTambienLosQueNoSeEntienden() {
+        // Arrange
+        RecyclingCenter ilegible = new RecyclingCenter();
+        ilegible.setId(2L);
+        ilegible.setOpeningHours("Lunes cuando se pueda");
+        when(recyclingCenterRepository.findWithUnprocessedOpeningHours()).thenReturn(Arrays.asList(testCenter, ilegible));
+
+        // Act
+        recyclingCenterService.completarHorarios();
+
+        // Assert
+        verify(openingIntervalRepository, times(1)).saveAll(any());
+        verify(recyclingCenterRepository).marcarHorariosProcesados(Arrays.asList(1L, 2L));
+        verify(recyclingCenterRepository, never()).save(any(RecyclingCenter.class));
+    }
+
     @Test
     void getAllCenters_Success() {
         // Arrange
@@ -136,6 +200,180 @@ class RecyclingCenterServiceTest {
         assertEquals(0, result.size());
     }
 
+    @Test
+    void getCentersNearLocation_OrdenaPorDistanciaYFiltraPorTipo() {
+        // Arrange
+        RecyclingCenter lejano = centro(2L, 40.7580, -73.9855, RecyclingCenter.CenterType.RECYCLING_CENTER);
+        RecyclingCenter taller = centro(3L, 40.7130, -74.0070, RecyclingCenter.CenterType.REPAIR_WORKSHOP);
+        when(recyclingCenterRepository.findAll())
+            .thenReturn(Arrays.asList(lejano, testCenter, taller));
+
+        // Act
+        List<RecyclingCenterDto> todos = recyclingCenterService.getCentersNearLocation(40.7128, -74.0060, 10.0);
+        List<RecyclingCenterDto> soloReciclaje = recyclingCenterService.getCentersNearLocation(
+            40.7128, -74.0060, 10.0, RecyclingCenter.CenterType.RECYCLING_CENTER);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 3L, 2L), todos.stream().map(RecyclingCenterDto::getId).collect(Collectors.toList()));
+        assertTrue(todos.get(2).getDistanceKm() > 5.0);
+        assertEquals(Arrays.asList(1L, 2L), soloReciclaje.stream().map(RecyclingCenterDto::getId).collect(Collectors.toList()));
+        // El índice se carga una sola vez
+        verify(recyclingCenterRepository, times(1)).findAll();
+    }
+
+    @Test
+    void getCentersNearLocation_IndiceSeActualizaAlEliminar() {
+        // Arrange
+        when(recyclingCenterRepository.findAll()).thenReturn(Arrays.asList(testCenter));
+        when(recyclingCenterRepository.findById(1L)).thenReturn(Optional.of(testCenter));
+        recyclingCenterService.getCentersNearLocation(40.7128, -74.0060, 10.0);
+
+        // Act
+        recyclingCenterService.deleteCenter(1L);
+        List<RecyclingCenterDto> result = recyclingCenterService.getCentersNearLocation(40.7128, -74.0060, 10.0);
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void getCentersNearLocation_CacheSeInvalidaAlMoverUnCentro() {
+        // Arrange - ambas zonas quedan guardadas en la caché
+        when(recyclingCenterRepository.findAll()).thenReturn(Arrays.asList(testCenter));
+        when(recyclingCenterRepository.findById(1L)).thenReturn(Optional.of(testCenter));
+        when(recyclingCenterRepository.save(any(RecyclingCenter.class))).thenReturn(testCenter);
+        assertEquals(1, recyclingCenterService.getCentersNearLocation(40.7128, -74.0060, 2.0).size());
+        assertTrue(recyclingCenterService.getCentersNearLocation(40.7589, -73.9851, 2.0).isEmpty());
+        centerDto.setLatitude(40.7589);
+        centerDto.setLongitude(-73.9851);
+
+        // Act
+        recyclingCenterService.updateCenter(1L, centerDto);
+        List<RecyclingCenterDto> origen = recyclingCenterService.getCentersNearLocation(40.7128, -74.0060, 2.0);
+        List<RecyclingCenterDto> destino = recyclingCenterService.getCentersNearLocation(40.7589, -73.9851, 2.0);
+
+        // Assert
+        assertTrue(origen.isEmpty());
+        assertEquals(1, destino.size());
+    }
+
+    @Test
+    void getNearestCenters_DevuelveLosKMasCercanosActivos() {
+        // Arrange
+        RecyclingCenter lejano = centro(2L, 40.7580, -73.9855, RecyclingCenter.CenterType.RECYCLING_CENTER);
+        RecyclingCenter cercano = centro(3L, 40.7130, -74.0070, RecyclingCenter.CenterType.REPAIR_WORKSHOP);
+        RecyclingCenter cerrado = centro(4L, 40.7129, -74.0061, RecyclingCenter.CenterType.RECYCLING_CENTER);
+        cerrado.setStatus(RecyclingCenter.CenterStatus.TEMPORARILY_CLOSED);
+        when(recyclingCenterRepository.findAll()).thenReturn(Arrays.asList(lejano, testCenter, cercano, cerrado));
+
+        // Act
+        List<RecyclingCenterDto> result = recyclingCenterService.getNearestCenters(40.7128, -74.0060, 2, null, null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 3L), result.stream().map(RecyclingCenterDto::getId).collect(Collectors.toList()));
+        assertEquals(0.0, result.get(0).getDistanceKm());
+        assertTrue(result.get(1).getDistanceKm() > 0.0);
+    }
+
+    @Test
+    void getNearestCenters_FiltraPorTipoYEstado() {
+        // Arrange
+        RecyclingCenter lejano = centro(2L, 40.7580, -73.9855, RecyclingCenter.CenterType.RECYCLING_CENTER);
+        RecyclingCenter cerrado = centro(4L, 40.7129, -74.0061, RecyclingCenter.CenterType.RECYCLING_CENTER);
+        cerrado.setStatus(RecyclingCenter.CenterStatus.TEMPORARILY_CLOSED);
+        when(recyclingCenterRepository.findAll()).thenReturn(Arrays.asList(lejano, testCenter, cerrado));
+
+        // Act
+        List<RecyclingCenterDto> activos = recyclingCenterService.getNearestCenters(
+            40.7128, -74.0060, 5, RecyclingCenter.CenterType.RECYCLING_CENTER, null);
+        List<RecyclingCenterDto> cerrados = recyclingCenterService.getNearestCenters(
+            40.7128, -74.0060, 5, null, RecyclingCenter.CenterStatus.TEMPORARILY_CLOSED);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L), activos.stream().map(RecyclingCenterDto::getId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(4L), cerrados.stream().map(RecyclingCenterDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void getNearestCenters_ReflejaCambiosPosterioresALaCarga() {
+        // Arrange
+        when(recyclingCenterRepository.findAll()).thenReturn(Arrays.asList(testCenter));
+        recyclingCenterService.getNearestCenters(40.7128, -74.0060, 5, null, null);
+        RecyclingCenter nuevo = centro(5L, 40.7130, -74.0062, RecyclingCenter.CenterType.NGO);
+        when(recyclingCenterRepository.save(any(RecyclingCenter.class))).thenReturn(nuevo);
+
+        // Act
+        recyclingCenterService.createCenter(centerDto);
+        List<RecyclingCenterDto> result = recyclingCenterService.getNearestCenters(40.7128, -74.0060, 5, null, null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 5L), result.stream().map(RecyclingCenterDto::getId).collect(Collectors.toList()));
+        verify(recyclingCenterRepository, times(1)).findAll();
+    }
+
+    @Test
+    void getCentersNearLocation_ConMomento_SoloLosAbiertos() {
+        // Arrange - el 1 abre lunes de 9 a 17, el 3 lunes de 18 a 22 y el 2 no tiene horario
+        RecyclingCenter lejano = centro(2L, 40.7580, -73.9855, RecyclingCenter.CenterType.RECYCLING_CENTER);
+        RecyclingCenter taller = centro(3L, 40.7130, -74.0070, RecyclingCenter.CenterType.REPAIR_WORKSHOP);
+        when(recyclingCenterRepository.findAll()).thenReturn(Arrays.asList(lejano, testCenter, taller));
+        when(openingIntervalRepository.findAllMinutes())
+            .thenReturn(Arrays.asList(new Object[]{1L, 540, 1020}, new Object[]{3L, 1080, 1320}));
+
+        // Act
+        List<RecyclingCenterDto> lunesALasDiez = recyclingCenterService.getCentersNearLocation(
+            40.7128, -74.0060, 10.0, null, LocalDateTime.of(2025, 3, 10, 10, 0));
+        List<RecyclingCenterDto> lunesALasVeinte = recyclingCenterService.getNearestCenters(
+            40.7128, -74.0060, 5, null, null, LocalDateTime.of(2025, 3, 10, 20, 0));
+        List<RecyclingCenterDto> domingo = recyclingCenterService.getCentersNearLocation(
+            40.7128, -74.0060, 10.0, null, LocalDateTime.of(2025, 3, 16, 10, 0));
+
+        // Assert
+        assertEquals(Arrays.asList(1L), lunesALasDiez.stream().map(RecyclingCenterDto::getId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(3L), lunesALasVeinte.stream().map(RecyclingCenterDto::getId).collect(Collectors.toList()));
+        assertTrue(domingo.isEmpty());
+    }
+
+    @Test
+    void updateCenter_ReemplazaLosIntervalosYElIndiceDeAbiertos() {
+        // Arrange
+        when(recyclingCenterRepository.findAll()).thenReturn(Arrays.asList(testCenter));
+        when(openingIntervalRepository.findAllMinutes())
+            .thenReturn(Collections.singletonList(new Object[]{1L, 540, 1020}));
+        when(recyclingCenterRepository.findById(1L)).thenReturn(Optional.of(testCenter));
+        when(recyclingCenterRepository.save(any(RecyclingCenter.class))).thenReturn(testCenter);
+        LocalDateTime sabado = LocalDateTime.of(2025, 3, 15, 11, 0);
+        assertTrue(recyclingCenterService.getCentersNearLocation(40.7128, -74.0060, 10.0, null, sabado).isEmpty());
+        centerDto.setOpeningHours("Sábados 10 a 14");
+
+        // Act
+        recyclingCenterService.updateCenter(1L, centerDto);
+        List<RecyclingCenterDto> result = recyclingCenterService.getCentersNearLocation(
+            40.7128, -74.0060, 10.0, null, sabado);
+
+        // Assert
+        verify(openingIntervalRepository).deleteByCenterId(1L);
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void getNearestCenters_KInvalido_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> recyclingCenterService.getNearestCenters(40.7128, -74.0060, 0, null, null));
+        assertEquals("k debe estar entre 1 y 50", exception.getMessage());
+        verifyNoInteractions(recyclingCenterRepository);
+    }
+
+    @Test
+    void getCentersNearLocation_RadioInvalido_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> recyclingCenterService.getCentersNearLocation(40.7128, -74.0060, 0.0));
+        assertEquals("El radio debe ser mayor que 0 y no superar 500 km", exception.getMessage());
+        verifyNoInteractions(recyclingCenterRepository);
+    }
+
     @Test
     void updateCenter_Success() {
         // Arrange
@@ -184,6 +422,7 @@ class RecyclingCenterServiceTest {
         // Assert
         verify(recyclingCenterRepository, times(1)).save(any(RecyclingCenter.class));
         assertEquals(RecyclingCenter.CenterStatus.INACTIVE, testCenter.getStatus());
+        verify(mapClusterService).registrarCentro(testCenter);
     }
 
     @Test
@@ -212,6 +451,7 @@ class RecyclingCenterServiceTest {
 
         // Assert - debe encontrar el centro en la misma ubicación
         assertEquals(1, result.size());
+        assertEquals(0.0, result.get(0).getDistanceKm());
     }
 
     @Test
@@ -236,5 +476,11 @@ class RecyclingCenterServiceTest {
         assertEquals(testCenter.getStatus(), dto.getStatus());
         assertEquals(testCenter.getOpeningHours(), dto.getOpeningHours());
     }
-}
 
+    private RecyclingCenter centro(Long id, double latitud, double longitud, RecyclingCenter.CenterType tipo) {
+        RecyclingCenter centro = new RecyclingCenter("Centro " + id, "Descripción", "Calle " + id,
+            latitud, longitud, "555-0000", "centro" + id + "@recycling.com", tipo);
+        centro.setId(id);
+        return centro;
+    }
+}
@@ -0,0 +1,144 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.ReportDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportComposerTest {
+
+    private ThreadPoolTaskExecutor ejecutor;
+
+    private PlatformTransactionManager transactionManager;
+
+    private ReportComposer reportComposer;
+
+    @BeforeEach
+    void setUp() {
+        ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(3);
+        ejecutor.setMaxPoolSize(3);
+        ejecutor.setQueueCapacity(10);
+        ejecutor.initialize();
+        reportComposer = new ReportComposer();
+        ReflectionTestUtils.setField(reportComposer, "ejecutor", ejecutor);
+        transactionManager = mock(PlatformTransactionManager.class);
+        ReflectionTestUtils.setField(reportComposer, "transactionManager", transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ejecutor.shutdown();
+    }
+
+    @Test
+    void compose_EjecutaLasSeccionesEnParalelo() {
+        // Arrange: cada sección espera a las otras dos; sólo termina si corren a la vez
+        CountDownLatch juntas = new CountDownLatch(3);
+
+        // Act
+        ReportDto result = reportComposer.compose("Reporte", Arrays.asList(
+                ReportComposer.section("a", () -> esperarYDevolver(juntas, "a", 1L)),
+                ReportComposer.section("b", () -> esperarYDevolver(juntas, "b", 2L)),
+                ReportComposer.section("c", () -> esperarYDevolver(juntas, "c", 3L))));
+
+        // Assert
+        assertEquals("Reporte", result.getTitle());
+        assertEquals(1L, result.getData().get("a"));
+        assertEquals(2L, result.getData().get("b"));
+        assertEquals(3L, result.getData().get("c"));
+        assertFalse(result.getData().containsKey("partial"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void compose_SeccionLenta_VencePorTimeoutYDevuelveElResto() {
+        // Arrange
+        CountDownLatch nunca = new CountDownLatch(1);
+
+        // Act
+        long inicio = System.nanoTime();
+        ReportDto result = reportComposer.compose("Reporte", Arrays.asList(
+                ReportComposer.section("rapida", () -> Collections.singletonMap("rapida", 1L)),
+                ReportComposer.section("lenta", 100, () -> {
+                    nunca.await();
+                    return Collections.singletonMap("lenta", 2L);
+                })));
+        long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        // Assert
+        assertEquals(1L, result.getData().get("rapida"));
+        assertFalse(result.getData().containsKey("lenta"));
+        assertTrue(ReportComposer.isPartial(result));
+        assertEquals("timeout", ((Map<String, String>) result.getData().get("failedSections")).get("lenta"));
+        assertTrue(duracionMs < 5000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void compose_SeccionConError_InformaElMotivo() {
+        // Act
+        ReportDto result = reportComposer.compose("Reporte", Arrays.asList(
+                ReportComposer.section("ok", () -> Collections.singletonMap("ok", true)),
+                ReportComposer.section("rota", () -> {
+                    throw new RuntimeException("base caída");
+                })));
+
+        // Assert
+        assertEquals(true, result.getData().get("ok"));
+        assertEquals("base caída", ((Map<String, String>) result.getData().get("failedSections")).get("rota"));
+    }
+
+    @Test
+    void compose_EjecutorSinCapacidad_CalculaEnElHiloQueCompone() {
+        // Arrange
+        ReflectionTestUtils.setField(reportComposer, "ejecutor", (TaskExecutor) tarea -> {
+            throw new TaskRejectedException("llena");
+        });
+
+        // Act
+        ReportDto result = reportComposer.compose("Reporte", Collections.singletonList(
+                ReportComposer.section("a", () -> Collections.singletonMap("a", 1L))));
+
+        // Assert
+        assertEquals(1L, result.getData().get("a"));
+        assertFalse(ReportComposer.isPartial(result));
+    }
+
+    @Test
+    void compose_SeccionCorreEnTransaccionDeLecturaConTimeoutDeSuLimite() {
+        // Act
+        reportComposer.compose("Reporte", Collections.singletonList(
+                ReportComposer.section("a", 1500, () -> Collections.singletonMap("a", 1L))));
+
+        // Assert: 1500 ms se redondean a 2 s para el timeout de las consultas
+        ArgumentCaptor<TransactionDefinition> captor = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(captor.capture());
+        assertTrue(captor.getValue().isReadOnly());
+        assertEquals(2, captor.getValue().getTimeout());
+    }
+
+    private Map<String, Object> esperarYDevolver(CountDownLatch juntas, String clave, Long valor) throws InterruptedException {
+        juntas.countDown();
+        if (!juntas.await(3, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("las secciones no corrieron en paralelo");
+        }
+        return Collections.singletonMap(clave, valor);
+    }
+}
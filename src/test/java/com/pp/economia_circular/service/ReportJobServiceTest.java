@@ -0,0 +1,239 @@
+package com.pp.economia_circular.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pp.economia_circular.DTO.ReportDto;
+import com.pp.economia_circular.DTO.ReportJobDto;
+import com.pp.economia_circular.DTO.ReportJobRequestDto;
+import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.repositories.ArticleRepository;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+
+    @Mock
+    private ArticleRepository articleRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private ServicioMetricasDiarias servicioMetricasDiarias;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    // Ejecuta el trabajo en el hilo del test
+    @Spy
+    private TaskExecutor ejecutorReportes = new SyncTaskExecutor();
+
+    @InjectMocks
+    private ReportJobService reportJobService;
+
+    @TempDir
+    Path carpeta;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reportJobService, "directorio", carpeta.toString());
+    }
+
+    @Test
+    void submit_Articulos_EscribeCsvEnStreamingYQuedaDisponible() throws Exception {
+        // Arrange
+        LocalDateTime creado = LocalDateTime.of(2024, 3, 1, 10, 0);
+        when(articleRepository.streamArticleExport()).thenReturn(Stream.of(
+                new Object[]{1L, "Silla, de madera", Articulo.CategoriaArticulo.values()[0],
+                        Articulo.CondicionArticulo.values()[0], Articulo.EstadoArticulo.DISPONIBLE, "a@test.com", creado},
+                new Object[]{2L, "=HYPERLINK(\"x\")", null, null, Articulo.EstadoArticulo.DISPONIBLE, "b@test.com", creado}));
+
+        // Act
+        ReportJobDto job = reportJobService.submit(solicitud("articles", null));
+
+        // Assert
+        ReportJobDto estado = reportJobService.getStatus(job.getId());
+        assertEquals("COMPLETED", estado.getStatus());
+        assertEquals(2L, estado.getRows());
+        ReportJobService.ReportJobResult resultado = reportJobService.getResult(job.getId());
+        assertEquals("text/csv; charset=UTF-8", resultado.getContentType());
+        List<String> lineas = Files.readAllLines(resultado.getPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lineas.size());
+        assertEquals("id,title,category,condition,status,ownerEmail,createdAt", lineas.get(0));
+        assertTrue(lineas.get(1).startsWith("1,\"Silla, de madera\","));
+        assertTrue(lineas.get(2).startsWith("2,\"'=HYPERLINK(\"\"x\"\")\",,,DISPONIBLE"));
+        assertEquals(Files.size(resultado.getPath()), estado.getSizeBytes());
+    }
+
+    @Test
+    void submit_TopUsersNdjson_EscribeUnObjetoPorLinea() throws Exception {
+        // Arrange
+        Map<String, Object> fila = new LinkedHashMap<>();
+        fila.put("position", 1);
+        fila.put("userId", 7L);
+        fila.put("email", "u@test.com");
+        fila.put("count", 4L);
+        Map<String, Object> data = new HashMap<>();
+        data.put("ranking", Collections.singletonList(fila));
+        ReportDto ranking = new ReportDto("Reporte de Mejores Usuarios");
+        ranking.setData(data);
+        when(reportService.generateTopUsersReport(ReportService.TopUsersMetric.MESSAGES, 50)).thenReturn(ranking);
+        ReportJobRequestDto solicitud = solicitud("TOP_USERS", "ndjson");
+        solicitud.setMetric("messages");
+        solicitud.setLimit(50);
+
+        // Act
+        ReportJobDto job = reportJobService.submit(solicitud);
+
+        // Assert
+        ReportJobService.ReportJobResult resultado = reportJobService.getResult(job.getId());
+        assertEquals("application/x-ndjson", resultado.getContentType());
+        assertTrue(resultado.getFileName().endsWith(".ndjson"));
+        List<String> lineas = Files.readAllLines(resultado.getPath(), StandardCharsets.UTF_8);
+        assertEquals(Collections.singletonList("{\"position\":1,\"userId\":7,\"email\":\"u@test.com\",\"count\":4}"), lineas);
+    }
+
+    @Test
+    void submit_TipoDesconocido_LanzaExcepcionSinEncolar() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reportJobService.submit(solicitud("ventas", null)));
+        assertEquals("Tipo de reporte no soportado: ventas", exception.getMessage());
+        verify(ejecutorReportes, never()).execute(any());
+    }
+
+    @Test
+    void submit_TendenciasSinFechas_LanzaExcepcion() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reportJobService.submit(solicitud("TRENDS", null)));
+        assertEquals("Debe indicar las fechas desde y hasta", exception.getMessage());
+    }
+
+    @Test
+    void submit_ColaLlena_RechazaYNoRegistraElTrabajo() {
+        // Arrange
+        doThrow(new TaskRejectedException("llena")).when(ejecutorReportes).execute(any());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reportJobService.submit(solicitud("USERS", null)));
+        assertEquals("Hay demasiados reportes en curso, intente más tarde", exception.getMessage());
+        verifyNoInteractions(usuarioRepository);
+    }
+
+    @Test
+    void submit_FalloAlLeer_MarcaFallidoYNoDejaArchivo() throws Exception {
+        // Arrange
+        when(usuarioRepository.streamUserExport()).thenThrow(new RuntimeException("base caída"));
+
+        // Act
+        ReportJobDto job = reportJobService.submit(solicitud("USERS", null));
+
+        // Assert
+        ReportJobDto estado = reportJobService.getStatus(job.getId());
+        assertEquals("FAILED", estado.getStatus());
+        assertEquals("base caída", estado.getError());
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reportJobService.getResult(job.getId()));
+        assertEquals("El reporte todavía no está disponible", exception.getMessage());
+        try (Stream<Path> archivos = Files.list(carpeta)) {
+            assertEquals(0L, archivos.count());
+        }
+    }
+
+    @Test
+    void purgeExpired_BorraTrabajosVencidosYSusArchivos() throws Exception {
+        // Arrange
+        when(usuarioRepository.streamUserExport()).thenReturn(Stream.empty());
+        ReportJobDto job = reportJobService.submit(solicitud("USERS", null));
+        Path archivo = reportJobService.getResult(job.getId()).getPath();
+        ReflectionTestUtils.setField(reportJobService, "retencionMinutos", -1L);
+
+        // Act
+        reportJobService.purgeExpired();
+
+        // Assert
+        assertFalse(Files.exists(archivo));
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reportJobService.getStatus(job.getId()));
+        assertEquals("Reporte no encontrado", exception.getMessage());
+    }
+
+    @Test
+    void submit_MemoriaLlena_DesalojaElTerminadoMasViejoYBorraSuArchivo() throws Exception {
+        // Arrange
+        when(usuarioRepository.streamUserExport()).thenAnswer(invocacion -> Stream.empty());
+        ReportJobDto primero = reportJobService.submit(solicitud("USERS", null));
+        Path archivo = reportJobService.getResult(primero.getId()).getPath();
+        for (int i = 1; i < 100; i++) {
+            reportJobService.submit(solicitud("USERS", null));
+        }
+
+        // Act
+        ReportJobDto nuevo = reportJobService.submit(solicitud("USERS", null));
+
+        // Assert
+        assertEquals("COMPLETED", reportJobService.getStatus(nuevo.getId()).getStatus());
+        assertFalse(Files.exists(archivo));
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reportJobService.getStatus(primero.getId()));
+        assertEquals("Reporte no encontrado", exception.getMessage());
+    }
+
+    @Test
+    void submit_MemoriaLlenaDeTrabajosActivos_RechazaSinDesalojarlos() {
+        // Arrange: el ejecutor acepta pero no corre nada, los trabajos quedan en cola
+        doNothing().when(ejecutorReportes).execute(any());
+        ReportJobDto primero = reportJobService.submit(solicitud("USERS", null));
+        for (int i = 1; i < 100; i++) {
+            reportJobService.submit(solicitud("USERS", null));
+        }
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reportJobService.submit(solicitud("USERS", null)));
+        assertEquals("Hay demasiados reportes en curso, intente más tarde", exception.getMessage());
+        assertEquals("QUEUED", reportJobService.getStatus(primero.getId()).getStatus());
+    }
+
+    private ReportJobRequestDto solicitud(String tipo, String formato) {
+        ReportJobRequestDto solicitud = new ReportJobRequestDto();
+        solicitud.setType(tipo);
+        solicitud.setFormat(formato);
+        return solicitud;
+    }
+}
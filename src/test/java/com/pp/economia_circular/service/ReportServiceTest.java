@@ -0,0 +1,351 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.ReportDto;
+import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.entity.ImpactoAcumulado;
+import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.repositories.ArticleRepository;
+import com.pp.economia_circular.repositories.ImpactoAcumuladoRepository;
+import com.pp.economia_circular.repositories.MensajeArchivadoRepository;
+import com.pp.economia_circular.repositories.MensajeRepository;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cada reporte debe resolverse con un número fijo de consultas de agregación,
+ * sin cargar entidades: cualquier otra llamada a los repositorios hace fallar el test.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ArticleRepository articleRepository;
+
+    @Mock
+    private MensajeRepository mensajeRepository;
+
+    @Mock
+    private MensajeArchivadoRepository mensajeArchivadoRepository;
+
+    @Mock
+    private ImpactoAcumuladoRepository impactoAcumuladoRepository;
+
+    @Spy
+    private ReportComposer reportComposer = new ReportComposer();
+
+    @InjectMocks
+    private ReportService reportService;
+
+    @BeforeEach
+    void setUp() {
+        // Secciones en el hilo del test
+        ReflectionTestUtils.setField(reportComposer, "ejecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(reportComposer, "transactionManager", mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void sinOtrasConsultas() {
+        verifyNoMoreInteractions(usuarioRepository, articleRepository, mensajeRepository,
+            mensajeArchivadoRepository, impactoAcumuladoRepository);
+    }
+
+    @Test
+    void generateUserReport_UnaSolaAgregacion() {
+        // Arrange
+        when(usuarioRepository.countGroupedByActivo()).thenReturn(Arrays.asList(
+            new Object[]{true, 7L},
+            new Object[]{false, 3L}));
+
+        // Act
+        ReportDto result = reportService.generateUserReport();
+
+        // Assert
+        assertEquals(10L, result.getData().get("totalUsers"));
+        assertEquals(7L, result.getData().get("activeUsers"));
+        verify(usuarioRepository, times(1)).countGroupedByActivo();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateArticleReport_DosAgregaciones() {
+        // Arrange
+        when(articleRepository.countGroupedByEstado()).thenReturn(Arrays.asList(
+            new Object[]{Articulo.EstadoArticulo.DISPONIBLE, 5L},
+            new Object[]{Articulo.EstadoArticulo.INTERCAMBIADO, 2L},
+            new Object[]{Articulo.EstadoArticulo.ELIMINADO, 1L}));
+        when(articleRepository.countAvailableGroupedByCategoriaAndCondicion()).thenReturn(Arrays.asList(
+            new Object[]{Articulo.CategoriaArticulo.LIBROS, Articulo.CondicionArticulo.BUENO, 3L},
+            new Object[]{Articulo.CategoriaArticulo.LIBROS, Articulo.CondicionArticulo.NUEVO, 1L},
+            new Object[]{Articulo.CategoriaArticulo.ROPA, Articulo.CondicionArticulo.BUENO, 1L}));
+
+        // Act
+        ReportDto result = reportService.generateArticleReport();
+
+        // Assert
+        Map<String, Object> data = result.getData();
+        assertEquals(8L, data.get("totalArticles"));
+        assertEquals(5L, data.get("availableArticles"));
+        assertEquals(2L, data.get("exchangedArticles"));
+        Map<String, Long> byCategory = (Map<String, Long>) data.get("articlesByCategory");
+        assertEquals(Articulo.CategoriaArticulo.values().length, byCategory.size());
+        assertEquals(4L, byCategory.get("LIBROS"));
+        assertEquals(1L, byCategory.get("ROPA"));
+        assertEquals(0L, byCategory.get("MUEBLES"));
+        Map<String, Long> byCondition = (Map<String, Long>) data.get("articlesByCondition");
+        assertEquals(4L, byCondition.get("BUENO"));
+        assertEquals(1L, byCondition.get("NUEVO"));
+        assertEquals(0L, byCondition.get("MALO"));
+        verify(articleRepository, times(1)).countGroupedByEstado();
+        verify(articleRepository, times(1)).countAvailableGroupedByCategoriaAndCondicion();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateArticleReport_SeccionFallida_DevuelveResultadoParcial() {
+        // Arrange
+        when(articleRepository.countGroupedByEstado()).thenReturn(Collections.singletonList(
+            new Object[]{Articulo.EstadoArticulo.DISPONIBLE, 5L}));
+        when(articleRepository.countAvailableGroupedByCategoriaAndCondicion()).thenThrow(new RuntimeException("base caída"));
+
+        // Act
+        ReportDto result = reportService.generateArticleReport();
+
+        // Assert
+        assertEquals(5L, result.getData().get("totalArticles"));
+        assertFalse(result.getData().containsKey("articlesByCategory"));
+        assertEquals(true, result.getData().get("partial"));
+        Map<String, String> fallidas = (Map<String, String>) result.getData().get("failedSections");
+        assertEquals("base caída", fallidas.get("availableArticlesBreakdown"));
+        verify(articleRepository, times(1)).countGroupedByEstado();
+        verify(articleRepository, times(1)).countAvailableGroupedByCategoriaAndCondicion();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateOverviewReport_UnaAgregacionPorSeccion() {
+        // Arrange
+        when(usuarioRepository.countGroupedByActivo()).thenReturn(Collections.singletonList(new Object[]{true, 4L}));
+        when(articleRepository.countGroupedByEstado()).thenReturn(Collections.singletonList(
+            new Object[]{Articulo.EstadoArticulo.INTERCAMBIADO, 2L}));
+        when(articleRepository.countAvailableGroupedByCategoriaAndCondicion()).thenReturn(Collections.emptyList());
+        when(mensajeRepository.countGroupedByEstado()).thenReturn(Collections.singletonList(
+            new Object[]{Mensaje.EstadoMensaje.NO_LEIDO, 3L}));
+
+        // Act
+        ReportDto result = reportService.generateOverviewReport();
+
+        // Assert
+        assertEquals("Resumen General", result.getTitle());
+        assertFalse(result.getData().containsKey("partial"));
+        assertEquals(4L, ((Map<String, Object>) result.getData().get("users")).get("activeUsers"));
+        assertEquals(2L, ((Map<String, Object>) result.getData().get("articles")).get("exchangedArticles"));
+        assertEquals(3L, ((Map<String, Object>) result.getData().get("messages")).get("unreadMessages"));
+        assertTrue(((Map<String, Object>) result.getData().get("availableArticles")).containsKey("articlesByCondition"));
+        verify(usuarioRepository, times(1)).countGroupedByActivo();
+        verify(articleRepository, times(1)).countGroupedByEstado();
+        verify(articleRepository, times(1)).countAvailableGroupedByCategoriaAndCondicion();
+        verify(mensajeRepository, times(1)).countGroupedByEstado();
+        verify(mensajeArchivadoRepository, times(1)).countGroupedByEstado();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateTopUsersReport_SeleccionaTopKDeUnaConsultaAgrupada() {
+        // Arrange
+        when(articleRepository.streamCountGroupedByUser(Articulo.EstadoArticulo.DISPONIBLE)).thenReturn(Stream.of(
+            new Object[]{1L, 2L},
+            new Object[]{2L, 9L},
+            new Object[]{3L, 5L},
+            new Object[]{4L, 9L}));
+        when(usuarioRepository.findEmailsByIds(Arrays.asList(2L, 4L))).thenReturn(Arrays.asList(
+            new Object[]{2L, "ana@example.com"},
+            new Object[]{4L, "luis@example.com"}));
+
+        // Act
+        ReportDto result = reportService.generateTopUsersReport(ReportService.TopUsersMetric.AVAILABLE_ARTICLES, 2);
+
+        // Assert
+        List<Map<String, Object>> ranking = (List<Map<String, Object>>) result.getData().get("ranking");
+        assertEquals(2, ranking.size());
+        // Empate en 9: gana el id menor
+        assertEquals(2L, ranking.get(0).get("userId"));
+        assertEquals("ana@example.com", ranking.get(0).get("email"));
+        assertEquals(4L, ranking.get(1).get("userId"));
+        assertEquals(9L, ranking.get(1).get("count"));
+        Map<String, Long> byUser = (Map<String, Long>) result.getData().get("usersByArticleCount");
+        assertEquals(Arrays.asList("ana@example.com", "luis@example.com"), new ArrayList<>(byUser.keySet()));
+        verify(articleRepository, times(1)).streamCountGroupedByUser(Articulo.EstadoArticulo.DISPONIBLE);
+        verify(usuarioRepository, times(1)).findEmailsByIds(Arrays.asList(2L, 4L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateTopUsersReport_PorMensajes() {
+        // Arrange
+        // Consulta nativa: MySQL devuelve BIGINT y SUM como tipos numéricos propios
+        when(mensajeRepository.streamCountSentGroupedByUser()).thenReturn(Stream.of(
+            new Object[]{BigInteger.valueOf(7), BigDecimal.valueOf(120)}));
+        when(usuarioRepository.findEmailsByIds(Collections.singletonList(7L))).thenReturn(
+            Collections.singletonList(new Object[]{7L, "eva@example.com"}));
+
+        // Act
+        ReportDto result = reportService.generateTopUsersReport(ReportService.TopUsersMetric.MESSAGES, 10);
+
+        // Assert
+        List<Map<String, Object>> ranking = (List<Map<String, Object>>) result.getData().get("ranking");
+        assertEquals(1, ranking.size());
+        assertEquals(120L, ranking.get(0).get("count"));
+        assertFalse(result.getData().containsKey("usersByArticleCount"));
+        verify(mensajeRepository, times(1)).streamCountSentGroupedByUser();
+        verify(usuarioRepository, times(1)).findEmailsByIds(Collections.singletonList(7L));
+    }
+
+    @Test
+    void generateTopUsersReport_LimiteInvalido_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> reportService.generateTopUsersReport(ReportService.TopUsersMetric.AVAILABLE_ARTICLES, 0));
+        assertEquals("El límite debe estar entre 1 y 1000", exception.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateTopArticlesReport_ProyeccionLimitada() {
+        // Arrange
+        LocalDateTime creado = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(articleRepository.findAvailableArticleSummaries(any(Pageable.class))).thenReturn(Collections.singletonList(
+            new Object[]{"Bicicleta", Articulo.CategoriaArticulo.DEPORTES, "ana@example.com", creado}));
+
+        // Act
+        ReportDto result = reportService.generateTopArticlesReport();
+
+        // Assert
+        Map<String, Object> popular = (Map<String, Object>) result.getData().get("popularArticles");
+        Map<String, Object> first = (Map<String, Object>) popular.get("article_1");
+        assertEquals("Bicicleta", first.get("title"));
+        assertEquals("ana@example.com", first.get("user"));
+        assertEquals(creado, first.get("createdAt"));
+        verify(articleRepository, times(1)).findAvailableArticleSummaries(any(Pageable.class));
+    }
+
+    @Test
+    void generateCommunicationReport_UnaSolaAgregacion() {
+        // Arrange
+        when(mensajeRepository.countGroupedByEstado()).thenReturn(Arrays.asList(
+            new Object[]{Mensaje.EstadoMensaje.NO_LEIDO, 4L},
+            new Object[]{Mensaje.EstadoMensaje.LEIDO, 10L},
+            new Object[]{Mensaje.EstadoMensaje.ELIMINADO, 1L}));
+
+        // Act
+        ReportDto result = reportService.generateCommunicationReport();
+
+        // Assert
+        assertEquals(15L, result.getData().get("totalMessages"));
+        assertEquals(4L, result.getData().get("unreadMessages"));
+        assertEquals(10L, result.getData().get("readMessages"));
+        verify(mensajeRepository, times(1)).countGroupedByEstado();
+        verify(mensajeArchivadoRepository, times(1)).countGroupedByEstado();
+    }
+
+    @Test
+    void generateCommunicationReport_SumaLosMensajesArchivados() {
+        // Arrange: antes de archivar había 4 no leídos, 10 leídos y 1 eliminado;
+        // el archivo se llevó 6 leídos y el eliminado
+        when(mensajeRepository.countGroupedByEstado()).thenReturn(Arrays.asList(
+            new Object[]{Mensaje.EstadoMensaje.NO_LEIDO, 4L},
+            new Object[]{Mensaje.EstadoMensaje.LEIDO, 4L}));
+        when(mensajeArchivadoRepository.countGroupedByEstado()).thenReturn(Arrays.asList(
+            new Object[]{Mensaje.EstadoMensaje.LEIDO, 6L},
+            new Object[]{Mensaje.EstadoMensaje.ELIMINADO, 1L}));
+
+        // Act
+        ReportDto result = reportService.generateCommunicationReport();
+
+        // Assert
+        assertEquals(15L, result.getData().get("totalMessages"));
+        assertEquals(4L, result.getData().get("unreadMessages"));
+        assertEquals(10L, result.getData().get("readMessages"));
+        verify(mensajeRepository, times(1)).countGroupedByEstado();
+        verify(mensajeArchivadoRepository, times(1)).countGroupedByEstado();
+    }
+
+    @Test
+    void generateCommunicationReport_SinMensajes_DevuelveCeros() {
+        // Arrange
+        when(mensajeRepository.countGroupedByEstado()).thenReturn(Collections.emptyList());
+
+        // Act
+        ReportDto result = reportService.generateCommunicationReport();
+
+        // Assert
+        assertEquals(0L, result.getData().get("totalMessages"));
+        assertEquals(0L, result.getData().get("unreadMessages"));
+        verify(mensajeRepository, times(1)).countGroupedByEstado();
+        verify(mensajeArchivadoRepository, times(1)).countGroupedByEstado();
+    }
+
+    @Test
+    void generateEnvironmentalImpactReport_LeeTotalGlobal() {
+        // Arrange
+        ImpactoAcumulado global = new ImpactoAcumulado(ImpactoAcumulado.GLOBAL);
+        global.setArticulos(10L);
+        global.setCo2Kg(52.0);
+        global.setResiduosKg(21.0);
+        global.setRecursos(15.0);
+        when(impactoAcumuladoRepository.findById(ImpactoAcumulado.GLOBAL)).thenReturn(Optional.of(global));
+
+        // Act
+        ReportDto result = reportService.generateEnvironmentalImpactReport();
+
+        // Assert
+        assertEquals(10L, result.getData().get("exchangedArticles"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> impacto = (Map<String, Object>) result.getData().get("environmentalImpact");
+        assertEquals(52.0, impacto.get("co2SavedKg"));
+        assertEquals(21.0, impacto.get("wasteReducedKg"));
+        assertEquals(15.0, impacto.get("resourcesSaved"));
+        verify(impactoAcumuladoRepository, times(1)).findById(ImpactoAcumulado.GLOBAL);
+    }
+
+    @Test
+    void generateEnvironmentalImpactReport_SinIntercambios_DevuelveCero() {
+        // Arrange
+        when(impactoAcumuladoRepository.findById(ImpactoAcumulado.GLOBAL)).thenReturn(Optional.empty());
+
+        // Act
+        ReportDto result = reportService.generateEnvironmentalImpactReport();
+
+        // Assert
+        assertEquals(0L, result.getData().get("exchangedArticles"));
+        verify(impactoAcumuladoRepository, times(1)).findById(ImpactoAcumulado.GLOBAL);
+    }
+}
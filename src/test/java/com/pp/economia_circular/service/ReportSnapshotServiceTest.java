@@ -0,0 +1,250 @@
+package com.pp.economia_circular.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pp.economia_circular.DTO.ReportDto;
+import com.pp.economia_circular.entity.Articulo;
+import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.entity.ReportSnapshot;
+import com.pp.economia_circular.repositories.ReportSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportSnapshotServiceTest {
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private ReportSnapshotRepository snapshotRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    private ReportChangeTracker reportChangeTracker = new ReportChangeTracker();
+
+    @InjectMocks
+    private ReportSnapshotService reportSnapshotService;
+
+    @Test
+    void getReport_SinSnapshot_CalculaUnaVezYPersiste() {
+        // Arrange
+        when(snapshotRepository.findById("communication")).thenReturn(Optional.empty());
+        when(reportService.generateCommunicationReport()).thenReturn(reporte("Reporte de Comunicación", LocalDateTime.now()));
+
+        // Act
+        ReportDto primera = reportSnapshotService.getReport(ReportType.COMMUNICATION);
+        ReportDto segunda = reportSnapshotService.getReport(ReportType.COMMUNICATION);
+
+        // Assert
+        assertSame(primera, segunda);
+        verify(reportService, times(1)).generateCommunicationReport();
+        ArgumentCaptor<ReportSnapshot> captor = ArgumentCaptor.forClass(ReportSnapshot.class);
+        verify(snapshotRepository).save(captor.capture());
+        assertEquals("communication", captor.getValue().getReportKey());
+        assertTrue(captor.getValue().getDataJson().contains("totalMessages"));
+    }
+
+    @Test
+    void getReport_ConSnapshotPersistido_NoRecalcula() {
+        // Arrange
+        LocalDateTime generadoEn = LocalDateTime.now().minusMinutes(3);
+        when(snapshotRepository.findById("users")).thenReturn(Optional.of(
+                new ReportSnapshot("users", "Reporte de Usuarios", generadoEn, "{\"totalUsers\":5}")));
+
+        // Act
+        ReportDto result = reportSnapshotService.getReport(ReportType.USERS);
+
+        // Assert
+        assertEquals(generadoEn, result.getGeneratedAt());
+        assertEquals(5, result.getData().get("totalUsers"));
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void getTopUsers_DentroDelSnapshot_RecortaSinConsultar() {
+        // Arrange
+        when(snapshotRepository.findById("top-users:AVAILABLE_ARTICLES")).thenReturn(Optional.empty());
+        when(reportService.generateTopUsersReport(ReportService.TopUsersMetric.AVAILABLE_ARTICLES, ReportSnapshotService.SNAPSHOT_TOP_USERS))
+                .thenReturn(ranking(5));
+        reportSnapshotService.getReport(ReportType.TOP_USERS_AVAILABLE_ARTICLES);
+
+        // Act
+        ReportDto result = reportSnapshotService.getTopUsers(ReportService.TopUsersMetric.AVAILABLE_ARTICLES, 2);
+
+        // Assert
+        assertEquals(2, result.getData().get("limit"));
+        assertEquals(2, ((List<?>) result.getData().get("ranking")).size());
+        assertEquals(2, ((Map<?, ?>) result.getData().get("usersByArticleCount")).size());
+        verify(reportService, times(1)).generateTopUsersReport(any(), anyInt());
+    }
+
+    @Test
+    void getTopUsers_LimiteAlto_TambienSaleDelSnapshot() {
+        // Arrange
+        when(snapshotRepository.findById("top-users:MESSAGES")).thenReturn(Optional.empty());
+        when(reportService.generateTopUsersReport(ReportService.TopUsersMetric.MESSAGES, ReportSnapshotService.SNAPSHOT_TOP_USERS))
+                .thenReturn(ranking(600));
+        reportSnapshotService.getReport(ReportType.TOP_USERS_MESSAGES);
+
+        // Act
+        ReportDto result = reportSnapshotService.getTopUsers(ReportService.TopUsersMetric.MESSAGES, 500);
+
+        // Assert
+        assertEquals(500, ((List<?>) result.getData().get("ranking")).size());
+        verify(reportService, times(1)).generateTopUsersReport(any(), anyInt());
+    }
+
+    @Test
+    void getTopUsers_LimiteFueraDeRango_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> reportSnapshotService.getTopUsers(ReportService.TopUsersMetric.MESSAGES, 1001));
+        assertEquals("El límite debe estar entre 1 y 1000", exception.getMessage());
+        verifyNoInteractions(reportService, snapshotRepository);
+    }
+
+    @Test
+    void refreshDueReports_SnapshotsFrescosSinCambios_NoRecalcula() {
+        // Arrange
+        cargarSnapshotsCon(LocalDateTime.now());
+
+        // Act
+        reportSnapshotService.refreshDueReports();
+
+        // Assert
+        verifyNoInteractions(reportService);
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void refreshDueReports_SnapshotVencido_Recalcula() {
+        // Arrange
+        cargarSnapshotsCon(LocalDateTime.now().minusMinutes(6));
+        when(reportService.generateTopArticlesReport()).thenReturn(reporte("Reporte de Artículos Más Recientes", LocalDateTime.now()));
+        when(reportService.generateCommunicationReport()).thenReturn(reporte("Reporte de Comunicación", LocalDateTime.now()));
+
+        // Act
+        reportSnapshotService.refreshDueReports();
+
+        // Assert: sólo los que toleran 5 minutos
+        verify(reportService).generateTopArticlesReport();
+        verify(reportService).generateCommunicationReport();
+        verify(reportService, never()).generateUserReport();
+        verify(snapshotRepository, times(2)).save(any());
+    }
+
+    @Test
+    void refreshDueReports_CambioEnEntidad_RecalculaSoloLosAfectados() {
+        // Arrange
+        cargarSnapshotsCon(LocalDateTime.now().minusMinutes(1));
+        reportChangeTracker.markChanged(Mensaje.class);
+        when(reportService.generateCommunicationReport()).thenReturn(reporte("Reporte de Comunicación", LocalDateTime.now()));
+        when(reportService.generateTopUsersReport(ReportService.TopUsersMetric.MESSAGES, ReportSnapshotService.SNAPSHOT_TOP_USERS))
+                .thenReturn(ranking(1));
+        when(reportService.generateOverviewReport()).thenReturn(reporte("Resumen General", LocalDateTime.now()));
+
+        // Act
+        reportSnapshotService.refreshDueReports();
+
+        // Assert
+        verify(reportService).generateCommunicationReport();
+        verify(reportService).generateTopUsersReport(ReportService.TopUsersMetric.MESSAGES, ReportSnapshotService.SNAPSHOT_TOP_USERS);
+        verify(reportService).generateOverviewReport();
+        verifyNoMoreInteractions(reportService);
+        assertFalse(reportChangeTracker.isDirty(ReportType.COMMUNICATION));
+    }
+
+    @Test
+    void refresh_FalloAlCalcular_ConservaSnapshotYVuelveAMarcar() {
+        // Arrange
+        cargarSnapshotsCon(LocalDateTime.now().minusMinutes(1));
+        ReportDto anterior = reportSnapshotService.getReport(ReportType.ARTICLES);
+        reportChangeTracker.markChanged(Articulo.class);
+        when(reportService.generateArticleReport()).thenThrow(new RuntimeException("base caída"));
+
+        // Act
+        reportSnapshotService.refresh(ReportType.ARTICLES);
+
+        // Assert
+        assertSame(anterior, reportSnapshotService.getReport(ReportType.ARTICLES));
+        assertTrue(reportChangeTracker.isDirty(ReportType.ARTICLES));
+    }
+
+    @Test
+    void refresh_ResultadoParcial_NoPisaSnapshotNiPersiste() {
+        // Arrange
+        cargarSnapshotsCon(LocalDateTime.now().minusMinutes(11));
+        ReportDto anterior = reportSnapshotService.getReport(ReportType.OVERVIEW);
+        ReportDto parcial = reporte("Resumen General", LocalDateTime.now());
+        parcial.getData().put("partial", true);
+        when(reportService.generateOverviewReport()).thenReturn(parcial);
+
+        // Act
+        reportSnapshotService.refresh(ReportType.OVERVIEW);
+
+        // Assert
+        assertSame(anterior, reportSnapshotService.getReport(ReportType.OVERVIEW));
+        assertTrue(reportChangeTracker.isDirty(ReportType.OVERVIEW));
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    private void cargarSnapshotsCon(LocalDateTime generadoEn) {
+        List<ReportSnapshot> filas = new ArrayList<>();
+        for (ReportType type : ReportType.values()) {
+            filas.add(new ReportSnapshot(type.getKey(), "Reporte", generadoEn, "{}"));
+        }
+        when(snapshotRepository.findAll()).thenReturn(filas);
+        reportSnapshotService.cargarPersistidos();
+    }
+
+    private ReportDto reporte(String titulo, LocalDateTime generadoEn) {
+        ReportDto report = new ReportDto(titulo);
+        report.setGeneratedAt(generadoEn);
+        Map<String, Object> data = new HashMap<>();
+        data.put("totalMessages", 3L);
+        report.setData(data);
+        return report;
+    }
+
+    private ReportDto ranking(int cantidad) {
+        List<Map<String, Object>> filas = new ArrayList<>();
+        Map<String, Long> porEmail = new LinkedHashMap<>();
+        for (int i = 1; i <= cantidad; i++) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("position", i);
+            fila.put("userId", (long) i);
+            fila.put("email", "u" + i + "@test.com");
+            fila.put("count", (long) (cantidad - i + 1));
+            filas.add(fila);
+            porEmail.put("u" + i + "@test.com", (long) (cantidad - i + 1));
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("metric", "AVAILABLE_ARTICLES");
+        data.put("limit", ReportSnapshotService.SNAPSHOT_TOP_USERS);
+        data.put("ranking", filas);
+        data.put("usersByArticleCount", porEmail);
+        ReportDto report = new ReportDto("Reporte de Mejores Usuarios");
+        report.setData(data);
+        return report;
+    }
+}
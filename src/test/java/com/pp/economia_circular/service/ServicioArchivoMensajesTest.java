@@ -0,0 +1,114 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.repositories.MensajeArchivadoRepository;
+import com.pp.economia_circular.repositories.MensajeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServicioArchivoMensajesTest {
+
+    @Mock
+    private MensajeRepository mensajeRepository;
+
+    @Mock
+    private MensajeArchivadoRepository mensajeArchivadoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ReportChangeTracker reportChangeTracker;
+
+    @InjectMocks
+    private ServicioArchivoMensajes servicioArchivoMensajes;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(servicioArchivoMensajes, "tamanioLote", 2);
+        ReflectionTestUtils.setField(servicioArchivoMensajes, "pausaMs", 0L);
+    }
+
+    @Test
+    void archivar_RecorreLotesPorIdHastaAgotar() {
+        // Arrange
+        List<Long> primerLote = Arrays.asList(3L, 8L);
+        List<Long> segundoLote = Collections.singletonList(15L);
+        when(mensajeRepository.findIdsArchivables(eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(primerLote);
+        when(mensajeRepository.findIdsArchivables(eq(8L), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(segundoLote);
+        when(mensajeRepository.borrarPorIds(primerLote)).thenReturn(2);
+        when(mensajeRepository.borrarPorIds(segundoLote)).thenReturn(1);
+
+        // Act
+        int result = servicioArchivoMensajes.archivar();
+
+        // Assert
+        assertEquals(3, result);
+        verify(mensajeArchivadoRepository).copiarDesdeMensajes(eq(primerLote), any(LocalDateTime.class));
+        verify(mensajeArchivadoRepository).copiarDesdeMensajes(eq(segundoLote), any(LocalDateTime.class));
+        // Lote incompleto: no hace falta otra consulta
+        verify(mensajeRepository, times(2)).findIdsArchivables(any(), any(), any());
+    }
+
+    @Test
+    void archivar_SinCandidatos_NoAbreTransacciones() {
+        // Arrange
+        when(mensajeRepository.findIdsArchivables(eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+
+        // Act
+        int result = servicioArchivoMensajes.archivar();
+
+        // Assert
+        assertEquals(0, result);
+        verifyNoInteractions(transactionManager, mensajeArchivadoRepository);
+    }
+
+    @Test
+    void archivarProgramado_Deshabilitado_NoHaceNada() {
+        // Arrange
+        ReflectionTestUtils.setField(servicioArchivoMensajes, "habilitado", false);
+
+        // Act
+        servicioArchivoMensajes.archivarProgramado();
+
+        // Assert
+        verifyNoInteractions(mensajeRepository, mensajeArchivadoRepository);
+    }
+
+    @Test
+    void archivar_RespetaMaximoDeLotesPorEjecucion() {
+        // Arrange
+        ReflectionTestUtils.setField(servicioArchivoMensajes, "maxLotesPorEjecucion", 1);
+        List<Long> lote = Arrays.asList(1L, 2L);
+        when(mensajeRepository.findIdsArchivables(eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(lote);
+        when(mensajeRepository.borrarPorIds(lote)).thenReturn(2);
+
+        // Act
+        int result = servicioArchivoMensajes.archivar();
+
+        // Assert
+        assertEquals(2, result);
+        verify(mensajeRepository, times(1)).findIdsArchivables(any(), any(), any());
+    }
+}
@@ -0,0 +1,282 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.PaginaBandejaDto;
+import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.entity.MensajeArchivado;
+import com.pp.economia_circular.entity.ResumenConversacion;
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.MensajeArchivadoRepository;
+import com.pp.economia_circular.repositories.MensajeRepository;
+import com.pp.economia_circular.repositories.ResumenConversacionRepository;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServicioBandejaEntradaTest {
+
+    @Mock
+    private ResumenConversacionRepository resumenRepository;
+
+    @Mock
+    private MensajeRepository mensajeRepository;
+
+    @Mock
+    private MensajeArchivadoRepository mensajeArchivadoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @InjectMocks
+    private ServicioBandejaEntrada servicioBandejaEntrada;
+
+    private Mensaje mensaje;
+
+    @BeforeEach
+    void setUp() {
+        Usuario remitente = new Usuario();
+        remitente.setId(1L);
+        Usuario destinatario = new Usuario();
+        destinatario.setId(2L);
+
+        mensaje = new Mensaje();
+        mensaje.setId(10L);
+        mensaje.setContenido("Hola, ¿sigue disponible?");
+        mensaje.setRemitente(remitente);
+        mensaje.setDestinatario(destinatario);
+        mensaje.setCreadoEn(LocalDateTime.now());
+    }
+
+    @Test
+    void registrarEnvio_CreaUnaFilaPorParticipante() {
+        // Arrange
+        filasNuevas();
+
+        // Act
+        servicioBandejaEntrada.registrarEnvio(mensaje);
+
+        // Assert
+        ArgumentCaptor<ResumenConversacion> captor = ArgumentCaptor.forClass(ResumenConversacion.class);
+        verify(resumenRepository, times(2)).save(captor.capture());
+        ResumenConversacion delRemitente = captor.getAllValues().get(0);
+        ResumenConversacion delDestinatario = captor.getAllValues().get(1);
+        assertEquals("1:2:0", delRemitente.getClave());
+        assertEquals(0, delRemitente.getNoLeidos());
+        assertEquals("2:1:0", delDestinatario.getClave());
+        assertEquals(1, delDestinatario.getNoLeidos());
+        assertEquals("Hola, ¿sigue disponible?", delDestinatario.getVistaPrevia());
+        assertEquals(10L, delDestinatario.getUltimoMensajeId());
+    }
+
+    @Test
+    void registrarEnvio_ContenidoLargo_RecortaVistaPrevia() {
+        // Arrange
+        StringBuilder largo = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            largo.append('x');
+        }
+        mensaje.setContenido(largo.toString());
+        filasNuevas();
+
+        // Act
+        servicioBandejaEntrada.registrarEnvio(mensaje);
+
+        // Assert
+        ArgumentCaptor<ResumenConversacion> captor = ArgumentCaptor.forClass(ResumenConversacion.class);
+        verify(resumenRepository, times(2)).save(captor.capture());
+        assertEquals(ResumenConversacion.LARGO_VISTA_PREVIA, captor.getValue().getVistaPrevia().length());
+    }
+
+    @Test
+    void registrarEnvio_CreaSinFallarSiOtraTransaccionYaCreoLaFila() {
+        // Arrange - la fila del destinatario ya la creó un envío concurrente
+        ResumenConversacion existente = new ResumenConversacion(2L, 1L, null);
+        existente.setNoLeidos(1);
+        when(resumenRepository.findByClaveParaActualizar("1:2:0"))
+            .thenReturn(Optional.of(new ResumenConversacion(1L, 2L, null)));
+        when(resumenRepository.findByClaveParaActualizar("2:1:0")).thenReturn(Optional.of(existente));
+
+        // Act
+        servicioBandejaEntrada.registrarEnvio(mensaje);
+
+        // Assert - se intenta crear siempre y se actualiza lo que haya quedado
+        verify(resumenRepository).crearSiNoExiste("1:2:0", 1L, 2L, null);
+        verify(resumenRepository).crearSiNoExiste("2:1:0", 2L, 1L, null);
+        assertEquals(2, existente.getNoLeidos());
+    }
+
+    @Test
+    void registrarEnvio_BloqueaLasFilasEnOrdenDeClave() {
+        // Arrange - el remitente tiene la clave mayor
+        mensaje.getRemitente().setId(3L);
+        when(resumenRepository.findByClaveParaActualizar("2:3:0"))
+            .thenReturn(Optional.of(new ResumenConversacion(2L, 3L, null)));
+        when(resumenRepository.findByClaveParaActualizar("3:2:0"))
+            .thenReturn(Optional.of(new ResumenConversacion(3L, 2L, null)));
+
+        // Act
+        servicioBandejaEntrada.registrarEnvio(mensaje);
+
+        // Assert
+        InOrder orden = inOrder(resumenRepository);
+        orden.verify(resumenRepository).findByClaveParaActualizar("2:3:0");
+        orden.verify(resumenRepository).findByClaveParaActualizar("3:2:0");
+    }
+
+    @Test
+    void registrarLectura_DescuentaNoLeidosSinBajarDeCero() {
+        // Arrange
+        ResumenConversacion resumen = new ResumenConversacion(2L, 1L, null);
+        resumen.setNoLeidos(0);
+        when(resumenRepository.findByClaveParaActualizar("2:1:0")).thenReturn(Optional.of(resumen));
+
+        // Act
+        servicioBandejaEntrada.registrarLectura(mensaje);
+
+        // Assert
+        assertEquals(0, resumen.getNoLeidos());
+        verify(resumenRepository, times(1)).save(resumen);
+    }
+
+    @Test
+    void registrarEliminacion_DelUltimoMensaje_SinOtrosMensajes_BorraResumen() {
+        // Arrange
+        ResumenConversacion delDestinatario = new ResumenConversacion(2L, 1L, null);
+        delDestinatario.registrarUltimoMensaje(mensaje);
+        delDestinatario.setNoLeidos(1);
+        when(resumenRepository.findByClaveParaActualizar("2:1:0")).thenReturn(Optional.of(delDestinatario));
+        when(resumenRepository.findByClaveParaActualizar("1:2:0")).thenReturn(Optional.empty());
+        when(mensajeRepository.findUltimosMensajesDeConversacion(eq("1:2"), isNull(), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+
+        // Act
+        servicioBandejaEntrada.registrarEliminacion(mensaje, true);
+
+        // Assert
+        assertEquals(0, delDestinatario.getNoLeidos());
+        verify(resumenRepository, times(1)).delete(delDestinatario);
+    }
+
+    @Test
+    void registrarEliminacion_DelUltimoMensaje_ConHistorialArchivado_MuestraElUltimoArchivado() {
+        // Arrange
+        ResumenConversacion delRemitente = new ResumenConversacion(1L, 2L, null);
+        delRemitente.registrarUltimoMensaje(mensaje);
+        MensajeArchivado archivado = new MensajeArchivado();
+        archivado.setId(4L);
+        archivado.setRemitenteId(2L);
+        archivado.setContenido("Archivado");
+        archivado.setCreadoEn(LocalDateTime.of(2023, 1, 1, 9, 0));
+        when(resumenRepository.findByClaveParaActualizar("2:1:0")).thenReturn(Optional.empty());
+        when(resumenRepository.findByClaveParaActualizar("1:2:0")).thenReturn(Optional.of(delRemitente));
+        when(mensajeRepository.findUltimosMensajesDeConversacion(eq("1:2"), isNull(), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+        when(mensajeArchivadoRepository.findUltimosMensajesDeConversacion(eq("1:2"), isNull(), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(archivado));
+
+        // Act
+        servicioBandejaEntrada.registrarEliminacion(mensaje, false);
+
+        // Assert
+        assertEquals(4L, delRemitente.getUltimoMensajeId());
+        assertEquals(2L, delRemitente.getUltimoRemitenteId());
+        assertEquals("Archivado", delRemitente.getVistaPrevia());
+        verify(resumenRepository).save(delRemitente);
+        verify(resumenRepository, never()).delete(any());
+    }
+
+    @Test
+    void obtenerBandeja_ResuelveNombresEnUnaSolaConsulta() {
+        // Arrange
+        ResumenConversacion resumen = new ResumenConversacion(1L, 2L, null);
+        resumen.setId(7L);
+        resumen.registrarUltimoMensaje(mensaje);
+        when(resumenRepository.findUltimasDeUsuario(1L, PageRequest.of(0, 21)))
+            .thenReturn(Collections.singletonList(resumen));
+        List<Object[]> emails = Collections.singletonList(new Object[]{2L, "destinatario@example.com"});
+        when(usuarioRepository.findEmailsByIds(any())).thenReturn(emails);
+
+        // Act
+        PaginaBandejaDto result = servicioBandejaEntrada.obtenerBandeja(1L, null, null, 20);
+
+        // Assert
+        assertEquals(1, result.getConversaciones().size());
+        assertFalse(result.isHayMas());
+        assertEquals("destinatario@example.com", result.getConversaciones().get(0).getNombreOtroUsuario());
+        verify(usuarioRepository, times(1)).findEmailsByIds(any());
+        verify(usuarioRepository, never()).findById(any());
+    }
+
+    @Test
+    void obtenerBandeja_ConCursor_DevuelveLaPaginaSiguiente() {
+        // Arrange - se pide una fila de más para saber si hay otra página
+        List<ResumenConversacion> filas = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            ResumenConversacion resumen = new ResumenConversacion(1L, 10L + id, null);
+            resumen.setId(id);
+            resumen.setUltimoMensajeId(100L - id);
+            filas.add(resumen);
+        }
+        when(resumenRepository.findDeUsuarioAntesDe(1L, 100L, 9L, PageRequest.of(0, 3))).thenReturn(filas);
+        when(usuarioRepository.findEmailsByIds(any())).thenReturn(Collections.emptyList());
+
+        // Act
+        PaginaBandejaDto result = servicioBandejaEntrada.obtenerBandeja(1L, 100L, 9L, 2);
+
+        // Assert
+        assertEquals(2, result.getConversaciones().size());
+        assertTrue(result.isHayMas());
+        assertEquals(98L, result.getSiguienteAntesDeMensajeId());
+        assertEquals(2L, result.getSiguienteAntesDeId());
+        verify(resumenRepository, never()).findUltimasDeUsuario(any(), any());
+    }
+
+    @Test
+    void registrarEliminaciones_DescuentaYRecalculaAmbosLados() {
+        // Arrange
+        ResumenConversacion delDestinatario = new ResumenConversacion(2L, 1L, null);
+        delDestinatario.registrarUltimoMensaje(mensaje);
+        delDestinatario.setNoLeidos(5);
+        ResumenConversacion delRemitente = new ResumenConversacion(1L, 2L, null);
+        delRemitente.registrarUltimoMensaje(mensaje);
+        when(resumenRepository.findByClaveParaActualizar("2:1:0")).thenReturn(Optional.of(delDestinatario));
+        when(resumenRepository.findByClaveParaActualizar("1:2:0")).thenReturn(Optional.of(delRemitente));
+        when(mensajeRepository.findUltimosMensajesDeConversacion(eq("1:2"), isNull(), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+
+        // Act
+        servicioBandejaEntrada.registrarEliminaciones(1L, 2L, null, 3);
+
+        // Assert
+        assertEquals(2, delDestinatario.getNoLeidos());
+        verify(resumenRepository).delete(delDestinatario);
+        verify(resumenRepository).delete(delRemitente);
+    }
+
+    private void filasNuevas() {
+        when(resumenRepository.findByClaveParaActualizar("1:2:0"))
+            .thenReturn(Optional.of(new ResumenConversacion(1L, 2L, null)));
+        when(resumenRepository.findByClaveParaActualizar("2:1:0"))
+            .thenReturn(Optional.of(new ResumenConversacion(2L, 1L, null)));
+    }
+}
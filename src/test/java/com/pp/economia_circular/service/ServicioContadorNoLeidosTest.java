@@ -0,0 +1,252 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.entity.ContadorNoLeidos;
+import com.pp.economia_circular.repositories.ContadorNoLeidosRepository;
+import com.pp.economia_circular.repositories.MensajeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServicioContadorNoLeidosTest {
+
+    @Mock
+    private ContadorNoLeidosRepository contadorRepository;
+
+    @Mock
+    private MensajeRepository mensajeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ServicioContadorNoLeidos servicioContadorNoLeidos;
+
+    @Test
+    void obtener_ConFilaExistente_NoCuentaMensajes() {
+        // Arrange
+        when(contadorRepository.findById(2L)).thenReturn(Optional.of(new ContadorNoLeidos(2L, 7L)));
+
+        // Act
+        long primera = servicioContadorNoLeidos.obtener(2L);
+        long segunda = servicioContadorNoLeidos.obtener(2L);
+
+        // Assert
+        assertEquals(7L, primera);
+        assertEquals(7L, segunda);
+        verify(contadorRepository, times(1)).findById(2L);
+        verify(mensajeRepository, never()).countUnreadMessagesByUser(any());
+    }
+
+    @Test
+    void obtener_SinFila_PartiendoDeLosMensajes() {
+        // Arrange
+        when(contadorRepository.findById(2L)).thenReturn(Optional.empty());
+        when(mensajeRepository.countUnreadMessagesByUser(2L)).thenReturn(4L);
+
+        // Act
+        long result = servicioContadorNoLeidos.obtener(2L);
+
+        // Assert
+        assertEquals(4L, result);
+    }
+
+    @Test
+    void incrementarYDecrementar_ActualizanValorEnMemoria() {
+        // Arrange
+        when(contadorRepository.findById(2L)).thenReturn(Optional.of(new ContadorNoLeidos(2L, 1L)));
+        servicioContadorNoLeidos.obtener(2L);
+
+        // Act
+        servicioContadorNoLeidos.incrementar(2L, 3);
+        servicioContadorNoLeidos.decrementar(2L, 1);
+
+        // Assert
+        assertEquals(3L, servicioContadorNoLeidos.obtener(2L));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void obtener_NuncaDevuelveNegativo() {
+        // Arrange
+        when(contadorRepository.findById(2L)).thenReturn(Optional.of(new ContadorNoLeidos(2L, 0L)));
+        servicioContadorNoLeidos.obtener(2L);
+
+        // Act
+        servicioContadorNoLeidos.decrementar(2L, 2);
+
+        // Assert
+        assertEquals(0L, servicioContadorNoLeidos.obtener(2L));
+    }
+
+    @Test
+    void volcarPendientes_AplicaDeltasAcumulados() {
+        // Arrange
+        servicioContadorNoLeidos.incrementar(2L, 1);
+        servicioContadorNoLeidos.incrementar(2L, 1);
+        servicioContadorNoLeidos.decrementar(3L, 1);
+        when(contadorRepository.incrementar(any(), any(), any(), any())).thenReturn(1);
+
+        // Act
+        servicioContadorNoLeidos.volcarPendientes();
+        servicioContadorNoLeidos.volcarPendientes();
+
+        // Assert
+        verify(contadorRepository, times(1)).incrementar(eq(2L), eq(2L), any(), any());
+        verify(contadorRepository, times(1)).incrementar(eq(3L), eq(-1L), any(), any());
+        verify(contadorRepository, never()).save(any());
+    }
+
+    @Test
+    void volcarPendientes_SinFila_CreaContadorDesdeMensajes() {
+        // Arrange
+        servicioContadorNoLeidos.incrementar(2L, 1);
+        when(contadorRepository.incrementar(any(), any(), any(), any())).thenReturn(0);
+        when(contadorRepository.findById(2L)).thenReturn(Optional.empty());
+        when(mensajeRepository.countUnreadMessagesByUser(2L)).thenReturn(6L);
+
+        // Act
+        servicioContadorNoLeidos.volcarPendientes();
+
+        // Assert
+        ArgumentCaptor<ContadorNoLeidos> captor = ArgumentCaptor.forClass(ContadorNoLeidos.class);
+        verify(contadorRepository).save(captor.capture());
+        assertEquals(2L, captor.getValue().getUsuarioId());
+        assertEquals(6L, captor.getValue().getCantidad());
+    }
+
+    @Test
+    void volcarPendientes_FalloEnBase_ConservaDeltasParaReintento() {
+        // Arrange
+        servicioContadorNoLeidos.incrementar(2L, 2);
+        when(contadorRepository.incrementar(any(), any(), any(), any()))
+            .thenThrow(new RuntimeException("base caída"))
+            .thenReturn(1);
+
+        // Act
+        servicioContadorNoLeidos.volcarPendientes();
+        servicioContadorNoLeidos.volcarPendientes();
+
+        // Assert
+        verify(contadorRepository, times(2)).incrementar(eq(2L), eq(2L), any(), any());
+    }
+
+    @Test
+    void reconciliarTodos_FijaValoresDesdeMensajes() {
+        // Arrange
+        when(mensajeRepository.countUnreadMessagesGroupedByUser())
+            .thenReturn(Arrays.asList(new Object[]{2L, 5L}, new Object[]{3L, 1L}));
+        when(contadorRepository.fijar(any(), any(), any())).thenReturn(1);
+
+        // Act
+        servicioContadorNoLeidos.reconciliarTodos();
+
+        // Assert
+        verify(contadorRepository, times(1)).reiniciarTodos(any());
+        verify(contadorRepository, times(1)).fijar(eq(2L), eq(5L), any());
+        verify(contadorRepository, times(1)).fijar(eq(3L), eq(1L), any());
+    }
+
+    @Test
+    void reconciliarTodos_DescartaDeltasAnterioresAlRecalculo() {
+        // Arrange - el delta ya está contado en mensajes cuando se recalcula
+        servicioContadorNoLeidos.incrementar(2L, 1);
+        when(mensajeRepository.countUnreadMessagesGroupedByUser())
+            .thenReturn(Collections.singletonList(new Object[]{2L, 5L}));
+        when(contadorRepository.fijar(any(), any(), any())).thenReturn(1);
+
+        // Act
+        servicioContadorNoLeidos.reconciliarTodos();
+        servicioContadorNoLeidos.volcarPendientes();
+
+        // Assert
+        verify(contadorRepository, never()).incrementar(any(), any(), any(), any());
+    }
+
+    @Test
+    void volcarPendientes_FilaRecalculadaDespuesDelDelta_LoDescarta() {
+        // Arrange - otra instancia recalculó el contador después de todos los cambios del delta
+        servicioContadorNoLeidos.incrementar(2L, 1);
+        when(contadorRepository.incrementar(any(), any(), any(), any())).thenReturn(0);
+        when(contadorRepository.findById(2L)).thenReturn(Optional.of(
+            new ContadorNoLeidos(2L, 5L, LocalDateTime.now().plusMinutes(1))));
+
+        // Act
+        servicioContadorNoLeidos.volcarPendientes();
+
+        // Assert
+        verify(contadorRepository, times(1)).incrementar(any(), any(), any(), any());
+        verify(contadorRepository, never()).save(any());
+        verify(mensajeRepository, never()).countUnreadMessagesByUser(any());
+    }
+
+    @Test
+    void volcarPendientes_RecalculoEntreDosCambios_SoloDescartaLoAnterior() throws InterruptedException {
+        // Arrange - +1 antes de que otra instancia recalcule el contador y +2 después
+        servicioContadorNoLeidos.incrementar(2L, 1);
+        Thread.sleep(5);
+        LocalDateTime reconciliadoEn = LocalDateTime.now();
+        Thread.sleep(5);
+        servicioContadorNoLeidos.incrementar(2L, 2);
+        when(contadorRepository.incrementar(eq(2L), eq(3L), any(), any())).thenReturn(0);
+        when(contadorRepository.findById(2L)).thenReturn(Optional.of(new ContadorNoLeidos(2L, 5L, reconciliadoEn)));
+        when(contadorRepository.incrementar(eq(2L), eq(2L), eq(reconciliadoEn), any())).thenReturn(1);
+
+        // Act
+        servicioContadorNoLeidos.volcarPendientes();
+
+        // Assert: el recálculo ya contó el +1; el +2 se suma igual
+        verify(contadorRepository, times(1)).incrementar(eq(2L), eq(2L), eq(reconciliadoEn), any());
+        verify(contadorRepository, never()).save(any());
+    }
+
+    @Test
+    void obtener_ValorVencido_VuelveALeerLaBase() {
+        // Arrange - otra instancia volcó cambios a la fila
+        ReflectionTestUtils.setField(servicioContadorNoLeidos, "cacheTtlMs", -1L);
+        when(contadorRepository.findById(2L))
+            .thenReturn(Optional.of(new ContadorNoLeidos(2L, 1L)))
+            .thenReturn(Optional.of(new ContadorNoLeidos(2L, 4L)));
+
+        // Act
+        long primera = servicioContadorNoLeidos.obtener(2L);
+        long segunda = servicioContadorNoLeidos.obtener(2L);
+
+        // Assert
+        assertEquals(1L, primera);
+        assertEquals(4L, segunda);
+    }
+
+    @Test
+    void obtener_CacheLlena_NoDescartaLosQueYaEstaban() {
+        // Arrange
+        ReflectionTestUtils.setField(servicioContadorNoLeidos, "maxEnMemoria", 1);
+        when(contadorRepository.findById(2L)).thenReturn(Optional.of(new ContadorNoLeidos(2L, 7L)));
+        when(contadorRepository.findById(3L)).thenReturn(Optional.of(new ContadorNoLeidos(3L, 2L)));
+        servicioContadorNoLeidos.obtener(2L);
+
+        // Act
+        servicioContadorNoLeidos.obtener(3L);
+        servicioContadorNoLeidos.obtener(3L);
+        servicioContadorNoLeidos.obtener(2L);
+
+        // Assert
+        verify(contadorRepository, times(1)).findById(2L);
+        verify(contadorRepository, times(2)).findById(3L);
+    }
+}
@@ -0,0 +1,174 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.CrearDifusionDto;
+import com.pp.economia_circular.DTO.EstadoDifusionDto;
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServicioDifusionTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private JWTService authService;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ServicioContadorNoLeidos servicioContadorNoLeidos;
+
+    @Mock
+    private NotificadorMensajes notificadorMensajes;
+
+    // Ejecuta la difusión en el hilo del test
+    @Spy
+    private TaskExecutor ejecutorDifusion = new SyncTaskExecutor();
+
+    @Mock
+    private ReportChangeTracker reportChangeTracker;
+
+    @InjectMocks
+    private ServicioDifusion servicioDifusion;
+
+    private Usuario admin;
+
+    @BeforeEach
+    void setUp() {
+        admin = new Usuario();
+        admin.setId(1L);
+        admin.setEmail("admin@example.com");
+        admin.setRol("ADMIN");
+        ReflectionTestUtils.setField(servicioDifusion, "destinatariosPorTransaccion", 2);
+    }
+
+    @Test
+    void iniciar_EnviaPorTramosYReportaProgreso() {
+        // Arrange
+        when(authService.getCurrentUser()).thenReturn(admin);
+        when(usuarioRepository.countActivosExcepto(1L)).thenReturn(3L);
+        when(usuarioRepository.findIdsActivosDesde(eq(0L), eq(1L), any(Pageable.class)))
+            .thenReturn(Arrays.asList(2L, 3L));
+        when(usuarioRepository.findIdsActivosDesde(eq(3L), eq(1L), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(4L));
+        when(notificadorMensajes.usuariosConectados()).thenReturn(Collections.singleton(3L));
+        when(servicioContadorNoLeidos.obtener(3L)).thenReturn(1L);
+
+        // Act
+        EstadoDifusionDto inicial = servicioDifusion.iniciar(new CrearDifusionDto("Feria de reciclaje el sábado"));
+        EstadoDifusionDto result = servicioDifusion.obtenerEstado(inicial.getId());
+
+        // Assert
+        assertEquals("COMPLETADA", result.getEstado());
+        assertEquals(3L, result.getTotal());
+        assertEquals(3L, result.getEnviados());
+        assertNotNull(result.getFinalizadoEn());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+        // Bandeja y contadores: una sentencia cada uno por tramo
+        verify(jdbcTemplate, times(4)).update(anyString(), any(SqlParameterSource.class));
+        verify(servicioContadorNoLeidos).invalidar(2L);
+        verify(servicioContadorNoLeidos).invalidar(3L);
+        verify(servicioContadorNoLeidos).invalidar(4L);
+        verify(notificadorMensajes).notificarNoLeidos(3L, 1L);
+        verify(notificadorMensajes, never()).notificarNoLeidos(eq(2L), any());
+        verify(usuarioRepository, never()).findById(any());
+    }
+
+    @Test
+    void iniciar_BandejaSeActualizaPorIdDeDifusionYNoPorFecha() {
+        // Arrange
+        when(authService.getCurrentUser()).thenReturn(admin);
+        when(usuarioRepository.findIdsActivosDesde(eq(0L), eq(1L), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(2L));
+        when(notificadorMensajes.usuariosConectados()).thenReturn(Collections.emptySet());
+
+        // Act
+        EstadoDifusionDto inicial = servicioDifusion.iniciar(new CrearDifusionDto("Aviso"));
+
+        // Assert - cada mensaje lleva la difusión y la bandeja filtra por ella
+        ArgumentCaptor<SqlParameterSource[]> filas = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(anyString(), filas.capture());
+        assertEquals(inicial.getId(), filas.getValue()[0].getValue("difusionId"));
+        ArgumentCaptor<SqlParameterSource> bandeja = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).update(contains("resumen_conversaciones"), bandeja.capture());
+        assertEquals(inicial.getId(), bandeja.getValue().getValue("difusionId"));
+        assertFalse(bandeja.getValue().hasValue("creadoEn"));
+    }
+
+    @Test
+    void iniciar_FalloEnUnTramo_QuedaFallidaConLoEnviado() {
+        // Arrange
+        when(authService.getCurrentUser()).thenReturn(admin);
+        when(usuarioRepository.countActivosExcepto(1L)).thenReturn(4L);
+        when(usuarioRepository.findIdsActivosDesde(eq(0L), eq(1L), any(Pageable.class)))
+            .thenReturn(Arrays.asList(2L, 3L));
+        when(usuarioRepository.findIdsActivosDesde(eq(3L), eq(1L), any(Pageable.class)))
+            .thenReturn(Arrays.asList(4L, 5L));
+        when(notificadorMensajes.usuariosConectados()).thenReturn(Collections.emptySet());
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+            .thenReturn(new int[]{1, 1})
+            .thenThrow(new RuntimeException("Conexión perdida"));
+
+        // Act
+        EstadoDifusionDto inicial = servicioDifusion.iniciar(new CrearDifusionDto("Aviso"));
+        EstadoDifusionDto result = servicioDifusion.obtenerEstado(inicial.getId());
+
+        // Assert
+        assertEquals("FALLIDA", result.getEstado());
+        assertEquals(2L, result.getEnviados());
+        assertEquals("Conexión perdida", result.getError());
+    }
+
+    @Test
+    void iniciar_UsuarioNoAdmin_ThrowsException() {
+        // Arrange
+        Usuario usuario = new Usuario();
+        usuario.setId(2L);
+        usuario.setRol("USER");
+        when(authService.getCurrentUser()).thenReturn(usuario);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> servicioDifusion.iniciar(new CrearDifusionDto("Aviso")));
+        assertEquals("Solo los administradores pueden enviar difusiones", exception.getMessage());
+        verifyNoInteractions(usuarioRepository, jdbcTemplate);
+    }
+
+    @Test
+    void obtenerEstado_Inexistente_ThrowsException() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> servicioDifusion.obtenerEstado("no-existe"));
+        assertEquals("Difusión no encontrada", exception.getMessage());
+    }
+}
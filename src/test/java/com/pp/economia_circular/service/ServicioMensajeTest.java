@@ -1,9 +1,11 @@
 package com.pp.economia_circular.service;
 
 import com.pp.economia_circular.DTO.CrearMensajeDto;
+import com.pp.economia_circular.DTO.PaginaMensajesDto;
 import com.pp.economia_circular.DTO.RespuestaMensajeDto;
 import com.pp.economia_circular.entity.Articulo;
 import com.pp.economia_circular.entity.Mensaje;
+import com.pp.economia_circular.entity.MensajeArchivado;
 import com.pp.economia_circular.entity.Usuario;
 import com.pp.economia_circular.repositories.ArticleRepository;
 import com.pp.economia_circular.repositories.MensajeRepository;
@@ -14,14 +16,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +45,21 @@ class ServicioMensajeTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    @Mock
+    private NotificadorMensajes notificadorMensajes;
+
+    @Mock
+    private ServicioContadorNoLeidos servicioContadorNoLeidos;
+
+    @Mock
+    private ServicioBandejaEntrada servicioBandejaEntrada;
+
+    @Mock
+    private ServicioArchivoMensajes servicioArchivoMensajes;
+
+    @Mock
+    private ReportChangeTracker reportChangeTracker;
+
     @InjectMocks
     private ServicioMensaje servicioMensaje;
 
@@ -92,6 +116,43 @@ class ServicioMensajeTest {
         assertEquals(1L, result.getRemitenteId());
         assertEquals(2L, result.getDestinatarioId());
         verify(mensajeRepository, times(1)).save(any(Mensaje.class));
+        verify(servicioBandejaEntrada, times(1)).registrarEnvio(mensaje);
+    }
+
+    @Test
+    void enviarMensaje_DestinatarioConectado_NotificaEnTiempoReal() {
+        // Arrange
+        crearDto.setDestinatarioId(2L);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(remitente));
+        when(usuarioRepository.findById(2L)).thenReturn(Optional.of(destinatario));
+        when(mensajeRepository.save(any(Mensaje.class))).thenReturn(mensaje);
+        when(notificadorMensajes.estaConectado(2L)).thenReturn(true);
+        when(servicioContadorNoLeidos.obtener(2L)).thenReturn(3L);
+
+        // Act
+        RespuestaMensajeDto result = servicioMensaje.enviarMensaje(crearDto, 1L);
+
+        // Assert
+        verify(servicioContadorNoLeidos, times(1)).incrementar(2L, 1);
+        verify(notificadorMensajes, times(1)).notificarNuevoMensaje(2L, result, 3L);
+    }
+
+    @Test
+    void enviarMensaje_DestinatarioDesconectado_NoConsultaContador() {
+        // Arrange
+        crearDto.setDestinatarioId(2L);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(remitente));
+        when(usuarioRepository.findById(2L)).thenReturn(Optional.of(destinatario));
+        when(mensajeRepository.save(any(Mensaje.class))).thenReturn(mensaje);
+        when(notificadorMensajes.estaConectado(2L)).thenReturn(false);
+
+        // Act
+        servicioMensaje.enviarMensaje(crearDto, 1L);
+
+        // Assert
+        verify(servicioContadorNoLeidos, times(1)).incrementar(2L, 1);
+        verify(notificadorMensajes, never()).notificarNuevoMensaje(any(), any(), any());
+        verify(servicioContadorNoLeidos, never()).obtener(any());
     }
 
     @Test
@@ -193,6 +254,242 @@ class ServicioMensajeTest {
         assertEquals(2L, result.get(0).getDestinatarioId());
     }
 
+    @Test
+    void obtenerConversacionConUsuario_IncluyeElHistorialArchivado() {
+        // Arrange
+        when(mensajeRepository.findConversationBetweenUsers(1L, 2L))
+            .thenReturn(Arrays.asList(mensaje));
+        when(servicioArchivoMensajes.leerConversacionCompleta("1:2"))
+            .thenReturn(Collections.singletonList(archivado(5L, LocalDateTime.of(2023, 1, 1, 9, 0))));
+        when(usuarioRepository.findEmailsByIds(any())).thenReturn(Arrays.asList(
+            new Object[]{1L, "remitente@example.com"},
+            new Object[]{2L, "destinatario@example.com"}));
+
+        // Act
+        List<RespuestaMensajeDto> result = servicioMensaje.obtenerConversacionConUsuario(1L, 2L);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("Archivado", result.get(0).getContenido());
+        assertEquals("destinatario@example.com", result.get(0).getNombreRemitente());
+        assertEquals("Test Message", result.get(1).getContenido());
+    }
+
+    @Test
+    void obtenerMisMensajes_IncluyeElHistorialArchivadoDespuesDeLoReciente() {
+        // Arrange
+        when(mensajeRepository.findConversationsByUser(1L))
+            .thenReturn(Arrays.asList(mensaje));
+        when(servicioArchivoMensajes.leerDeUsuario(1L))
+            .thenReturn(Collections.singletonList(archivado(5L, LocalDateTime.of(2023, 1, 1, 9, 0))));
+        when(usuarioRepository.findEmailsByIds(any())).thenReturn(Collections.emptyList());
+
+        // Act
+        List<RespuestaMensajeDto> result = servicioMensaje.obtenerMisMensajes(1L);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("Test Message", result.get(0).getContenido());
+        assertEquals(5L, result.get(1).getId());
+    }
+
+    @Test
+    void obtenerConversacionPaginada_PrimeraPagina_DevuelveMasRecientesEnOrdenCronologico() {
+        // Arrange
+        Mensaje anterior = new Mensaje();
+        anterior.setId(2L);
+        anterior.setContenido("Anterior");
+        anterior.setRemitente(destinatario);
+        anterior.setDestinatario(remitente);
+        anterior.setCreadoEn(LocalDateTime.of(2024, 1, 1, 10, 0));
+        Mensaje masAntiguo = new Mensaje();
+        masAntiguo.setId(1L);
+        masAntiguo.setContenido("Más antiguo");
+        masAntiguo.setRemitente(remitente);
+        masAntiguo.setDestinatario(destinatario);
+        masAntiguo.setCreadoEn(LocalDateTime.of(2024, 1, 1, 9, 0));
+        mensaje.setId(3L);
+        mensaje.setCreadoEn(LocalDateTime.of(2024, 1, 1, 11, 0));
+        when(mensajeRepository.findUltimosDeConversacion(eq("1:2"), any(Pageable.class)))
+            .thenReturn(Arrays.asList(mensaje, anterior, masAntiguo));
+        when(servicioArchivoMensajes.inicioVentanaCaliente()).thenReturn(LocalDateTime.of(2023, 6, 1, 0, 0));
+
+        // Act
+        PaginaMensajesDto result = servicioMensaje.obtenerConversacionPaginada(2L, 1L, null, null, 2);
+
+        // Assert
+        assertTrue(result.isHayMas());
+        assertEquals(2, result.getMensajes().size());
+        assertEquals("Anterior", result.getMensajes().get(0).getContenido());
+        assertEquals("Test Message", result.getMensajes().get(1).getContenido());
+        assertEquals(2L, result.getSiguienteAntesDeId());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), result.getSiguienteAntesDe());
+        verify(mensajeRepository).findUltimosDeConversacion(eq("1:2"), eq(PageRequest.of(0, 3)));
+        verify(mensajeRepository, never()).findConversationBetweenUsers(any(), any());
+        verify(servicioArchivoMensajes, never()).leerConversacion(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void obtenerConversacionPaginada_PasadaLaVentanaCaliente_CompletaDesdeElArchivo() {
+        // Arrange
+        mensaje.setId(30L);
+        mensaje.setCreadoEn(LocalDateTime.of(2024, 1, 1, 11, 0));
+        MensajeArchivado archivado = archivado(5L, LocalDateTime.of(2023, 1, 1, 9, 0));
+        when(mensajeRepository.findUltimosDeConversacion(eq("1:2"), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(mensaje));
+        when(servicioArchivoMensajes.leerConversacion("1:2", null, null, 51))
+            .thenReturn(Collections.singletonList(archivado));
+        when(usuarioRepository.findEmailsByIds(any())).thenReturn(Arrays.asList(
+            new Object[]{1L, "remitente@example.com"},
+            new Object[]{2L, "destinatario@example.com"}));
+
+        // Act
+        PaginaMensajesDto result = servicioMensaje.obtenerConversacionPaginada(1L, 2L, null, null, 50);
+
+        // Assert
+        assertFalse(result.isHayMas());
+        assertEquals(2, result.getMensajes().size());
+        assertEquals("Archivado", result.getMensajes().get(0).getContenido());
+        assertEquals("destinatario@example.com", result.getMensajes().get(0).getNombreRemitente());
+        assertEquals("Test Message", result.getMensajes().get(1).getContenido());
+        assertEquals(5L, result.getSiguienteAntesDeId());
+    }
+
+    @Test
+    void obtenerConversacionPaginada_ConCursor_UltimaPagina() {
+        // Arrange
+        LocalDateTime antesDe = LocalDateTime.of(2024, 1, 1, 10, 0);
+        when(mensajeRepository.findDeConversacionAntesDe(eq("1:2"), eq(antesDe), eq(2L), any(Pageable.class)))
+            .thenReturn(Arrays.asList(mensaje));
+
+        // Act
+        PaginaMensajesDto result = servicioMensaje.obtenerConversacionPaginada(1L, 2L, antesDe, 2L, 50);
+
+        // Assert
+        assertFalse(result.isHayMas());
+        assertEquals(1, result.getMensajes().size());
+        assertEquals(1L, result.getSiguienteAntesDeId());
+    }
+
+    @Test
+    void obtenerConversacionPaginada_LimiteExcesivo_SeAcota() {
+        // Arrange
+        when(mensajeRepository.findUltimosDeConversacion(eq("1:2"), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+
+        // Act
+        PaginaMensajesDto result = servicioMensaje.obtenerConversacionPaginada(1L, 2L, null, null, 10000);
+
+        // Assert
+        assertFalse(result.isHayMas());
+        assertTrue(result.getMensajes().isEmpty());
+        assertNull(result.getSiguienteAntesDeId());
+        verify(mensajeRepository).findUltimosDeConversacion(eq("1:2"), eq(PageRequest.of(0, 101)));
+    }
+
+    @Test
+    void marcarConversacionComoLeida_UnaSolaActualizacion() {
+        // Arrange
+        List<Object[]> grupos = Collections.singletonList(new Object[]{1L, 1L, 3L});
+        when(mensajeRepository.resumirNoLeidosDeConversacion("1:2", 2L)).thenReturn(grupos);
+        when(mensajeRepository.marcarConversacionComoLeida(eq("1:2"), eq(2L), any(LocalDateTime.class)))
+            .thenReturn(3);
+
+        // Act
+        int result = servicioMensaje.marcarConversacionComoLeida(2L, 1L);
+
+        // Assert
+        assertEquals(3, result);
+        verify(servicioBandejaEntrada).registrarLecturas(2L, 1L, 1L, 3);
+        verify(servicioContadorNoLeidos).decrementar(2L, 3L);
+        verify(mensajeRepository, never()).findById(any());
+        verify(mensajeRepository, never()).save(any(Mensaje.class));
+    }
+
+    @Test
+    void marcarComoLeidos_BandejaYContadorSeDescuentanDelMismoResumen() {
+        // Arrange
+        List<Long> ids = Arrays.asList(5L, 6L, 7L);
+        List<Object[]> grupos = Arrays.asList(new Object[]{1L, null, 2L}, new Object[]{4L, 9L, 1L});
+        when(mensajeRepository.resumirNoLeidosPorIds(ids, 2L)).thenReturn(grupos);
+        when(mensajeRepository.marcarComoLeidos(eq(ids), eq(2L), any(LocalDateTime.class))).thenReturn(3);
+
+        // Act
+        int result = servicioMensaje.marcarComoLeidos(ids, 2L);
+
+        // Assert
+        assertEquals(3, result);
+        verify(servicioBandejaEntrada).registrarLecturas(2L, 1L, null, 2);
+        verify(servicioBandejaEntrada).registrarLecturas(2L, 4L, 9L, 1);
+        verify(servicioContadorNoLeidos).decrementar(2L, 3L);
+    }
+
+    @Test
+    void marcarComoLeidos_SinNoLeidosPropios_NoActualiza() {
+        // Arrange
+        List<Long> ids = Arrays.asList(1L, 2L);
+        when(mensajeRepository.resumirNoLeidosPorIds(ids, 3L)).thenReturn(Collections.emptyList());
+
+        // Act
+        int result = servicioMensaje.marcarComoLeidos(ids, 3L);
+
+        // Assert
+        assertEquals(0, result);
+        verify(mensajeRepository, never()).marcarComoLeidos(any(), any(), any());
+        verifyNoInteractions(servicioContadorNoLeidos);
+    }
+
+    @Test
+    void marcarComoLeidos_DemasiadosIds_ThrowsException() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < 501; i++) {
+            ids.add(i);
+        }
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> servicioMensaje.marcarComoLeidos(ids, 2L));
+        assertEquals("No se pueden procesar más de 500 mensajes a la vez", exception.getMessage());
+        verifyNoInteractions(mensajeRepository);
+    }
+
+    @Test
+    void eliminarMensajes_DescuentaNoLeidosPorDestinatario() {
+        // Arrange
+        List<Long> ids = Arrays.asList(1L, 2L, 3L);
+        when(mensajeRepository.resumirPorIdsParaEliminar(ids, 1L)).thenReturn(Arrays.asList(
+            new Object[]{1L, 2L, null, 2L},
+            new Object[]{2L, 1L, null, 0L}));
+        when(mensajeRepository.eliminarPorIds(ids, 1L)).thenReturn(3);
+
+        // Act
+        int result = servicioMensaje.eliminarMensajes(ids, 1L);
+
+        // Assert
+        assertEquals(3, result);
+        verify(servicioBandejaEntrada).registrarEliminaciones(1L, 2L, null, 2);
+        verify(servicioBandejaEntrada).registrarEliminaciones(2L, 1L, null, 0);
+        verify(servicioContadorNoLeidos).decrementar(2L, 2L);
+        verify(servicioContadorNoLeidos, never()).decrementar(eq(1L), anyLong());
+    }
+
+    @Test
+    void eliminarConversacion_Success() {
+        // Arrange
+        when(mensajeRepository.resumirConversacionParaEliminar("1:2", 1L))
+            .thenReturn(Collections.singletonList(new Object[]{2L, 1L, 1L, 1L}));
+        when(mensajeRepository.eliminarConversacion("1:2", 1L)).thenReturn(4);
+
+        // Act
+        int result = servicioMensaje.eliminarConversacion(1L, 2L);
+
+        // Assert
+        assertEquals(4, result);
+        verify(servicioBandejaEntrada).registrarEliminaciones(2L, 1L, 1L, 1);
+        verify(servicioContadorNoLeidos).decrementar(1L, 1L);
+    }
+
     @Test
     void obtenerMensajesPorArticulo_Success() {
         // Arrange
@@ -225,13 +522,14 @@ class ServicioMensajeTest {
     @Test
     void contarMensajesNoLeidos_Success() {
         // Arrange
-        when(mensajeRepository.countUnreadMessagesByUser(2L)).thenReturn(5L);
+        when(servicioContadorNoLeidos.obtener(2L)).thenReturn(5L);
 
         // Act
         Long result = servicioMensaje.contarMensajesNoLeidos(2L);
 
         // Assert
         assertEquals(5L, result);
+        verify(mensajeRepository, never()).countUnreadMessagesByUser(any());
     }
 
     @Test
@@ -250,6 +548,23 @@ class ServicioMensajeTest {
         assertNotNull(mensaje.getLeidoEn());
     }
 
+    @Test
+    void marcarComoLeido_DestinatarioConectado_NotificaNoLeidos() {
+        // Arrange
+        when(mensajeRepository.findById(1L)).thenReturn(Optional.of(mensaje));
+        when(mensajeRepository.save(any(Mensaje.class))).thenReturn(mensaje);
+        when(notificadorMensajes.estaConectado(2L)).thenReturn(true);
+        when(servicioContadorNoLeidos.obtener(2L)).thenReturn(0L);
+
+        // Act
+        servicioMensaje.marcarComoLeido(1L, 2L);
+
+        // Assert
+        verify(servicioBandejaEntrada, times(1)).registrarLectura(mensaje);
+        verify(servicioContadorNoLeidos, times(1)).decrementar(2L, 1);
+        verify(notificadorMensajes, times(1)).notificarNoLeidos(2L, 0L);
+    }
+
     @Test
     void marcarComoLeido_NoEsDestinatario_ThrowsException() {
         // Arrange
@@ -284,6 +599,8 @@ class ServicioMensajeTest {
         // Assert
         verify(mensajeRepository, times(1)).save(any(Mensaje.class));
         assertEquals(Mensaje.EstadoMensaje.ELIMINADO, mensaje.getEstado());
+        verify(servicioBandejaEntrada, times(1)).registrarEliminacion(mensaje, true);
+        verify(servicioContadorNoLeidos, times(1)).decrementar(2L, 1);
     }
 
     @Test
@@ -321,5 +638,15 @@ class ServicioMensajeTest {
             () -> servicioMensaje.eliminarMensaje(999L, 1L));
         assertEquals("Mensaje no encontrado", exception.getMessage());
     }
-}
 
+    private static MensajeArchivado archivado(Long id, LocalDateTime creadoEn) {
+        MensajeArchivado archivado = new MensajeArchivado();
+        archivado.setId(id);
+        archivado.setContenido("Archivado");
+        archivado.setRemitenteId(2L);
+        archivado.setDestinatarioId(1L);
+        archivado.setEstado(Mensaje.EstadoMensaje.LEIDO);
+        archivado.setCreadoEn(creadoEn);
+        return archivado;
+    }
+}
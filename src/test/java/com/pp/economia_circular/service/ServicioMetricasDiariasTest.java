@@ -0,0 +1,177 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.DTO.ReportDto;
+import com.pp.economia_circular.entity.MetricaDiaria;
+import com.pp.economia_circular.repositories.MetricaDiariaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServicioMetricasDiariasTest {
+
+    @Mock
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ServicioMetricasDiarias servicioMetricasDiarias;
+
+    @Test
+    void actualizar_ConDiasCalculados_ReprocesaSoloLaVentana() {
+        // Arrange
+        when(metricaDiariaRepository.findUltimoDia()).thenReturn(LocalDate.now());
+
+        // Act
+        int dias = servicioMetricasDiarias.actualizar();
+
+        // Assert: hoy más los 3 días anteriores
+        assertEquals(4, dias);
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), captor.capture());
+        assertEquals(4, captor.getValue().length);
+        assertEquals(LocalDate.now().minusDays(3), captor.getValue()[0].getValue("dia"));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), any(SqlParameterSource.class), eq(LocalDateTime.class));
+    }
+
+    @Test
+    void actualizar_SinRollup_ParteDelDatoMasAntiguoEnTramos() {
+        // Arrange
+        when(metricaDiariaRepository.findUltimoDia()).thenReturn(null);
+        when(jdbcTemplate.queryForObject(anyString(), any(SqlParameterSource.class), eq(LocalDateTime.class)))
+                .thenReturn(LocalDate.now().minusDays(40).atTime(9, 30));
+
+        // Act
+        int dias = servicioMetricasDiarias.actualizar();
+
+        // Assert
+        assertEquals(41, dias);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    @Test
+    void recalcular_AsignaConteosAgrupadosYCerosAlRestoDeDias() {
+        // Arrange
+        LocalDate dia = LocalDate.of(2024, 3, 10);
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("dia", java.sql.Date.valueOf(dia));
+        fila.put("cantidad", 2L);
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class)))
+                .thenReturn(Collections.singletonList(fila));
+
+        // Act
+        servicioMetricasDiarias.recalcular(dia, dia.plusDays(1));
+
+        // Assert
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        SqlParameterSource[] filas = captor.getValue();
+        assertEquals(2, filas.length);
+        assertEquals(2L, filas[0].getValue("articulos_nuevos"));
+        assertEquals(2L, filas[0].getValue("usuarios_activos"));
+        assertEquals(0L, filas[1].getValue("mensajes"));
+        verify(jdbcTemplate, times(6)).queryForList(anyString(), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void recalcular_RangoInvertido_LanzaExcepcion() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> servicioMetricasDiarias.recalcular(LocalDate.of(2024, 3, 10), LocalDate.of(2024, 3, 1)));
+        assertEquals("La fecha desde no puede ser posterior a la fecha hasta", exception.getMessage());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void recalcular_UsuariosActivos_IncluyeMensajesArchivados() {
+        // Arrange
+        LocalDate dia = LocalDate.of(2024, 3, 10);
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class)))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        servicioMetricasDiarias.recalcular(dia, dia);
+
+        // Assert
+        verify(jdbcTemplate).queryForList(
+                argThat((String sql) -> sql.contains("COUNT(DISTINCT usuario_id)")
+                        && sql.contains("remitente_id FROM mensajes_archivados")),
+                any(SqlParameterSource.class));
+    }
+
+    @Test
+    void reconstruir_RangoMayorAlTope_LanzaExcepcion() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> servicioMetricasDiarias.reconstruir(LocalDate.of(2020, 1, 1), LocalDate.of(2024, 1, 1)));
+        assertEquals("El rango a reconstruir no puede superar 92 días", exception.getMessage());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void obtenerTendencias_LeeSoloElRollupYCompletaDiasFaltantes() {
+        // Arrange
+        LocalDate desde = LocalDate.of(2024, 3, 1);
+        MetricaDiaria primero = metrica(desde, 3L, 5L);
+        MetricaDiaria tercero = metrica(desde.plusDays(2), 1L, 8L);
+        when(metricaDiariaRepository.findByDiaBetweenOrderByDiaAsc(desde, desde.plusDays(2)))
+                .thenReturn(Arrays.asList(primero, tercero));
+
+        // Act
+        ReportDto result = servicioMetricasDiarias.obtenerTendencias(desde, desde.plusDays(2));
+
+        // Assert
+        List<Map<String, Object>> dias = (List<Map<String, Object>>) result.getData().get("days");
+        assertEquals(3, dias.size());
+        assertEquals("2024-03-02", dias.get(1).get("date"));
+        assertEquals(0L, dias.get(1).get("newArticles"));
+        Map<String, Object> totales = (Map<String, Object>) result.getData().get("totals");
+        assertEquals(4L, totales.get("newArticles"));
+        assertEquals(8L, totales.get("peakActiveUsers"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void obtenerTendencias_RangoDemasiadoLargo_LanzaExcepcion() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> servicioMetricasDiarias.obtenerTendencias(LocalDate.of(2020, 1, 1), LocalDate.of(2024, 1, 1)));
+        assertEquals("El rango no puede superar 731 días", exception.getMessage());
+        verifyNoInteractions(metricaDiariaRepository);
+    }
+
+    private MetricaDiaria metrica(LocalDate dia, Long articulos, Long activos) {
+        MetricaDiaria metrica = new MetricaDiaria(dia);
+        metrica.setArticulosNuevos(articulos);
+        metrica.setUsuariosActivos(activos);
+        metrica.setCalculadoEn(LocalDateTime.now());
+        return metrica;
+    }
+}
@@ -0,0 +1,114 @@
+package com.pp.economia_circular.service;
+
+import com.pp.economia_circular.entity.Usuario;
+import com.pp.economia_circular.repositories.ArticleRepository;
+import com.pp.economia_circular.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsuarioServiceTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ArticleRepository articleRepository;
+
+    @Mock
+    private ReportChangeTracker reportChangeTracker;
+
+    @InjectMocks
+    private UsuarioService usuarioService;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setId(4L);
+        usuario.setNombre("Ana");
+        usuario.setLatitud(-34.60);
+        usuario.setLongitud(-58.38);
+    }
+
+    @Test
+    void actualizarUsuario_SeMuda_ActualizaLosArticulosQueHeredanSuUbicacion() {
+        // Arrange
+        when(usuarioRepository.findById(4L)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        // Act
+        Optional<Usuario> result = usuarioService.actualizarUsuario(4L, datos(-31.42, -64.18));
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(-31.42, result.get().getLatitud());
+        verify(articleRepository).actualizarUbicacionHeredada(4L, -31.42, -64.18);
+        verify(reportChangeTracker).markChanged(Usuario.class);
+    }
+
+    @Test
+    void actualizarUsuario_MismaUbicacion_NoTocaLosArticulos() {
+        // Arrange
+        when(usuarioRepository.findById(4L)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        // Act
+        usuarioService.actualizarUsuario(4L, datos(-34.60, -58.38));
+
+        // Assert
+        verify(articleRepository, never()).actualizarUbicacionHeredada(anyLong(), any(), any());
+    }
+
+    @Test
+    void actualizarUsuario_SoloLatitud_LanzaExcepcionSinGuardar() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> usuarioService.actualizarUsuario(4L, datos(-31.42, null)));
+        assertEquals("Debe indicar latitud y longitud juntas", exception.getMessage());
+        verifyNoInteractions(usuarioRepository, articleRepository);
+    }
+
+    @Test
+    void actualizarUsuario_LatitudFueraDeRango_LanzaExcepcionSinGuardar() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> usuarioService.actualizarUsuario(4L, datos(-91.0, -58.38)));
+        assertEquals("Coordenadas inválidas", exception.getMessage());
+        verifyNoInteractions(usuarioRepository, articleRepository);
+    }
+
+    @Test
+    void actualizarUsuario_NoExiste_DevuelveVacio() {
+        // Arrange
+        when(usuarioRepository.findById(4L)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<Usuario> result = usuarioService.actualizarUsuario(4L, datos(null, null));
+
+        // Assert
+        assertFalse(result.isPresent());
+        verify(usuarioRepository, never()).save(any());
+        verifyNoInteractions(articleRepository);
+    }
+
+    private static Usuario datos(Double latitud, Double longitud) {
+        Usuario datos = new Usuario();
+        datos.setNombre("Ana");
+        datos.setLatitud(latitud);
+        datos.setLongitud(longitud);
+        return datos;
+    }
+}
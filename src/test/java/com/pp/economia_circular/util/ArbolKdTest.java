@@ -0,0 +1,113 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArbolKdTest {
+
+    @Test
+    void buscarMasCercanos_DevuelveLosKMasCercanosOrdenados() {
+        // Arrange
+        ArbolKd<String> arbol = new ArbolKd<>(Arrays.asList(
+                new IndiceGeografico.Punto<>(1, -34.6037, -58.3816, "obelisco"),
+                new IndiceGeografico.Punto<>(2, -34.5875, -58.3974, "recoleta"),
+                new IndiceGeografico.Punto<>(3, -34.6345, -58.3632, "la boca"),
+                new IndiceGeografico.Punto<>(4, -31.4201, -64.1888, "cordoba")));
+
+        // Act
+        List<IndiceGeografico.Resultado<String>> result = arbol.buscarMasCercanos(-34.6037, -58.3816, 2, null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L), ids(result));
+        assertEquals(0.0, result.get(0).getDistanciaKm(), 1e-9);
+        assertEquals(IndiceGeografico.distanciaKm(-34.6037, -58.3816, -34.5875, -58.3974),
+                result.get(1).getDistanciaKm(), 1e-6);
+    }
+
+    @Test
+    void buscarMasCercanos_AplicaFiltroYDevuelveMenosSiNoAlcanza() {
+        // Arrange
+        ArbolKd<String> arbol = new ArbolKd<>(Arrays.asList(
+                new IndiceGeografico.Punto<>(1, -34.6037, -58.3816, "ONG"),
+                new IndiceGeografico.Punto<>(2, -34.5875, -58.3974, "TALLER"),
+                new IndiceGeografico.Punto<>(3, -31.4201, -64.1888, "TALLER")));
+
+        // Act
+        List<IndiceGeografico.Resultado<String>> result = arbol.buscarMasCercanos(-34.6037, -58.3816, 5, "TALLER"::equals);
+
+        // Assert
+        assertEquals(Arrays.asList(2L, 3L), ids(result));
+    }
+
+    @Test
+    void buscarMasCercanos_ArbolVacio() {
+        // Arrange
+        ArbolKd<String> arbol = new ArbolKd<>(Collections.<IndiceGeografico.Punto<String>>emptyList());
+
+        // Act & Assert
+        assertTrue(arbol.buscarMasCercanos(0, 0, 3, null).isEmpty());
+        assertEquals(0, arbol.tamanio());
+    }
+
+    @Test
+    void buscarMasCercanos_CruzaElAntimeridiano() {
+        // Arrange
+        ArbolKd<String> arbol = new ArbolKd<>(Arrays.asList(
+                new IndiceGeografico.Punto<>(1, -16.5, -179.95, "oeste"),
+                new IndiceGeografico.Punto<>(2, -16.5, 178.0, "este lejano")));
+
+        // Act
+        List<IndiceGeografico.Resultado<String>> result = arbol.buscarMasCercanos(-16.5, 179.99, 1, null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L), ids(result));
+    }
+
+    @Test
+    void buscarMasCercanos_CoincideConRecorridoCompleto() {
+        // Arrange
+        Random random = new Random(5);
+        List<IndiceGeografico.Punto<Integer>> puntos = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            // Algunos repetidos para ejercitar empates en la partición
+            double latitud = i % 10 == 0 ? 10.0 : -90 + random.nextDouble() * 180;
+            double longitud = i % 10 == 0 ? 20.0 : -180 + random.nextDouble() * 360;
+            puntos.add(new IndiceGeografico.Punto<>(i, latitud, longitud, i));
+        }
+        ArbolKd<Integer> arbol = new ArbolKd<>(puntos);
+
+        for (int consulta = 0; consulta < 300; consulta++) {
+            double latitud = -90 + random.nextDouble() * 180;
+            double longitud = -180 + random.nextDouble() * 360;
+            int k = 1 + random.nextInt(20);
+
+            // Act
+            List<IndiceGeografico.Resultado<Integer>> result = arbol.buscarMasCercanos(latitud, longitud, k, v -> v % 3 != 0);
+
+            // Assert
+            List<Double> esperado = puntos.stream()
+                    .filter(p -> p.getValor() % 3 != 0)
+                    .map(p -> IndiceGeografico.distanciaKm(latitud, longitud, p.getLatitud(), p.getLongitud()))
+                    .sorted(Comparator.naturalOrder())
+                    .limit(k)
+                    .collect(Collectors.toList());
+            assertEquals(k, result.size());
+            for (int i = 0; i < k; i++) {
+                assertEquals(esperado.get(i), result.get(i).getDistanciaKm(), 1e-6);
+            }
+        }
+    }
+
+    private static List<Long> ids(List<? extends IndiceGeografico.Resultado<?>> resultados) {
+        return resultados.stream().map(IndiceGeografico.Resultado::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,118 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheGeohashTest {
+
+    @Test
+    void geohash_CoincideConLaCodificacionEstandar() {
+        // Act & Assert
+        assertEquals("u4pruydqq", CacheGeohash.geohash(57.64911, 10.40744, 9));
+        assertEquals("69y7", CacheGeohash.geohash(-34.6037, -58.3816, 4));
+    }
+
+    @Test
+    void buscar_ConsultasCercanasReusanLosCandidatos() {
+        // Arrange
+        List<IndiceGeografico.Punto<String>> puntos = new ArrayList<>();
+        puntos.add(new IndiceGeografico.Punto<>(1, -34.6037, -58.3816, "obelisco"));
+        puntos.add(new IndiceGeografico.Punto<>(2, -34.6083, -58.3712, "plaza de mayo"));
+        puntos.add(new IndiceGeografico.Punto<>(3, -34.9205, -57.9536, "la plata"));
+        AtomicInteger cargas = new AtomicInteger();
+        CacheGeohash.Cargador<String> cargador = contando(puntos, cargas);
+        CacheGeohash<String> cache = new CacheGeohash<>(100, 60000);
+
+        // Act
+        List<IndiceGeografico.Resultado<String>> primera = cache.buscar(-34.6040, -58.3810, 3.0, null, cargador);
+        List<IndiceGeografico.Resultado<String>> segunda = cache.buscar(-34.6045, -58.3805, 2.5, null, cargador);
+
+        // Assert
+        assertEquals(1, cargas.get());
+        assertEquals(2, primera.size());
+        assertEquals("obelisco", primera.get(0).getValor());
+        assertEquals(2, segunda.size());
+        assertTrue(segunda.get(0).getDistanciaKm() <= segunda.get(1).getDistanciaKm());
+    }
+
+    @Test
+    void invalidar_DescartaSoloLasEntradasQueCubrenElPunto() {
+        // Arrange
+        List<IndiceGeografico.Punto<String>> puntos = new ArrayList<>();
+        puntos.add(new IndiceGeografico.Punto<>(1, -34.6037, -58.3816, "obelisco"));
+        AtomicInteger cargas = new AtomicInteger();
+        CacheGeohash.Cargador<String> cargador = contando(puntos, cargas);
+        CacheGeohash<String> cache = new CacheGeohash<>(100, 60000);
+        cache.buscar(-34.6037, -58.3816, 5.0, null, cargador);
+        cache.buscar(-31.4201, -64.1888, 5.0, null, cargador);
+
+        // Act - aparece un punto nuevo al lado del obelisco
+        puntos.add(new IndiceGeografico.Punto<>(2, -34.6040, -58.3820, "nuevo"));
+        cache.invalidar(-34.6040, -58.3820);
+        List<IndiceGeografico.Resultado<String>> resultado = cache.buscar(-34.6037, -58.3816, 5.0, null, cargador);
+
+        // Assert
+        assertEquals(2, resultado.size());
+        assertEquals(2, cache.tamanio());
+        assertEquals(3, cargas.get());
+    }
+
+    @Test
+    void buscar_RadioMayorQueLaUltimaCubeta_NoSeGuarda() {
+        // Arrange
+        AtomicInteger cargas = new AtomicInteger();
+        CacheGeohash<String> cache = new CacheGeohash<>(100, 60000);
+
+        // Act
+        cache.buscar(0, 0, 600, null, contando(new ArrayList<>(), cargas));
+
+        // Assert
+        assertEquals(1, cargas.get());
+        assertEquals(0, cache.tamanio());
+    }
+
+    @Test
+    void buscar_CoincideConRecorrerTodos() {
+        // Arrange
+        Random random = new Random(11);
+        List<IndiceGeografico.Punto<Integer>> puntos = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            puntos.add(new IndiceGeografico.Punto<>(i, -55 + random.nextDouble() * 35, -75 + random.nextDouble() * 25, i));
+        }
+        CacheGeohash<Integer> cache = new CacheGeohash<>(50, 60000);
+        CacheGeohash.Cargador<Integer> cargador = contando(puntos, new AtomicInteger());
+
+        for (int i = 0; i < 1000; i++) {
+            double latitud = -55 + random.nextDouble() * 35;
+            double longitud = -75 + random.nextDouble() * 25;
+            double radio = 0.5 + random.nextDouble() * random.nextDouble() * 500;
+
+            // Act
+            List<Long> ids = cache.buscar(latitud, longitud, radio, valor -> valor % 3 != 0, cargador).stream()
+                    .map(IndiceGeografico.Resultado::getId).sorted().collect(Collectors.toList());
+
+            // Assert
+            List<Long> esperados = puntos.stream()
+                    .filter(p -> p.getValor() % 3 != 0)
+                    .filter(p -> IndiceGeografico.distanciaKm(latitud, longitud, p.getLatitud(), p.getLongitud()) <= radio)
+                    .map(IndiceGeografico.Punto::getId).sorted().collect(Collectors.toList());
+            assertEquals(esperados, ids);
+        }
+    }
+
+    private static <T> CacheGeohash.Cargador<T> contando(List<IndiceGeografico.Punto<T>> puntos, AtomicInteger cargas) {
+        return (latitud, longitud, radioKm) -> {
+            cargas.incrementAndGet();
+            return puntos.stream()
+                    .filter(p -> IndiceGeografico.distanciaKm(latitud, longitud, p.getLatitud(), p.getLongitud()) <= radioKm)
+                    .collect(Collectors.toList());
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CajaGeograficaTest {
+
+    @Test
+    void alrededor_CalculaRangosSimetricos() {
+        // Act
+        CajaGeografica caja = CajaGeografica.alrededor(0.0, 0.0, 111.19);
+
+        // Assert - en el ecuador un grado son ~111.19 km en ambos ejes
+        assertEquals(-1.0, caja.getLatitudMinima(), 0.001);
+        assertEquals(1.0, caja.getLatitudMaxima(), 0.001);
+        assertEquals(-1.0, caja.getLongitudMinima(), 0.001);
+        assertEquals(1.0, caja.getLongitudMaxima(), 0.001);
+        assertFalse(caja.cruzaAntimeridiano());
+    }
+
+    @Test
+    void alrededor_CruzaElAntimeridiano() {
+        // Act
+        CajaGeografica caja = CajaGeografica.alrededor(-16.5, 179.99, 20.0);
+
+        // Assert
+        assertTrue(caja.cruzaAntimeridiano());
+        assertTrue(caja.getLongitudMinima() > 179.0);
+        assertTrue(caja.getLongitudMaxima() < -179.0);
+    }
+
+    @Test
+    void alrededor_ConUnPoloIncluyeTodasLasLongitudes() {
+        // Act
+        CajaGeografica caja = CajaGeografica.alrededor(89.5, 10.0, 100.0);
+
+        // Assert
+        assertEquals(90.0, caja.getLatitudMaxima());
+        assertEquals(-180.0, caja.getLongitudMinima());
+        assertEquals(180.0, caja.getLongitudMaxima());
+    }
+
+    @Test
+    void comoPoligonoWkt_LatitudPrimeroYAnilloCerrado() {
+        // Arrange
+        CajaGeografica caja = CajaGeografica.alrededor(0.0, 0.0, 111.19);
+
+        // Act
+        String wkt = caja.comoPoligonoWkt(caja.getLongitudMinima(), caja.getLongitudMaxima());
+
+        // Assert - 2 grados de ancho más el margen: 5 tramos de medio grado por lado
+        String[] vertices = wkt.substring("POLYGON((".length(), wkt.length() - 2).split(", ");
+        assertEquals(2 * 6 + 1, vertices.length);
+        assertEquals(vertices[0], vertices[vertices.length - 1]);
+        assertTrue(vertices[0].startsWith("-1.0099"));
+        assertEquals(vertices[0].split(" ")[0], vertices[5].split(" ")[0]);
+        assertFalse(wkt.contains("E"));
+    }
+
+    @Test
+    void alrededor_ContieneTodosLosPuntosDelCirculo() {
+        // Arrange
+        Random random = new Random(3);
+
+        for (int i = 0; i < 20000; i++) {
+            double latitud = -89 + random.nextDouble() * 178;
+            double longitud = -180 + random.nextDouble() * 360;
+            double radio = 0.1 + random.nextDouble() * 500;
+            double puntoLatitud = Math.max(-90, Math.min(90, latitud + (random.nextDouble() - 0.5) * 12));
+            double puntoLongitud = longitud + (random.nextDouble() - 0.5) * 40;
+            puntoLongitud = puntoLongitud > 180 ? puntoLongitud - 360 : puntoLongitud < -180 ? puntoLongitud + 360 : puntoLongitud;
+            if (IndiceGeografico.distanciaKm(latitud, longitud, puntoLatitud, puntoLongitud) > radio) {
+                continue;
+            }
+
+            // Act
+            CajaGeografica caja = CajaGeografica.alrededor(latitud, longitud, radio);
+
+            // Assert
+            assertTrue(puntoLatitud >= caja.getLatitudMinima() && puntoLatitud <= caja.getLatitudMaxima());
+            boolean dentroLongitud = caja.cruzaAntimeridiano()
+                    ? puntoLongitud >= caja.getLongitudMinima() || puntoLongitud <= caja.getLongitudMaxima()
+                    : puntoLongitud >= caja.getLongitudMinima() && puntoLongitud <= caja.getLongitudMaxima();
+            assertTrue(dentroLongitud);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrillaClustersTest {
+
+    @Test
+    void buscar_AgrupaPuntosCercanosEnZoomBajo() {
+        // Arrange
+        GrillaClusters grilla = new GrillaClusters(16, 4, 2);
+        grilla.poner(0, 1, -34.6037, -58.3816);
+        grilla.poner(0, 2, -34.6040, -58.3820);
+        grilla.poner(1, 7, -34.6050, -58.3830);
+        grilla.poner(0, 3, -31.4201, -64.1888);
+
+        // Act
+        List<GrillaClusters.Grupo> grupos = grilla.buscar(-75, -56, -53, -21, 4, null);
+
+        // Assert - en zoom 4 Buenos Aires queda en un grupo y Córdoba en otro
+        assertEquals(2, grupos.size());
+        GrillaClusters.Grupo buenosAires = grupos.stream().filter(g -> g.getCantidad() == 3).findFirst().get();
+        assertEquals(2, buenosAires.getCantidad(0));
+        assertEquals(1, buenosAires.getCantidad(1));
+        assertEquals(-1L, buenosAires.getId());
+        assertEquals(-34.6042, buenosAires.getLatitud(), 0.0001);
+        GrillaClusters.Grupo cordoba = grupos.stream().filter(g -> g.getCantidad() == 1).findFirst().get();
+        assertEquals(3L, cordoba.getId());
+        assertEquals(0, cordoba.getCapa());
+        assertEquals(-31.4201, cordoba.getLatitud());
+    }
+
+    @Test
+    void buscar_FiltraCapasYDevuelvePuntoSueltoSiQuedaUnoSolo() {
+        // Arrange
+        GrillaClusters grilla = new GrillaClusters(16, 4, 2);
+        grilla.poner(0, 1, -34.6037, -58.3816);
+        grilla.poner(0, 2, -34.6040, -58.3820);
+        grilla.poner(1, 7, -34.6050, -58.3830);
+
+        // Act
+        List<GrillaClusters.Grupo> soloEventos = grilla.buscar(-75, -56, -53, -21, 4, new boolean[]{false, true});
+
+        // Assert
+        assertEquals(1, soloEventos.size());
+        assertEquals(7L, soloEventos.get(0).getId());
+        assertEquals(1, soloEventos.get(0).getCapa());
+    }
+
+    @Test
+    void quitarYMover_ActualizanTodosLosNiveles() {
+        // Arrange
+        GrillaClusters grilla = new GrillaClusters(16, 4, 1);
+        grilla.poner(0, 1, -34.6037, -58.3816);
+        grilla.poner(0, 2, -34.6040, -58.3820);
+
+        // Act
+        grilla.quitar(0, 1);
+        grilla.poner(0, 2, -31.4201, -64.1888);
+
+        // Assert - con zoom bajo la celda de Buenos Aires también contiene a Córdoba
+        assertEquals(1, grilla.tamanio());
+        for (int zoom = 0; zoom <= 18; zoom++) {
+            assertEquals(zoom >= 3, grilla.buscar(-58.5, -34.7, -58.3, -34.5, zoom, null).isEmpty());
+            List<GrillaClusters.Grupo> cordoba = grilla.buscar(-64.2, -31.5, -64.1, -31.4, zoom, null);
+            assertEquals(1, cordoba.size());
+            assertEquals(2L, cordoba.get(0).getId());
+        }
+    }
+
+    @Test
+    void buscar_SobreElZoomMaximoDevuelvePuntosSueltos() {
+        // Arrange
+        GrillaClusters grilla = new GrillaClusters(10, 4, 1);
+        grilla.poner(0, 1, -34.6037, -58.3816);
+        grilla.poner(0, 2, -34.6037, -58.3816);
+
+        // Act
+        List<GrillaClusters.Grupo> agrupados = grilla.buscar(-58.5, -34.7, -58.3, -34.5, 10, null);
+        List<GrillaClusters.Grupo> sueltos = grilla.buscar(-58.5, -34.7, -58.3, -34.5, 11, null);
+
+        // Assert
+        assertEquals(1, agrupados.size());
+        assertEquals(2, agrupados.get(0).getCantidad());
+        assertEquals(2, sueltos.size());
+    }
+
+    @Test
+    void buscar_VistaQueCruzaElAntimeridiano() {
+        // Arrange
+        GrillaClusters grilla = new GrillaClusters(16, 4, 1);
+        grilla.poner(0, 1, -16.5, 179.9);
+        grilla.poner(0, 2, -16.5, -179.9);
+        grilla.poner(0, 3, -16.5, 170.0);
+
+        // Act
+        List<GrillaClusters.Grupo> grupos = grilla.buscar(179.5, -17, -179.5, -16, 8, null);
+
+        // Assert
+        assertEquals(2, grupos.size());
+        assertEquals(2, grilla.celdasEnVista(179.5, -17, -179.5, -16, 0));
+        // Oeste apenas mayor que este: la vista da toda la vuelta
+        assertEquals(4, grilla.celdasEnVista(10, -17, 5, -16, 0));
+    }
+
+    @Test
+    void buscar_CoincideConAgrupamientoDirecto() {
+        // Arrange
+        Random random = new Random(9);
+        GrillaClusters grilla = new GrillaClusters(12, 4, 2);
+        List<GrillaClusters.Elemento> elementos = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            elementos.add(new GrillaClusters.Elemento(i % 2, i, -55 + random.nextDouble() * 35, -75 + random.nextDouble() * 25));
+        }
+        grilla.reemplazar(elementos);
+        for (int i = 0; i < 500; i++) {
+            grilla.quitar(i % 2, i);
+        }
+
+        for (int zoom = 0; zoom <= 13; zoom++) {
+            double oeste = -75 + random.nextDouble() * 20;
+            double sur = -55 + random.nextDouble() * 30;
+            double este = oeste + random.nextDouble() * 5;
+            double norte = sur + random.nextDouble() * 5;
+
+            // Act
+            List<GrillaClusters.Grupo> grupos = grilla.buscar(oeste, sur, este, norte, zoom, null);
+
+            // Assert - todo punto de la vista cae en algún grupo y los totales cierran
+            int enVista = 0;
+            for (GrillaClusters.Elemento e : elementos.subList(500, elementos.size())) {
+                if (e.getLongitud() >= oeste && e.getLongitud() <= este && e.getLatitud() >= sur && e.getLatitud() <= norte) {
+                    enVista++;
+                }
+            }
+            int agrupados = grupos.stream().mapToInt(GrillaClusters.Grupo::getCantidad).sum();
+            assertTrue(agrupados >= enVista);
+            Map<Integer, Integer> porCapa = new HashMap<>();
+            for (GrillaClusters.Grupo grupo : grupos) {
+                porCapa.merge(0, grupo.getCantidad(0), Integer::sum);
+                porCapa.merge(1, grupo.getCantidad(1), Integer::sum);
+            }
+            assertEquals(agrupados, porCapa.get(0) + porCapa.get(1));
+        }
+        assertEquals(Arrays.asList(2500), Arrays.asList(grilla.tamanio()));
+    }
+}
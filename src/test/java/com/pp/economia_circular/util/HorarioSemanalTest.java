@@ -0,0 +1,89 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HorarioSemanalTest {
+
+    private static final int DIA = HorarioSemanal.MINUTOS_POR_DIA;
+
+    @Test
+    void parsear_DiasYRangosDelTextoLibre() {
+        // Act
+        List<HorarioSemanal.Intervalo> intervalos = HorarioSemanal.parsear("Lunes a Viernes 9:00-18:00, Sábados 10:00-14:00");
+
+        // Assert
+        assertEquals(6, intervalos.size());
+        assertEquals(new HorarioSemanal.Intervalo(9 * 60, 18 * 60), intervalos.get(0));
+        assertEquals(new HorarioSemanal.Intervalo(4 * DIA + 9 * 60, 4 * DIA + 18 * 60), intervalos.get(4));
+        assertEquals(new HorarioSemanal.Intervalo(5 * DIA + 10 * 60, 5 * DIA + 14 * 60), intervalos.get(5));
+    }
+
+    @Test
+    void parsear_AbreviaturasListasYVariosRangosPorDia() {
+        // Act
+        List<HorarioSemanal.Intervalo> abreviado = HorarioSemanal.parsear("Lun-Vie 9-18");
+        List<HorarioSemanal.Intervalo> partido = HorarioSemanal.parsear("Miércoles y Viernes de 9 a 13 y de 15.30 a 19 hs");
+
+        // Assert
+        assertEquals(HorarioSemanal.parsear("lunes a viernes 09:00 - 18:00"), abreviado);
+        assertEquals(Arrays.asList(
+                new HorarioSemanal.Intervalo(2 * DIA + 9 * 60, 2 * DIA + 13 * 60),
+                new HorarioSemanal.Intervalo(2 * DIA + 15 * 60 + 30, 2 * DIA + 19 * 60),
+                new HorarioSemanal.Intervalo(4 * DIA + 9 * 60, 4 * DIA + 13 * 60),
+                new HorarioSemanal.Intervalo(4 * DIA + 15 * 60 + 30, 4 * DIA + 19 * 60)), partido);
+    }
+
+    @Test
+    void parsear_DiasEnInglesYHorasAmPm() {
+        // Act & Assert
+        assertEquals(HorarioSemanal.parsear("Lunes a Viernes 9-17"), HorarioSemanal.parsear("Mon-Fri 9AM-5PM"));
+        assertEquals(Arrays.asList(new HorarioSemanal.Intervalo(6 * DIA, 6 * DIA + 30)),
+                HorarioSemanal.parsear("Sun 12am to 12:30 am"));
+    }
+
+    @Test
+    void parsear_PasarLaMedianocheSigueEnElDiaSiguienteYElDomingoEnElLunes() {
+        // Act
+        List<HorarioSemanal.Intervalo> intervalos = HorarioSemanal.parsear("Sábado a Domingo 22-2");
+
+        // Assert
+        assertEquals(Arrays.asList(
+                new HorarioSemanal.Intervalo(0, 2 * 60),
+                new HorarioSemanal.Intervalo(5 * DIA + 22 * 60, 6 * DIA + 2 * 60),
+                new HorarioSemanal.Intervalo(6 * DIA + 22 * 60, HorarioSemanal.MINUTOS_POR_SEMANA)), intervalos);
+    }
+
+    @Test
+    void parsear_TodaLaSemanaYDiasContiguosSeUnen() {
+        // Act & Assert
+        assertEquals(Arrays.asList(new HorarioSemanal.Intervalo(0, HorarioSemanal.MINUTOS_POR_SEMANA)),
+                HorarioSemanal.parsear("Todos los días 24 hs"));
+        assertEquals(7, HorarioSemanal.parsear("9-18").size());
+        assertEquals(5, HorarioSemanal.parsear("Lunes a Viernes 8-20, Domingos cerrado").size());
+        assertTrue(HorarioSemanal.parsear("  ").isEmpty());
+    }
+
+    @Test
+    void parsear_TextoNoReconocido_ThrowsException() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> HorarioSemanal.parsear("Lunes a Viernes por la mañana"));
+        assertEquals("Horario de atención inválido: no se reconoce 'por'", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> HorarioSemanal.parsear("Lunes a Viernes"));
+        assertThrows(IllegalArgumentException.class, () -> HorarioSemanal.parsear("Lunes 9"));
+        assertThrows(IllegalArgumentException.class, () -> HorarioSemanal.parsear("Lunes 9-25"));
+    }
+
+    @Test
+    void minutoDeLaSemana_EmpiezaElLunes() {
+        // Act & Assert - 10/03/2025 fue lunes
+        assertEquals(9 * 60 + 30, HorarioSemanal.minutoDeLaSemana(LocalDateTime.of(2025, 3, 10, 9, 30)));
+        assertEquals(6 * DIA + 23 * 60 + 59, HorarioSemanal.minutoDeLaSemana(LocalDateTime.of(2025, 3, 16, 23, 59)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceEspacioTemporalTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2025, 3, 10, 18, 30);
+
+    @Test
+    void buscar_FiltraPorRadioYPorFecha() {
+        // Arrange
+        IndiceEspacioTemporal<String> indice = new IndiceEspacioTemporal<>(0.25, Duration.ofDays(1));
+        indice.poner(1, -34.6037, -58.3816, AHORA.plusDays(3), "obelisco");
+        indice.poner(2, -34.6083, -58.3712, AHORA.plusDays(20), "plaza de mayo, después del rango");
+        indice.poner(3, -31.4201, -64.1888, AHORA.plusDays(1), "córdoba, fuera del radio");
+        indice.poner(4, -34.6050, -58.3850, AHORA.minusHours(1), "ya pasó");
+        indice.poner(5, -34.6083, -58.3712, AHORA.plusDays(14), "plaza de mayo, último instante");
+
+        // Act
+        List<IndiceGeografico.Resultado<String>> resultado = indice.buscar(-34.6037, -58.3816, 10.0,
+                AHORA, AHORA.plusDays(14), null);
+
+        // Assert
+        assertEquals(2, resultado.size());
+        assertEquals("obelisco", resultado.get(0).getValor());
+        assertEquals(5L, resultado.get(1).getId());
+    }
+
+    @Test
+    void poner_MueveElPuntoDeTramoYQuitarLoBorra() {
+        // Arrange
+        IndiceEspacioTemporal<String> indice = new IndiceEspacioTemporal<>(0.25, Duration.ofDays(1));
+        indice.poner(1, -34.6037, -58.3816, AHORA.plusDays(1), "evento");
+
+        // Act - se posterga fuera del rango
+        indice.poner(1, -34.6037, -58.3816, AHORA.plusDays(30), "evento");
+        List<IndiceGeografico.Resultado<String>> enDosSemanas = indice.buscar(-34.6037, -58.3816, 5.0,
+                AHORA, AHORA.plusDays(14), null);
+        List<IndiceGeografico.Resultado<String>> enUnMes = indice.buscar(-34.6037, -58.3816, 5.0,
+                AHORA, AHORA.plusDays(31), null);
+        indice.quitar(1);
+
+        // Assert
+        assertTrue(enDosSemanas.isEmpty());
+        assertEquals(1, enUnMes.size());
+        assertEquals(0, indice.tamanio());
+        assertTrue(indice.buscar(-34.6037, -58.3816, 5.0, AHORA, AHORA.plusDays(31), null).isEmpty());
+    }
+
+    @Test
+    void buscar_CoincideConRecorrerTodos() {
+        // Arrange
+        Random random = new Random(23);
+        IndiceEspacioTemporal<Integer> indice = new IndiceEspacioTemporal<>(0.25, Duration.ofHours(6));
+        List<IndiceEspacioTemporal.Entrada<Integer>> entradas = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            entradas.add(new IndiceEspacioTemporal.Entrada<>(i, -40 + random.nextDouble() * 10,
+                    -65 + random.nextDouble() * 10, AHORA.plusMinutes(random.nextInt(60 * 24 * 60)), i));
+        }
+        indice.reemplazar(entradas);
+
+        for (int consulta = 0; consulta < 300; consulta++) {
+            double latitud = -40 + random.nextDouble() * 10;
+            double longitud = -65 + random.nextDouble() * 10;
+            double radio = random.nextDouble() * 300;
+            LocalDateTime desde = AHORA.plusMinutes(random.nextInt(60 * 24 * 60));
+            LocalDateTime hasta = desde.plusMinutes(random.nextInt(60 * 24 * 20));
+
+            // Act
+            List<Long> ids = indice.buscar(latitud, longitud, radio, desde, hasta, valor -> valor % 2 == 0).stream()
+                    .map(IndiceGeografico.Resultado::getId).sorted().collect(Collectors.toList());
+
+            // Assert
+            List<Long> esperados = entradas.stream()
+                    .filter(e -> e.getValor() % 2 == 0)
+                    .filter(e -> !e.getFecha().isBefore(desde) && !e.getFecha().isAfter(hasta))
+                    .filter(e -> IndiceGeografico.distanciaKm(latitud, longitud, e.getLatitud(), e.getLongitud()) <= radio)
+                    .map(IndiceEspacioTemporal.Entrada::getId).sorted().collect(Collectors.toList());
+            assertEquals(esperados, ids);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceGeograficoTest {
+
+    @Test
+    void buscarEnRadio_DevuelveDelMasCercanoAlMasLejano() {
+        // Arrange
+        IndiceGeografico<String> indice = new IndiceGeografico<>(0.1);
+        indice.poner(1, -34.6037, -58.3816, "obelisco");
+        indice.poner(2, -34.5875, -58.3974, "recoleta");
+        indice.poner(3, -34.6345, -58.3632, "la boca");
+        indice.poner(4, -31.4201, -64.1888, "cordoba");
+
+        // Act
+        List<IndiceGeografico.Resultado<String>> result = indice.buscarEnRadio(-34.6037, -58.3816, 10.0, null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(result));
+        assertEquals(0.0, result.get(0).getDistanciaKm());
+        assertTrue(result.get(1).getDistanciaKm() < result.get(2).getDistanciaKm());
+    }
+
+    @Test
+    void buscarEnRadio_AplicaFiltro() {
+        // Arrange
+        IndiceGeografico<String> indice = new IndiceGeografico<>(0.1);
+        indice.poner(1, -34.6037, -58.3816, "ONG");
+        indice.poner(2, -34.6040, -58.3820, "TALLER");
+
+        // Act
+        List<IndiceGeografico.Resultado<String>> result = indice.buscarEnRadio(-34.6037, -58.3816, 5.0, "TALLER"::equals);
+
+        // Assert
+        assertEquals(Arrays.asList(2L), ids(result));
+    }
+
+    @Test
+    void poner_MismoIdMueveElPuntoYQuitarLoElimina() {
+        // Arrange
+        IndiceGeografico<String> indice = new IndiceGeografico<>(0.1);
+        indice.poner(1, -34.6037, -58.3816, "centro");
+
+        // Act
+        indice.poner(1, -31.4201, -64.1888, "centro");
+
+        // Assert
+        assertEquals(1, indice.tamanio());
+        assertTrue(indice.buscarEnRadio(-34.6037, -58.3816, 50.0, null).isEmpty());
+        assertEquals(1, indice.buscarEnRadio(-31.4201, -64.1888, 1.0, null).size());
+
+        indice.quitar(1);
+        assertEquals(0, indice.tamanio());
+        assertTrue(indice.buscarEnRadio(-31.4201, -64.1888, 1.0, null).isEmpty());
+    }
+
+    @Test
+    void buscarEnRadio_CruzaElAntimeridiano() {
+        // Arrange
+        IndiceGeografico<String> indice = new IndiceGeografico<>(0.1);
+        indice.poner(1, -16.5, 179.95, "este");
+        indice.poner(2, -16.5, -179.95, "oeste");
+
+        // Act
+        List<IndiceGeografico.Resultado<String>> result = indice.buscarEnRadio(-16.5, 179.99, 20.0, null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L), ids(result));
+    }
+
+    @Test
+    void buscarEnRadio_CoincideConRecorridoCompleto() {
+        // Arrange
+        Random random = new Random(11);
+        IndiceGeografico<Integer> indice = new IndiceGeografico<>(0.5);
+        List<IndiceGeografico.Punto<Integer>> puntos = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            puntos.add(new IndiceGeografico.Punto<>(i, -60 + random.nextDouble() * 140, -180 + random.nextDouble() * 360, i));
+        }
+        indice.reemplazar(puntos);
+
+        for (int consulta = 0; consulta < 200; consulta++) {
+            double latitud = -89 + random.nextDouble() * 178;
+            double longitud = -180 + random.nextDouble() * 360;
+            double radio = 1 + random.nextDouble() * 800;
+
+            // Act
+            List<Long> result = ids(indice.buscarEnRadio(latitud, longitud, radio, null));
+
+            // Assert
+            List<Long> esperado = puntos.stream()
+                    .filter(p -> IndiceGeografico.distanciaKm(latitud, longitud, p.getLatitud(), p.getLongitud()) <= radio)
+                    .map(IndiceGeografico.Punto::getId)
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertEquals(esperado, result.stream().sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private static List<Long> ids(List<? extends IndiceGeografico.Resultado<?>> resultados) {
+        return resultados.stream().map(IndiceGeografico.Resultado::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,76 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceHorariosTest {
+
+    private static final int DIA = HorarioSemanal.MINUTOS_POR_DIA;
+
+    @Test
+    void abiertosEn_RespetaLosBordesDeCadaIntervalo() {
+        // Arrange
+        Map<Long, List<HorarioSemanal.Intervalo>> horarios = new HashMap<>();
+        horarios.put(1L, HorarioSemanal.parsear("Lunes a Viernes 9-18"));
+        horarios.put(2L, HorarioSemanal.parsear("Sábados 10-14"));
+        horarios.put(3L, HorarioSemanal.parsear("Domingo 22-2"));
+        horarios.put(4L, new ArrayList<>());
+        IndiceHorarios indice = new IndiceHorarios(horarios);
+
+        // Act
+        LongPredicate lunesNueve = indice.abiertosEn(9 * 60);
+        LongPredicate lunesSeis = indice.abiertosEn(18 * 60);
+        LongPredicate lunesUno = indice.abiertosEn(60);
+        LongPredicate sabadoMediodia = indice.abiertosEn(5 * DIA + 12 * 60);
+
+        // Assert
+        assertTrue(lunesNueve.test(1L));
+        assertFalse(lunesSeis.test(1L));
+        assertTrue(lunesUno.test(3L));
+        assertFalse(lunesUno.test(1L));
+        assertTrue(sabadoMediodia.test(2L));
+        assertFalse(sabadoMediodia.test(4L));
+        assertEquals(1, indice.cantidadAbiertos(6 * DIA + 23 * 60));
+        assertEquals(0, indice.cantidadAbiertos(3 * DIA + 20 * 60));
+    }
+
+    @Test
+    void abiertosEn_CoincideConRecorrerLosHorarios() {
+        // Arrange
+        Random random = new Random(31);
+        Map<Long, List<HorarioSemanal.Intervalo>> horarios = new HashMap<>();
+        for (long id = 0; id < 300; id++) {
+            List<HorarioSemanal.Intervalo> intervalos = new ArrayList<>();
+            int desde = random.nextInt(DIA);
+            while (desde < HorarioSemanal.MINUTOS_POR_SEMANA - 1) {
+                int hasta = Math.min(HorarioSemanal.MINUTOS_POR_SEMANA, desde + 1 + random.nextInt(12 * 60));
+                intervalos.add(new HorarioSemanal.Intervalo(desde, hasta));
+                desde = hasta + 1 + random.nextInt(2 * DIA);
+            }
+            horarios.put(id, intervalos);
+        }
+        IndiceHorarios indice = new IndiceHorarios(horarios);
+
+        for (int consulta = 0; consulta < 2000; consulta++) {
+            int minuto = random.nextInt(HorarioSemanal.MINUTOS_POR_SEMANA);
+
+            // Act
+            LongPredicate abiertos = indice.abiertosEn(minuto);
+
+            // Assert
+            for (Map.Entry<Long, List<HorarioSemanal.Intervalo>> entrada : horarios.entrySet()) {
+                boolean esperado = entrada.getValue().stream()
+                        .anyMatch(intervalo -> intervalo.getInicio() <= minuto && minuto < intervalo.getFin());
+                assertEquals(esperado, abiertos.test(entrada.getKey()));
+            }
+        }
+    }
+}
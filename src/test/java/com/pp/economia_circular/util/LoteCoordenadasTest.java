@@ -0,0 +1,105 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoteCoordenadasTest {
+
+    @Test
+    void distanciasKm_CoincidenConLaDistanciaPuntoAPunto() {
+        // Arrange - más puntos que la capacidad inicial para que crezca
+        Random random = new Random(5);
+        LoteCoordenadas lote = new LoteCoordenadas(2);
+        double[][] puntos = new double[500][];
+        for (int i = 0; i < puntos.length; i++) {
+            puntos[i] = new double[]{-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360};
+            lote.agregar(100 + i, puntos[i][0], puntos[i][1]);
+        }
+        double[] distancias = new double[lote.tamanio()];
+
+        // Act
+        lote.distanciasKm(-34.6037, -58.3816, distancias);
+
+        // Assert
+        assertEquals(500, lote.tamanio());
+        for (int i = 0; i < puntos.length; i++) {
+            assertEquals(IndiceGeografico.distanciaKm(-34.6037, -58.3816, puntos[i][0], puntos[i][1]), distancias[i]);
+            assertEquals(100 + i, lote.getId(i));
+        }
+    }
+
+    @Test
+    void dentroDeRadio_DevuelveLasPosicionesEnOrdenConSuDistancia() {
+        // Arrange
+        LoteCoordenadas lote = new LoteCoordenadas(4);
+        lote.agregar(1, -34.6037, -58.3816); // Obelisco
+        lote.agregar(2, -31.4201, -64.1888); // Córdoba
+        lote.agregar(3, -34.6083, -58.3712); // Plaza de Mayo
+        int[] posiciones = new int[3];
+        double[] distancias = new double[3];
+
+        // Act
+        int dentro = lote.dentroDeRadio(-34.6037, -58.3816, 5.0, posiciones, distancias);
+
+        // Assert
+        assertEquals(2, dentro);
+        assertEquals(0, posiciones[0]);
+        assertEquals(0.0, distancias[0]);
+        assertEquals(2, posiciones[1]);
+        assertEquals(1.08, distancias[1], 0.01);
+    }
+
+    @Test
+    void dentroDeRadio_RadioDeMediaVueltaIncluyeElAntipoda() {
+        // Arrange
+        LoteCoordenadas lote = new LoteCoordenadas(1);
+        lote.agregar(1, 34.6037, 121.6184);
+        int[] posiciones = new int[1];
+        double[] distancias = new double[1];
+
+        // Act
+        int dentro = lote.dentroDeRadio(-34.6037, -58.3816, Math.PI * IndiceGeografico.RADIO_TIERRA_KM, posiciones, distancias);
+
+        // Assert
+        assertEquals(1, dentro);
+        assertEquals(Math.PI * IndiceGeografico.RADIO_TIERRA_KM, distancias[0], 0.001);
+    }
+
+    @Test
+    void dentroDeRadio_CoincideConFiltrarPorDistancia() {
+        // Arrange
+        Random random = new Random(17);
+        LoteCoordenadas lote = new LoteCoordenadas(16);
+        double[][] puntos = new double[5000][];
+        for (int i = 0; i < puntos.length; i++) {
+            puntos[i] = new double[]{-60 + random.nextDouble() * 50, -80 + random.nextDouble() * 40};
+            lote.agregar(i, puntos[i][0], puntos[i][1]);
+        }
+        int[] posiciones = new int[puntos.length];
+        double[] distancias = new double[puntos.length];
+
+        for (int consulta = 0; consulta < 200; consulta++) {
+            double latitud = -60 + random.nextDouble() * 50;
+            double longitud = -80 + random.nextDouble() * 40;
+            double radio = random.nextDouble() * 800;
+
+            // Act
+            int dentro = lote.dentroDeRadio(latitud, longitud, radio, posiciones, distancias);
+
+            // Assert
+            int esperados = 0;
+            for (int i = 0; i < puntos.length; i++) {
+                double distancia = IndiceGeografico.distanciaKm(latitud, longitud, puntos[i][0], puntos[i][1]);
+                if (distancia <= radio) {
+                    assertEquals(i, posiciones[esperados]);
+                    assertEquals(distancia, distancias[esperados]);
+                    esperados++;
+                }
+            }
+            assertEquals(esperados, dentro);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablaPosicionesTest {
+
+    @Test
+    void rango_OrdenaPorPuntajeYEmpatePorClave() {
+        // Arrange
+        TablaPosiciones tabla = new TablaPosiciones(new Random(7));
+
+        // Act
+        tabla.fijar(30, 5);
+        tabla.fijar(10, 5);
+        tabla.fijar(20, 9);
+        tabla.fijar(40, 1);
+        List<TablaPosiciones.Entrada> result = tabla.rango(1, 10);
+
+        // Assert
+        List<Long> claves = result.stream().map(TablaPosiciones.Entrada::getClave).collect(Collectors.toList());
+        assertEquals(4, tabla.tamanio());
+        assertEquals(20L, claves.get(0));
+        assertEquals(10L, claves.get(1));
+        assertEquals(30L, claves.get(2));
+        assertEquals(40L, claves.get(3));
+        assertEquals(3, result.get(2).getPosicion());
+    }
+
+    @Test
+    void sumar_MueveLaClaveYActualizaPosiciones() {
+        // Arrange
+        TablaPosiciones tabla = new TablaPosiciones(new Random(7));
+        tabla.fijar(1, 10);
+        tabla.fijar(2, 20);
+        tabla.fijar(3, 30);
+
+        // Act
+        long nuevo = tabla.sumar(1, 25);
+
+        // Assert
+        assertEquals(35L, nuevo);
+        assertEquals(1, tabla.posicion(1));
+        assertEquals(2, tabla.posicion(3));
+        assertEquals(3, tabla.posicion(2));
+    }
+
+    @Test
+    void sumar_PuntajeEnCero_QuitaLaClave() {
+        // Arrange
+        TablaPosiciones tabla = new TablaPosiciones(new Random(7));
+        tabla.fijar(1, 2);
+
+        // Act
+        tabla.sumar(1, -2);
+
+        // Assert
+        assertEquals(0, tabla.tamanio());
+        assertEquals(0, tabla.posicion(1));
+        assertEquals(0L, tabla.puntaje(1));
+        assertTrue(tabla.rango(1, 5).isEmpty());
+    }
+
+    @Test
+    void rango_DesdeMitadYFueraDeRango() {
+        // Arrange
+        TablaPosiciones tabla = new TablaPosiciones(new Random(7));
+        for (long clave = 1; clave <= 50; clave++) {
+            tabla.fijar(clave, clave);
+        }
+
+        // Act
+        List<TablaPosiciones.Entrada> pagina = tabla.rango(21, 10);
+
+        // Assert
+        assertEquals(10, pagina.size());
+        assertEquals(21, pagina.get(0).getPosicion());
+        assertEquals(30L, pagina.get(0).getClave());
+        assertEquals(21L, pagina.get(9).getClave());
+        assertTrue(tabla.rango(51, 10).isEmpty());
+        assertEquals(2, tabla.rango(49, 10).size());
+    }
+
+    @Test
+    void operacionesAleatorias_CoincidenConOrdenCompleto() {
+        // Arrange
+        Random random = new Random(42);
+        TablaPosiciones tabla = new TablaPosiciones(new Random(1));
+        Map<Long, Long> esperado = new HashMap<>();
+
+        // Act
+        for (int i = 0; i < 5000; i++) {
+            long clave = random.nextInt(400);
+            long delta = random.nextInt(21) - 8;
+            long nuevo = esperado.getOrDefault(clave, 0L) + delta;
+            tabla.sumar(clave, delta);
+            if (nuevo > 0) {
+                esperado.put(clave, nuevo);
+            } else {
+                esperado.remove(clave);
+            }
+        }
+
+        // Assert
+        List<Map.Entry<Long, Long>> ordenadas = new ArrayList<>(esperado.entrySet());
+        ordenadas.sort((a, b) -> !a.getValue().equals(b.getValue())
+                ? Long.compare(b.getValue(), a.getValue())
+                : Long.compare(a.getKey(), b.getKey()));
+        List<TablaPosiciones.Entrada> todas = tabla.rango(1, tabla.tamanio());
+        assertEquals(ordenadas.size(), todas.size());
+        for (int i = 0; i < ordenadas.size(); i++) {
+            assertEquals((long) ordenadas.get(i).getKey(), todas.get(i).getClave());
+            assertEquals(i + 1, tabla.posicion(ordenadas.get(i).getKey()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.pp.economia_circular.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    @Test
+    void resultado_DevuelveLosKMayoresOrdenados() {
+        // Arrange
+        TopK topK = new TopK(3);
+
+        // Act
+        long[] puntajes = {4, 15, 8, 1, 23, 16, 42};
+        for (int i = 0; i < puntajes.length; i++) {
+            topK.ofrecer(i + 1, puntajes[i]);
+        }
+        List<TopK.Entrada> result = topK.resultado();
+
+        // Assert
+        assertEquals(3, result.size());
+        assertEquals(42L, result.get(0).getPuntaje());
+        assertEquals(23L, result.get(1).getPuntaje());
+        assertEquals(16L, result.get(2).getPuntaje());
+    }
+
+    @Test
+    void ofrecer_EmpatePrefiereClaveMenor() {
+        // Arrange
+        TopK topK = new TopK(2);
+
+        // Act
+        topK.ofrecer(30, 5);
+        topK.ofrecer(10, 5);
+        topK.ofrecer(20, 5);
+
+        // Assert
+        List<Long> claves = topK.resultado().stream().map(TopK.Entrada::getClave).collect(Collectors.toList());
+        assertEquals(10L, claves.get(0));
+        assertEquals(20L, claves.get(1));
+    }
+
+    @Test
+    void resultado_MenosElementosQueK() {
+        // Arrange
+        TopK topK = new TopK(10);
+        topK.ofrecer(1, 3);
+
+        // Act & Assert
+        assertEquals(1, topK.resultado().size());
+    }
+
+    @Test
+    void constructor_KInvalido_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new TopK(0));
+    }
+}